@@ -0,0 +1,114 @@
+package com.tienda.benchmarks;
+
+import com.tienda.aplicacion.GeneradorReporteVentas;
+import com.tienda.compartido.Dinero;
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.RepositorioOrdenCompra;
+import com.tienda.infraestructura.archivo.RepositorioOrdenCompraArchivado;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compara consultas sobre órdenes históricas en el heap (nivel caliente) contra las
+ * mismas órdenes movidas al archivo columnar. Las órdenes se reparten en dos años y las
+ * de más de 30 días se archivan; al sembrar se imprime el heap ocupado en cada caso.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class ArchivoOrdenesBenchmark {
+
+    private static final int DIAS_HISTORIA = 730;
+
+    @Param({"2000000"})
+    private int ordenes;
+
+    @Param({"CALIENTE", "ARCHIVO"})
+    private String nivel;
+
+    private EscenarioTienda escenario;
+    private RepositorioOrdenCompra repositorioOrden;
+    private RepositorioOrdenCompraArchivado archivo;
+    private GeneradorReporteVentas generadorReportes;
+    private Path directorio;
+    private LocalDateTime inicioMes;
+
+    @Setup(Level.Trial)
+    public void sembrar() throws IOException {
+        escenario = new EscenarioTienda(10_000, 50_000, 1);
+        RepositorioOrdenCompra caliente = escenario.getRepositorioOrden();
+        LocalDateTime ahora = LocalDateTime.now();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < ordenes; i++) {
+            OrdenCompra orden = new OrdenCompra(escenario.elegirUsuario());
+            orden.setItems(escenario.armarItems(DistribucionProductos.UNIFORME, 1 + random.nextInt(3)));
+            LocalDateTime fecha = ahora.minusSeconds(random.nextLong(DIAS_HISTORIA * 86_400L));
+            orden.setEstado(OrdenCompra.EstadoOrden.COMPLETADA);
+            orden.setFechaCreacion(fecha);
+            orden.setFechaActualizacion(fecha);
+            caliente.guardar(orden);
+        }
+
+        if ("ARCHIVO".equals(nivel)) {
+            directorio = Files.createTempDirectory("tienda-archivo");
+            archivo = new RepositorioOrdenCompraArchivado(caliente, escenario.getRepositorioUsuario(),
+                    escenario.getRepositorioProducto(), directorio, Duration.ofDays(30));
+            archivo.archivar();
+            repositorioOrden = archivo;
+        } else {
+            repositorioOrden = caliente;
+        }
+        generadorReportes = new GeneradorReporteVentas(repositorioOrden);
+        inicioMes = ahora.minusDays(180);
+
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("%n[%s] heap ocupado: %d MB%n", nivel,
+                (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+    }
+
+    @TearDown(Level.Trial)
+    public void limpiar() throws IOException {
+        if (archivo != null) {
+            archivo.close();
+            try (Stream<Path> archivos = Files.walk(directorio)) {
+                archivos.sorted(Comparator.reverseOrder()).forEach(ruta -> ruta.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public Dinero reporteMensual() {
+        return generadorReportes.generarReporteVentas(inicioMes, inicioMes.plusDays(30)).getTotalVentas();
+    }
+
+    @Benchmark
+    public List<OrdenCompra> historialUsuario() {
+        return repositorioOrden.obtenerPorUsuario(escenario.elegirUsuario().getId());
+    }
+}
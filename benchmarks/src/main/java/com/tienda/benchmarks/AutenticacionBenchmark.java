@@ -0,0 +1,102 @@
+package com.tienda.benchmarks;
+
+import com.tienda.aplicacion.ServicioGestionUsuario;
+import com.tienda.dominio.Usuario;
+import com.tienda.infraestructura.RepositorioOrdenCompraMemoria;
+import com.tienda.infraestructura.RepositorioUsuarioMemoria;
+import com.tienda.infraestructura.seguridad.AlmacenSesionesMemoria;
+import com.tienda.infraestructura.seguridad.HashContrasenas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inicios de sesión por segundo en un núcleo con distintos factores de trabajo del
+ * hash de contraseñas, y validaciones de sesión por segundo con 100.000 sesiones vivas
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(1)
+public class AutenticacionBenchmark {
+
+    private static final String CONTRASENA = "clave-de-prueba";
+
+    @State(Scope.Benchmark)
+    public static class Credenciales {
+
+        @Param({"100000", "310000", "600000"})
+        private int iteraciones;
+
+        private ServicioGestionUsuario servicioUsuario;
+
+        @Setup(Level.Trial)
+        public void sembrar() {
+            HashContrasenas hash = new HashContrasenas(iteraciones);
+            servicioUsuario = new ServicioGestionUsuario(new RepositorioUsuarioMemoria(hash),
+                    new RepositorioOrdenCompraMemoria(), hash, new AlmacenSesionesMemoria(Duration.ofMinutes(30), 100_000));
+            servicioUsuario.registrarUsuario("Usuario", "usuario@tienda.com", CONTRASENA);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Sesiones {
+
+        private static final int SESIONES = 100_000;
+        private static final int USUARIOS = 10_000;
+
+        private ServicioGestionUsuario servicioUsuario;
+        private String[] tokens;
+
+        @Setup(Level.Trial)
+        public void sembrar() {
+            HashContrasenas hash = new HashContrasenas();
+            RepositorioUsuarioMemoria repositorioUsuario = new RepositorioUsuarioMemoria(hash);
+            AlmacenSesionesMemoria almacenSesiones = new AlmacenSesionesMemoria(Duration.ofHours(1), SESIONES);
+            servicioUsuario = new ServicioGestionUsuario(repositorioUsuario, new RepositorioOrdenCompraMemoria(),
+                    hash, almacenSesiones);
+            Usuario[] usuarios = new Usuario[USUARIOS];
+            for (int i = 0; i < USUARIOS; i++) {
+                usuarios[i] = repositorioUsuario.guardar(new Usuario("Usuario " + i, "usuario" + i + "@tienda.com", CONTRASENA));
+            }
+            tokens = new String[SESIONES];
+            for (int i = 0; i < SESIONES; i++) {
+                tokens[i] = almacenSesiones.crear(usuarios[i % USUARIOS].getId());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Posicion {
+        private int siguiente;
+    }
+
+    @Benchmark
+    public String iniciarSesion(Credenciales credenciales) {
+        return credenciales.servicioUsuario.iniciarSesion("usuario@tienda.com", CONTRASENA);
+    }
+
+    @Benchmark
+    public Usuario validarSesion(Sesiones sesiones, Posicion posicion) {
+        int indice = posicion.siguiente++ % sesiones.tokens.length;
+        if (posicion.siguiente == sesiones.tokens.length) {
+            posicion.siguiente = 0;
+        }
+        return sesiones.servicioUsuario.validarSesion(sesiones.tokens[indice]);
+    }
+}
@@ -0,0 +1,60 @@
+package com.tienda.benchmarks;
+
+import com.tienda.dominio.Producto;
+import com.tienda.dominio.RepositorioProducto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compara la búsqueda por nombre con índice de trigramas contra el recorrido
+ * lineal anterior (minúsculas y contains sobre todo el catálogo)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BusquedaProductosBenchmark {
+
+    @Param({"500000"})
+    private int productos;
+
+    @Param({"Modelo 123456", "Mecánico", "Teclado Asus", "lap"})
+    private String consulta;
+
+    private RepositorioProducto repositorioProducto;
+
+    @Setup(Level.Trial)
+    public void sembrar() {
+        repositorioProducto = new EscenarioTienda(productos, 1, 1).getRepositorioProducto();
+    }
+
+    @Benchmark
+    public List<Producto> indiceTrigramas() {
+        return repositorioProducto.buscarPorNombre(consulta);
+    }
+
+    @Benchmark
+    public List<Producto> recorridoLineal() {
+        String consultaLower = consulta.toLowerCase();
+        return repositorioProducto.recorrerTodos()
+                .filter(producto -> producto.isActivo()
+                        && producto.getNombre().toLowerCase().contains(consultaLower))
+                .collect(Collectors.toList());
+    }
+}
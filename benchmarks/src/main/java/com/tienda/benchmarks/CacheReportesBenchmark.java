@@ -0,0 +1,90 @@
+package com.tienda.benchmarks;
+
+import com.tienda.aplicacion.CacheReportesVentas;
+import com.tienda.aplicacion.GeneradorReporteVentas;
+import com.tienda.compartido.metricas.RegistroMetricas;
+import com.tienda.dominio.ObservadorOrden;
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.RepositorioOrdenCompra;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reporte del mes en curso pedido por 8 hilos a la vez, como varios tableros que se
+ * refrescan: recalculado desde las órdenes en cada pedido contra la cache de reportes,
+ * sin cambios y con una orden completada del mes cada 1.000 pedidos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CacheReportesBenchmark {
+
+    private static final int PEDIDOS_POR_CAMBIO = 1000;
+
+    @Param({"10000", "100000"})
+    private int ordenes;
+
+    private GeneradorReporteVentas sinCache;
+    private GeneradorReporteVentas conCache;
+    private CacheReportesVentas cache;
+    private OrdenCompra ordenCambiada;
+    private final AtomicLong pedidos = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void sembrar() {
+        EscenarioTienda tienda = new EscenarioTienda(1000, 1000, 1);
+        RepositorioOrdenCompra repositorio = tienda.getRepositorioOrden();
+        Random random = new Random(42);
+        LocalDate hoy = LocalDate.now();
+        for (int i = 0; i < ordenes; i++) {
+            OrdenCompra orden = new OrdenCompra(tienda.elegirUsuario());
+            orden.setItems(tienda.armarItems(DistribucionProductos.UNIFORME, 3));
+            orden.setFechaCreacion(hoy.withDayOfMonth(1 + random.nextInt(hoy.getDayOfMonth()))
+                    .atStartOfDay().plusMinutes(random.nextInt(24 * 60)));
+            orden.completar();
+            repositorio.guardar(orden);
+            ordenCambiada = orden;
+        }
+        sinCache = new GeneradorReporteVentas(repositorio);
+        cache = new CacheReportesVentas(CacheReportesVentas.CAPACIDAD_POR_DEFECTO, RegistroMetricas.desactivado());
+        conCache = new GeneradorReporteVentas(repositorio, null, cache, RegistroMetricas.desactivado());
+    }
+
+    @Benchmark
+    public GeneradorReporteVentas.ReporteVentas mesSinCache() {
+        return sinCache.generarReporteVentasMes();
+    }
+
+    @Benchmark
+    public GeneradorReporteVentas.ReporteVentas mesConCache() {
+        return conCache.generarReporteVentasMes();
+    }
+
+    @Benchmark
+    public GeneradorReporteVentas.ReporteVentas mesConCacheYCambios() {
+        if (pedidos.incrementAndGet() % PEDIDOS_POR_CAMBIO == 0) {
+            cache.actualizar(ordenCambiada, ObservadorOrden.ORDEN_COMPLETADA);
+        }
+        return conCache.generarReporteVentasMes();
+    }
+}
@@ -0,0 +1,82 @@
+package com.tienda.benchmarks;
+
+import com.tienda.aplicacion.ServicioProcesarOrden;
+import com.tienda.compartido.ExcepcionNegocio;
+import com.tienda.dominio.OrdenCompra;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ciclo de vida de una orden (crear, completar, cancelar) en ServicioProcesarOrden
+ * sobre los repositorios en memoria. La cantidad de hilos se controla con -t o con
+ * {@link EjecutorBenchmarks}; con un hilo los resultados son la latencia por operación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CicloVidaOrdenBenchmark {
+
+    private static final int STOCK_INICIAL = 100_000_000;
+
+    @Param({"10000"})
+    private int productos;
+
+    @Param({"1000"})
+    private int usuarios;
+
+    @Param({"3"})
+    private int itemsPorOrden;
+
+    @Param({"UNIFORME", "HOT_SKU"})
+    private DistribucionProductos distribucion;
+
+    private EscenarioTienda escenario;
+    private ServicioProcesarOrden servicio;
+
+    /**
+     * Se vuelve a sembrar en cada iteración para que el tamaño de los
+     * repositorios no crezca sin límite entre mediciones
+     */
+    @Setup(Level.Iteration)
+    public void sembrar() {
+        escenario = new EscenarioTienda(productos, usuarios, STOCK_INICIAL);
+        servicio = escenario.getServicioOrden();
+    }
+
+    @Benchmark
+    public OrdenCompra crearOrden() {
+        return servicio.crearOrden(escenario.elegirUsuario().getId(),
+                escenario.armarItems(distribucion, itemsPorOrden));
+    }
+
+    @Benchmark
+    public OrdenCompra crearYCompletarOrden() {
+        OrdenCompra orden = crearOrden();
+        return servicio.completarOrden(orden.getId());
+    }
+
+    @Benchmark
+    public OrdenCompra crearYCancelarOrden() {
+        OrdenCompra orden = crearOrden();
+        try {
+            return servicio.cancelarOrden(orden.getId());
+        } catch (ExcepcionNegocio e) {
+            return orden;
+        }
+    }
+}
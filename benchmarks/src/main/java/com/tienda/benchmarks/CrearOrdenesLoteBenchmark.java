@@ -0,0 +1,75 @@
+package com.tienda.benchmarks;
+
+import com.tienda.aplicacion.ResultadoOrden;
+import com.tienda.aplicacion.ServicioProcesarOrden;
+import com.tienda.aplicacion.SolicitudOrden;
+import com.tienda.dominio.OrdenCompra;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lote de 500 órdenes: crearOrdenes frente a un ciclo de crearOrden.
+ * Cada iteración procesa un único lote sobre un escenario recién sembrado, de
+ * modo que las órdenes creadas no se acumulan entre mediciones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 30)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CrearOrdenesLoteBenchmark {
+
+    private static final int TAMANO_LOTE = 500;
+
+    @Param({"10000"})
+    private int productos;
+
+    @Param({"1000"})
+    private int usuarios;
+
+    @Param({"UNIFORME", "HOT_SKU"})
+    private DistribucionProductos distribucion;
+
+    private EscenarioTienda escenario;
+    private ServicioProcesarOrden servicio;
+    private List<SolicitudOrden> lote;
+
+    @Setup(Level.Iteration)
+    public void sembrar() {
+        escenario = new EscenarioTienda(productos, usuarios, 100_000_000);
+        servicio = escenario.getServicioOrden();
+        lote = new ArrayList<>(TAMANO_LOTE);
+        for (int i = 0; i < TAMANO_LOTE; i++) {
+            lote.add(new SolicitudOrden(escenario.elegirUsuario().getId(), escenario.armarItems(distribucion, 3)));
+        }
+    }
+
+    @Benchmark
+    public void cicloCrearOrden(Blackhole blackhole) {
+        for (SolicitudOrden solicitud : lote) {
+            OrdenCompra orden = servicio.crearOrden(solicitud.getUsuarioId(), solicitud.getItems());
+            blackhole.consume(orden);
+        }
+    }
+
+    @Benchmark
+    public List<ResultadoOrden> crearOrdenesEnLote() {
+        return servicio.crearOrdenes(lote);
+    }
+}
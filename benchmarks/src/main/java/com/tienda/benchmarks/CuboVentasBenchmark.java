@@ -0,0 +1,120 @@
+package com.tienda.benchmarks;
+
+import com.tienda.aplicacion.servicio.CuboVentas;
+import com.tienda.compartido.Dinero;
+import com.tienda.dominio.modelo.ItemOrden;
+import com.tienda.dominio.modelo.OrdenCompra;
+import com.tienda.dominio.modelo.Producto;
+import com.tienda.dominio.modelo.Usuario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reportes por período sobre órdenes repartidas en tres años: el cubo de ventas contra
+ * recorrer y filtrar todas las órdenes como hacía generarReportePorPeriodo. Se miden un
+ * día, un rango de casi tres años con bordes parciales y la tendencia de 36 meses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CuboVentasBenchmark {
+
+    private static final LocalDate INICIO = LocalDate.of(2023, 1, 1);
+    private static final int DIAS = 3 * 365;
+
+    @Param({"100000", "1000000"})
+    private int ordenes;
+
+    private List<OrdenCompra> todas;
+    private CuboVentas cubo;
+
+    @Setup(Level.Trial)
+    public void sembrar() {
+        Random random = new Random(42);
+        Producto[] productos = new Producto[1000];
+        for (int i = 0; i < productos.length; i++) {
+            productos[i] = new Producto("Producto " + i, "Producto de prueba " + i,
+                    BigDecimal.valueOf(500 + random.nextInt(500_000), 2), Integer.MAX_VALUE);
+        }
+        Usuario[] usuarios = new Usuario[1000];
+        for (int i = 0; i < usuarios.length; i++) {
+            usuarios[i] = new Usuario("Usuario " + i, "usuario" + i + "@tienda.com", "clave" + i);
+        }
+
+        todas = new ArrayList<>(ordenes);
+        cubo = new CuboVentas();
+        for (int i = 0; i < ordenes; i++) {
+            OrdenCompra orden = new OrdenCompra(usuarios[random.nextInt(usuarios.length)]);
+            orden.setFechaCreacion(INICIO.atStartOfDay().plusMinutes(random.nextInt(DIAS * 24 * 60)));
+            for (int item = 0; item < 3; item++) {
+                orden.agregarItem(new ItemOrden(productos[random.nextInt(productos.length)], 1 + random.nextInt(3)));
+            }
+            orden.congelarItems();
+            todas.add(orden);
+            cubo.registrar(orden);
+        }
+    }
+
+    @Benchmark
+    public CuboVentas.ResumenPeriodo cuboUnDia() {
+        LocalDate dia = INICIO.plusDays(400);
+        return cubo.resumir(dia, dia);
+    }
+
+    @Benchmark
+    public CuboVentas.ResumenPeriodo cuboTresAnios() {
+        return cubo.resumir(INICIO.plusDays(17), INICIO.plusDays(DIAS - 12));
+    }
+
+    @Benchmark
+    public Map<YearMonth, CuboVentas.ResumenPeriodo> cuboTendenciaMensual() {
+        return cubo.tendenciaMensual(YearMonth.from(INICIO), YearMonth.from(INICIO.plusDays(DIAS - 1)));
+    }
+
+    @Benchmark
+    public Dinero recorridoUnDia() {
+        LocalDate dia = INICIO.plusDays(400);
+        return recorrer(dia, dia);
+    }
+
+    @Benchmark
+    public Dinero recorridoTresAnios() {
+        return recorrer(INICIO.plusDays(17), INICIO.plusDays(DIAS - 12));
+    }
+
+    /**
+     * Filtro de la implementación anterior: convertir cada fecha de creación a LocalDate
+     */
+    private Dinero recorrer(LocalDate desde, LocalDate hasta) {
+        Dinero total = Dinero.CERO;
+        for (OrdenCompra orden : new ArrayList<>(todas)) {
+            LocalDate fecha = orden.getFechaCreacion().toLocalDate();
+            if (!fecha.isBefore(desde) && !fecha.isAfter(hasta)) {
+                total = total.sumar(orden.getTotal());
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,137 @@
+package com.tienda.benchmarks;
+
+import com.tienda.aplicacion.GeneradorReporteVentas;
+import com.tienda.compartido.Dinero;
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.OrdenCompra;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Total de una orden y reporte de ventas de un mes con montos en {@link Dinero} contra
+ * el mismo cálculo con BigDecimal, como se hacía antes. Conviene correrlo con
+ * {@code -prof gc} para comparar {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DineroBenchmark {
+
+    @Param({"100000"})
+    private int ordenesDelMes;
+
+    private List<OrdenCompra> ordenes;
+    private List<OrdenDecimal> ordenesDecimales;
+    private OrdenCompra orden;
+    private List<ItemOrden> itemsOrden;
+    private OrdenDecimal ordenDecimal;
+    private LocalDateTime inicioMes;
+
+    @Setup(Level.Trial)
+    public void sembrar() {
+        EscenarioTienda escenario = new EscenarioTienda(1000, 100, 1);
+        inicioMes = LocalDateTime.now().withDayOfMonth(1).toLocalDate().atStartOfDay();
+        ordenes = new ArrayList<>(ordenesDelMes);
+        ordenesDecimales = new ArrayList<>(ordenesDelMes);
+        for (int i = 0; i < ordenesDelMes; i++) {
+            OrdenCompra nueva = new OrdenCompra(escenario.elegirUsuario());
+            nueva.setItems(escenario.armarItems(DistribucionProductos.UNIFORME, 3));
+            ordenes.add(nueva);
+            ordenesDecimales.add(new OrdenDecimal(nueva));
+        }
+        orden = ordenes.get(0);
+        itemsOrden = new ArrayList<>(orden.getItems());
+        ordenDecimal = ordenesDecimales.get(0);
+    }
+
+    /**
+     * Asignar los items copia la lista y recalcula el total; la línea base hace lo mismo
+     */
+    @Benchmark
+    public Dinero totalOrden() {
+        orden.setItems(itemsOrden);
+        return orden.getTotal();
+    }
+
+    @Benchmark
+    public BigDecimal totalOrdenBigDecimal() {
+        return OrdenDecimal.calcularTotal(new ArrayList<>(ordenDecimal.items));
+    }
+
+    @Benchmark
+    public GeneradorReporteVentas.ReporteVentas reporteMensual() {
+        return new GeneradorReporteVentas.ReporteVentas(inicioMes, inicioMes.plusDays(30), ordenes);
+    }
+
+    @Benchmark
+    public Object[] reporteMensualBigDecimal() {
+        BigDecimal totalVentas = ordenesDecimales.stream()
+                .map(o -> o.total)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Map<String, Integer> productosVendidos = ordenesDecimales.stream()
+                .flatMap(o -> o.items.stream())
+                .collect(Collectors.groupingBy(item -> item.producto, Collectors.summingInt(item -> item.cantidad)));
+        Map<String, BigDecimal> volumenPorProducto = ordenesDecimales.stream()
+                .flatMap(o -> o.items.stream())
+                .collect(Collectors.groupingBy(item -> item.producto,
+                        Collectors.reducing(BigDecimal.ZERO,
+                                item -> item.precioUnitario.multiply(BigDecimal.valueOf(item.cantidad)),
+                                BigDecimal::add)));
+        return new Object[]{totalVentas, productosVendidos, volumenPorProducto};
+    }
+
+    /**
+     * Orden con montos BigDecimal, como se representaban antes de {@link Dinero}
+     */
+    private static final class OrdenDecimal {
+        private final List<ItemDecimal> items = new ArrayList<>();
+        private final BigDecimal total;
+
+        private OrdenDecimal(OrdenCompra orden) {
+            for (ItemOrden item : orden.getItems()) {
+                items.add(new ItemDecimal(item.getProducto().getNombre(),
+                        item.getPrecioUnitario().aBigDecimal(), item.getCantidad()));
+            }
+            this.total = calcularTotal(items);
+        }
+
+        private static BigDecimal calcularTotal(List<ItemDecimal> items) {
+            return items.stream()
+                    .map(item -> item.precioUnitario.multiply(BigDecimal.valueOf(item.cantidad)))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+    }
+
+    private static final class ItemDecimal {
+        private final String producto;
+        private final BigDecimal precioUnitario;
+        private final int cantidad;
+
+        private ItemDecimal(String producto, BigDecimal precioUnitario, int cantidad) {
+            this.producto = producto;
+            this.precioUnitario = precioUnitario;
+            this.cantidad = cantidad;
+        }
+    }
+}
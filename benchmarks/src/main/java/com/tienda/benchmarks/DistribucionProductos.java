@@ -0,0 +1,46 @@
+package com.tienda.benchmarks;
+
+import com.tienda.dominio.Producto;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribución con la que los benchmarks eligen productos del catálogo
+ */
+public enum DistribucionProductos {
+
+    /**
+     * Todos los productos tienen la misma probabilidad
+     */
+    UNIFORME {
+        @Override
+        public Producto elegir(Producto[] productos) {
+            return productos[ThreadLocalRandom.current().nextInt(productos.length)];
+        }
+    },
+
+    /**
+     * El 90% de las elecciones cae sobre unos pocos productos muy vendidos
+     */
+    HOT_SKU {
+        @Override
+        public Producto elegir(Producto[] productos) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int calientes = Math.min(PRODUCTOS_CALIENTES, productos.length);
+            if (random.nextInt(100) < PORCENTAJE_CALIENTE) {
+                return productos[random.nextInt(calientes)];
+            }
+            return productos[random.nextInt(productos.length)];
+        }
+    };
+
+    private static final int PRODUCTOS_CALIENTES = 10;
+    private static final int PORCENTAJE_CALIENTE = 90;
+
+    /**
+     * Elige un producto del catálogo
+     * @param productos catálogo
+     * @return producto elegido
+     */
+    public abstract Producto elegir(Producto[] productos);
+}
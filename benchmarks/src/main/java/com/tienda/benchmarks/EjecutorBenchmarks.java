@@ -0,0 +1,42 @@
+package com.tienda.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ejecuta los benchmarks con 1, 2, 4 ... hasta N hilos (N = procesadores
+ * disponibles) y con el perfilador de GC, de modo que cada resultado incluya
+ * gc.alloc.rate.norm. Cada cantidad de hilos se guarda en su propio JSON.
+ * Los argumentos se pasan a JMH tal cual (por ejemplo, un patrón de benchmarks).
+ */
+public class EjecutorBenchmarks {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options lineaComandos = new CommandLineOptions(args);
+        int maximoHilos = Runtime.getRuntime().availableProcessors();
+
+        for (int hilos = 1; hilos <= maximoHilos; hilos = siguienteCantidadHilos(hilos, maximoHilos)) {
+            Options opciones = new OptionsBuilder()
+                    .parent(lineaComandos)
+                    .threads(hilos)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("resultados-" + hilos + "-hilos.json")
+                    .build();
+            new Runner(opciones).run();
+        }
+    }
+
+    private static int siguienteCantidadHilos(int actual, int maximo) {
+        if (actual == maximo) {
+            return maximo + 1;
+        }
+        return Math.min(actual * 2, maximo);
+    }
+}
@@ -0,0 +1,143 @@
+package com.tienda.benchmarks;
+
+import com.tienda.aplicacion.ServicioProcesarOrden;
+import com.tienda.compartido.metricas.RegistroMetricas;
+import com.tienda.dominio.CodificadorContrasenas;
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.Producto;
+import com.tienda.dominio.RepositorioOrdenCompra;
+import com.tienda.dominio.RepositorioProducto;
+import com.tienda.dominio.RepositorioUsuario;
+import com.tienda.dominio.Usuario;
+import com.tienda.infraestructura.NotificacionSimulada;
+import com.tienda.infraestructura.RepositorioOrdenCompraMemoria;
+import com.tienda.infraestructura.RepositorioProductoMemoria;
+import com.tienda.infraestructura.RepositorioUsuarioMemoria;
+import com.tienda.infraestructura.metricas.InstrumentadorMetricas;
+import com.tienda.infraestructura.seguridad.HashContrasenas;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Escenario sembrado con un catálogo y una base de usuarios realistas sobre
+ * los repositorios en memoria, compartido por los benchmarks
+ */
+public class EscenarioTienda {
+
+    private static final String[] CATEGORIAS = {
+        "Laptop", "Mouse", "Teclado", "Monitor", "Auriculares", "Cámara", "Impresora", "Router"
+    };
+    private static final String[] MARCAS = {
+        "HP", "Dell", "Lenovo", "Logitech", "Samsung", "Asus", "Acer", "Mecánico"
+    };
+
+    private final CodificadorContrasenas codificadorContrasenas = new HashContrasenas();
+    private final RepositorioProducto repositorioProducto;
+    private final RepositorioUsuario repositorioUsuario;
+    private final RepositorioOrdenCompra repositorioOrden;
+    private final ServicioProcesarOrden servicioOrden;
+    private final Producto[] productos;
+    private final Usuario[] usuarios;
+
+    public EscenarioTienda(int cantidadProductos, int cantidadUsuarios, int stockPorProducto) {
+        this(cantidadProductos, cantidadUsuarios, stockPorProducto, RegistroMetricas.desactivado());
+    }
+
+    /**
+     * Crea el escenario con el servicio de órdenes y los repositorios medidos en el registro
+     * indicado, como en la aplicación con las métricas activadas
+     */
+    public EscenarioTienda(int cantidadProductos, int cantidadUsuarios, int stockPorProducto,
+                           RegistroMetricas registroMetricas) {
+        this.repositorioProducto = InstrumentadorMetricas.instrumentar(RepositorioProducto.class,
+                new RepositorioProductoMemoria(), registroMetricas, "tienda_repositorio",
+                "operaciones de repositorio", "RepositorioProducto");
+        this.repositorioUsuario = InstrumentadorMetricas.instrumentar(RepositorioUsuario.class,
+                new RepositorioUsuarioMemoria(codificadorContrasenas), registroMetricas, "tienda_repositorio",
+                "operaciones de repositorio", "RepositorioUsuario");
+        this.repositorioOrden = InstrumentadorMetricas.instrumentar(RepositorioOrdenCompra.class,
+                new RepositorioOrdenCompraMemoria(), registroMetricas, "tienda_repositorio",
+                "operaciones de repositorio", "RepositorioOrdenCompra");
+        this.servicioOrden = new ServicioProcesarOrden(repositorioOrden, repositorioProducto, repositorioUsuario,
+                new NotificacionSimulada(0), registroMetricas);
+        this.productos = sembrarProductos(cantidadProductos, stockPorProducto);
+        this.usuarios = sembrarUsuarios(cantidadUsuarios);
+    }
+
+    private Producto[] sembrarProductos(int cantidad, int stock) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Producto[] sembrados = new Producto[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            String nombre = CATEGORIAS[i % CATEGORIAS.length] + " " + MARCAS[(i / CATEGORIAS.length) % MARCAS.length]
+                    + " Modelo " + i;
+            BigDecimal precio = BigDecimal.valueOf(random.nextInt(500, 500_000), 2);
+            sembrados[i] = repositorioProducto.guardar(new Producto(nombre, "Producto de prueba " + i, precio, stock));
+        }
+        return sembrados;
+    }
+
+    private Usuario[] sembrarUsuarios(int cantidad) {
+        Usuario[] sembrados = new Usuario[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            Usuario usuario = new Usuario("Usuario " + i, "usuario" + i + "@tienda.com", "clave" + i);
+            if (i % 2 == 0) {
+                usuario.setTelefono("+5917000" + i);
+            }
+            sembrados[i] = repositorioUsuario.guardar(usuario);
+        }
+        return sembrados;
+    }
+
+    /**
+     * Arma los items de una orden eligiendo productos con la distribución dada
+     * @param distribucion distribución de productos
+     * @param cantidadItems cantidad de items de la orden
+     * @return items de la orden
+     */
+    public List<ItemOrden> armarItems(DistribucionProductos distribucion, int cantidadItems) {
+        List<ItemOrden> items = new ArrayList<>(cantidadItems);
+        for (int i = 0; i < cantidadItems; i++) {
+            items.add(new ItemOrden(distribucion.elegir(productos), 1 + ThreadLocalRandom.current().nextInt(3)));
+        }
+        return items;
+    }
+
+    /**
+     * Elige un usuario al azar
+     * @return usuario elegido
+     */
+    public Usuario elegirUsuario() {
+        return usuarios[ThreadLocalRandom.current().nextInt(usuarios.length)];
+    }
+
+    public RepositorioProducto getRepositorioProducto() {
+        return repositorioProducto;
+    }
+
+    public RepositorioUsuario getRepositorioUsuario() {
+        return repositorioUsuario;
+    }
+
+    public CodificadorContrasenas getCodificadorContrasenas() {
+        return codificadorContrasenas;
+    }
+
+    public RepositorioOrdenCompra getRepositorioOrden() {
+        return repositorioOrden;
+    }
+
+    public ServicioProcesarOrden getServicioOrden() {
+        return servicioOrden;
+    }
+
+    public Producto[] getProductos() {
+        return productos;
+    }
+
+    public Usuario[] getUsuarios() {
+        return usuarios;
+    }
+}
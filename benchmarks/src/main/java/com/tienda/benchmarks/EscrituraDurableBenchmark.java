@@ -0,0 +1,82 @@
+package com.tienda.benchmarks;
+
+import com.tienda.dominio.Producto;
+import com.tienda.dominio.RepositorioProducto;
+import com.tienda.infraestructura.durable.AlmacenDurable;
+import com.tienda.infraestructura.seguridad.HashContrasenas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Distribución de latencias (p50/p99/p99.9 vía SampleTime) de una escritura de producto
+ * en el almacén durable con 8 hilos, esperando o no el fsync del lote. Los snapshots
+ * periódicos quedan activos para incluir su efecto sobre las escrituras.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class EscrituraDurableBenchmark {
+
+    @Param({"true", "false"})
+    private boolean esperarSincronizacion;
+
+    @Param({"10000"})
+    private int productos;
+
+    private Path directorio;
+    private AlmacenDurable almacen;
+    private RepositorioProducto repositorioProducto;
+    private Producto[] catalogo;
+
+    @Setup(Level.Iteration)
+    public void abrir() throws IOException {
+        directorio = Files.createTempDirectory("tienda-escritura");
+        almacen = new AlmacenDurable(directorio, new HashContrasenas(), esperarSincronizacion, 64L * 1024 * 1024);
+        repositorioProducto = almacen.getRepositorioProducto();
+        catalogo = new Producto[productos];
+        for (int i = 0; i < productos; i++) {
+            catalogo[i] = repositorioProducto.guardar(
+                    new Producto("Producto " + i, "Producto de prueba " + i, BigDecimal.valueOf(1000 + i, 2), 1_000_000));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void cerrar() throws IOException {
+        almacen.close();
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            archivos.sorted(Comparator.reverseOrder()).forEach(ruta -> ruta.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Producto actualizarStock() {
+        Producto producto = catalogo[ThreadLocalRandom.current().nextInt(catalogo.length)];
+        producto.agregarStock(1);
+        return repositorioProducto.guardar(producto);
+    }
+}
@@ -0,0 +1,110 @@
+package com.tienda.benchmarks;
+
+import com.tienda.aplicacion.ExportadorReporteVentas;
+import com.tienda.aplicacion.GeneradorReporteVentas;
+import com.tienda.dominio.OrdenCompra;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exportación de un reporte de 200.000 órdenes en CSV y NDJSON, con y sin gzip, hacia un
+ * destino que solo cuenta bytes, contra armar todo el texto en un StringBuilder antes de
+ * escribirlo. Al sembrar se imprimen los bytes de cada exportación: los MB/s son esos
+ * bytes por las operaciones por segundo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ExportacionReporteBenchmark {
+
+    private static final int ORDENES = 200_000;
+
+    @Param({"CSV", "NDJSON"})
+    private ExportadorReporteVentas.Formato formato;
+
+    @Param({"false", "true"})
+    private boolean comprimir;
+
+    private List<OrdenCompra> ordenes;
+    private GeneradorReporteVentas.ReporteVentas reporte;
+    private ExportadorReporteVentas exportador;
+
+    @Setup(Level.Trial)
+    public void sembrar() throws IOException {
+        EscenarioTienda tienda = new EscenarioTienda(10_000, 1000, 1);
+        ordenes = new ArrayList<>(ORDENES);
+        for (int i = 0; i < ORDENES; i++) {
+            OrdenCompra orden = new OrdenCompra(tienda.elegirUsuario());
+            orden.setItems(tienda.armarItems(DistribucionProductos.UNIFORME, 3));
+            orden.completar();
+            ordenes.add(orden);
+        }
+        reporte = new GeneradorReporteVentas.ReporteVentas(null, null, ordenes);
+        exportador = new ExportadorReporteVentas(formato, comprimir);
+        System.out.println("Bytes por exportación: " + exportar().getBytes());
+    }
+
+    @Benchmark
+    public ContadorBytes exportar() throws IOException {
+        ContadorBytes destino = new ContadorBytes();
+        exportador.exportar(reporte, ordenes.stream(), destino);
+        return destino;
+    }
+
+    /**
+     * Enfoque anterior: todo el reporte y sus órdenes en un único texto en memoria
+     */
+    @Benchmark
+    public ContadorBytes textoCompleto() throws IOException {
+        StringBuilder texto = new StringBuilder(reporte.toString());
+        for (OrdenCompra orden : ordenes) {
+            texto.append(orden.getId()).append(',').append(orden.getUsuario().getId()).append(',')
+                    .append(orden.getFechaCreacion()).append(',').append(orden.getEstado()).append(',')
+                    .append(orden.getItems().size()).append(',').append(orden.getTotal()).append('\n');
+        }
+        ContadorBytes destino = new ContadorBytes();
+        destino.write(texto.toString().getBytes(StandardCharsets.UTF_8));
+        return destino;
+    }
+
+    /**
+     * Destino que descarta lo escrito y solo cuenta los bytes
+     */
+    public static final class ContadorBytes extends OutputStream {
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.tienda.benchmarks;
+
+import com.tienda.aplicacion.ServicioGestionUsuario;
+import com.tienda.dominio.HistorialOrdenes;
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.Pagina;
+import com.tienda.dominio.Usuario;
+import com.tienda.infraestructura.seguridad.AlmacenSesionesMemoria;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.ref.Reference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia (p99 con SampleTime) de consultar el historial de un usuario con muchas
+ * órdenes: primera página del historial por IDs contra la copia completa de la lista
+ * de órdenes que se devolvía antes. Al sembrar se imprime la memoria que ocupa cada
+ * representación del historial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class HistorialUsuarioBenchmark {
+
+    @Param({"1000", "10000"})
+    private int ordenesPorUsuario;
+
+    private ServicioGestionUsuario servicioUsuario;
+    private Usuario usuario;
+    private List<OrdenCompra> historialAnterior;
+
+    @Setup(Level.Trial)
+    public void sembrar() {
+        EscenarioTienda escenario = new EscenarioTienda(1000, 1, 1);
+        servicioUsuario = new ServicioGestionUsuario(escenario.getRepositorioUsuario(), escenario.getRepositorioOrden(),
+                escenario.getCodificadorContrasenas(), new AlmacenSesionesMemoria(Duration.ofMinutes(30), 100_000));
+        usuario = escenario.elegirUsuario();
+        historialAnterior = new ArrayList<>();
+        for (int i = 0; i < ordenesPorUsuario; i++) {
+            OrdenCompra orden = new OrdenCompra(usuario);
+            orden.setItems(escenario.armarItems(DistribucionProductos.UNIFORME, 3));
+            escenario.getRepositorioOrden().guardar(orden);
+            usuario.agregarOrdenAlHistorial(orden);
+            historialAnterior.add(orden);
+        }
+        imprimirMemoria(escenario);
+    }
+
+    @Benchmark
+    public Pagina<OrdenCompra> primeraPagina() {
+        return servicioUsuario.obtenerHistorialOrdenes(usuario.getId(), null, 20);
+    }
+
+    @Benchmark
+    public List<OrdenCompra> listaCompletaAnterior() {
+        return new ArrayList<>(historialAnterior);
+    }
+
+    /**
+     * Compara el heap retenido por el historial compacto contra una lista que fija las
+     * órdenes (con sus items) en memoria
+     */
+    private void imprimirMemoria(EscenarioTienda escenario) {
+        long antes = heapOcupado();
+        HistorialOrdenes compacto = new HistorialOrdenes();
+        for (OrdenCompra orden : historialAnterior) {
+            compacto.agregar(orden.getId(), orden.getFechaCreacion());
+        }
+        long conCompacto = heapOcupado();
+
+        List<OrdenCompra> conOrdenes = new ArrayList<>();
+        for (int i = 0; i < ordenesPorUsuario; i++) {
+            OrdenCompra orden = new OrdenCompra(usuario);
+            orden.setItems(escenario.armarItems(DistribucionProductos.UNIFORME, 3));
+            conOrdenes.add(orden);
+        }
+        long conLista = heapOcupado();
+
+        System.out.printf("%nHistorial de %d órdenes: compacto %d KB, lista con órdenes %d KB%n",
+                ordenesPorUsuario, (conCompacto - antes) / 1024, (conLista - conCompacto) / 1024);
+        Reference.reachabilityFence(compacto);
+        Reference.reachabilityFence(conOrdenes);
+    }
+
+    private static long heapOcupado() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,121 @@
+package com.tienda.benchmarks;
+
+import com.tienda.compartido.Dinero;
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.OrdenCompra;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Armado de una orden de muchos items y lecturas repetidas de sus items (como hacen las
+ * notificaciones y los reportes), con el total incremental y la vista de solo lectura
+ * contra una copia de la orden anterior que recalculaba el total en cada item y copiaba
+ * la lista en cada lectura. Conviene correrlo con {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemsOrdenBenchmark {
+
+    private static final int LECTURAS = 10;
+
+    @Param({"200"})
+    private int cantidadItems;
+
+    private List<ItemOrden> items;
+    private OrdenCompra ordenGuardada;
+    private OrdenAnterior ordenAnterior;
+
+    @Setup(Level.Trial)
+    public void sembrar() {
+        EscenarioTienda escenario = new EscenarioTienda(1000, 1, 1);
+        items = escenario.armarItems(DistribucionProductos.UNIFORME, cantidadItems);
+        ordenGuardada = new OrdenCompra(escenario.elegirUsuario());
+        ordenAnterior = new OrdenAnterior();
+        for (ItemOrden item : items) {
+            ordenGuardada.agregarItem(item);
+            ordenAnterior.agregarItem(item);
+        }
+        escenario.getRepositorioOrden().guardar(ordenGuardada);
+    }
+
+    @Benchmark
+    public Dinero armarOrden() {
+        OrdenCompra orden = new OrdenCompra();
+        for (ItemOrden item : items) {
+            orden.agregarItem(item);
+        }
+        return orden.getTotal();
+    }
+
+    @Benchmark
+    public Dinero armarOrdenAnterior() {
+        OrdenAnterior orden = new OrdenAnterior();
+        for (ItemOrden item : items) {
+            orden.agregarItem(item);
+        }
+        return orden.total;
+    }
+
+    @Benchmark
+    public long leerItems() {
+        long unidades = 0;
+        for (int i = 0; i < LECTURAS; i++) {
+            for (ItemOrden item : ordenGuardada.getItems()) {
+                unidades += item.getCantidad();
+            }
+        }
+        return unidades;
+    }
+
+    @Benchmark
+    public long leerItemsAnterior() {
+        long unidades = 0;
+        for (int i = 0; i < LECTURAS; i++) {
+            for (ItemOrden item : ordenAnterior.getItems()) {
+                unidades += item.getCantidad();
+            }
+        }
+        return unidades;
+    }
+
+    /**
+     * Orden como se implementaba antes: recorre todos los items en cada agregado y
+     * devuelve una copia de la lista en cada lectura
+     */
+    private static final class OrdenAnterior {
+        private final List<ItemOrden> items = new ArrayList<>();
+        private Dinero total = Dinero.CERO;
+
+        private void agregarItem(ItemOrden item) {
+            items.add(item);
+            long suma = 0;
+            for (ItemOrden actual : items) {
+                suma = Math.addExact(suma, Math.multiplyExact(actual.getPrecioUnitario().getUnidadesMenores(),
+                        (long) actual.getCantidad()));
+            }
+            total = Dinero.deUnidadesMenores(suma, items.get(0).getPrecioUnitario().getMoneda());
+        }
+
+        private List<ItemOrden> getItems() {
+            return new ArrayList<>(items);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.tienda.benchmarks;
+
+import com.tienda.aplicacion.ServicioProcesarOrden;
+import com.tienda.compartido.metricas.HistogramaLatencia;
+import com.tienda.compartido.metricas.RegistroMetricas;
+import com.tienda.dominio.OrdenCompra;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de medir: crear una orden con el registro de métricas desactivado y activado
+ * (servicio y repositorios medidos, como en la aplicación), y el registro aislado de una
+ * latencia en un histograma. Con varios hilos (-t) muestra la contención del histograma.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class MetricasBenchmark {
+
+    private static final int STOCK_INICIAL = 100_000_000;
+
+    @Param({"false", "true"})
+    private boolean metricasActivas;
+
+    private EscenarioTienda escenario;
+    private ServicioProcesarOrden servicio;
+    private HistogramaLatencia histograma;
+
+    @Setup(Level.Iteration)
+    public void sembrar() {
+        RegistroMetricas registro = metricasActivas ? new RegistroMetricas() : RegistroMetricas.desactivado();
+        escenario = new EscenarioTienda(10_000, 1000, STOCK_INICIAL, registro);
+        servicio = escenario.getServicioOrden();
+        histograma = registro.histograma("benchmark_latencia_segundos", "Latencia de prueba");
+    }
+
+    @Benchmark
+    public OrdenCompra crearOrden() {
+        return servicio.crearOrden(escenario.elegirUsuario().getId(),
+                escenario.armarItems(DistribucionProductos.UNIFORME, 3));
+    }
+
+    @Benchmark
+    public void registrarLatencia() {
+        histograma.registrar(ThreadLocalRandom.current().nextLong(1_000, 10_000_000));
+    }
+}
@@ -0,0 +1,72 @@
+package com.tienda.benchmarks;
+
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.infraestructura.NotificacionSimulada;
+import com.tienda.infraestructura.ServicioNotificacionCompuesto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de notificar una orden por tres canales simulados de 2 ms cuando el tercero es
+ * lento (200 ms, por encima de su tiempo máximo de 50 ms) o está caído. En el escenario
+ * lento la llamada queda acotada por el tiempo máximo hasta que el circuito se abre; a
+ * partir de ahí solo cuesta lo que tardan los canales sanos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificacionCompuestaBenchmark {
+
+    @Param({"SANO", "LENTO", "CAIDO"})
+    private String escenario;
+
+    private ServicioNotificacionCompuesto servicio;
+    private OrdenCompra orden;
+
+    @Setup(Level.Trial)
+    public void sembrar() {
+        EscenarioTienda tienda = new EscenarioTienda(100, 1, 1);
+        orden = new OrdenCompra(tienda.elegirUsuario());
+        orden.setItems(tienda.armarItems(DistribucionProductos.UNIFORME, 3));
+
+        NotificacionSimulada tercero = new NotificacionSimulada("LENTO".equals(escenario) ? 200 : 2);
+        tercero.setFallando("CAIDO".equals(escenario));
+
+        servicio = new ServicioNotificacionCompuesto();
+        agregarCanal("email", new NotificacionSimulada(2));
+        agregarCanal("telegram", new NotificacionSimulada(2));
+        agregarCanal("whatsapp", tercero);
+    }
+
+    private void agregarCanal(String nombre, NotificacionSimulada canal) {
+        servicio.agregarServicio(nombre, canal, 4, 64, Duration.ofMillis(50), 5, Duration.ofSeconds(1));
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        servicio.obtenerEstadisticas().forEach(System.out::println);
+        servicio.cerrar(5000);
+    }
+
+    @Benchmark
+    public void notificarNuevaOrden() {
+        servicio.notificarNuevaOrden(orden);
+    }
+}
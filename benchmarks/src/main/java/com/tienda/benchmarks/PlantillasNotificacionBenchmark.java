@@ -0,0 +1,82 @@
+package com.tienda.benchmarks;
+
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.infraestructura.plantilla.FormatoMensaje;
+import com.tienda.infraestructura.plantilla.PlantillaMensaje;
+import com.tienda.infraestructura.plantilla.PlantillasOrden;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mensajes de confirmación de orden por segundo con las plantillas compiladas contra el
+ * armado anterior con StringBuilder. Conviene correrlo con {@code -prof gc}: con
+ * plantillas la única asignación por mensaje es el String resultante.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlantillasNotificacionBenchmark {
+
+    @Param({"3", "20"})
+    private int cantidadItems;
+
+    private OrdenCompra orden;
+    private PlantillaMensaje plantillaEmail;
+    private PlantillaMensaje plantillaTelegram;
+
+    @Setup(Level.Trial)
+    public void sembrar() {
+        EscenarioTienda escenario = new EscenarioTienda(1000, 1, 1);
+        orden = new OrdenCompra(escenario.elegirUsuario());
+        orden.setItems(escenario.armarItems(DistribucionProductos.UNIFORME, cantidadItems));
+        plantillaEmail = PlantillaMensaje.compilar(PlantillasOrden.EMAIL_NUEVA_ORDEN, FormatoMensaje.TEXTO);
+        plantillaTelegram = PlantillaMensaje.compilar(PlantillasOrden.MENSAJERIA_NUEVA_ORDEN, FormatoMensaje.TELEGRAM);
+    }
+
+    @Benchmark
+    public String email() {
+        return plantillaEmail.renderizar(orden, null);
+    }
+
+    @Benchmark
+    public String telegram() {
+        return plantillaTelegram.renderizar(orden, null);
+    }
+
+    @Benchmark
+    public String telegramAnterior() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("🛒 *Nueva Orden Creada*\n\n");
+        sb.append("Hola ").append(orden.getUsuario().getNombre()).append("!\n\n");
+        sb.append("Tu orden ha sido creada exitosamente.\n\n");
+        sb.append("*Detalles:*\n");
+        sb.append("📋 ID: `").append(orden.getId()).append("`\n");
+        sb.append("📅 Fecha: ").append(orden.getFechaCreacion()).append("\n");
+        sb.append("💰 Total: $").append(orden.getTotal()).append("\n\n");
+
+        sb.append("*Productos:*\n");
+        orden.getItems().forEach(item ->
+            sb.append("• ").append(item.getProducto().getNombre())
+              .append(" x").append(item.getCantidad())
+              .append(" = $").append(item.getSubtotal()).append("\n"));
+
+        sb.append("\n¡Gracias por tu compra! 🎉");
+
+        return sb.toString();
+    }
+}
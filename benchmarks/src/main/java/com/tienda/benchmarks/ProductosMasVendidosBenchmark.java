@@ -0,0 +1,138 @@
+package com.tienda.benchmarks;
+
+import com.tienda.aplicacion.servicio.RankingProductosVendidos;
+import com.tienda.dominio.modelo.ItemOrden;
+import com.tienda.dominio.modelo.OrdenCompra;
+import com.tienda.dominio.modelo.Producto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Top 10 de productos vendidos con el ranking Space-Saving (histórico y última semana)
+ * contra el recuento completo de obtenerProductosMasVendidos, sobre una semana de órdenes
+ * con demanda de tipo Zipf entre 20.000 productos. Al sembrar se imprime cuántos de los
+ * 10 primeros exactos encuentra el ranking y el mayor error declarado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ProductosMasVendidosBenchmark {
+
+    private static final int PRODUCTOS = 20_000;
+    private static final long SEMANA_MILLIS = 7 * 24 * 3_600_000L;
+
+    @Param({"200000", "1000000"})
+    private int ordenes;
+
+    @Param({"500"})
+    private int capacidad;
+
+    private List<OrdenCompra> todas;
+    private RankingProductosVendidos ranking;
+    private long ahora;
+    private OrdenCompra ordenNueva;
+
+    @Setup(Level.Trial)
+    public void sembrar() {
+        Random random = new Random(42);
+        Producto[] productos = new Producto[PRODUCTOS];
+        double[] acumulada = new double[PRODUCTOS];
+        double suma = 0;
+        for (int i = 0; i < PRODUCTOS; i++) {
+            productos[i] = new Producto("Producto " + i, "Producto de prueba " + i, BigDecimal.TEN, Integer.MAX_VALUE);
+            suma += 1.0 / Math.pow(i + 1, 1.1);
+            acumulada[i] = suma;
+        }
+
+        todas = new ArrayList<>(ordenes);
+        ranking = new RankingProductosVendidos(capacidad);
+        ahora = System.currentTimeMillis();
+        for (int i = 0; i < ordenes; i++) {
+            OrdenCompra orden = new OrdenCompra();
+            for (int item = 0; item < 3; item++) {
+                int indice = Arrays.binarySearch(acumulada, random.nextDouble() * suma);
+                Producto producto = productos[Math.min(indice < 0 ? -indice - 1 : indice, PRODUCTOS - 1)];
+                orden.agregarItem(new ItemOrden(producto, 1 + random.nextInt(3)));
+            }
+            todas.add(orden);
+            ranking.registrar(orden, ahora - SEMANA_MILLIS + SEMANA_MILLIS * i / ordenes);
+        }
+        ordenNueva = todas.get(0);
+        imprimirPrecision();
+    }
+
+    private void imprimirPrecision() {
+        Set<String> exactos = recontar().stream().limit(10).map(Map.Entry::getKey).collect(Collectors.toSet());
+        Set<String> estimados = new HashSet<>();
+        long errorMaximo = 0;
+        for (RankingProductosVendidos.ProductoVendido vendido
+                : ranking.masVendidos(RankingProductosVendidos.Ventana.HISTORICO, 10, ahora)) {
+            estimados.add(vendido.getProductoId().toString());
+            errorMaximo = Math.max(errorMaximo, vendido.getErrorMaximo());
+        }
+        estimados.retainAll(exactos);
+        System.out.println("Top 10 coincidentes: " + estimados.size() + "/10, error máximo declarado: " + errorMaximo);
+    }
+
+    @Benchmark
+    public List<RankingProductosVendidos.ProductoVendido> rankingHistorico() {
+        return ranking.masVendidos(RankingProductosVendidos.Ventana.HISTORICO, 10, ahora);
+    }
+
+    @Benchmark
+    public List<RankingProductosVendidos.ProductoVendido> rankingUltimaSemana() {
+        return ranking.masVendidos(RankingProductosVendidos.Ventana.ULTIMA_SEMANA, 10, ahora);
+    }
+
+    @Benchmark
+    public void registrarOrden() {
+        ranking.registrar(ordenNueva, ahora);
+    }
+
+    @Benchmark
+    public List<Map.Entry<String, Integer>> recuentoCompleto() {
+        return recontar();
+    }
+
+    /**
+     * Recuento de la implementación anterior: todas las órdenes a un mapa por id en texto
+     * y el mapa completo ordenado
+     */
+    private List<Map.Entry<String, Integer>> recontar() {
+        Map<String, Integer> ventasPorProducto = new HashMap<>();
+        for (OrdenCompra orden : todas) {
+            for (ItemOrden item : orden.getItems()) {
+                ventasPorProducto.merge(item.getProducto().getId().toString(), item.getCantidad(), Integer::sum);
+            }
+        }
+        return ventasPorProducto.entrySet()
+                .stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,93 @@
+package com.tienda.benchmarks;
+
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.Producto;
+import com.tienda.dominio.Usuario;
+import com.tienda.infraestructura.durable.AlmacenDurable;
+import com.tienda.infraestructura.seguridad.HashContrasenas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Mide el tiempo de recuperación del almacén durable con 1M y 10M registros, ya sea
+ * reaplicando todo desde el log o cargando un snapshot. Cada registro es una orden
+ * de un item sobre un catálogo y una base de usuarios fijos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms24g", "-Xmx24g"})
+public class RecuperacionDurableBenchmark {
+
+    private static final int PRODUCTOS = 1000;
+    private static final int USUARIOS = 1000;
+
+    @Param({"1000000", "10000000"})
+    private int registros;
+
+    @Param({"LOG", "SNAPSHOT"})
+    private String origen;
+
+    private Path directorio;
+
+    @Setup(Level.Trial)
+    public void sembrar() throws IOException {
+        directorio = Files.createTempDirectory("tienda-recuperacion");
+        try (AlmacenDurable almacen = new AlmacenDurable(directorio, new HashContrasenas(), false, 0)) {
+            Producto[] productos = new Producto[PRODUCTOS];
+            for (int i = 0; i < PRODUCTOS; i++) {
+                productos[i] = almacen.getRepositorioProducto().guardar(
+                        new Producto("Producto " + i, "Producto de prueba " + i, BigDecimal.valueOf(1000 + i, 2), 1_000_000));
+            }
+            Usuario[] usuarios = new Usuario[USUARIOS];
+            for (int i = 0; i < USUARIOS; i++) {
+                usuarios[i] = almacen.getRepositorioUsuario().guardar(
+                        new Usuario("Usuario " + i, "usuario" + i + "@tienda.com", "clave" + i));
+            }
+            for (int i = PRODUCTOS + USUARIOS; i < registros; i++) {
+                OrdenCompra orden = new OrdenCompra(usuarios[i % USUARIOS]);
+                orden.agregarItem(new ItemOrden(productos[i % PRODUCTOS], 1 + i % 3));
+                almacen.getRepositorioOrden().guardar(orden);
+            }
+            if ("SNAPSHOT".equals(origen)) {
+                almacen.tomarSnapshot();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void limpiar() throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            archivos.sorted(Comparator.reverseOrder()).forEach(ruta -> ruta.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long recuperar() {
+        try (AlmacenDurable almacen = new AlmacenDurable(directorio, new HashContrasenas(), true, 0)) {
+            return almacen.getRegistrosRecuperados();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.tienda.benchmarks;
+
+import com.tienda.aplicacion.MotorReporteVentas;
+import com.tienda.compartido.Dinero;
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.OrdenCompra;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Totales de un reporte de ventas sobre 1M y 10M órdenes: las tres pasadas secuenciales
+ * anteriores contra la pasada única de MotorReporteVentas en un ForkJoinPool de 1 a 16
+ * hilos. Con 10M órdenes requiere unos 24 GB de heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms24g", "-Xmx24g"})
+public class ReporteParaleloBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int ordenes;
+
+    @Param({"1", "2", "4", "8", "16"})
+    private int hilos;
+
+    private List<OrdenCompra> lista;
+    private ForkJoinPool pool;
+    private MotorReporteVentas motor;
+
+    @Setup(Level.Trial)
+    public void sembrar() {
+        EscenarioTienda tienda = new EscenarioTienda(10_000, 1000, 1);
+        lista = new ArrayList<>(ordenes);
+        for (int i = 0; i < ordenes; i++) {
+            OrdenCompra orden = new OrdenCompra(tienda.elegirUsuario());
+            orden.setItems(tienda.armarItems(DistribucionProductos.UNIFORME, 3));
+            lista.add(orden);
+        }
+        pool = new ForkJoinPool(hilos);
+        motor = new MotorReporteVentas(pool, MotorReporteVentas.ORDENES_POR_TRAMO_POR_DEFECTO);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public MotorReporteVentas.TotalesVentas pasadaUnicaForkJoin() {
+        return motor.calcular(lista);
+    }
+
+    /**
+     * Implementación anterior de ReporteVentas: una pasada por el total, otra por las
+     * unidades y otra por el volumen de cada producto. No depende de la cantidad de hilos.
+     */
+    @Benchmark
+    public List<Object> tresPasadasSecuencial() {
+        long total = 0;
+        for (OrdenCompra orden : lista) {
+            total = Math.addExact(total, orden.getTotal().getUnidadesMenores());
+        }
+        Map<String, Integer> unidades = lista.stream()
+                .flatMap(orden -> orden.getItems().stream())
+                .collect(Collectors.groupingBy(item -> item.getProducto().getNombre(),
+                        Collectors.summingInt(ItemOrden::getCantidad)));
+        Map<String, Dinero> volumen = lista.stream()
+                .flatMap(orden -> orden.getItems().stream())
+                .collect(Collectors.groupingBy(item -> item.getProducto().getNombre(),
+                        Collectors.reducing(Dinero.CERO, ItemOrden::getSubtotal, Dinero::sumar)));
+        return List.of(total, unidades, volumen);
+    }
+}
@@ -0,0 +1,96 @@
+package com.tienda.benchmarks;
+
+import com.tienda.aplicacion.MotorReservaStock;
+import com.tienda.compartido.ExcepcionNegocio;
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.Producto;
+import com.tienda.dominio.RepositorioProducto;
+import com.tienda.dominio.ReservaStock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la reserva atómica de MotorReservaStock con el camino anterior de
+ * crearOrden (un ciclo de validación seguido de otro de descuento). Cada
+ * operación reserva y luego devuelve el stock para mantener el catálogo estable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ReservaStockBenchmark {
+
+    @Param({"1000"})
+    private int productos;
+
+    @Param({"3"})
+    private int itemsPorOrden;
+
+    @Param({"UNIFORME", "HOT_SKU"})
+    private DistribucionProductos distribucion;
+
+    private EscenarioTienda escenario;
+    private RepositorioProducto repositorioProducto;
+    private MotorReservaStock motor;
+
+    @Setup(Level.Iteration)
+    public void sembrar() {
+        escenario = new EscenarioTienda(productos, 1, 1_000_000);
+        repositorioProducto = escenario.getRepositorioProducto();
+        motor = new MotorReservaStock(repositorioProducto);
+    }
+
+    @Benchmark
+    public boolean reservaAtomica() {
+        try {
+            ReservaStock reserva = motor.reservar(escenario.armarItems(distribucion, itemsPorOrden));
+            return reserva.liberar();
+        } catch (ExcepcionNegocio e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean validarYDescontar() {
+        List<ItemOrden> items = escenario.armarItems(distribucion, itemsPorOrden);
+        for (ItemOrden item : items) {
+            Producto producto = repositorioProducto.buscarPorId(item.getProducto().getId())
+                    .orElseThrow(IllegalStateException::new);
+            if (!producto.tieneStockSuficiente(item.getCantidad())) {
+                return false;
+            }
+        }
+        int descontados = 0;
+        try {
+            for (ItemOrden item : items) {
+                Producto producto = repositorioProducto.buscarPorId(item.getProducto().getId())
+                        .orElseThrow(IllegalStateException::new);
+                producto.descontarStock(item.getCantidad());
+                repositorioProducto.guardar(producto);
+                descontados++;
+            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        } finally {
+            for (int i = 0; i < descontados; i++) {
+                items.get(i).getProducto().agregarStock(items.get(i).getCantidad());
+            }
+        }
+    }
+}
@@ -3,10 +3,22 @@ package com.tienda;
 import com.tienda.aplicacion.*;
 import com.tienda.dominio.*;
 import com.tienda.infraestructura.*;
+import com.tienda.infraestructura.archivo.RepositorioOrdenCompraArchivado;
+import com.tienda.infraestructura.durable.AlmacenDurable;
+import com.tienda.infraestructura.envio.PlanificadorEnvios;
+import com.tienda.infraestructura.envio.ProveedorConsola;
+import com.tienda.infraestructura.metricas.InstrumentadorMetricas;
+import com.tienda.infraestructura.seguridad.AlmacenSesionesMemoria;
+import com.tienda.infraestructura.seguridad.HashContrasenas;
 import com.tienda.compartido.ExcepcionNegocio;
+import com.tienda.compartido.metricas.RegistroMetricas;
+import com.tienda.infraestructura.metricas.ServidorMetricas;
 
 import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
@@ -19,24 +31,101 @@ public class TiendaOnlineApp {
   public static void main(String[] args) {
     System.out.println("=== SISTEMA DE GESTIÓN DE TIENDA ONLINE ===\n");
 
+    // Recursos que se cierran al final aunque la demostración falle
+    ServidorMetricas servidorMetricas = null;
+    AlmacenDurable almacen = null;
+    RepositorioOrdenCompraArchivado archivo = null;
+    List<PlanificadorEnvios> planificadores = new ArrayList<>();
+    ServicioNotificacionCompuesto servicioNotificacion = null;
+    AgrupadorNotificaciones agrupador = null;
+    CacheReportesVentas cacheReportes = null;
+    RegistroMetricas registroMetricas = RegistroMetricas.desactivado();
     try {
-      // Configurar la infraestructura
-      RepositorioProducto repositorioProducto = new RepositorioProductoMemoria();
-      RepositorioUsuario repositorioUsuario = new RepositorioUsuarioMemoria();
-      RepositorioOrdenCompra repositorioOrden = new RepositorioOrdenCompraMemoria();
+      // Con -Dtienda.metricas.puerto=N se miden servicios, repositorios y canales, y las
+      // métricas se exponen en formato Prometheus en http://localhost:N/metrics
+      Integer puertoMetricas = Integer.getInteger("tienda.metricas.puerto");
+      if (puertoMetricas != null) {
+        registroMetricas = new RegistroMetricas();
+      }
+      if (puertoMetricas != null) {
+        servidorMetricas = new ServidorMetricas(puertoMetricas, registroMetricas);
+        System.out.println("Métricas en http://localhost:" + servidorMetricas.getPuerto() + "/metrics\n");
+      }
 
-      // Configurar servicios de notificación
-      ServicioNotificacionCompuesto servicioNotificacion = new ServicioNotificacionCompuesto();
-      servicioNotificacion.agregarServicio(new NotificacionEmail());
-      servicioNotificacion.agregarServicio(new NotificacionWhatsApp());
-      servicioNotificacion.agregarServicio(new NotificacionTelegram());
+      // El servicio de usuarios codifica las contraseñas con el mismo codificador con que
+      // el repositorio las verifica
+      CodificadorContrasenas codificadorContrasenas = new HashContrasenas();
+      AlmacenSesiones almacenSesiones = new AlmacenSesionesMemoria(Duration.ofMinutes(30), 100_000);
+
+      // Configurar la infraestructura (modo durable si se indica un directorio de datos)
+      String directorioDatos = System.getProperty("tienda.datos");
+      RepositorioProducto repositorioProducto;
+      RepositorioUsuario repositorioUsuario;
+      RepositorioOrdenCompra repositorioOrden;
+      if (directorioDatos != null) {
+        almacen = new AlmacenDurable(Paths.get(directorioDatos), codificadorContrasenas);
+        System.out.println("Almacén durable recuperado: " + almacen.getRegistrosRecuperados()
+            + " registros en " + almacen.getMilisRecuperacion() + " ms\n");
+        repositorioProducto = almacen.getRepositorioProducto();
+        repositorioUsuario = almacen.getRepositorioUsuario();
+        // Las órdenes terminadas más antiguas pasan a un archivo columnar mapeado en memoria
+        archivo = new RepositorioOrdenCompraArchivado(almacen.getRepositorioOrden(),
+            repositorioUsuario, repositorioProducto, Paths.get(directorioDatos, "archivo"),
+            Duration.ofDays(Long.getLong("tienda.archivo.dias", 90)), Duration.ofHours(1));
+        repositorioOrden = archivo;
+      } else {
+        repositorioProducto = new RepositorioProductoMemoria();
+        repositorioUsuario = new RepositorioUsuarioMemoria(codificadorContrasenas);
+        repositorioOrden = new RepositorioOrdenCompraMemoria();
+      }
+      repositorioProducto = InstrumentadorMetricas.instrumentar(RepositorioProducto.class, repositorioProducto,
+          registroMetricas, "tienda_repositorio", "operaciones de repositorio", "RepositorioProducto");
+      repositorioUsuario = InstrumentadorMetricas.instrumentar(RepositorioUsuario.class, repositorioUsuario,
+          registroMetricas, "tienda_repositorio", "operaciones de repositorio", "RepositorioUsuario");
+      repositorioOrden = InstrumentadorMetricas.instrumentar(RepositorioOrdenCompra.class, repositorioOrden,
+          registroMetricas, "tienda_repositorio", "operaciones de repositorio", "RepositorioOrdenCompra");
+
+      // Configurar servicios de notificación; cada proveedor entrega con sus límites
+      // por segundo, globales y por destinatario
+      planificadores.add(new PlanificadorEnvios("email", new ProveedorConsola("EMAIL"), 14, 14, 1, 5));
+      planificadores.add(new PlanificadorEnvios("whatsapp", new ProveedorConsola("WHATSAPP"), 80, 80, 1, 3));
+      planificadores.add(new PlanificadorEnvios("telegram", new ProveedorConsola("TELEGRAM"), 30, 30, 1, 1));
+      // Cada canal tiene su propia bandeja de salida: las notificaciones quedan fuera del
+      // camino de la orden y solo se reintentan en el canal que falló
+      servicioNotificacion = new ServicioNotificacionCompuesto(true);
+      agregarCanal(servicioNotificacion, "NotificacionEmail", new NotificacionEmail(planificadores.get(0)),
+          registroMetricas);
+      agregarCanal(servicioNotificacion, "NotificacionWhatsApp", new NotificacionWhatsApp(planificadores.get(1)),
+          registroMetricas);
+      agregarCanal(servicioNotificacion, "NotificacionTelegram", new NotificacionTelegram(planificadores.get(2)),
+          registroMetricas);
+
+      // Las notificaciones se agrupan por usuario, para enviar un resumen en lugar de varias seguidas
+      AgrupadorNotificaciones agrupadorDemo = new AgrupadorNotificaciones(servicioNotificacion);
+      agrupador = agrupadorDemo;
+      registroMetricas.medidor("tienda_bandeja_salida_cola", "Notificaciones pendientes en la bandeja de salida",
+          servicioNotificacion::getProfundidadBandejas);
+      registroMetricas.medidor("tienda_agrupador_razon_reduccion",
+          "Notificaciones originales por notificación enviada",
+          () -> agrupadorDemo.obtenerEstadisticas().getRazonReduccion());
+      for (PlanificadorEnvios planificador : planificadores) {
+        registroMetricas.medidor("tienda_envios_pendientes", "Mensajes en la cola de envíos del proveedor",
+            planificador::getPendientes, "proveedor", planificador.obtenerEstadisticas().getProveedor());
+      }
 
       // Configurar servicios de aplicación
-      ServicioGestionProducto servicioProducto = new ServicioGestionProducto(repositorioProducto);
-      ServicioGestionUsuario servicioUsuario = new ServicioGestionUsuario(repositorioUsuario);
+      ServicioGestionProducto servicioProducto = new ServicioGestionProducto(repositorioProducto, registroMetricas);
+      ServicioGestionUsuario servicioUsuario = new ServicioGestionUsuario(repositorioUsuario, repositorioOrden,
+          codificadorContrasenas, almacenSesiones, registroMetricas);
       ServicioProcesarOrden servicioOrden = new ServicioProcesarOrden(
-          repositorioOrden, repositorioProducto, repositorioUsuario, servicioNotificacion);
-      GeneradorReporteVentas generadorReportes = new GeneradorReporteVentas(repositorioOrden);
+          repositorioOrden, repositorioProducto, repositorioUsuario, agrupador, registroMetricas);
+      AgregadosVentas agregadosVentas = new AgregadosVentas();
+      servicioOrden.agregarObservador(agregadosVentas);
+      cacheReportes = new CacheReportesVentas(CacheReportesVentas.CAPACIDAD_POR_DEFECTO,
+          registroMetricas);
+      servicioOrden.agregarObservador(cacheReportes);
+      GeneradorReporteVentas generadorReportes = new GeneradorReporteVentas(repositorioOrden, agregadosVentas,
+          cacheReportes, registroMetricas);
 
       // Ejecutar demostración
       ejecutarDemostracion(servicioProducto, servicioUsuario, servicioOrden, generadorReportes);
@@ -44,41 +133,121 @@ public class TiendaOnlineApp {
     } catch (Exception e) {
       System.err.println("Error en la aplicación: " + e.getMessage());
       e.printStackTrace();
+    } finally {
+      cerrar(agrupador, servicioNotificacion, planificadores, cacheReportes, registroMetricas, servidorMetricas,
+          archivo, almacen);
+    }
+  }
+
+  /**
+   * Entrega las notificaciones pendientes, muestra las estadísticas y cierra los recursos
+   * que se llegaron a crear
+   */
+  private static void cerrar(AgrupadorNotificaciones agrupador, ServicioNotificacionCompuesto servicioNotificacion,
+      List<PlanificadorEnvios> planificadores, CacheReportesVentas cacheReportes,
+      RegistroMetricas registroMetricas, ServidorMetricas servidorMetricas,
+      RepositorioOrdenCompraArchivado archivo, AlmacenDurable almacen) {
+    try {
+      if (agrupador != null) {
+        agrupador.cerrar();
+        System.out.println(agrupador.obtenerEstadisticas());
+      }
+      if (servicioNotificacion != null) {
+        servicioNotificacion.cerrar(5000);
+      }
+      for (PlanificadorEnvios planificador : planificadores) {
+        planificador.cerrar(5000);
+      }
+      if (servicioNotificacion != null) {
+        servicioNotificacion.obtenerEstadisticasBandejas().forEach((canal, estadisticas) ->
+            System.out.println(canal + " - " + estadisticas));
+        servicioNotificacion.obtenerEstadisticas().forEach(System.out::println);
+      }
+      planificadores.forEach(planificador -> System.out.println(planificador.obtenerEstadisticas()));
+      if (cacheReportes != null) {
+        System.out.println(cacheReportes.obtenerEstadisticas());
+      }
+      if (servidorMetricas != null) {
+        System.out.println("\n" + registroMetricas.exportarPrometheus());
+        servidorMetricas.close();
+      }
+    } finally {
+      try {
+        if (archivo != null) {
+          archivo.close();
+        }
+      } finally {
+        if (almacen != null) {
+          almacen.close();
+        }
+      }
     }
   }
 
+  /**
+   * Registra un producto de la demostración o, si ya existe de una ejecución anterior
+   * sobre el mismo directorio de datos, lo reutiliza reponiendo su stock inicial
+   */
+  private static Producto obtenerProducto(ServicioGestionProducto servicioProducto, String nombre,
+      String descripcion, BigDecimal precio, int stockInicial) {
+    for (Producto existente : servicioProducto.buscarProductosPorNombre(nombre)) {
+      if (existente.getNombre().equals(nombre)) {
+        return servicioProducto.actualizarStock(existente.getId(), stockInicial);
+      }
+    }
+    return servicioProducto.registrarProducto(nombre, descripcion, precio, stockInicial);
+  }
+
+  /**
+   * Registra un usuario de la demostración o reutiliza el que ya existe con ese email
+   */
+  private static Usuario obtenerUsuario(ServicioGestionUsuario servicioUsuario, String nombre, String email,
+      String password) {
+    return servicioUsuario.buscarUsuarioPorEmail(email)
+        .orElseGet(() -> servicioUsuario.registrarUsuario(nombre, email, password));
+  }
+
+  private static void agregarCanal(ServicioNotificacionCompuesto servicioNotificacion, String nombre,
+      ServicioNotificacion canal, RegistroMetricas registroMetricas) {
+    servicioNotificacion.agregarServicio(nombre, InstrumentadorMetricas.instrumentar(ServicioNotificacion.class,
+        canal, registroMetricas, "tienda_canal", "envíos por canal de notificación", nombre));
+  }
+
   private static void ejecutarDemostracion(ServicioGestionProducto servicioProducto,
       ServicioGestionUsuario servicioUsuario,
       ServicioProcesarOrden servicioOrden,
       GeneradorReporteVentas generadorReportes) {
 
     System.out.println("1. REGISTRANDO PRODUCTOS...");
-    Producto producto1 = servicioProducto.registrarProducto(
+    Producto producto1 = obtenerProducto(servicioProducto,
         "Laptop HP Pavilion", "Laptop de 15 pulgadas con procesador Intel i5",
         new BigDecimal("899.99"), 10);
     System.out.println("Producto registrado: " + producto1.getNombre());
 
-    Producto producto2 = servicioProducto.registrarProducto(
+    Producto producto2 = obtenerProducto(servicioProducto,
         "Mouse Inalámbrico", "Mouse óptico inalámbrico con sensor de 1200 DPI",
         new BigDecimal("29.99"), 50);
     System.out.println("Producto registrado: " + producto2.getNombre());
 
-    Producto producto3 = servicioProducto.registrarProducto(
+    Producto producto3 = obtenerProducto(servicioProducto,
         "Teclado Mecánico", "Teclado mecánico RGB con switches Cherry MX",
         new BigDecimal("149.99"), 15);
     System.out.println("Producto registrado: " + producto3.getNombre());
 
     System.out.println("\n2. REGISTRANDO USUARIOS...");
-    Usuario usuario1 = servicioUsuario.registrarUsuario(
+    Usuario usuario1 = obtenerUsuario(servicioUsuario,
         "Juan Serrudo", "juan.serrduo@gmail.com", "pass123");
     servicioUsuario.actualizarUsuario(usuario1.getId(), usuario1.getNombre(), "+59172890159", "@juanserrudo");
     System.out.println("Usuario registrado: " + usuario1.getNombre());
 
-    Usuario usuario2 = servicioUsuario.registrarUsuario(
+    Usuario usuario2 = obtenerUsuario(servicioUsuario,
         "María García", "maria.garcia@gmail.com", "pass456");
     servicioUsuario.actualizarUsuario(usuario2.getId(), usuario2.getNombre(), "+59172890158", null);
     System.out.println("Usuario registrado: " + usuario2.getNombre());
 
+    String sesion = servicioUsuario.iniciarSesion("juan.serrduo@gmail.com", "pass123");
+    System.out.println("Sesión iniciada para: " + servicioUsuario.validarSesion(sesion).getNombre());
+
     System.out.println("\n3. CREANDO ÓRDENES DE COMPRA...");
 
     // Orden 1: Usuario 1 compra laptop y mouse
@@ -107,18 +276,23 @@ public class TiendaOnlineApp {
     System.out.println("Orden " + ordenCancelada.getId() + " cancelada");
 
     System.out.println("\n5. CONSULTANDO INVENTARIO...");
-    List<Producto> catalogo = servicioProducto.obtenerCatalogo();
     System.out.println("Productos en catálogo:");
-    catalogo.forEach(p -> System.out.println("- " + p.getNombre() + ": " + p.getStockDisponible() + " unidades"));
+    String cursorCatalogo = null;
+    do {
+      Pagina<Producto> catalogo = servicioProducto.obtenerCatalogo(cursorCatalogo, 20);
+      catalogo.getElementos()
+          .forEach(p -> System.out.println("- " + p.getNombre() + ": " + p.getStockDisponible() + " unidades"));
+      cursorCatalogo = catalogo.getCursorSiguiente();
+    } while (cursorCatalogo != null);
 
     System.out.println("\n6. GENERANDO REPORTE DE VENTAS...");
     GeneradorReporteVentas.ReporteVentas reporte = generadorReportes.generarReporteVentasHoy();
     System.out.println(reporte.toString());
 
     System.out.println("\n7. CONSULTANDO HISTORIAL DE USUARIO...");
-    List<OrdenCompra> historialUsuario1 = servicioUsuario.obtenerHistorialOrdenes(usuario1.getId());
+    Pagina<OrdenCompra> historialUsuario1 = servicioUsuario.obtenerHistorialOrdenes(usuario1.getId(), null, 20);
     System.out.println("Historial de " + usuario1.getNombre() + ":");
-    historialUsuario1
+    historialUsuario1.getElementos()
         .forEach(o -> System.out.println("- Orden " + o.getId() + ": " + o.getEstado() + " - Bs" + o.getTotal()));
 
     System.out.println("\n=== DEMOSTRACIÓN COMPLETADA ===");
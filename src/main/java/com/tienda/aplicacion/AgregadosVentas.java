@@ -0,0 +1,213 @@
+package com.tienda.aplicacion;
+
+import com.tienda.compartido.AcumuladosReconstruibles;
+import com.tienda.compartido.Dinero;
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.ObservadorOrden;
+import com.tienda.dominio.OrdenCompra;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Agregados de ventas mantenidos de forma incremental, por día de creación de la
+ * orden y por producto. Se actualizan a medida que las órdenes se completan o se
+ * cancelan, de modo que un reporte de un día o de un mes se responde sumando a lo
+ * sumo unos 31 acumulados en lugar de recorrer las órdenes.
+ *
+ * <p>Las actualizaciones se aplican en paralelo entre sí y también durante una
+ * reconstrucción, que anota los eventos que llegan mientras recorre las órdenes para
+ * no contar ninguna orden dos veces (ver {@link AcumuladosReconstruibles}).
+ */
+public class AgregadosVentas implements ObservadorOrden {
+
+    private final AcumuladosReconstruibles<UUID, ConcurrentMap<LocalDate, AcumuladoDia>> acumuladosPorDia =
+            new AcumuladosReconstruibles<>(new ConcurrentHashMap<>());
+
+    @Override
+    public void actualizar(OrdenCompra orden, String evento) {
+        if (ORDEN_COMPLETADA.equals(evento)) {
+            registrarVenta(orden);
+        } else if (ORDEN_CANCELADA.equals(evento)) {
+            registrarCancelacion(orden);
+        }
+    }
+
+    /**
+     * Registra una orden completada
+     * @param orden orden completada
+     */
+    public void registrarVenta(OrdenCompra orden) {
+        acumuladosPorDia.sumar(orden.getId(), acumulados -> acumuladoDe(acumulados, orden).sumarVenta(orden));
+    }
+
+    /**
+     * Registra una orden cancelada
+     * @param orden orden cancelada
+     */
+    public void registrarCancelacion(OrdenCompra orden) {
+        acumuladosPorDia.sumar(orden.getId(), acumulados -> acumuladoDe(acumulados, orden).sumarCancelacion());
+    }
+
+    /**
+     * Suma los acumulados de los días de un período
+     * @param desde primer día del período
+     * @param hasta último día del período
+     * @return resumen de ventas del período
+     */
+    public ResumenVentas resumir(LocalDate desde, LocalDate hasta) {
+        ResumenVentas resumen = new ResumenVentas();
+        Map<LocalDate, AcumuladoDia> acumulados = acumuladosPorDia.getActuales();
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            AcumuladoDia acumulado = acumulados.get(dia);
+            if (acumulado != null) {
+                acumulado.volcarEn(resumen);
+            }
+        }
+        return resumen;
+    }
+
+    /**
+     * Reconstruye los agregados desde cero a partir de las órdenes indicadas.
+     * Sirve para la carga inicial y para verificar la consistencia de los acumulados.
+     * Las actualizaciones que llegan mientras tanto se aplican y se anotan, y el
+     * recorrido omite las órdenes que ya contaron.
+     * @param ordenes órdenes a considerar
+     */
+    public void reconstruir(Stream<OrdenCompra> ordenes) {
+        acumuladosPorDia.reconstruir(new ConcurrentHashMap<>(),
+                ordenes.filter(orden -> orden.estaCompletada() || orden.estaCancelada()),
+                OrdenCompra::getId,
+                (nuevos, orden) -> {
+                    if (orden.estaCompletada()) {
+                        acumuladoDe(nuevos, orden).sumarVenta(orden);
+                    } else {
+                        acumuladoDe(nuevos, orden).sumarCancelacion();
+                    }
+                });
+    }
+
+    private static AcumuladoDia acumuladoDe(ConcurrentMap<LocalDate, AcumuladoDia> acumulados, OrdenCompra orden) {
+        return acumulados.computeIfAbsent(orden.getFechaCreacion().toLocalDate(), dia -> new AcumuladoDia());
+    }
+
+    /**
+     * Acumulado de ventas de un día. Los montos se suman en unidades menores y cada
+     * producto lleva sus unidades y su volumen en un único arreglo
+     */
+    private static class AcumuladoDia {
+        private int ordenesCompletadas;
+        private int ordenesCanceladas;
+        private Currency moneda;
+        private long totalVentas;
+        private final Map<String, long[]> porProducto = new HashMap<>();
+
+        private synchronized void sumarVenta(OrdenCompra orden) {
+            ordenesCompletadas++;
+            moneda = combinarMoneda(moneda, orden.getTotal().getMoneda());
+            totalVentas = Math.addExact(totalVentas, orden.getTotal().getUnidadesMenores());
+            for (ItemOrden item : orden.getItems()) {
+                long[] acumulado = porProducto.computeIfAbsent(item.getProducto().getNombre(), producto -> new long[2]);
+                acumulado[UNIDADES] += item.getCantidad();
+                acumulado[VOLUMEN] = Math.addExact(acumulado[VOLUMEN],
+                        Math.multiplyExact(item.getPrecioUnitario().getUnidadesMenores(), (long) item.getCantidad()));
+            }
+        }
+
+        private synchronized void sumarCancelacion() {
+            ordenesCanceladas++;
+        }
+
+        private synchronized void volcarEn(ResumenVentas resumen) {
+            resumen.sumar(ordenesCompletadas, ordenesCanceladas, moneda, totalVentas, porProducto);
+        }
+    }
+
+    private static final int UNIDADES = 0;
+    private static final int VOLUMEN = 1;
+
+    private static Currency combinarMoneda(Currency acumulada, Currency nueva) {
+        if (acumulada != null && !acumulada.equals(nueva)) {
+            throw new IllegalArgumentException("No se pueden acumular ventas en " + acumulada + " y " + nueva);
+        }
+        return nueva;
+    }
+
+    /**
+     * Resultado de sumar los acumulados de un período
+     */
+    public static class ResumenVentas {
+        private int ordenesCompletadas;
+        private int ordenesCanceladas;
+        private Currency moneda;
+        private long totalVentas;
+        private final Map<String, long[]> porProducto = new HashMap<>();
+
+        private void sumar(int completadas, int canceladas, Currency monedaDia, long total,
+                           Map<String, long[]> productos) {
+            ordenesCompletadas += completadas;
+            ordenesCanceladas += canceladas;
+            if (monedaDia != null) {
+                moneda = combinarMoneda(moneda, monedaDia);
+            }
+            totalVentas = Math.addExact(totalVentas, total);
+            productos.forEach((producto, valores) -> {
+                long[] acumulado = porProducto.computeIfAbsent(producto, nombre -> new long[2]);
+                acumulado[UNIDADES] += valores[UNIDADES];
+                acumulado[VOLUMEN] = Math.addExact(acumulado[VOLUMEN], valores[VOLUMEN]);
+            });
+        }
+
+        public int getOrdenesCompletadas() {
+            return ordenesCompletadas;
+        }
+
+        public int getOrdenesCanceladas() {
+            return ordenesCanceladas;
+        }
+
+        public Dinero getTotalVentas() {
+            return Dinero.deUnidadesMenores(totalVentas, getMoneda());
+        }
+
+        public Map<String, Integer> getProductosVendidos() {
+            Map<String, Integer> unidades = new HashMap<>();
+            porProducto.forEach((producto, valores) -> unidades.put(producto, Math.toIntExact(valores[UNIDADES])));
+            return unidades;
+        }
+
+        public Map<String, Dinero> getVolumenPorProducto() {
+            Map<String, Dinero> volumen = new HashMap<>();
+            porProducto.forEach((producto, valores) ->
+                    volumen.put(producto, Dinero.deUnidadesMenores(valores[VOLUMEN], getMoneda())));
+            return volumen;
+        }
+
+        private Currency getMoneda() {
+            return moneda != null ? moneda : Dinero.MONEDA_POR_DEFECTO;
+        }
+
+        /**
+         * Compara dos resúmenes
+         * @param otro resumen a comparar
+         * @return true si ambos resúmenes representan las mismas ventas
+         */
+        public boolean coincideCon(ResumenVentas otro) {
+            if (ordenesCompletadas != otro.ordenesCompletadas
+                    || ordenesCanceladas != otro.ordenesCanceladas
+                    || totalVentas != otro.totalVentas
+                    || !porProducto.keySet().equals(otro.porProducto.keySet())) {
+                return false;
+            }
+            return porProducto.entrySet().stream()
+                    .allMatch(e -> Arrays.equals(e.getValue(), otro.porProducto.get(e.getKey())));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.tienda.aplicacion;
+
+import com.tienda.compartido.metricas.Contador;
+import com.tienda.compartido.metricas.HistogramaLatencia;
+import com.tienda.compartido.metricas.RegistroMetricas;
+import com.tienda.dominio.ObservadorOrden;
+import com.tienda.dominio.OrdenCompra;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache de reportes de ventas por tipo y período, con a lo sumo {@code capacidad}
+ * reportes; al llenarse se descarta el usado hace más tiempo.
+ *
+ * <p>Como observador de las órdenes, cuando una orden se completa o se cancela descarta
+ * solo los reportes cuyo período contiene la fecha de creación de esa orden. Debe
+ * registrarse después de los agregados de ventas, para que un reporte recalculado ya
+ * los vea actualizados. Los pedidos simultáneos del mismo reporte esperan un único
+ * cálculo; un reporte que se calculaba cuando su período cambió se entrega a quienes lo
+ * esperaban pero no queda en la cache.
+ */
+public class CacheReportesVentas implements ObservadorOrden {
+
+    /** Reportes guardados si no se indica la capacidad */
+    public static final int CAPACIDAD_POR_DEFECTO = 256;
+
+    private final Map<Clave, Entrada> entradas;
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder coalescidos = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+    private final LongAdder expulsiones = new LongAdder();
+    private final AtomicLong edadMaximaNanos = new AtomicLong();
+    private final LongAdder edadTotalNanos = new LongAdder();
+    private final Contador contadorAciertos;
+    private final Contador contadorFallos;
+    private final Contador contadorInvalidaciones;
+    private final HistogramaLatencia edadServida;
+
+    public CacheReportesVentas() {
+        this(CAPACIDAD_POR_DEFECTO, RegistroMetricas.desactivado());
+    }
+
+    /**
+     * @param capacidad cantidad máxima de reportes guardados
+     * @param registroMetricas registro donde se exponen los aciertos, los fallos, las
+     *                         invalidaciones y la edad de los reportes servidos
+     */
+    public CacheReportesVentas(int capacidad, RegistroMetricas registroMetricas) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("La capacidad de la cache debe ser mayor a cero");
+        }
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> mayor) {
+                if (size() > capacidad) {
+                    expulsiones.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.contadorAciertos = registroMetricas.contador("tienda_cache_reportes_aciertos_total",
+                "Reportes servidos desde la cache, incluidos los que esperaron un cálculo en curso");
+        this.contadorFallos = registroMetricas.contador("tienda_cache_reportes_fallos_total",
+                "Reportes calculados por no estar en la cache");
+        this.contadorInvalidaciones = registroMetricas.contador("tienda_cache_reportes_invalidaciones_total",
+                "Reportes descartados porque cambió una orden de su período");
+        this.edadServida = registroMetricas.histograma("tienda_cache_reportes_edad_segundos",
+                "Tiempo desde el cálculo de cada reporte servido desde la cache");
+        registroMetricas.medidor("tienda_cache_reportes_entradas", "Reportes guardados en la cache",
+                this::getTamano);
+        registroMetricas.medidor("tienda_cache_reportes_razon_aciertos", "Aciertos sobre pedidos a la cache",
+                () -> obtenerEstadisticas().getRazonAciertos());
+    }
+
+    /**
+     * Obtiene un reporte de la cache o lo calcula si no está. Si otro hilo ya lo está
+     * calculando, espera ese cálculo en lugar de repetirlo.
+     * @param tipo tipo de reporte
+     * @param inicio inicio del período, inclusive
+     * @param fin fin del período, inclusive
+     * @param calculo cálculo del reporte
+     * @return reporte del período
+     */
+    public GeneradorReporteVentas.ReporteVentas obtener(String tipo, LocalDateTime inicio, LocalDateTime fin,
+                                                        Supplier<GeneradorReporteVentas.ReporteVentas> calculo) {
+        Clave clave = new Clave(tipo, inicio, fin);
+        Entrada entrada;
+        boolean calcular = false;
+        synchronized (entradas) {
+            entrada = entradas.get(clave);
+            if (entrada == null) {
+                entrada = new Entrada(clave);
+                entradas.put(clave, entrada);
+                calcular = true;
+            }
+        }
+
+        if (calcular) {
+            fallos.increment();
+            contadorFallos.incrementar();
+            try {
+                GeneradorReporteVentas.ReporteVentas reporte = calculo.get();
+                entrada.calculadoNanos = System.nanoTime();
+                entrada.resultado.complete(reporte);
+                return reporte;
+            } catch (RuntimeException | Error e) {
+                synchronized (entradas) {
+                    entradas.remove(clave, entrada);
+                }
+                entrada.resultado.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        aciertos.increment();
+        contadorAciertos.incrementar();
+        if (!entrada.resultado.isDone()) {
+            coalescidos.increment();
+        }
+        try {
+            GeneradorReporteVentas.ReporteVentas reporte = entrada.resultado.join();
+            registrarEdad(System.nanoTime() - entrada.calculadoNanos);
+            return reporte;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void actualizar(OrdenCompra orden, String evento) {
+        if (ORDEN_COMPLETADA.equals(evento) || ORDEN_CANCELADA.equals(evento)) {
+            invalidar(orden.getFechaCreacion());
+        }
+    }
+
+    /**
+     * Descarta los reportes cuyo período contiene el instante indicado
+     * @param fecha fecha de creación de la orden que cambió
+     * @return cantidad de reportes descartados
+     */
+    public int invalidar(LocalDateTime fecha) {
+        int descartados = 0;
+        synchronized (entradas) {
+            Iterator<Entrada> recorrido = entradas.values().iterator();
+            while (recorrido.hasNext()) {
+                Clave clave = recorrido.next().clave;
+                if (!fecha.isBefore(clave.inicio) && !fecha.isAfter(clave.fin)) {
+                    recorrido.remove();
+                    descartados++;
+                }
+            }
+        }
+        invalidaciones.add(descartados);
+        contadorInvalidaciones.sumar(descartados);
+        return descartados;
+    }
+
+    /**
+     * Descarta todos los reportes
+     */
+    public void vaciar() {
+        synchronized (entradas) {
+            entradas.clear();
+        }
+    }
+
+    public int getTamano() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    public EstadisticasCacheReportes obtenerEstadisticas() {
+        long servidos = aciertos.sum();
+        return new EstadisticasCacheReportes(getTamano(), servidos, fallos.sum(), coalescidos.sum(),
+                invalidaciones.sum(), expulsiones.sum(),
+                servidos == 0 ? 0 : edadTotalNanos.sum() / servidos / 1_000_000,
+                edadMaximaNanos.get() / 1_000_000);
+    }
+
+    private void registrarEdad(long edadNanos) {
+        edadServida.registrar(edadNanos);
+        edadTotalNanos.add(edadNanos);
+        edadMaximaNanos.accumulateAndGet(edadNanos, Math::max);
+    }
+
+    private static final class Clave {
+        private final String tipo;
+        private final LocalDateTime inicio;
+        private final LocalDateTime fin;
+
+        private Clave(String tipo, LocalDateTime inicio, LocalDateTime fin) {
+            this.tipo = tipo;
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Clave)) {
+                return false;
+            }
+            Clave otra = (Clave) o;
+            return tipo.equals(otra.tipo) && inicio.equals(otra.inicio) && fin.equals(otra.fin);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tipo, inicio, fin);
+        }
+    }
+
+    private static final class Entrada {
+        private final Clave clave;
+        private final CompletableFuture<GeneradorReporteVentas.ReporteVentas> resultado = new CompletableFuture<>();
+        /** Se escribe antes de completar el resultado, que publica el valor a quienes lo esperan */
+        private long calculadoNanos;
+
+        private Entrada(Clave clave) {
+            this.clave = clave;
+        }
+    }
+}
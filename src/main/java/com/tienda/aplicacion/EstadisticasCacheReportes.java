@@ -0,0 +1,84 @@
+package com.tienda.aplicacion;
+
+/**
+ * Instantánea de las estadísticas de la cache de reportes de ventas
+ */
+public class EstadisticasCacheReportes {
+    private final int entradas;
+    private final long aciertos;
+    private final long fallos;
+    private final long coalescidos;
+    private final long invalidaciones;
+    private final long expulsiones;
+    private final long edadPromedioMillis;
+    private final long edadMaximaMillis;
+
+    public EstadisticasCacheReportes(int entradas, long aciertos, long fallos, long coalescidos,
+                                     long invalidaciones, long expulsiones,
+                                     long edadPromedioMillis, long edadMaximaMillis) {
+        this.entradas = entradas;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.coalescidos = coalescidos;
+        this.invalidaciones = invalidaciones;
+        this.expulsiones = expulsiones;
+        this.edadPromedioMillis = edadPromedioMillis;
+        this.edadMaximaMillis = edadMaximaMillis;
+    }
+
+    public int getEntradas() {
+        return entradas;
+    }
+
+    public long getAciertos() {
+        return aciertos;
+    }
+
+    public long getFallos() {
+        return fallos;
+    }
+
+    /**
+     * Obtiene los aciertos que esperaron un cálculo en curso en lugar de repetirlo
+     */
+    public long getCoalescidos() {
+        return coalescidos;
+    }
+
+    public long getInvalidaciones() {
+        return invalidaciones;
+    }
+
+    public long getExpulsiones() {
+        return expulsiones;
+    }
+
+    /**
+     * Obtiene la proporción de pedidos servidos desde la cache
+     * @return valor entre 0 y 1; 0 si todavía no hubo pedidos
+     */
+    public double getRazonAciertos() {
+        long pedidos = aciertos + fallos;
+        return pedidos == 0 ? 0 : (double) aciertos / pedidos;
+    }
+
+    public long getEdadPromedioMillis() {
+        return edadPromedioMillis;
+    }
+
+    public long getEdadMaximaMillis() {
+        return edadMaximaMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Cache de reportes: entradas=" + entradas
+                + ", aciertos=" + aciertos
+                + ", fallos=" + fallos
+                + String.format(" (%.1f%%)", getRazonAciertos() * 100)
+                + ", coalescidos=" + coalescidos
+                + ", invalidaciones=" + invalidaciones
+                + ", expulsiones=" + expulsiones
+                + ", edad=" + edadPromedioMillis + "ms (max " + edadMaximaMillis + "ms)";
+    }
+}
@@ -0,0 +1,252 @@
+package com.tienda.aplicacion;
+
+import com.tienda.compartido.Dinero;
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.OrdenCompra;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exporta un reporte de ventas en CSV o NDJSON, opcionalmente comprimido con gzip,
+ * escribiendo directamente en el destino: primero el resumen, después los productos y
+ * al final una fila por orden. Las órdenes se leen de un Stream y se escriben a medida
+ * que llegan, así que la memoria usada no depende de cuántas sean.
+ *
+ * <p>En CSV cada sección tiene su propio encabezado, separada de la anterior por una
+ * línea vacía, y la primera columna indica la sección. En NDJSON cada línea es un
+ * objeto con el campo {@code tipo}. Los montos se escriben con sus decimales exactos.
+ */
+public class ExportadorReporteVentas {
+
+    /**
+     * Formato de salida
+     */
+    public enum Formato {
+        CSV,
+        NDJSON
+    }
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private final Formato formato;
+    private final boolean comprimir;
+
+    /**
+     * @param formato formato de salida
+     * @param comprimir true para comprimir la salida con gzip
+     */
+    public ExportadorReporteVentas(Formato formato, boolean comprimir) {
+        this.formato = formato;
+        this.comprimir = comprimir;
+    }
+
+    /**
+     * Exporta el reporte en un canal; el canal no se cierra
+     * @see #exportar(GeneradorReporteVentas.ReporteVentas, Stream, OutputStream)
+     */
+    public long exportar(GeneradorReporteVentas.ReporteVentas reporte, Stream<OrdenCompra> ordenes,
+                         WritableByteChannel canal) throws IOException {
+        return exportar(reporte, ordenes, Channels.newOutputStream(canal));
+    }
+
+    /**
+     * Exporta el reporte con las órdenes indicadas. Al terminar se vacían los buffers y,
+     * si se comprime, se cierra el flujo gzip; la salida no se cierra.
+     * @param reporte reporte con el resumen y los productos
+     * @param ordenes órdenes a exportar, recorridas una sola vez
+     * @param salida destino
+     * @return cantidad de órdenes escritas
+     * @throws IOException si falla la escritura
+     */
+    public long exportar(GeneradorReporteVentas.ReporteVentas reporte, Stream<OrdenCompra> ordenes,
+                         OutputStream salida) throws IOException {
+        GZIPOutputStream gzip = comprimir ? new GZIPOutputStream(salida, TAMANO_BUFFER) : null;
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(gzip != null ? gzip : salida,
+                StandardCharsets.UTF_8), TAMANO_BUFFER);
+
+        escribirResumen(escritor, reporte);
+        escribirProductos(escritor, reporte);
+        long escritas = 0;
+        if (formato == Formato.CSV) {
+            escritor.write("\nseccion,orden_id,usuario_id,fecha_creacion,estado,items,unidades,total\n");
+        }
+        Iterator<OrdenCompra> recorrido = ordenes.iterator();
+        while (recorrido.hasNext()) {
+            escribirOrden(escritor, recorrido.next());
+            escritas++;
+        }
+
+        escritor.flush();
+        if (gzip != null) {
+            gzip.finish();
+        }
+        salida.flush();
+        return escritas;
+    }
+
+    private void escribirResumen(Writer escritor, GeneradorReporteVentas.ReporteVentas reporte) throws IOException {
+        Dinero total = reporte.getTotalVentas();
+        if (formato == Formato.CSV) {
+            escritor.write("seccion,fecha_inicio,fecha_fin,total_ordenes,total_ventas,moneda\nresumen,");
+            escritor.write(String.valueOf(reporte.getFechaInicio()));
+            escritor.write(',');
+            escritor.write(String.valueOf(reporte.getFechaFin()));
+            escritor.write(',');
+            escritor.write(Integer.toString(reporte.getTotalOrdenes()));
+            escritor.write(',');
+            escritor.write(total.aBigDecimal().toPlainString());
+            escritor.write(',');
+            escritor.write(total.getMoneda().getCurrencyCode());
+            escritor.write('\n');
+        } else {
+            escritor.write("{\"tipo\":\"resumen\",\"fechaInicio\":\"");
+            escritor.write(String.valueOf(reporte.getFechaInicio()));
+            escritor.write("\",\"fechaFin\":\"");
+            escritor.write(String.valueOf(reporte.getFechaFin()));
+            escritor.write("\",\"totalOrdenes\":");
+            escritor.write(Integer.toString(reporte.getTotalOrdenes()));
+            escritor.write(",\"totalVentas\":");
+            escritor.write(total.aBigDecimal().toPlainString());
+            escritor.write(",\"moneda\":\"");
+            escritor.write(total.getMoneda().getCurrencyCode());
+            escritor.write("\"}\n");
+        }
+    }
+
+    private void escribirProductos(Writer escritor, GeneradorReporteVentas.ReporteVentas reporte) throws IOException {
+        if (formato == Formato.CSV) {
+            escritor.write("\nseccion,producto,unidades,volumen\n");
+        }
+        Map<String, Dinero> volumenes = reporte.getVolumenPorProducto();
+        for (Map.Entry<String, Integer> producto : new TreeMap<>(reporte.getProductosVendidos()).entrySet()) {
+            Dinero volumen = volumenes.get(producto.getKey());
+            String volumenTexto = volumen != null ? volumen.aBigDecimal().toPlainString() : "0";
+            if (formato == Formato.CSV) {
+                escritor.write("producto,");
+                escribirCampoCsv(escritor, producto.getKey());
+                escritor.write(',');
+                escritor.write(Integer.toString(producto.getValue()));
+                escritor.write(',');
+                escritor.write(volumenTexto);
+                escritor.write('\n');
+            } else {
+                escritor.write("{\"tipo\":\"producto\",\"producto\":");
+                escribirTextoJson(escritor, producto.getKey());
+                escritor.write(",\"unidades\":");
+                escritor.write(Integer.toString(producto.getValue()));
+                escritor.write(",\"volumen\":");
+                escritor.write(volumenTexto);
+                escritor.write("}\n");
+            }
+        }
+    }
+
+    private void escribirOrden(Writer escritor, OrdenCompra orden) throws IOException {
+        long unidades = 0;
+        for (ItemOrden item : orden.getItems()) {
+            unidades += item.getCantidad();
+        }
+        String usuarioId = orden.getUsuario() != null ? orden.getUsuario().getId().toString() : "";
+        if (formato == Formato.CSV) {
+            escritor.write("orden,");
+            escritor.write(orden.getId().toString());
+            escritor.write(',');
+            escritor.write(usuarioId);
+            escritor.write(',');
+            escritor.write(String.valueOf(orden.getFechaCreacion()));
+            escritor.write(',');
+            escritor.write(orden.getEstado().name());
+            escritor.write(',');
+            escritor.write(Integer.toString(orden.getItems().size()));
+            escritor.write(',');
+            escritor.write(Long.toString(unidades));
+            escritor.write(',');
+            escritor.write(orden.getTotal().aBigDecimal().toPlainString());
+            escritor.write('\n');
+        } else {
+            escritor.write("{\"tipo\":\"orden\",\"id\":\"");
+            escritor.write(orden.getId().toString());
+            escritor.write("\",\"usuarioId\":\"");
+            escritor.write(usuarioId);
+            escritor.write("\",\"fechaCreacion\":\"");
+            escritor.write(String.valueOf(orden.getFechaCreacion()));
+            escritor.write("\",\"estado\":\"");
+            escritor.write(orden.getEstado().name());
+            escritor.write("\",\"items\":");
+            escritor.write(Integer.toString(orden.getItems().size()));
+            escritor.write(",\"unidades\":");
+            escritor.write(Long.toString(unidades));
+            escritor.write(",\"total\":");
+            escritor.write(orden.getTotal().aBigDecimal().toPlainString());
+            escritor.write("}\n");
+        }
+    }
+
+    /**
+     * Escribe un campo CSV, entre comillas solo si contiene separadores, comillas o saltos
+     */
+    private static void escribirCampoCsv(Writer escritor, String valor) throws IOException {
+        boolean comillas = false;
+        for (int i = 0; i < valor.length() && !comillas; i++) {
+            char c = valor.charAt(i);
+            comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            escritor.write(valor);
+            return;
+        }
+        escritor.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                escritor.write('"');
+            }
+            escritor.write(c);
+        }
+        escritor.write('"');
+    }
+
+    private static void escribirTextoJson(Writer escritor, String valor) throws IOException {
+        escritor.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"':
+                    escritor.write("\\\"");
+                    break;
+                case '\\':
+                    escritor.write("\\\\");
+                    break;
+                case '\n':
+                    escritor.write("\\n");
+                    break;
+                case '\r':
+                    escritor.write("\\r");
+                    break;
+                case '\t':
+                    escritor.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        escritor.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        escritor.write(c);
+                    }
+                    break;
+            }
+        }
+        escritor.write('"');
+    }
+}
@@ -1,15 +1,23 @@
 package com.tienda.aplicacion;
 
+import com.tienda.compartido.Dinero;
 import com.tienda.dominio.OrdenCompra;
 import com.tienda.dominio.RepositorioOrdenCompra;
 import com.tienda.compartido.ExcepcionNegocio;
 import com.tienda.compartido.MensajesSistema;
+import com.tienda.compartido.metricas.MetricasOperaciones;
+import com.tienda.compartido.metricas.RegistroMetricas;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Servicio de aplicación para la generación de reportes de ventas
@@ -17,9 +25,49 @@ import java.util.stream.Collectors;
 public class GeneradorReporteVentas {
     
     private final RepositorioOrdenCompra repositorioOrden;
+    private final AgregadosVentas agregados;
+    private final CacheReportesVentas cache;
+    private final MetricasOperaciones metricas;
     
     public GeneradorReporteVentas(RepositorioOrdenCompra repositorioOrden) {
+        this(repositorioOrden, null);
+    }
+    
+    public GeneradorReporteVentas(RepositorioOrdenCompra repositorioOrden, AgregadosVentas agregados) {
+        this(repositorioOrden, agregados, RegistroMetricas.desactivado());
+    }
+    
+    /**
+     * Crea el generador apoyado en agregados incrementales; los reportes de días
+     * completos se responden desde los agregados sin recorrer las órdenes
+     * @param repositorioOrden repositorio de órdenes
+     * @param agregados agregados de ventas, o null para calcular siempre desde las órdenes
+     * @param registroMetricas registro donde se mide la latencia de cada reporte
+     */
+    public GeneradorReporteVentas(RepositorioOrdenCompra repositorioOrden, AgregadosVentas agregados,
+                                  RegistroMetricas registroMetricas) {
+        this(repositorioOrden, agregados, null, registroMetricas);
+    }
+    
+    /**
+     * Crea el generador con una cache para los reportes de días completos, que se
+     * vuelven a calcular solo cuando cambia una orden de su período
+     * @param repositorioOrden repositorio de órdenes
+     * @param agregados agregados de ventas, o null para calcular siempre desde las órdenes
+     * @param cache cache de reportes, registrada como observador después de los agregados;
+     *              null para calcular cada reporte
+     * @param registroMetricas registro donde se mide la latencia de cada reporte
+     */
+    public GeneradorReporteVentas(RepositorioOrdenCompra repositorioOrden, AgregadosVentas agregados,
+                                  CacheReportesVentas cache, RegistroMetricas registroMetricas) {
+        this.metricas = new MetricasOperaciones(registroMetricas, "tienda_servicio", "operaciones de servicio",
+                "GeneradorReporteVentas");
         this.repositorioOrden = repositorioOrden;
+        this.agregados = agregados;
+        this.cache = cache;
+        if (agregados != null) {
+            agregados.reconstruir(repositorioOrden.recorrerTodas());
+        }
     }
     
     /**
@@ -29,6 +77,10 @@ public class GeneradorReporteVentas {
      * @return reporte de ventas
      */
     public ReporteVentas generarReporteVentas(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        return metricas.medir("generarReporteVentas", () -> generarReporteVentasSinMedir(fechaInicio, fechaFin));
+    }
+    
+    private ReporteVentas generarReporteVentasSinMedir(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
         if (fechaInicio == null || fechaFin == null) {
             throw new ExcepcionNegocio("Las fechas de inicio y fin son requeridas");
         }
@@ -37,14 +89,158 @@ public class GeneradorReporteVentas {
             throw new ExcepcionNegocio("La fecha de inicio no puede ser posterior a la fecha de fin");
         }
         
-        List<OrdenCompra> ordenes = repositorioOrden.obtenerPorRangoFechas(fechaInicio, fechaFin);
-        
-        // Filtrar solo órdenes completadas
-        List<OrdenCompra> ordenesCompletadas = ordenes.stream()
-                .filter(OrdenCompra::estaCompletada)
-                .collect(Collectors.toList());
+        return calcularTotales(fechaInicio, fechaFin, true);
+    }
+    
+    /**
+     * Genera un reporte de ventas de días completos. Con agregados configurados el
+     * reporte se arma sumando los acumulados diarios y las órdenes solo se buscan si
+     * se piden con {@link ReporteVentas#recorrerOrdenes()}. Con cache configurada, el mismo
+     * período se responde desde la cache hasta que cambie una de sus órdenes; la cache
+     * guarda solo los totales y las órdenes se vuelven a buscar cada vez que se piden
+     * @param desde primer día del período
+     * @param hasta último día del período
+     * @return reporte de ventas
+     */
+    public ReporteVentas generarReporteVentasDias(LocalDate desde, LocalDate hasta) {
+        return metricas.medir("generarReporteVentasDias", () -> generarReporteVentasDiasSinMedir(desde, hasta));
+    }
+    
+    private ReporteVentas generarReporteVentasDiasSinMedir(LocalDate desde, LocalDate hasta) {
+        LocalDateTime fechaInicio = desde.atStartOfDay();
+        LocalDateTime fechaFin = hasta.atTime(LocalTime.MAX);
+        if (cache == null || desde.isAfter(hasta)) {
+            return calcularReporteVentasDias(desde, hasta, fechaInicio, fechaFin);
+        }
+        return cache.obtener("dias", fechaInicio, fechaFin,
+                () -> calcularTotalesVentasDias(desde, hasta, fechaInicio, fechaFin));
+    }
+    
+    private ReporteVentas calcularReporteVentasDias(LocalDate desde, LocalDate hasta,
+                                                    LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        if (agregados == null || desde.isAfter(hasta)) {
+            return generarReporteVentas(fechaInicio, fechaFin);
+        }
         
-        return new ReporteVentas(fechaInicio, fechaFin, ordenesCompletadas);
+        AgregadosVentas.ResumenVentas resumen = agregados.resumir(desde, hasta);
+        return new ReporteVentas(fechaInicio, fechaFin,
+                resumen.getTotalVentas(),
+                resumen.getOrdenesCompletadas(),
+                resumen.getProductosVendidos(),
+                resumen.getVolumenPorProducto(),
+                () -> recorrerOrdenesCompletadas(fechaInicio, fechaFin),
+                true);
+    }
+    
+    /**
+     * Calcula un reporte que no retiene las órdenes del período, para guardarlo en la
+     * cache: los totales salen de los agregados o de una pasada sobre las órdenes, y
+     * cada pedido de las órdenes las vuelve a buscar
+     */
+    private ReporteVentas calcularTotalesVentasDias(LocalDate desde, LocalDate hasta,
+                                                    LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        if (agregados != null) {
+            AgregadosVentas.ResumenVentas resumen = agregados.resumir(desde, hasta);
+            return new ReporteVentas(fechaInicio, fechaFin, resumen.getTotalVentas(), resumen.getOrdenesCompletadas(),
+                    resumen.getProductosVendidos(), resumen.getVolumenPorProducto(),
+                    () -> recorrerOrdenesCompletadas(fechaInicio, fechaFin), false);
+        }
+        return calcularTotales(fechaInicio, fechaFin, false);
+    }
+    
+    /**
+     * Calcula los totales del período en una pasada por las órdenes completadas, sin
+     * copiarlas; las órdenes del reporte se vuelven a recorrer cuando se piden
+     * @param memorizarOrdenes si {@link ReporteVentas#getOrdenes()} conserva la lista armada
+     */
+    private ReporteVentas calcularTotales(LocalDateTime fechaInicio, LocalDateTime fechaFin,
+                                          boolean memorizarOrdenes) {
+        MotorReporteVentas.TotalesVentas totales;
+        try (Stream<OrdenCompra> completadas = recorrerOrdenesCompletadas(fechaInicio, fechaFin)) {
+            totales = MotorReporteVentas.compartido().calcular(completadas);
+        }
+        return new ReporteVentas(fechaInicio, fechaFin, totales.getTotalVentas(), totales.getOrdenes(),
+                totales.getProductosVendidos(), totales.getVolumenPorProducto(),
+                () -> recorrerOrdenesCompletadas(fechaInicio, fechaFin), memorizarOrdenes);
+    }
+    
+    /**
+     * Compara los agregados incrementales de un período con un recálculo completo
+     * desde las órdenes del repositorio
+     * @param desde primer día del período
+     * @param hasta último día del período
+     * @return true si los agregados coinciden con el recálculo, o si no hay agregados
+     */
+    public boolean verificarConsistencia(LocalDate desde, LocalDate hasta) {
+        return metricas.medir("verificarConsistencia", () -> verificarConsistenciaSinMedir(desde, hasta));
+    }
+    
+    private boolean verificarConsistenciaSinMedir(LocalDate desde, LocalDate hasta) {
+        if (agregados == null) {
+            return true;
+        }
+        AgregadosVentas recalculados = new AgregadosVentas();
+        recalculados.reconstruir(repositorioOrden.recorrerPorRangoFechas(desde.atStartOfDay(), hasta.atTime(LocalTime.MAX)));
+        return agregados.resumir(desde, hasta).coincideCon(recalculados.resumir(desde, hasta));
+    }
+    
+    /**
+     * Reconstruye los agregados desde las órdenes del repositorio
+     */
+    public void reconstruirAgregados() {
+        metricas.medir("reconstruirAgregados", this::reconstruirAgregadosSinMedir);
+    }
+    
+    private void reconstruirAgregadosSinMedir() {
+        if (agregados != null) {
+            agregados.reconstruir(repositorioOrden.recorrerTodas());
+        }
+    }
+    
+    /**
+     * Exporta el reporte de ventas de días completos con todas sus órdenes, sin cargarlas
+     * en memoria: los totales salen de la cache, de los agregados o de una primera pasada
+     * por las órdenes, y las filas de una segunda pasada que se escribe a medida que se lee
+     * @param desde primer día del período
+     * @param hasta último día del período
+     * @param exportador formato y compresión de la salida
+     * @param salida destino; no se cierra
+     * @return cantidad de órdenes exportadas
+     * @throws IOException si falla la escritura
+     */
+    public long exportarReporteVentas(LocalDate desde, LocalDate hasta, ExportadorReporteVentas exportador,
+                                      OutputStream salida) throws IOException {
+        long inicio = System.nanoTime();
+        try {
+            return exportarReporteVentasSinMedir(desde, hasta, exportador, salida);
+        } catch (IOException | RuntimeException e) {
+            metricas.registrarError("exportarReporteVentas");
+            throw e;
+        } finally {
+            metricas.registrar("exportarReporteVentas", inicio);
+        }
+    }
+    
+    private long exportarReporteVentasSinMedir(LocalDate desde, LocalDate hasta, ExportadorReporteVentas exportador,
+                                               OutputStream salida) throws IOException {
+        if (desde.isAfter(hasta)) {
+            throw new ExcepcionNegocio("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        LocalDateTime fechaInicio = desde.atStartOfDay();
+        LocalDateTime fechaFin = hasta.atTime(LocalTime.MAX);
+        ReporteVentas reporte;
+        if (agregados != null || cache != null) {
+            reporte = generarReporteVentasDias(desde, hasta);
+        } else {
+            reporte = calcularTotalesVentasDias(desde, hasta, fechaInicio, fechaFin);
+        }
+        try (Stream<OrdenCompra> ordenes = recorrerOrdenesCompletadas(fechaInicio, fechaFin)) {
+            return exportador.exportar(reporte, ordenes, salida);
+        }
+    }
+    
+    private Stream<OrdenCompra> recorrerOrdenesCompletadas(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        return repositorioOrden.recorrerPorRangoFechas(fechaInicio, fechaFin).filter(OrdenCompra::estaCompletada);
     }
     
     /**
@@ -52,10 +248,12 @@ public class GeneradorReporteVentas {
      * @return reporte de ventas del día
      */
     public ReporteVentas generarReporteVentasHoy() {
-        LocalDateTime inicioDia = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
-        LocalDateTime finDia = LocalDateTime.now().withHour(23).withMinute(59).withSecond(59).withNano(999999999);
-        
-        return generarReporteVentas(inicioDia, finDia);
+        return metricas.medir("generarReporteVentasHoy", this::generarReporteVentasHoySinMedir);
+    }
+    
+    private ReporteVentas generarReporteVentasHoySinMedir() {
+        LocalDate hoy = LocalDate.now();
+        return generarReporteVentasDias(hoy, hoy);
     }
     
     /**
@@ -63,21 +261,12 @@ public class GeneradorReporteVentas {
      * @return reporte de ventas del mes
      */
     public ReporteVentas generarReporteVentasMes() {
-        LocalDateTime inicioMes = LocalDateTime.now()
-                .withDayOfMonth(1)
-                .withHour(0)
-                .withMinute(0)
-                .withSecond(0)
-                .withNano(0);
-        
-        LocalDateTime finMes = LocalDateTime.now()
-                .withDayOfMonth(LocalDateTime.now().toLocalDate().lengthOfMonth())
-                .withHour(23)
-                .withMinute(59)
-                .withSecond(59)
-                .withNano(999999999);
-        
-        return generarReporteVentas(inicioMes, finMes);
+        return metricas.medir("generarReporteVentasMes", this::generarReporteVentasMesSinMedir);
+    }
+    
+    private ReporteVentas generarReporteVentasMesSinMedir() {
+        LocalDate hoy = LocalDate.now();
+        return generarReporteVentasDias(hoy.withDayOfMonth(1), hoy.withDayOfMonth(hoy.lengthOfMonth()));
     }
     
     /**
@@ -86,46 +275,57 @@ public class GeneradorReporteVentas {
     public static class ReporteVentas {
         private final LocalDateTime fechaInicio;
         private final LocalDateTime fechaFin;
-        private final List<OrdenCompra> ordenes;
-        private final BigDecimal totalVentas;
+        private final Supplier<Stream<OrdenCompra>> recorridoOrdenes;
+        private final boolean memorizarOrdenes;
+        private List<OrdenCompra> ordenes;
+        private final Dinero totalVentas;
         private final int totalOrdenes;
         private final Map<String, Integer> productosVendidos;
-        private final Map<String, BigDecimal> volumenPorProducto;
+        private final Map<String, Dinero> volumenPorProducto;
         
         public ReporteVentas(LocalDateTime fechaInicio, LocalDateTime fechaFin, List<OrdenCompra> ordenes) {
+            this(fechaInicio, fechaFin, ordenes, MotorReporteVentas.compartido());
+        }
+        
+        /**
+         * Crea un reporte calculando sus totales en una sola pasada del motor indicado
+         */
+        public ReporteVentas(LocalDateTime fechaInicio, LocalDateTime fechaFin, List<OrdenCompra> ordenes,
+                             MotorReporteVentas motor) {
+            MotorReporteVentas.TotalesVentas totales = motor.calcular(ordenes);
             this.fechaInicio = fechaInicio;
             this.fechaFin = fechaFin;
+            this.recorridoOrdenes = null;
+            this.memorizarOrdenes = true;
             this.ordenes = ordenes;
-            this.totalVentas = calcularTotalVentas();
+            this.totalVentas = totales.getTotalVentas();
             this.totalOrdenes = ordenes.size();
-            this.productosVendidos = calcularProductosVendidos();
-            this.volumenPorProducto = calcularVolumenPorProducto();
+            this.productosVendidos = totales.getProductosVendidos();
+            this.volumenPorProducto = totales.getVolumenPorProducto();
         }
         
-        private BigDecimal calcularTotalVentas() {
-            return ordenes.stream()
-                    .map(OrdenCompra::getTotal)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-        }
-        
-        private Map<String, Integer> calcularProductosVendidos() {
-            return ordenes.stream()
-                    .flatMap(orden -> orden.getItems().stream())
-                    .collect(Collectors.groupingBy(
-                            item -> item.getProducto().getNombre(),
-                            Collectors.summingInt(item -> item.getCantidad())
-                    ));
-        }
-        
-        private Map<String, BigDecimal> calcularVolumenPorProducto() {
-            return ordenes.stream()
-                    .flatMap(orden -> orden.getItems().stream())
-                    .collect(Collectors.groupingBy(
-                            item -> item.getProducto().getNombre(),
-                            Collectors.reducing(BigDecimal.ZERO, 
-                                    item -> item.getPrecioUnitario().multiply(BigDecimal.valueOf(item.getCantidad())),
-                                    BigDecimal::add)
-                    ));
+        /**
+         * Crea un reporte con los totales ya calculados; las órdenes no se copian y se
+         * recorren desde el origen cada vez que se piden con {@link #recorrerOrdenes()}
+         * @param recorridoOrdenes recorrido de las órdenes del período
+         * @param memorizarOrdenes si es false, cada llamada a {@link #getOrdenes()} vuelve a
+         *                         armar la lista, de modo que un reporte que se conserva
+         *                         mucho tiempo no retiene las órdenes
+         */
+        public ReporteVentas(LocalDateTime fechaInicio, LocalDateTime fechaFin,
+                             Dinero totalVentas, int totalOrdenes,
+                             Map<String, Integer> productosVendidos,
+                             Map<String, Dinero> volumenPorProducto,
+                             Supplier<Stream<OrdenCompra>> recorridoOrdenes,
+                             boolean memorizarOrdenes) {
+            this.fechaInicio = fechaInicio;
+            this.fechaFin = fechaFin;
+            this.recorridoOrdenes = recorridoOrdenes;
+            this.memorizarOrdenes = memorizarOrdenes;
+            this.totalVentas = totalVentas;
+            this.totalOrdenes = totalOrdenes;
+            this.productosVendidos = productosVendidos;
+            this.volumenPorProducto = volumenPorProducto;
         }
         
         // Getters
@@ -137,11 +337,43 @@ public class GeneradorReporteVentas {
             return fechaFin;
         }
         
+        /**
+         * Obtiene las órdenes del reporte copiadas en una lista; para recorrer períodos
+         * grandes sin copiarlos conviene {@link #recorrerOrdenes()}
+         * @return órdenes completadas del período
+         */
         public List<OrdenCompra> getOrdenes() {
-            return ordenes;
+            if (!memorizarOrdenes) {
+                return armarOrdenes();
+            }
+            synchronized (this) {
+                if (ordenes == null) {
+                    ordenes = armarOrdenes();
+                }
+                return ordenes;
+            }
+        }
+        
+        /**
+         * Recorre las órdenes del reporte sin copiarlas en una lista
+         * @return órdenes completadas del período; se debe cerrar al terminar
+         */
+        public Stream<OrdenCompra> recorrerOrdenes() {
+            synchronized (this) {
+                if (ordenes != null) {
+                    return ordenes.stream();
+                }
+            }
+            return recorridoOrdenes.get();
+        }
+        
+        private List<OrdenCompra> armarOrdenes() {
+            try (Stream<OrdenCompra> recorrido = recorridoOrdenes.get()) {
+                return recorrido.collect(Collectors.toList());
+            }
         }
         
-        public BigDecimal getTotalVentas() {
+        public Dinero getTotalVentas() {
             return totalVentas;
         }
         
@@ -153,7 +385,7 @@ public class GeneradorReporteVentas {
             return productosVendidos;
         }
         
-        public Map<String, BigDecimal> getVolumenPorProducto() {
+        public Map<String, Dinero> getVolumenPorProducto() {
             return volumenPorProducto;
         }
         
@@ -0,0 +1,202 @@
+package com.tienda.aplicacion;
+
+import com.tienda.compartido.Dinero;
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.OrdenCompra;
+
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+/**
+ * Calcula los totales de un reporte de ventas (total, unidades y volumen por producto)
+ * en una sola pasada sobre las órdenes. Las listas grandes se parten en tramos que se
+ * recorren en paralelo en un ForkJoinPool, y los resultados parciales se combinan de a
+ * pares; las listas de hasta un tramo se recorren en el hilo que llama.
+ */
+public class MotorReporteVentas {
+
+    /** Órdenes por tramo si no se indica otra cantidad */
+    public static final int ORDENES_POR_TRAMO_POR_DEFECTO = 16_384;
+
+    private static final MotorReporteVentas COMPARTIDO =
+            new MotorReporteVentas(ForkJoinPool.commonPool(), ORDENES_POR_TRAMO_POR_DEFECTO);
+
+    private final ForkJoinPool pool;
+    private final int ordenesPorTramo;
+
+    /**
+     * @param pool pool donde se recorren los tramos
+     * @param ordenesPorTramo cantidad de órdenes a partir de la cual ya no se parte un tramo
+     */
+    public MotorReporteVentas(ForkJoinPool pool, int ordenesPorTramo) {
+        if (ordenesPorTramo < 1) {
+            throw new IllegalArgumentException("La cantidad de órdenes por tramo debe ser mayor a cero");
+        }
+        this.pool = pool;
+        this.ordenesPorTramo = ordenesPorTramo;
+    }
+
+    /**
+     * Obtiene el motor que usa el pool común de la JVM
+     * @return motor compartido
+     */
+    public static MotorReporteVentas compartido() {
+        return COMPARTIDO;
+    }
+
+    /**
+     * Calcula los totales de las órdenes indicadas
+     * @param ordenes órdenes del reporte, todas en la misma moneda
+     * @return totales del reporte
+     * @throws IllegalArgumentException si las órdenes mezclan monedas
+     */
+    public TotalesVentas calcular(List<OrdenCompra> ordenes) {
+        List<OrdenCompra> indexables = ordenes instanceof RandomAccess ? ordenes : new ArrayList<>(ordenes);
+        if (indexables.size() <= ordenesPorTramo) {
+            return new TotalesVentas().acumular(indexables, 0, indexables.size());
+        }
+        return pool.invoke(new Tramo(indexables, 0, indexables.size(), ordenesPorTramo));
+    }
+
+    /**
+     * Calcula los totales de las órdenes de un Stream en una pasada, sin guardarlas; si el
+     * Stream es paralelo, cada hilo acumula su parte y los parciales se combinan
+     * @param ordenes órdenes del reporte, todas en la misma moneda
+     * @return totales del reporte
+     * @throws IllegalArgumentException si las órdenes mezclan monedas
+     */
+    public TotalesVentas calcular(Stream<OrdenCompra> ordenes) {
+        return ordenes.collect(TotalesVentas::new, TotalesVentas::sumar, TotalesVentas::combinar);
+    }
+
+    private static final class Tramo extends RecursiveTask<TotalesVentas> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<OrdenCompra> ordenes;
+        private final int desde;
+        private final int hasta;
+        private final int ordenesPorTramo;
+
+        private Tramo(List<OrdenCompra> ordenes, int desde, int hasta, int ordenesPorTramo) {
+            this.ordenes = ordenes;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.ordenesPorTramo = ordenesPorTramo;
+        }
+
+        @Override
+        protected TotalesVentas compute() {
+            if (hasta - desde <= ordenesPorTramo) {
+                return new TotalesVentas().acumular(ordenes, desde, hasta);
+            }
+            int medio = (desde + hasta) >>> 1;
+            Tramo derecha = new Tramo(ordenes, medio, hasta, ordenesPorTramo);
+            derecha.fork();
+            TotalesVentas izquierda = new Tramo(ordenes, desde, medio, ordenesPorTramo).compute();
+            return izquierda.combinar(derecha.join());
+        }
+    }
+
+    /**
+     * Totales de un conjunto de órdenes, combinables con los de otro conjunto. Los montos
+     * se suman en unidades menores y cada producto lleva sus unidades y su volumen en un
+     * único arreglo
+     */
+    public static class TotalesVentas {
+        private static final int UNIDADES = 0;
+        private static final int VOLUMEN = 1;
+
+        private int ordenes;
+        private Currency moneda;
+        private long totalVentas;
+        private Map<String, long[]> porProducto = new HashMap<>();
+
+        private TotalesVentas acumular(List<OrdenCompra> lista, int desde, int hasta) {
+            for (int i = desde; i < hasta; i++) {
+                sumar(lista.get(i));
+            }
+            return this;
+        }
+
+        private void sumar(OrdenCompra orden) {
+            Dinero total = orden.getTotal();
+            verificarMoneda(total.getMoneda());
+            ordenes++;
+            totalVentas = Math.addExact(totalVentas, total.getUnidadesMenores());
+            for (ItemOrden item : orden.getItems()) {
+                long[] acumulado = porProducto.computeIfAbsent(item.getProducto().getNombre(), producto -> new long[2]);
+                acumulado[UNIDADES] += item.getCantidad();
+                acumulado[VOLUMEN] = Math.addExact(acumulado[VOLUMEN],
+                        Math.multiplyExact(item.getPrecioUnitario().getUnidadesMenores(), (long) item.getCantidad()));
+            }
+        }
+
+        /**
+         * Suma en este resultado los totales de las órdenes que siguen a las suyas
+         */
+        private TotalesVentas combinar(TotalesVentas siguiente) {
+            if (siguiente.moneda != null) {
+                verificarMoneda(siguiente.moneda);
+            }
+            ordenes += siguiente.ordenes;
+            totalVentas = Math.addExact(totalVentas, siguiente.totalVentas);
+            // Se recorre el mapa más chico
+            Map<String, long[]> destino = porProducto;
+            Map<String, long[]> origen = siguiente.porProducto;
+            if (origen.size() > destino.size()) {
+                destino = siguiente.porProducto;
+                origen = porProducto;
+            }
+            for (Map.Entry<String, long[]> entrada : origen.entrySet()) {
+                long[] valores = entrada.getValue();
+                long[] acumulado = destino.putIfAbsent(entrada.getKey(), valores);
+                if (acumulado != null) {
+                    acumulado[UNIDADES] += valores[UNIDADES];
+                    acumulado[VOLUMEN] = Math.addExact(acumulado[VOLUMEN], valores[VOLUMEN]);
+                }
+            }
+            porProducto = destino;
+            return this;
+        }
+
+        private void verificarMoneda(Currency otra) {
+            if (moneda == null) {
+                moneda = otra;
+            } else if (!moneda.equals(otra)) {
+                throw new IllegalArgumentException("El reporte mezcla órdenes en " + moneda + " y " + otra);
+            }
+        }
+
+        public int getOrdenes() {
+            return ordenes;
+        }
+
+        public Currency getMoneda() {
+            return moneda != null ? moneda : Dinero.MONEDA_POR_DEFECTO;
+        }
+
+        public Dinero getTotalVentas() {
+            return Dinero.deUnidadesMenores(totalVentas, getMoneda());
+        }
+
+        public Map<String, Integer> getProductosVendidos() {
+            Map<String, Integer> unidades = new HashMap<>();
+            porProducto.forEach((producto, valores) -> unidades.put(producto, Math.toIntExact(valores[UNIDADES])));
+            return unidades;
+        }
+
+        public Map<String, Dinero> getVolumenPorProducto() {
+            Map<String, Dinero> volumen = new HashMap<>();
+            porProducto.forEach((producto, valores) ->
+                    volumen.put(producto, Dinero.deUnidadesMenores(valores[VOLUMEN], getMoneda())));
+            return volumen;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.tienda.aplicacion;
+
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.Producto;
+import com.tienda.dominio.RepositorioProducto;
+import com.tienda.dominio.ReservaStock;
+import com.tienda.compartido.ExcepcionNegocio;
+import com.tienda.compartido.MensajesSistema;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Motor de reservas de stock "todo o nada" para órdenes con varios items.
+ * Cada producto se descuenta con compare-and-set sobre su propio contador, sin
+ * bloqueo global; si algún producto no alcanza se devuelve lo ya reservado.
+ */
+public class MotorReservaStock {
+
+    private final RepositorioProducto repositorioProducto;
+
+    public MotorReservaStock(RepositorioProducto repositorioProducto) {
+        this.repositorioProducto = repositorioProducto;
+    }
+
+    /**
+     * Reserva el stock de todos los items de una orden
+     * @param items items de la orden
+     * @return reserva activa con el stock ya descontado
+     * @throws ExcepcionNegocio si algún producto no existe o no tiene stock suficiente
+     */
+    public ReservaStock reservar(List<ItemOrden> items) {
+        return reservar(agruparPorProducto(items));
+    }
+
+    /**
+     * Reserva el stock de un conjunto de productos
+     * @param demanda cantidad requerida por ID de producto
+     * @return reserva activa con el stock ya descontado
+     * @throws ExcepcionNegocio si algún producto no existe o no tiene stock suficiente
+     */
+    public ReservaStock reservar(Map<UUID, Integer> demanda) {
+        Map<Producto, Integer> demandaPorProducto = new LinkedHashMap<>();
+        for (Map.Entry<UUID, Integer> entrada : demanda.entrySet()) {
+            Producto producto = repositorioProducto.buscarPorId(entrada.getKey())
+                    .orElseThrow(() -> new ExcepcionNegocio(MensajesSistema.PRODUCTO_NO_ENCONTRADO));
+            demandaPorProducto.put(producto, entrada.getValue());
+        }
+        return reservarProductos(demandaPorProducto);
+    }
+
+    /**
+     * Reserva el stock de productos ya resueltos desde el repositorio
+     * @param demanda cantidad requerida por producto
+     * @return reserva activa con el stock ya descontado
+     * @throws ExcepcionNegocio si algún producto no tiene stock suficiente
+     */
+    public ReservaStock reservarProductos(Map<Producto, Integer> demanda) {
+        List<ReservaStock.LineaReserva> reservadas = new ArrayList<>(demanda.size());
+        for (Map.Entry<Producto, Integer> entrada : demanda.entrySet()) {
+            Producto producto = entrada.getKey();
+            int cantidad = entrada.getValue();
+            if (!producto.reservarStock(cantidad)) {
+                new ReservaStock(reservadas).liberar();
+                throw new ExcepcionNegocio(MensajesSistema.STOCK_INSUFICIENTE + ": " + producto.getNombre());
+            }
+            reservadas.add(new ReservaStock.LineaReserva(producto, cantidad));
+        }
+        return new ReservaStock(reservadas);
+    }
+
+    /**
+     * Reserva en una sola pasada la demanda sumada de varias órdenes y la reparte en una
+     * reserva por orden, para poder liberar la de una orden sin tocar las demás
+     * @param demandas cantidad requerida por producto de cada orden
+     * @return una reserva activa por orden, en el mismo orden
+     * @throws ExcepcionNegocio si algún producto no tiene stock para la demanda total;
+     *                          en ese caso no queda nada reservado
+     */
+    public List<ReservaStock> reservarLote(List<Map<Producto, Integer>> demandas) {
+        Map<Producto, Integer> demandaTotal = new LinkedHashMap<>();
+        for (Map<Producto, Integer> demanda : demandas) {
+            demanda.forEach((producto, cantidad) -> demandaTotal.merge(producto, cantidad, Integer::sum));
+        }
+        return reservarProductos(demandaTotal).repartir(demandas);
+    }
+
+    /**
+     * Confirma una reserva y persiste el stock resultante de sus productos
+     * @param reserva reserva activa
+     */
+    public void confirmar(ReservaStock reserva) {
+        if (reserva.confirmar()) {
+            for (ReservaStock.LineaReserva linea : reserva.getLineas()) {
+                repositorioProducto.guardar(linea.getProducto());
+            }
+        }
+    }
+
+    /**
+     * Confirma varias reservas y persiste una sola vez cada producto de las que se
+     * confirmaron
+     * @param reservas reservas a confirmar; las ya liberadas se ignoran
+     */
+    public void confirmar(Collection<ReservaStock> reservas) {
+        Set<Producto> modificados = new LinkedHashSet<>();
+        for (ReservaStock reserva : reservas) {
+            if (reserva.confirmar()) {
+                for (ReservaStock.LineaReserva linea : reserva.getLineas()) {
+                    modificados.add(linea.getProducto());
+                }
+            }
+        }
+        for (Producto producto : modificados) {
+            repositorioProducto.guardar(producto);
+        }
+    }
+
+    /**
+     * Libera una reserva devolviendo el stock a sus productos
+     * @param reserva reserva activa
+     */
+    public void liberar(ReservaStock reserva) {
+        reserva.liberar();
+    }
+
+    /**
+     * Suma las cantidades pedidas de cada producto; varios items del mismo
+     * producto se reservan como una sola línea
+     * @param items items de la orden
+     * @return cantidad requerida por ID de producto
+     */
+    private Map<UUID, Integer> agruparPorProducto(List<ItemOrden> items) {
+        Map<UUID, Integer> demanda = new LinkedHashMap<>();
+        for (ItemOrden item : items) {
+            if (item.getCantidad() <= 0) {
+                throw new ExcepcionNegocio(MensajesSistema.CANTIDAD_INVALIDA);
+            }
+            demanda.merge(item.getProducto().getId(), item.getCantidad(), Integer::sum);
+        }
+        return demanda;
+    }
+}
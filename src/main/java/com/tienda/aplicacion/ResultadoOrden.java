@@ -0,0 +1,54 @@
+package com.tienda.aplicacion;
+
+import com.tienda.dominio.OrdenCompra;
+
+/**
+ * Resultado de procesar una solicitud de orden dentro de un lote
+ */
+public class ResultadoOrden {
+    private final SolicitudOrden solicitud;
+    private final OrdenCompra orden;
+    private final String error;
+
+    private ResultadoOrden(SolicitudOrden solicitud, OrdenCompra orden, String error) {
+        this.solicitud = solicitud;
+        this.orden = orden;
+        this.error = error;
+    }
+
+    /**
+     * Crea un resultado exitoso
+     * @param solicitud solicitud procesada
+     * @param orden orden creada
+     * @return resultado exitoso
+     */
+    public static ResultadoOrden exitoso(SolicitudOrden solicitud, OrdenCompra orden) {
+        return new ResultadoOrden(solicitud, orden, null);
+    }
+
+    /**
+     * Crea un resultado fallido
+     * @param solicitud solicitud rechazada
+     * @param error motivo del rechazo
+     * @return resultado fallido
+     */
+    public static ResultadoOrden fallido(SolicitudOrden solicitud, String error) {
+        return new ResultadoOrden(solicitud, null, error);
+    }
+
+    public SolicitudOrden getSolicitud() {
+        return solicitud;
+    }
+
+    public OrdenCompra getOrden() {
+        return orden;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isExitoso() {
+        return orden != null;
+    }
+}
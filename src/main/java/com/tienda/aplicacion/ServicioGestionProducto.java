@@ -1,14 +1,18 @@
 package com.tienda.aplicacion;
 
+import com.tienda.dominio.Pagina;
 import com.tienda.dominio.Producto;
 import com.tienda.dominio.RepositorioProducto;
 import com.tienda.compartido.ExcepcionNegocio;
 import com.tienda.compartido.MensajesSistema;
+import com.tienda.compartido.metricas.MetricasOperaciones;
+import com.tienda.compartido.metricas.RegistroMetricas;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Servicio de aplicación para la gestión de productos
@@ -16,9 +20,20 @@ import java.util.UUID;
 public class ServicioGestionProducto {
     
     private final RepositorioProducto repositorioProducto;
+    private final MetricasOperaciones metricas;
     
     public ServicioGestionProducto(RepositorioProducto repositorioProducto) {
+        this(repositorioProducto, RegistroMetricas.desactivado());
+    }
+    
+    /**
+     * @param repositorioProducto repositorio de productos
+     * @param registroMetricas registro donde se mide la latencia de cada operación
+     */
+    public ServicioGestionProducto(RepositorioProducto repositorioProducto, RegistroMetricas registroMetricas) {
         this.repositorioProducto = repositorioProducto;
+        this.metricas = new MetricasOperaciones(registroMetricas, "tienda_servicio", "operaciones de servicio",
+                "ServicioGestionProducto");
     }
     
     /**
@@ -30,6 +45,11 @@ public class ServicioGestionProducto {
      * @return producto creado
      */
     public Producto registrarProducto(String nombre, String descripcion, BigDecimal precio, int stockInicial) {
+        return metricas.medir("registrarProducto",
+                () -> registrarProductoSinMedir(nombre, descripcion, precio, stockInicial));
+    }
+    
+    private Producto registrarProductoSinMedir(String nombre, String descripcion, BigDecimal precio, int stockInicial) {
         validarDatosProducto(nombre, precio, stockInicial);
         
         Producto producto = new Producto(nombre, descripcion, precio, stockInicial);
@@ -37,11 +57,30 @@ public class ServicioGestionProducto {
     }
     
     /**
-     * Obtiene el catálogo de productos activos
+     * Obtiene el catálogo de productos activos copiado en una lista; para catálogos
+     * grandes conviene recorrerlo por páginas con {@link #obtenerCatalogo(String, int)}
      * @return lista de productos activos
      */
     public List<Producto> obtenerCatalogo() {
-        return repositorioProducto.obtenerTodosActivos();
+        return metricas.medir("obtenerCatalogo",
+                () -> repositorioProducto.recorrerActivos().collect(Collectors.toList()));
+    }
+    
+    /**
+     * Obtiene una página del catálogo de productos activos
+     * @param cursor cursor devuelto por la página anterior, o null para la primera
+     * @param tamano cantidad máxima de productos por página
+     * @return página de productos activos
+     */
+    public Pagina<Producto> obtenerCatalogo(String cursor, int tamano) {
+        return metricas.medir("obtenerCatalogoPaginado", () -> obtenerCatalogoSinMedir(cursor, tamano));
+    }
+    
+    private Pagina<Producto> obtenerCatalogoSinMedir(String cursor, int tamano) {
+        if (tamano <= 0) {
+            throw new ExcepcionNegocio(MensajesSistema.CANTIDAD_INVALIDA);
+        }
+        return repositorioProducto.obtenerPaginaActivos(cursor, tamano);
     }
     
     /**
@@ -49,7 +88,7 @@ public class ServicioGestionProducto {
      * @return lista de todos los productos
      */
     public List<Producto> obtenerTodosLosProductos() {
-        return repositorioProducto.obtenerTodos();
+        return metricas.medir("obtenerTodosLosProductos", () -> repositorioProducto.obtenerTodos());
     }
     
     /**
@@ -58,7 +97,7 @@ public class ServicioGestionProducto {
      * @return Optional con el producto si existe
      */
     public Optional<Producto> buscarProductoPorId(UUID id) {
-        return repositorioProducto.buscarPorId(id);
+        return metricas.medir("buscarProductoPorId", () -> repositorioProducto.buscarPorId(id));
     }
     
     /**
@@ -67,7 +106,7 @@ public class ServicioGestionProducto {
      * @return lista de productos que coinciden
      */
     public List<Producto> buscarProductosPorNombre(String nombre) {
-        return repositorioProducto.buscarPorNombre(nombre);
+        return metricas.medir("buscarProductosPorNombre", () -> repositorioProducto.buscarPorNombre(nombre));
     }
     
     /**
@@ -79,6 +118,10 @@ public class ServicioGestionProducto {
      * @return producto modificado
      */
     public Producto modificarProducto(UUID id, String nombre, String descripcion, BigDecimal precio) {
+        return metricas.medir("modificarProducto", () -> modificarProductoSinMedir(id, nombre, descripcion, precio));
+    }
+    
+    private Producto modificarProductoSinMedir(UUID id, String nombre, String descripcion, BigDecimal precio) {
         validarDatosProducto(nombre, precio, 0);
         
         Producto producto = repositorioProducto.buscarPorId(id)
@@ -98,6 +141,10 @@ public class ServicioGestionProducto {
      * @return producto actualizado
      */
     public Producto actualizarStock(UUID id, int nuevaCantidad) {
+        return metricas.medir("actualizarStock", () -> actualizarStockSinMedir(id, nuevaCantidad));
+    }
+    
+    private Producto actualizarStockSinMedir(UUID id, int nuevaCantidad) {
         if (nuevaCantidad < 0) {
             throw new ExcepcionNegocio(MensajesSistema.CANTIDAD_INVALIDA);
         }
@@ -115,6 +162,10 @@ public class ServicioGestionProducto {
      * @return true si se eliminó correctamente
      */
     public boolean eliminarProducto(UUID id) {
+        return metricas.medir("eliminarProducto", () -> eliminarProductoSinMedir(id));
+    }
+    
+    private boolean eliminarProductoSinMedir(UUID id) {
         Producto producto = repositorioProducto.buscarPorId(id)
                 .orElseThrow(() -> new ExcepcionNegocio(MensajesSistema.PRODUCTO_NO_ENCONTRADO));
         
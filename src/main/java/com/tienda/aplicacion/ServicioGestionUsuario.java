@@ -1,10 +1,18 @@
 package com.tienda.aplicacion;
 
+import com.tienda.dominio.AlmacenSesiones;
+import com.tienda.dominio.CodificadorContrasenas;
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.Pagina;
 import com.tienda.dominio.Usuario;
+import com.tienda.dominio.RepositorioOrdenCompra;
 import com.tienda.dominio.RepositorioUsuario;
 import com.tienda.compartido.ExcepcionNegocio;
 import com.tienda.compartido.MensajesSistema;
+import com.tienda.compartido.metricas.MetricasOperaciones;
+import com.tienda.compartido.metricas.RegistroMetricas;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,10 +24,34 @@ import java.util.regex.Pattern;
 public class ServicioGestionUsuario {
     
     private final RepositorioUsuario repositorioUsuario;
+    private final RepositorioOrdenCompra repositorioOrden;
+    private final CodificadorContrasenas codificadorContrasenas;
+    private final AlmacenSesiones almacenSesiones;
+    private final MetricasOperaciones metricas;
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
     
-    public ServicioGestionUsuario(RepositorioUsuario repositorioUsuario) {
+    public ServicioGestionUsuario(RepositorioUsuario repositorioUsuario, RepositorioOrdenCompra repositorioOrden,
+                                  CodificadorContrasenas codificadorContrasenas, AlmacenSesiones almacenSesiones) {
+        this(repositorioUsuario, repositorioOrden, codificadorContrasenas, almacenSesiones,
+                RegistroMetricas.desactivado());
+    }
+    
+    /**
+     * @param repositorioUsuario repositorio de usuarios
+     * @param repositorioOrden repositorio de órdenes
+     * @param codificadorContrasenas codificador de contraseñas, el mismo que usa el repositorio de usuarios
+     * @param almacenSesiones almacén de sesiones
+     * @param registroMetricas registro donde se mide la latencia de cada operación
+     */
+    public ServicioGestionUsuario(RepositorioUsuario repositorioUsuario, RepositorioOrdenCompra repositorioOrden,
+                                  CodificadorContrasenas codificadorContrasenas, AlmacenSesiones almacenSesiones,
+                                  RegistroMetricas registroMetricas) {
+        this.metricas = new MetricasOperaciones(registroMetricas, "tienda_servicio", "operaciones de servicio",
+                "ServicioGestionUsuario");
         this.repositorioUsuario = repositorioUsuario;
+        this.repositorioOrden = repositorioOrden;
+        this.codificadorContrasenas = codificadorContrasenas;
+        this.almacenSesiones = almacenSesiones;
     }
     
     /**
@@ -30,13 +62,17 @@ public class ServicioGestionUsuario {
      * @return usuario creado
      */
     public Usuario registrarUsuario(String nombre, String email, String password) {
+        return metricas.medir("registrarUsuario", () -> registrarUsuarioSinMedir(nombre, email, password));
+    }
+    
+    private Usuario registrarUsuarioSinMedir(String nombre, String email, String password) {
         validarDatosUsuario(nombre, email, password);
         
         if (repositorioUsuario.existePorEmail(email)) {
             throw new ExcepcionNegocio(MensajesSistema.USUARIO_YA_EXISTE);
         }
         
-        Usuario usuario = new Usuario(nombre, email, password);
+        Usuario usuario = new Usuario(nombre, email, codificadorContrasenas.codificar(password));
         return repositorioUsuario.guardar(usuario);
     }
     
@@ -47,6 +83,10 @@ public class ServicioGestionUsuario {
      * @return usuario autenticado
      */
     public Usuario autenticarUsuario(String email, String password) {
+        return metricas.medir("autenticarUsuario", () -> autenticarUsuarioSinMedir(email, password));
+    }
+    
+    private Usuario autenticarUsuarioSinMedir(String email, String password) {
         if (email == null || email.trim().isEmpty()) {
             throw new ExcepcionNegocio(MensajesSistema.EMAIL_REQUERIDO);
         }
@@ -55,8 +95,57 @@ public class ServicioGestionUsuario {
             throw new ExcepcionNegocio("La contraseña es requerida");
         }
         
-        return repositorioUsuario.autenticar(email, password)
+        Usuario usuario = repositorioUsuario.autenticar(email, password)
                 .orElseThrow(() -> new ExcepcionNegocio(MensajesSistema.CREDENCIALES_INVALIDAS));
+        
+        // Contraseñas en texto plano o con otro factor de trabajo se recodifican al validarse
+        if (codificadorContrasenas.necesitaRecodificar(usuario.getPassword())) {
+            usuario.setPassword(codificadorContrasenas.codificar(password));
+            repositorioUsuario.guardar(usuario);
+        }
+        return usuario;
+    }
+    
+    /**
+     * Autentica un usuario y abre una sesión. Las solicitudes siguientes se validan con
+     * el token, sin volver a calcular el hash de la contraseña.
+     * @param email email del usuario
+     * @param password contraseña del usuario
+     * @return token opaco de la sesión
+     */
+    public String iniciarSesion(String email, String password) {
+        return metricas.medir("iniciarSesion", () -> iniciarSesionSinMedir(email, password));
+    }
+    
+    private String iniciarSesionSinMedir(String email, String password) {
+        Usuario usuario = autenticarUsuario(email, password);
+        return almacenSesiones.crear(usuario.getId());
+    }
+    
+    /**
+     * Valida un token de sesión
+     * @param token token devuelto por {@link #iniciarSesion(String, String)}
+     * @return usuario de la sesión
+     */
+    public Usuario validarSesion(String token) {
+        return metricas.medir("validarSesion", () -> validarSesionSinMedir(token));
+    }
+    
+    private Usuario validarSesionSinMedir(String token) {
+        UUID usuarioId = almacenSesiones.validar(token)
+                .orElseThrow(() -> new ExcepcionNegocio(MensajesSistema.SESION_INVALIDA));
+        
+        return repositorioUsuario.buscarPorId(usuarioId)
+                .filter(Usuario::isActivo)
+                .orElseThrow(() -> new ExcepcionNegocio(MensajesSistema.SESION_INVALIDA));
+    }
+    
+    /**
+     * Cierra una sesión
+     * @param token token de la sesión
+     */
+    public void cerrarSesion(String token) {
+        metricas.medir("cerrarSesion", () -> almacenSesiones.revocar(token));
     }
     
     /**
@@ -65,7 +154,7 @@ public class ServicioGestionUsuario {
      * @return Optional con el usuario si existe
      */
     public Optional<Usuario> buscarUsuarioPorId(UUID id) {
-        return repositorioUsuario.buscarPorId(id);
+        return metricas.medir("buscarUsuarioPorId", () -> repositorioUsuario.buscarPorId(id));
     }
     
     /**
@@ -74,7 +163,7 @@ public class ServicioGestionUsuario {
      * @return Optional con el usuario si existe
      */
     public Optional<Usuario> buscarUsuarioPorEmail(String email) {
-        return repositorioUsuario.buscarPorEmail(email);
+        return metricas.medir("buscarUsuarioPorEmail", () -> repositorioUsuario.buscarPorEmail(email));
     }
     
     /**
@@ -82,7 +171,7 @@ public class ServicioGestionUsuario {
      * @return lista de usuarios activos
      */
     public List<Usuario> obtenerUsuariosActivos() {
-        return repositorioUsuario.obtenerTodosActivos();
+        return metricas.medir("obtenerUsuariosActivos", () -> repositorioUsuario.obtenerTodosActivos());
     }
     
     /**
@@ -90,7 +179,7 @@ public class ServicioGestionUsuario {
      * @return lista de todos los usuarios
      */
     public List<Usuario> obtenerTodosLosUsuarios() {
-        return repositorioUsuario.obtenerTodos();
+        return metricas.medir("obtenerTodosLosUsuarios", () -> repositorioUsuario.obtenerTodos());
     }
     
     /**
@@ -102,6 +191,10 @@ public class ServicioGestionUsuario {
      * @return usuario actualizado
      */
     public Usuario actualizarUsuario(UUID id, String nombre, String telefono, String telegramId) {
+        return metricas.medir("actualizarUsuario", () -> actualizarUsuarioSinMedir(id, nombre, telefono, telegramId));
+    }
+    
+    private Usuario actualizarUsuarioSinMedir(UUID id, String nombre, String telefono, String telegramId) {
         Usuario usuario = repositorioUsuario.buscarPorId(id)
                 .orElseThrow(() -> new ExcepcionNegocio(MensajesSistema.USUARIO_NO_ENCONTRADO));
         
@@ -121,23 +214,41 @@ public class ServicioGestionUsuario {
      * @return usuario desactivado
      */
     public Usuario desactivarUsuario(UUID id) {
+        return metricas.medir("desactivarUsuario", () -> desactivarUsuarioSinMedir(id));
+    }
+    
+    private Usuario desactivarUsuarioSinMedir(UUID id) {
         Usuario usuario = repositorioUsuario.buscarPorId(id)
                 .orElseThrow(() -> new ExcepcionNegocio(MensajesSistema.USUARIO_NO_ENCONTRADO));
         
         usuario.setActivo(false);
+        almacenSesiones.revocarUsuario(id);
         return repositorioUsuario.guardar(usuario);
     }
     
     /**
-     * Obtiene el historial de órdenes de un usuario
+     * Obtiene una página del historial de órdenes de un usuario, de la más reciente a la
+     * más antigua. Solo se buscan en el repositorio las órdenes de la página; las que ya
+     * no existen se omiten.
      * @param id ID del usuario
-     * @return lista de órdenes del usuario
+     * @param cursor cursor devuelto por la página anterior, o null para la primera
+     * @param tamano cantidad máxima de órdenes
+     * @return página de órdenes del usuario
      */
-    public List<com.tienda.dominio.OrdenCompra> obtenerHistorialOrdenes(UUID id) {
+    public Pagina<OrdenCompra> obtenerHistorialOrdenes(UUID id, String cursor, int tamano) {
+        return metricas.medir("obtenerHistorialOrdenes", () -> obtenerHistorialOrdenesSinMedir(id, cursor, tamano));
+    }
+    
+    private Pagina<OrdenCompra> obtenerHistorialOrdenesSinMedir(UUID id, String cursor, int tamano) {
         Usuario usuario = repositorioUsuario.buscarPorId(id)
                 .orElseThrow(() -> new ExcepcionNegocio(MensajesSistema.USUARIO_NO_ENCONTRADO));
         
-        return usuario.getHistorialOrdenes();
+        Pagina<UUID> ids = usuario.getHistorialOrdenes().obtenerPagina(cursor, tamano);
+        List<OrdenCompra> ordenes = new ArrayList<>(ids.getElementos().size());
+        for (UUID ordenId : ids.getElementos()) {
+            repositorioOrden.buscarPorId(ordenId).ifPresent(ordenes::add);
+        }
+        return new Pagina<>(ordenes, ids.getCursorSiguiente());
     }
     
     /**
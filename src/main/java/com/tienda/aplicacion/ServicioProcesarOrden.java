@@ -3,10 +3,20 @@ package com.tienda.aplicacion;
 import com.tienda.dominio.*;
 import com.tienda.compartido.ExcepcionNegocio;
 import com.tienda.compartido.MensajesSistema;
+import com.tienda.compartido.metricas.MetricasOperaciones;
+import com.tienda.compartido.metricas.RegistroMetricas;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Servicio de aplicación para el procesamiento de órdenes de compra
@@ -17,15 +27,53 @@ public class ServicioProcesarOrden {
     private final RepositorioProducto repositorioProducto;
     private final RepositorioUsuario repositorioUsuario;
     private final ServicioNotificacion servicioNotificacion;
+    private final MotorReservaStock motorReservaStock;
+    private final List<ObservadorOrden> observadores = new CopyOnWriteArrayList<>();
+    private final MetricasOperaciones metricas;
     
     public ServicioProcesarOrden(RepositorioOrdenCompra repositorioOrden,
                                 RepositorioProducto repositorioProducto,
                                 RepositorioUsuario repositorioUsuario,
                                 ServicioNotificacion servicioNotificacion) {
+        this(repositorioOrden, repositorioProducto, repositorioUsuario, servicioNotificacion,
+                RegistroMetricas.desactivado());
+    }
+    
+    /**
+     * @param repositorioOrden repositorio de órdenes
+     * @param repositorioProducto repositorio de productos
+     * @param repositorioUsuario repositorio de usuarios
+     * @param servicioNotificacion servicio de notificación
+     * @param registroMetricas registro donde se mide la latencia de cada operación
+     */
+    public ServicioProcesarOrden(RepositorioOrdenCompra repositorioOrden,
+                                RepositorioProducto repositorioProducto,
+                                RepositorioUsuario repositorioUsuario,
+                                ServicioNotificacion servicioNotificacion,
+                                RegistroMetricas registroMetricas) {
+        this.metricas = new MetricasOperaciones(registroMetricas, "tienda_servicio", "operaciones de servicio",
+                "ServicioProcesarOrden");
         this.repositorioOrden = repositorioOrden;
         this.repositorioProducto = repositorioProducto;
         this.repositorioUsuario = repositorioUsuario;
         this.servicioNotificacion = servicioNotificacion;
+        this.motorReservaStock = new MotorReservaStock(repositorioProducto);
+    }
+    
+    /**
+     * Agrega un observador del ciclo de vida de las órdenes
+     * @param observador observador a agregar
+     */
+    public void agregarObservador(ObservadorOrden observador) {
+        observadores.add(observador);
+    }
+    
+    /**
+     * Remueve un observador del ciclo de vida de las órdenes
+     * @param observador observador a remover
+     */
+    public void removerObservador(ObservadorOrden observador) {
+        observadores.remove(observador);
     }
     
     /**
@@ -35,6 +83,10 @@ public class ServicioProcesarOrden {
      * @return orden creada
      */
     public OrdenCompra crearOrden(UUID usuarioId, List<ItemOrden> items) {
+        return metricas.medir("crearOrden", () -> crearOrdenSinMedir(usuarioId, items));
+    }
+    
+    private OrdenCompra crearOrdenSinMedir(UUID usuarioId, List<ItemOrden> items) {
         if (items == null || items.isEmpty()) {
             throw new ExcepcionNegocio(MensajesSistema.ORDEN_SIN_ITEMS);
         }
@@ -42,39 +94,119 @@ public class ServicioProcesarOrden {
         Usuario usuario = repositorioUsuario.buscarPorId(usuarioId)
                 .orElseThrow(() -> new ExcepcionNegocio(MensajesSistema.USUARIO_NO_ENCONTRADO));
         
-        // Validar stock de todos los productos
-        validarStockDisponible(items);
-        
-        OrdenCompra orden = new OrdenCompra(usuario);
+        // Reservar el stock de todos los productos en un solo paso (todo o nada)
+        ReservaStock reserva = motorReservaStock.reservar(items);
         
-        // Agregar items a la orden
-        for (ItemOrden item : items) {
-            orden.agregarItem(item);
+        OrdenCompra ordenGuardada;
+        try {
+            OrdenCompra orden = new OrdenCompra(usuario);
+            
+            // Agregar items a la orden
+            for (ItemOrden item : items) {
+                orden.agregarItem(item);
+            }
+            
+            // Guardar la orden
+            ordenGuardada = repositorioOrden.guardar(orden);
+        } catch (RuntimeException e) {
+            motorReservaStock.liberar(reserva);
+            throw e;
         }
         
-        // Descontar stock de los productos
-        descontarStockProductos(items);
-        
-        // Guardar la orden
-        OrdenCompra ordenGuardada = repositorioOrden.guardar(orden);
+        // Confirmar el descuento de stock
+        motorReservaStock.confirmar(reserva);
         
         // Agregar la orden al historial del usuario
         usuario.agregarOrdenAlHistorial(ordenGuardada);
         repositorioUsuario.guardar(usuario);
         
         // Notificar la creación de la orden
+        notificarObservadores(ordenGuardada, ObservadorOrden.ORDEN_CREADA);
         servicioNotificacion.notificarNuevaOrden(ordenGuardada);
         
         return ordenGuardada;
     }
     
+    /**
+     * Crea varias órdenes en un solo paso. Los usuarios y productos se resuelven una
+     * sola vez por lote, la demanda se suma por producto y el stock se descuenta en
+     * una sola pasada; cada solicitud se acepta o rechaza de forma independiente.
+     * @param solicitudes solicitudes de orden
+     * @return resultado de cada solicitud, en el mismo orden recibido
+     */
+    public List<ResultadoOrden> crearOrdenes(List<SolicitudOrden> solicitudes) {
+        return metricas.medir("crearOrdenes", () -> crearOrdenesSinMedir(solicitudes));
+    }
+    
+    private List<ResultadoOrden> crearOrdenesSinMedir(List<SolicitudOrden> solicitudes) {
+        if (solicitudes == null || solicitudes.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        Map<UUID, Usuario> usuarios = resolverUsuarios(solicitudes);
+        Map<UUID, Producto> productos = resolverProductos(solicitudes);
+        ResultadoOrden[] resultados = new ResultadoOrden[solicitudes.size()];
+        
+        // Asignar stock a cada solicitud sobre un libro local de disponibilidad
+        Map<UUID, Integer> disponible = new HashMap<>();
+        List<OrdenLote> aceptadas = new ArrayList<>();
+        for (int i = 0; i < solicitudes.size(); i++) {
+            SolicitudOrden solicitud = solicitudes.get(i);
+            try {
+                OrdenLote lote = prepararOrdenLote(i, solicitud, usuarios, productos);
+                asignarStock(lote, disponible);
+                aceptadas.add(lote);
+            } catch (ExcepcionNegocio e) {
+                resultados[i] = ResultadoOrden.fallido(solicitud, e.getMessage());
+            }
+        }
+        
+        List<ReservaStock> reservas = reservarStockLote(aceptadas, resultados);
+        
+        // Guardar las órdenes aceptadas
+        List<OrdenCompra> ordenesCreadas = new ArrayList<>(aceptadas.size());
+        Set<Usuario> usuariosModificados = new LinkedHashSet<>();
+        for (OrdenLote lote : aceptadas) {
+            try {
+                OrdenCompra orden = new OrdenCompra(lote.usuario);
+                for (ItemOrden item : lote.solicitud.getItems()) {
+                    orden.agregarItem(item);
+                }
+                OrdenCompra ordenGuardada = repositorioOrden.guardar(orden);
+                lote.usuario.agregarOrdenAlHistorial(ordenGuardada);
+                usuariosModificados.add(lote.usuario);
+                ordenesCreadas.add(ordenGuardada);
+                resultados[lote.indice] = ResultadoOrden.exitoso(lote.solicitud, ordenGuardada);
+            } catch (RuntimeException e) {
+                motorReservaStock.liberar(lote.reserva);
+                resultados[lote.indice] = ResultadoOrden.fallido(lote.solicitud, e.getMessage());
+            }
+        }
+        
+        // Persistir stock y usuarios una sola vez por entidad
+        motorReservaStock.confirmar(reservas);
+        for (Usuario usuario : usuariosModificados) {
+            repositorioUsuario.guardar(usuario);
+        }
+        
+        // Notificar todas las órdenes creadas al final del lote
+        for (OrdenCompra ordenCreada : ordenesCreadas) {
+            notificarObservadores(ordenCreada, ObservadorOrden.ORDEN_CREADA);
+        }
+        if (!ordenesCreadas.isEmpty()) {
+            servicioNotificacion.notificarNuevasOrdenes(ordenesCreadas);
+        }
+        
+        return Arrays.asList(resultados);
+    }
+    
     /**
      * Obtiene una orden por ID
      * @param ordenId ID de la orden
      * @return Optional con la orden si existe
      */
     public Optional<OrdenCompra> obtenerOrden(UUID ordenId) {
-        return repositorioOrden.buscarPorId(ordenId);
+        return metricas.medir("obtenerOrden", () -> repositorioOrden.buscarPorId(ordenId));
     }
     
     /**
@@ -83,7 +215,7 @@ public class ServicioProcesarOrden {
      * @return lista de órdenes del usuario
      */
     public List<OrdenCompra> obtenerOrdenesUsuario(UUID usuarioId) {
-        return repositorioOrden.obtenerPorUsuario(usuarioId);
+        return metricas.medir("obtenerOrdenesUsuario", () -> repositorioOrden.obtenerPorUsuario(usuarioId));
     }
     
     /**
@@ -91,7 +223,24 @@ public class ServicioProcesarOrden {
      * @return lista de todas las órdenes
      */
     public List<OrdenCompra> obtenerTodasLasOrdenes() {
-        return repositorioOrden.obtenerTodas();
+        return metricas.medir("obtenerTodasLasOrdenes", () -> repositorioOrden.obtenerTodas());
+    }
+    
+    /**
+     * Obtiene una página de órdenes, de la más reciente a la más antigua
+     * @param cursor cursor devuelto por la página anterior, o null para la primera
+     * @param tamano cantidad máxima de órdenes por página
+     * @return página de órdenes
+     */
+    public Pagina<OrdenCompra> obtenerOrdenes(String cursor, int tamano) {
+        return metricas.medir("obtenerOrdenes", () -> obtenerOrdenesSinMedir(cursor, tamano));
+    }
+    
+    private Pagina<OrdenCompra> obtenerOrdenesSinMedir(String cursor, int tamano) {
+        if (tamano <= 0) {
+            throw new ExcepcionNegocio(MensajesSistema.CANTIDAD_INVALIDA);
+        }
+        return repositorioOrden.obtenerPagina(cursor, tamano);
     }
     
     /**
@@ -100,7 +249,7 @@ public class ServicioProcesarOrden {
      * @return lista de órdenes con el estado especificado
      */
     public List<OrdenCompra> obtenerOrdenesPorEstado(OrdenCompra.EstadoOrden estado) {
-        return repositorioOrden.obtenerPorEstado(estado);
+        return metricas.medir("obtenerOrdenesPorEstado", () -> repositorioOrden.obtenerPorEstado(estado));
     }
     
     /**
@@ -109,6 +258,10 @@ public class ServicioProcesarOrden {
      * @return orden completada
      */
     public OrdenCompra completarOrden(UUID ordenId) {
+        return metricas.medir("completarOrden", () -> completarOrdenSinMedir(ordenId));
+    }
+    
+    private OrdenCompra completarOrdenSinMedir(UUID ordenId) {
         OrdenCompra orden = repositorioOrden.buscarPorId(ordenId)
                 .orElseThrow(() -> new ExcepcionNegocio(MensajesSistema.ORDEN_NO_ENCONTRADA));
         
@@ -125,6 +278,8 @@ public class ServicioProcesarOrden {
         
         OrdenCompra ordenActualizada = repositorioOrden.guardar(orden);
         
+        notificarObservadores(ordenActualizada, ObservadorOrden.ORDEN_COMPLETADA);
+        
         // Notificar el cambio de estado
         servicioNotificacion.notificarCambioEstado(ordenActualizada, estadoAnterior);
         
@@ -137,6 +292,10 @@ public class ServicioProcesarOrden {
      * @return orden cancelada
      */
     public OrdenCompra cancelarOrden(UUID ordenId) {
+        return metricas.medir("cancelarOrden", () -> cancelarOrdenSinMedir(ordenId));
+    }
+    
+    private OrdenCompra cancelarOrdenSinMedir(UUID ordenId) {
         OrdenCompra orden = repositorioOrden.buscarPorId(ordenId)
                 .orElseThrow(() -> new ExcepcionNegocio(MensajesSistema.ORDEN_NO_ENCONTRADA));
         
@@ -156,6 +315,8 @@ public class ServicioProcesarOrden {
         
         OrdenCompra ordenActualizada = repositorioOrden.guardar(orden);
         
+        notificarObservadores(ordenActualizada, ObservadorOrden.ORDEN_CANCELADA);
+        
         // Notificar el cambio de estado
         servicioNotificacion.notificarCambioEstado(ordenActualizada, estadoAnterior);
         
@@ -163,31 +324,147 @@ public class ServicioProcesarOrden {
     }
     
     /**
-     * Valida que haya stock suficiente para todos los items
-     * @param items lista de items a validar
+     * Busca una sola vez cada usuario referenciado por el lote
+     * @param solicitudes solicitudes del lote
+     * @return usuarios encontrados por ID
      */
-    private void validarStockDisponible(List<ItemOrden> items) {
-        for (ItemOrden item : items) {
-            Producto producto = repositorioProducto.buscarPorId(item.getProducto().getId())
-                    .orElseThrow(() -> new ExcepcionNegocio(MensajesSistema.PRODUCTO_NO_ENCONTRADO));
-            
-            if (!producto.tieneStockSuficiente(item.getCantidad())) {
+    private Map<UUID, Usuario> resolverUsuarios(List<SolicitudOrden> solicitudes) {
+        Map<UUID, Usuario> usuarios = new HashMap<>();
+        for (SolicitudOrden solicitud : solicitudes) {
+            UUID usuarioId = solicitud.getUsuarioId();
+            if (usuarioId != null && !usuarios.containsKey(usuarioId)) {
+                usuarios.put(usuarioId, repositorioUsuario.buscarPorId(usuarioId).orElse(null));
+            }
+        }
+        return usuarios;
+    }
+    
+    /**
+     * Busca una sola vez cada producto referenciado por el lote
+     * @param solicitudes solicitudes del lote
+     * @return productos encontrados por ID
+     */
+    private Map<UUID, Producto> resolverProductos(List<SolicitudOrden> solicitudes) {
+        Map<UUID, Producto> productos = new HashMap<>();
+        for (SolicitudOrden solicitud : solicitudes) {
+            for (ItemOrden item : solicitud.getItems()) {
+                if (item.getProducto() == null) {
+                    continue;
+                }
+                UUID productoId = item.getProducto().getId();
+                if (!productos.containsKey(productoId)) {
+                    productos.put(productoId, repositorioProducto.buscarPorId(productoId).orElse(null));
+                }
+            }
+        }
+        return productos;
+    }
+    
+    /**
+     * Valida una solicitud del lote y agrupa su demanda por producto
+     * @param indice posición de la solicitud en el lote
+     * @param solicitud solicitud a validar
+     * @param usuarios usuarios resueltos del lote
+     * @param productos productos resueltos del lote
+     * @return orden del lote lista para asignar stock
+     */
+    private OrdenLote prepararOrdenLote(int indice, SolicitudOrden solicitud,
+                                       Map<UUID, Usuario> usuarios, Map<UUID, Producto> productos) {
+        if (solicitud.getItems().isEmpty()) {
+            throw new ExcepcionNegocio(MensajesSistema.ORDEN_SIN_ITEMS);
+        }
+        
+        Usuario usuario = solicitud.getUsuarioId() != null ? usuarios.get(solicitud.getUsuarioId()) : null;
+        if (usuario == null) {
+            throw new ExcepcionNegocio(MensajesSistema.USUARIO_NO_ENCONTRADO);
+        }
+        
+        Map<Producto, Integer> demanda = new LinkedHashMap<>();
+        for (ItemOrden item : solicitud.getItems()) {
+            Producto producto = item.getProducto() != null ? productos.get(item.getProducto().getId()) : null;
+            if (producto == null) {
+                throw new ExcepcionNegocio(MensajesSistema.PRODUCTO_NO_ENCONTRADO);
+            }
+            if (item.getCantidad() <= 0) {
+                throw new ExcepcionNegocio(MensajesSistema.CANTIDAD_INVALIDA);
+            }
+            demanda.merge(producto, item.getCantidad(), Integer::sum);
+        }
+        return new OrdenLote(indice, solicitud, usuario, demanda);
+    }
+    
+    /**
+     * Descuenta la demanda de una orden del libro local de disponibilidad
+     * @param lote orden del lote
+     * @param disponible stock aún asignable por ID de producto
+     */
+    private void asignarStock(OrdenLote lote, Map<UUID, Integer> disponible) {
+        for (Map.Entry<Producto, Integer> entrada : lote.demanda.entrySet()) {
+            Producto producto = entrada.getKey();
+            int restante = disponible.computeIfAbsent(producto.getId(), id -> producto.getStockDisponible());
+            if (restante < entrada.getValue()) {
                 throw new ExcepcionNegocio(MensajesSistema.STOCK_INSUFICIENTE + ": " + producto.getNombre());
             }
         }
+        lote.demanda.forEach((producto, cantidad) -> disponible.merge(producto.getId(), -cantidad, Integer::sum));
     }
     
     /**
-     * Descuenta stock de los productos
-     * @param items lista de items
+     * Reserva en una sola pasada la demanda total del lote, repartida en una reserva
+     * por orden. Si otra operación consumió stock entretanto, se reserva orden por
+     * orden y se rechazan las que ya no alcanzan.
+     * @param aceptadas órdenes aceptadas; se quitan las que no logran reservar
+     * @param resultados resultados del lote
+     * @return reservas tomadas, una por orden aceptada
      */
-    private void descontarStockProductos(List<ItemOrden> items) {
-        for (ItemOrden item : items) {
-            Producto producto = repositorioProducto.buscarPorId(item.getProducto().getId())
-                    .orElseThrow(() -> new ExcepcionNegocio(MensajesSistema.PRODUCTO_NO_ENCONTRADO));
-            
-            producto.descontarStock(item.getCantidad());
-            repositorioProducto.guardar(producto);
+    private List<ReservaStock> reservarStockLote(List<OrdenLote> aceptadas, ResultadoOrden[] resultados) {
+        List<ReservaStock> reservas = new ArrayList<>();
+        if (aceptadas.isEmpty()) {
+            return reservas;
+        }
+        
+        List<Map<Producto, Integer>> demandas = new ArrayList<>(aceptadas.size());
+        for (OrdenLote lote : aceptadas) {
+            demandas.add(lote.demanda);
+        }
+        try {
+            reservas.addAll(motorReservaStock.reservarLote(demandas));
+            for (int i = 0; i < aceptadas.size(); i++) {
+                aceptadas.get(i).reserva = reservas.get(i);
+            }
+            return reservas;
+        } catch (ExcepcionNegocio e) {
+            // El stock cambió desde que se armó el libro local
+        }
+        
+        aceptadas.removeIf(lote -> {
+            try {
+                lote.reserva = motorReservaStock.reservarProductos(lote.demanda);
+                reservas.add(lote.reserva);
+                return false;
+            } catch (ExcepcionNegocio e) {
+                resultados[lote.indice] = ResultadoOrden.fallido(lote.solicitud, e.getMessage());
+                return true;
+            }
+        });
+        return reservas;
+    }
+    
+    /**
+     * Notifica a los observadores un evento del ciclo de vida de una orden. La orden ya
+     * está guardada: el error de un observador se registra y no afecta a los demás ni a
+     * la operación
+     * @param orden orden afectada
+     * @param evento tipo de evento
+     */
+    private void notificarObservadores(OrdenCompra orden, String evento) {
+        for (ObservadorOrden observador : observadores) {
+            try {
+                observador.actualizar(orden, evento);
+            } catch (RuntimeException e) {
+                System.err.println("Error al notificar " + evento + " de la orden " + orden.getId() + " a "
+                        + observador.getClass().getSimpleName() + ": " + e.getMessage());
+            }
         }
     }
     
@@ -204,4 +481,22 @@ public class ServicioProcesarOrden {
             repositorioProducto.guardar(producto);
         }
     }
+    
+    /**
+     * Solicitud del lote ya validada, con su demanda agrupada por producto
+     */
+    private static class OrdenLote {
+        private final int indice;
+        private final SolicitudOrden solicitud;
+        private final Usuario usuario;
+        private final Map<Producto, Integer> demanda;
+        private ReservaStock reserva;
+        
+        private OrdenLote(int indice, SolicitudOrden solicitud, Usuario usuario, Map<Producto, Integer> demanda) {
+            this.indice = indice;
+            this.solicitud = solicitud;
+            this.usuario = usuario;
+            this.demanda = demanda;
+        }
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.tienda.aplicacion;
+
+import com.tienda.dominio.ItemOrden;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Solicitud de creación de una orden dentro de un lote
+ */
+public class SolicitudOrden {
+    private final UUID usuarioId;
+    private final List<ItemOrden> items;
+
+    public SolicitudOrden(UUID usuarioId, List<ItemOrden> items) {
+        this.usuarioId = usuarioId;
+        this.items = items != null ? new ArrayList<>(items) : new ArrayList<>();
+    }
+
+    public UUID getUsuarioId() {
+        return usuarioId;
+    }
+
+    public List<ItemOrden> getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,226 @@
+package com.tienda.aplicacion.servicio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Resumen Space-Saving de los elementos más frecuentes de un flujo, con a lo sumo
+ * {@code capacidad} contadores. Mientras haya lugar las cuentas son exactas; después, un
+ * elemento nuevo reemplaza al de menor cuenta y hereda esa cuenta como error. Cada cuenta
+ * sobreestima la real en a lo sumo su error, que nunca supera el total sumado dividido
+ * por la capacidad.
+ *
+ * <p>Los contadores se guardan en un montículo de mínimos para encontrar el menor en
+ * O(1) y actualizar una cuenta en O(log capacidad). No es seguro entre hilos.
+ */
+final class ContadorFrecuentes {
+
+    private static final Comparator<Entrada> POR_CUENTA =
+            Comparator.comparingLong((Entrada entrada) -> entrada.cuenta);
+    private static final Comparator<Entrada> POR_CUENTA_DESCENDENTE = POR_CUENTA.reversed();
+
+    private final int capacidad;
+    private final Map<UUID, Entrada> entradas;
+    private final Entrada[] monticulo;
+    private int tamano;
+
+    ContadorFrecuentes(int capacidad) {
+        this.capacidad = capacidad;
+        this.entradas = new HashMap<>();
+        this.monticulo = new Entrada[capacidad];
+    }
+
+    /**
+     * Suma una cantidad a la cuenta de un elemento
+     * @param clave elemento
+     * @param cantidad cantidad a sumar, mayor a cero
+     */
+    void sumar(UUID clave, long cantidad) {
+        Entrada entrada = entradas.get(clave);
+        if (entrada == null) {
+            if (tamano < capacidad) {
+                entrada = new Entrada(clave, 0, 0);
+                entrada.posicion = tamano;
+                monticulo[tamano++] = entrada;
+            } else {
+                // Se reemplaza el de menor cuenta, que queda como cota del error
+                entrada = monticulo[0];
+                entradas.remove(entrada.clave);
+                entrada.clave = clave;
+                entrada.error = entrada.cuenta;
+            }
+            entradas.put(clave, entrada);
+        }
+        entrada.cuenta += cantidad;
+        hundir(entrada.posicion);
+    }
+
+    /**
+     * Incorpora otro resumen. Un elemento que falta en un resumen lleno cuenta con el
+     * mínimo de ese resumen, como cuenta y como error, de modo que las cuentas siguen
+     * sobreestimando y los errores siguen acotándolas. Se conservan las mayores cuentas.
+     * @param otro resumen a incorporar; no se modifica
+     */
+    void fusionar(ContadorFrecuentes otro) {
+        long minimoPropio = getMinimo();
+        long minimoOtro = otro.getMinimo();
+        Map<UUID, Entrada> union = new HashMap<>();
+        for (int i = 0; i < tamano; i++) {
+            Entrada propia = monticulo[i];
+            Entrada ajena = otro.entradas.get(propia.clave);
+            union.put(propia.clave, new Entrada(propia.clave,
+                    propia.cuenta + (ajena != null ? ajena.cuenta : minimoOtro),
+                    propia.error + (ajena != null ? ajena.error : minimoOtro)));
+        }
+        for (int i = 0; i < otro.tamano; i++) {
+            Entrada ajena = otro.monticulo[i];
+            if (!union.containsKey(ajena.clave)) {
+                union.put(ajena.clave, new Entrada(ajena.clave,
+                        ajena.cuenta + minimoPropio, ajena.error + minimoPropio));
+            }
+        }
+        List<Entrada> candidatas = new ArrayList<>(union.values());
+        if (candidatas.size() > capacidad) {
+            candidatas.sort(POR_CUENTA_DESCENDENTE);
+            candidatas = candidatas.subList(0, capacidad);
+        }
+        reconstruir(candidatas);
+    }
+
+    /**
+     * Obtiene los elementos de mayor cuenta
+     * @param limite cantidad máxima de elementos
+     * @return copias de las entradas, de mayor a menor cuenta
+     */
+    List<Entrada> mayores(int limite) {
+        return mayores(limite, null);
+    }
+
+    /**
+     * Obtiene los elementos de mayor cuenta de este resumen fusionado con otro, con la
+     * misma regla que {@link #fusionar(ContadorFrecuentes)} pero sin armar el resumen
+     * fusionado: solo se conservan {@code limite} candidatos en un montículo
+     * @param limite cantidad máxima de elementos
+     * @param otro resumen a combinar; null para usar solo este
+     * @return entradas nuevas, de mayor a menor cuenta
+     */
+    List<Entrada> mayores(int limite, ContadorFrecuentes otro) {
+        PriorityQueue<Entrada> candidatas = new PriorityQueue<>(limite + 1, POR_CUENTA);
+        long minimoPropio = getMinimo();
+        long minimoOtro = otro != null ? otro.getMinimo() : 0;
+        for (int i = 0; i < tamano; i++) {
+            Entrada propia = monticulo[i];
+            Entrada ajena = otro != null ? otro.entradas.get(propia.clave) : null;
+            proponer(candidatas, limite, propia.clave,
+                    propia.cuenta + (ajena != null ? ajena.cuenta : minimoOtro),
+                    propia.error + (ajena != null ? ajena.error : minimoOtro));
+        }
+        if (otro != null) {
+            for (int i = 0; i < otro.tamano; i++) {
+                Entrada ajena = otro.monticulo[i];
+                if (!entradas.containsKey(ajena.clave)) {
+                    proponer(candidatas, limite, ajena.clave, ajena.cuenta + minimoPropio, ajena.error + minimoPropio);
+                }
+            }
+        }
+        List<Entrada> resultado = new ArrayList<>(candidatas);
+        resultado.sort(POR_CUENTA_DESCENDENTE);
+        return resultado;
+    }
+
+    private static void proponer(PriorityQueue<Entrada> candidatas, int limite, UUID clave, long cuenta, long error) {
+        if (candidatas.size() < limite) {
+            candidatas.add(new Entrada(clave, cuenta, error));
+        } else if (limite > 0 && cuenta > candidatas.peek().cuenta) {
+            candidatas.poll();
+            candidatas.add(new Entrada(clave, cuenta, error));
+        }
+    }
+
+    /**
+     * Obtiene la menor cuenta; un elemento que no está en el resumen aparece a lo sumo
+     * esa cantidad de veces
+     * @return menor cuenta si el resumen está lleno; 0 si todavía hay lugar
+     */
+    long getMinimo() {
+        return tamano < capacidad ? 0 : monticulo[0].cuenta;
+    }
+
+    void vaciar() {
+        entradas.clear();
+        Arrays.fill(monticulo, 0, tamano, null);
+        tamano = 0;
+    }
+
+    private void reconstruir(List<Entrada> nuevas) {
+        entradas.clear();
+        Arrays.fill(monticulo, 0, tamano, null);
+        tamano = 0;
+        for (Entrada entrada : nuevas) {
+            entrada.posicion = tamano;
+            monticulo[tamano++] = entrada;
+            entradas.put(entrada.clave, entrada);
+        }
+        for (int i = tamano / 2 - 1; i >= 0; i--) {
+            hundir(i);
+        }
+    }
+
+    /**
+     * Baja una entrada cuya cuenta creció hasta restablecer el orden del montículo
+     */
+    private void hundir(int posicion) {
+        Entrada entrada = monticulo[posicion];
+        while (true) {
+            int hijo = 2 * posicion + 1;
+            if (hijo >= tamano) {
+                break;
+            }
+            if (hijo + 1 < tamano && monticulo[hijo + 1].cuenta < monticulo[hijo].cuenta) {
+                hijo++;
+            }
+            if (monticulo[hijo].cuenta >= entrada.cuenta) {
+                break;
+            }
+            monticulo[posicion] = monticulo[hijo];
+            monticulo[posicion].posicion = posicion;
+            posicion = hijo;
+        }
+        monticulo[posicion] = entrada;
+        entrada.posicion = posicion;
+    }
+
+    /**
+     * Contador de un elemento: cuenta estimada y cota de su sobreestimación
+     */
+    static final class Entrada {
+        private UUID clave;
+        private long cuenta;
+        private long error;
+        private int posicion;
+
+        private Entrada(UUID clave, long cuenta, long error) {
+            this.clave = clave;
+            this.cuenta = cuenta;
+            this.error = error;
+        }
+
+        UUID getClave() {
+            return clave;
+        }
+
+        long getCuenta() {
+            return cuenta;
+        }
+
+        long getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.tienda.aplicacion.servicio;
+
+import com.tienda.compartido.AcumuladosReconstruibles;
+import com.tienda.compartido.Dinero;
+import com.tienda.dominio.modelo.ItemOrden;
+import com.tienda.dominio.modelo.OrdenCompra;
+import com.tienda.dominio.servicio.Observer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Cubo de ventas con acumulados por hora, por día y por mes de creación de la orden:
+ * cantidad de órdenes, ventas y unidades, y las mismas cifras por producto y por
+ * usuario. Cada orden se suma en los tres niveles al registrarse.
+ *
+ * <p>Un período se responde combinando la menor cantidad de cubetas: meses completos en
+ * el centro y días u horas sueltos solo en los bordes. Un reporte de varios años suma
+ * unas pocas decenas de cubetas, sin importar cuántas órdenes haya.
+ *
+ * <p>Los eventos de {@link Observer} del modelo los publica {@link RepositorioOrdenCompraObservado};
+ * {@link ServicioGenerarReporte} suscribe el cubo cuando recibe ese repositorio. Con otro
+ * repositorio, quien crea o elimina órdenes debe llamar a {@link #registrar} y
+ * {@link #retirar} (o a {@link #actualizar}) después de guardarlas.
+ *
+ * <p>Las órdenes se suman en paralelo entre sí y también durante una reconstrucción,
+ * que anota las que llegan mientras recorre el repositorio para no contar ninguna dos
+ * veces (ver {@link AcumuladosReconstruibles}).
+ */
+public class CuboVentas implements Observer {
+
+    private static final int HORAS_POR_DIA = 24;
+
+    private final AcumuladosReconstruibles<UUID, Niveles> niveles = new AcumuladosReconstruibles<>(new Niveles());
+
+    @Override
+    public void actualizar(OrdenCompra orden, String evento) {
+        if (ORDEN_CREADA.equals(evento)) {
+            registrar(orden);
+        } else if (ORDEN_ELIMINADA.equals(evento)) {
+            retirar(orden);
+        }
+    }
+
+    @Override
+    public String getIdentificador() {
+        return "CuboVentas";
+    }
+
+    /**
+     * Suma una orden en las cubetas de su hora, su día y su mes de creación
+     * @param orden orden creada
+     */
+    public void registrar(OrdenCompra orden) {
+        niveles.sumar(orden.getId(), actuales -> actuales.sumar(orden, 1));
+    }
+
+    /**
+     * Descuenta una orden eliminada; su fecha de creación debe ser la misma con la que
+     * se registró
+     * @param orden orden eliminada
+     */
+    public void retirar(OrdenCompra orden) {
+        niveles.retirar(orden.getId(), actuales -> actuales.sumar(orden, -1));
+    }
+
+    /**
+     * Resume las ventas de un período de días completos
+     * @param desde primer día del período
+     * @param hasta último día del período, inclusive
+     * @return resumen del período
+     */
+    public ResumenPeriodo resumir(LocalDate desde, LocalDate hasta) {
+        return resumirHoras(desde.toEpochDay() * HORAS_POR_DIA, (hasta.toEpochDay() + 1) * HORAS_POR_DIA);
+    }
+
+    /**
+     * Resume las ventas de un período con resolución de una hora; ambos límites se
+     * truncan a la hora
+     * @param desde inicio del período, inclusive
+     * @param hasta fin del período, exclusive
+     * @return resumen del período
+     */
+    public ResumenPeriodo resumir(LocalDateTime desde, LocalDateTime hasta) {
+        return resumirHoras(claveHora(desde), claveHora(hasta));
+    }
+
+    /**
+     * Obtiene las ventas de cada mes de un rango, leyendo solo las cubetas mensuales
+     * @param desde primer mes
+     * @param hasta último mes, inclusive
+     * @return resumen por mes en orden cronológico; los meses sin ventas quedan vacíos
+     */
+    public Map<YearMonth, ResumenPeriodo> tendenciaMensual(YearMonth desde, YearMonth hasta) {
+        Niveles actuales = niveles.getActuales();
+        Map<YearMonth, ResumenPeriodo> tendencia = new LinkedHashMap<>();
+        for (YearMonth mes = desde; !mes.isAfter(hasta); mes = mes.plusMonths(1)) {
+            ResumenPeriodo resumen = new ResumenPeriodo();
+            volcar(actuales.porMes, claveMes(mes.atDay(1)), resumen);
+            tendencia.put(mes, resumen);
+        }
+        return tendencia;
+    }
+
+    /**
+     * Reconstruye el cubo desde cero a partir de las órdenes indicadas, para la carga
+     * inicial o para verificar la consistencia de los acumulados. Las órdenes que llegan
+     * mientras tanto se suman y se anotan, y el recorrido omite las que ya contaron.
+     * @param ordenes órdenes a considerar
+     */
+    public void reconstruir(Stream<OrdenCompra> ordenes) {
+        niveles.reconstruir(new Niveles(), ordenes, OrdenCompra::getId, (nuevos, orden) -> nuevos.sumar(orden, 1));
+    }
+
+    /**
+     * Recorre [inicio, fin) en horas eligiendo en cada paso la cubeta más gruesa que
+     * empieza en la posición actual y cabe entera en el período
+     */
+    private ResumenPeriodo resumirHoras(long inicio, long fin) {
+        Niveles actuales = niveles.getActuales();
+        ResumenPeriodo resumen = new ResumenPeriodo();
+        long hora = inicio;
+        while (hora < fin) {
+            if (Math.floorMod(hora, HORAS_POR_DIA) == 0) {
+                LocalDate dia = LocalDate.ofEpochDay(Math.floorDiv(hora, HORAS_POR_DIA));
+                if (dia.getDayOfMonth() == 1) {
+                    long finMes = dia.plusMonths(1).toEpochDay() * HORAS_POR_DIA;
+                    if (finMes <= fin) {
+                        volcar(actuales.porMes, claveMes(dia), resumen);
+                        hora = finMes;
+                        continue;
+                    }
+                }
+                if (hora + HORAS_POR_DIA <= fin) {
+                    volcar(actuales.porDia, dia.toEpochDay(), resumen);
+                    hora += HORAS_POR_DIA;
+                    continue;
+                }
+            }
+            volcar(actuales.porHora, hora, resumen);
+            hora++;
+        }
+        return resumen;
+    }
+
+    private static void volcar(Map<Long, Acumulado> nivel, long clave, ResumenPeriodo resumen) {
+        resumen.cubetasConsultadas++;
+        Acumulado acumulado = nivel.get(clave);
+        if (acumulado != null) {
+            acumulado.volcarEn(resumen);
+        }
+    }
+
+    private static long claveHora(LocalDateTime fecha) {
+        return fecha.toLocalDate().toEpochDay() * HORAS_POR_DIA + fecha.getHour();
+    }
+
+    private static long claveMes(LocalDate fecha) {
+        return fecha.getYear() * 12L + fecha.getMonthValue() - 1;
+    }
+
+    private static Currency combinarMoneda(Currency acumulada, Currency nueva) {
+        if (acumulada != null && !acumulada.equals(nueva)) {
+            throw new IllegalArgumentException("No se pueden acumular ventas en " + acumulada + " y " + nueva);
+        }
+        return nueva;
+    }
+
+    /**
+     * Suma valores en un acumulado por clave y quita la clave cuando vuelve a cero
+     */
+    private static void sumarEn(Map<UUID, long[]> valores, UUID clave, long primero, long segundo) {
+        long[] acumulado = valores.computeIfAbsent(clave, id -> new long[2]);
+        acumulado[0] += primero;
+        acumulado[1] = Math.addExact(acumulado[1], segundo);
+        if (acumulado[0] == 0 && acumulado[1] == 0) {
+            valores.remove(clave);
+        }
+    }
+
+    /**
+     * Las tres tablas de cubetas; reconstruir las reemplaza juntas
+     */
+    private static class Niveles {
+        private final ConcurrentMap<Long, Acumulado> porHora = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Long, Acumulado> porDia = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Long, Acumulado> porMes = new ConcurrentHashMap<>();
+
+        private void sumar(OrdenCompra orden, int signo) {
+            LocalDateTime fecha = orden.getFechaCreacion();
+            porHora.computeIfAbsent(claveHora(fecha), clave -> new Acumulado()).sumar(orden, signo);
+            porDia.computeIfAbsent(fecha.toLocalDate().toEpochDay(), clave -> new Acumulado()).sumar(orden, signo);
+            porMes.computeIfAbsent(claveMes(fecha.toLocalDate()), clave -> new Acumulado()).sumar(orden, signo);
+        }
+    }
+
+    /**
+     * Acumulado de una cubeta. Los montos se suman en unidades menores; cada producto
+     * lleva {unidades, ventas} y cada usuario {órdenes, ventas} en un único arreglo
+     */
+    private static class Acumulado {
+        private long ordenes;
+        private long unidades;
+        private Currency moneda;
+        private long ventas;
+        private final Map<UUID, long[]> porProducto = new HashMap<>();
+        private final Map<UUID, long[]> porUsuario = new HashMap<>();
+
+        private synchronized void sumar(OrdenCompra orden, int signo) {
+            Dinero total = orden.getTotal();
+            if (!total.esCero()) {
+                moneda = combinarMoneda(moneda, total.getMoneda());
+            }
+            ordenes += signo;
+            ventas = Math.addExact(ventas, signo * total.getUnidadesMenores());
+            for (ItemOrden item : orden.getItems()) {
+                long cantidad = (long) signo * item.getCantidad();
+                unidades += cantidad;
+                if (item.getProducto() != null) {
+                    sumarEn(porProducto, item.getProducto().getId(), cantidad,
+                            Math.multiplyExact(item.getPrecioUnitario().getUnidadesMenores(), cantidad));
+                }
+            }
+            if (orden.getUsuario() != null) {
+                sumarEn(porUsuario, orden.getUsuario().getId(), signo, signo * total.getUnidadesMenores());
+            }
+        }
+
+        private synchronized void volcarEn(ResumenPeriodo resumen) {
+            resumen.sumar(this);
+        }
+    }
+
+    /**
+     * Resultado de combinar las cubetas de un período
+     */
+    public static class ResumenPeriodo {
+        private long ordenes;
+        private long unidades;
+        private Currency moneda;
+        private long ventas;
+        private final Map<UUID, long[]> porProducto = new HashMap<>();
+        private final Map<UUID, long[]> porUsuario = new HashMap<>();
+        private int cubetasConsultadas;
+
+        private void sumar(Acumulado acumulado) {
+            ordenes += acumulado.ordenes;
+            unidades += acumulado.unidades;
+            if (acumulado.moneda != null) {
+                moneda = combinarMoneda(moneda, acumulado.moneda);
+            }
+            ventas = Math.addExact(ventas, acumulado.ventas);
+            acumulado.porProducto.forEach((id, valores) -> sumarEn(porProducto, id, valores[0], valores[1]));
+            acumulado.porUsuario.forEach((id, valores) -> sumarEn(porUsuario, id, valores[0], valores[1]));
+        }
+
+        public long getOrdenes() {
+            return ordenes;
+        }
+
+        public long getUnidades() {
+            return unidades;
+        }
+
+        public Dinero getTotalVentas() {
+            return Dinero.deUnidadesMenores(ventas, getMoneda());
+        }
+
+        public Map<UUID, Long> getUnidadesPorProducto() {
+            return extraer(porProducto, 0);
+        }
+
+        public Map<UUID, Dinero> getVentasPorProducto() {
+            return extraerMontos(porProducto);
+        }
+
+        public Map<UUID, Long> getOrdenesPorUsuario() {
+            return extraer(porUsuario, 0);
+        }
+
+        public Map<UUID, Dinero> getVentasPorUsuario() {
+            return extraerMontos(porUsuario);
+        }
+
+        /**
+         * Obtiene cuántas cubetas se combinaron para responder el período
+         * @return cubetas leídas, incluidas las vacías
+         */
+        public int getCubetasConsultadas() {
+            return cubetasConsultadas;
+        }
+
+        private Currency getMoneda() {
+            return moneda != null ? moneda : Dinero.MONEDA_POR_DEFECTO;
+        }
+
+        private static Map<UUID, Long> extraer(Map<UUID, long[]> valores, int posicion) {
+            Map<UUID, Long> resultado = new HashMap<>();
+            valores.forEach((id, acumulado) -> resultado.put(id, acumulado[posicion]));
+            return Collections.unmodifiableMap(resultado);
+        }
+
+        private Map<UUID, Dinero> extraerMontos(Map<UUID, long[]> valores) {
+            Map<UUID, Dinero> resultado = new HashMap<>();
+            valores.forEach((id, acumulado) -> resultado.put(id, Dinero.deUnidadesMenores(acumulado[1], getMoneda())));
+            return Collections.unmodifiableMap(resultado);
+        }
+
+        /**
+         * Compara dos resúmenes sin tener en cuenta las cubetas consultadas
+         * @param otro resumen a comparar
+         * @return true si ambos resúmenes representan las mismas ventas
+         */
+        public boolean coincideCon(ResumenPeriodo otro) {
+            return ordenes == otro.ordenes && unidades == otro.unidades && ventas == otro.ventas
+                    && mismosValores(porProducto, otro.porProducto) && mismosValores(porUsuario, otro.porUsuario);
+        }
+
+        private static boolean mismosValores(Map<UUID, long[]> propios, Map<UUID, long[]> otros) {
+            if (propios.size() != otros.size()) {
+                return false;
+            }
+            for (Map.Entry<UUID, long[]> entrada : propios.entrySet()) {
+                long[] otro = otros.get(entrada.getKey());
+                if (otro == null || otro[0] != entrada.getValue()[0] || otro[1] != entrada.getValue()[1]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.tienda.aplicacion.servicio;
+
+import com.tienda.dominio.modelo.ItemOrden;
+import com.tienda.dominio.modelo.OrdenCompra;
+import com.tienda.dominio.servicio.Observer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ranking de los productos más vendidos, en unidades, mantenido a medida que las órdenes
+ * se completan. Responde el histórico y las ventanas de la última hora, el último día y
+ * la última semana sin recorrer las órdenes.
+ *
+ * <p>Cada ventana se arma con paneles: uno por minuto para la hora y uno por hora para
+ * el día y la semana. Los paneles cerrados de cada ventana se combinan una sola vez por
+ * panel, así que una consulta solo recorre esa combinación y el panel en curso. La
+ * ventana avanza de a un panel. Con más productos vendidos que la capacidad, las
+ * unidades son estimaciones que exceden la real en a lo sumo {@link ProductoVendido#getErrorMaximo()}.
+ *
+ * <p>{@link ServicioGenerarReporte} lo carga con las órdenes ya completadas, mediante
+ * {@link #registrar(OrdenCompra, long)}, y lo suscribe a {@link RepositorioOrdenCompraObservado},
+ * que publica los eventos de {@link Observer} del modelo. Con otro repositorio, quien
+ * completa una orden debe llamar a {@link #registrar(OrdenCompra)} después de guardarla.
+ */
+public class RankingProductosVendidos implements Observer {
+
+    /** Contadores por resumen si no se indica la capacidad */
+    public static final int CAPACIDAD_POR_DEFECTO = 1000;
+
+    private static final long MILLIS_POR_MINUTO = 60_000L;
+    private static final long MILLIS_POR_HORA = 3_600_000L;
+
+    /**
+     * Período sobre el que se arma el ranking
+     */
+    public enum Ventana {
+        ULTIMA_HORA,
+        ULTIMO_DIA,
+        ULTIMA_SEMANA,
+        HISTORICO
+    }
+
+    private final int capacidad;
+    private final ContadorFrecuentes historico;
+    private final Paneles porMinuto;
+    private final Paneles porHora;
+
+    public RankingProductosVendidos() {
+        this(CAPACIDAD_POR_DEFECTO);
+    }
+
+    /**
+     * @param capacidad contadores de cada resumen; el error de una estimación es a lo
+     *                  sumo las unidades de su período divididas por la capacidad
+     */
+    public RankingProductosVendidos(int capacidad) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("La capacidad del ranking debe ser mayor a cero");
+        }
+        this.capacidad = capacidad;
+        this.historico = new ContadorFrecuentes(capacidad);
+        this.porMinuto = new Paneles(60, MILLIS_POR_MINUTO);
+        this.porHora = new Paneles(7 * 24, MILLIS_POR_HORA);
+    }
+
+    @Override
+    public void actualizar(OrdenCompra orden, String evento) {
+        if (ORDEN_COMPLETADA.equals(evento)) {
+            registrar(orden);
+        }
+    }
+
+    @Override
+    public String getIdentificador() {
+        return "RankingProductosVendidos";
+    }
+
+    /**
+     * Suma las unidades de una orden completada en este momento
+     * @param orden orden completada
+     */
+    public void registrar(OrdenCompra orden) {
+        registrar(orden, System.currentTimeMillis());
+    }
+
+    /**
+     * Suma las unidades de una orden completada en el instante indicado, por ejemplo al
+     * reprocesar órdenes históricas. Si el instante ya salió de una ventana, solo cuenta
+     * en las más largas y en el histórico.
+     * @param orden orden completada
+     * @param instanteMillis instante de la venta, en milisegundos desde la época
+     */
+    public synchronized void registrar(OrdenCompra orden, long instanteMillis) {
+        for (ItemOrden item : orden.getItems()) {
+            if (item.getProducto() == null || item.getCantidad() <= 0) {
+                continue;
+            }
+            UUID productoId = item.getProducto().getId();
+            historico.sumar(productoId, item.getCantidad());
+            porMinuto.sumar(productoId, item.getCantidad(), instanteMillis);
+            porHora.sumar(productoId, item.getCantidad(), instanteMillis);
+        }
+    }
+
+    /**
+     * Obtiene los productos más vendidos de una ventana que termina ahora
+     * @param ventana período del ranking
+     * @param limite cantidad máxima de productos
+     * @return productos de mayor a menor cantidad vendida
+     */
+    public List<ProductoVendido> masVendidos(Ventana ventana, int limite) {
+        return masVendidos(ventana, limite, System.currentTimeMillis());
+    }
+
+    /**
+     * Obtiene los productos más vendidos de una ventana que termina en el instante indicado
+     * @param ventana período del ranking
+     * @param limite cantidad máxima de productos
+     * @param ahoraMillis fin de la ventana, en milisegundos desde la época
+     * @return productos de mayor a menor cantidad vendida
+     */
+    public synchronized List<ProductoVendido> masVendidos(Ventana ventana, int limite, long ahoraMillis) {
+        List<ContadorFrecuentes.Entrada> mayores;
+        switch (ventana) {
+            case ULTIMA_HORA:
+                mayores = porMinuto.mayores(60, limite, ahoraMillis);
+                break;
+            case ULTIMO_DIA:
+                mayores = porHora.mayores(24, limite, ahoraMillis);
+                break;
+            case ULTIMA_SEMANA:
+                mayores = porHora.mayores(7 * 24, limite, ahoraMillis);
+                break;
+            default:
+                mayores = historico.mayores(limite);
+                break;
+        }
+        List<ProductoVendido> ranking = new ArrayList<>(mayores.size());
+        for (ContadorFrecuentes.Entrada entrada : mayores) {
+            ranking.add(new ProductoVendido(entrada.getClave(), entrada.getCuenta(), entrada.getError()));
+        }
+        return ranking;
+    }
+
+    /**
+     * Anillo de paneles de igual duración. Guarda además, por cada largo de ventana
+     * pedido, la combinación de sus paneles cerrados, que se descarta al cambiar de panel
+     */
+    private final class Paneles {
+        private final ContadorFrecuentes[] anillo;
+        private final long duracionMillis;
+        private final ContadorFrecuentes[] cerradosPorLargo;
+        private long panelActual = Long.MIN_VALUE;
+
+        private Paneles(int cantidad, long duracionMillis) {
+            this.anillo = new ContadorFrecuentes[cantidad];
+            for (int i = 0; i < cantidad; i++) {
+                anillo[i] = new ContadorFrecuentes(capacidad);
+            }
+            this.duracionMillis = duracionMillis;
+            this.cerradosPorLargo = new ContadorFrecuentes[cantidad + 1];
+        }
+
+        private void sumar(UUID productoId, long cantidad, long instanteMillis) {
+            long panel = Math.floorDiv(instanteMillis, duracionMillis);
+            avanzar(panel);
+            if (panel > panelActual - anillo.length) {
+                if (panel < panelActual) {
+                    // Una venta tardía cambia un panel ya cerrado
+                    Arrays.fill(cerradosPorLargo, null);
+                }
+                anillo[posicion(panel)].sumar(productoId, cantidad);
+            }
+        }
+
+        /**
+         * Obtiene los mayores de los últimos {@code largo} paneles, incluido el que está en curso
+         */
+        private List<ContadorFrecuentes.Entrada> mayores(int largo, int limite, long ahoraMillis) {
+            avanzar(Math.floorDiv(ahoraMillis, duracionMillis));
+            ContadorFrecuentes cerrados = cerradosPorLargo[largo];
+            if (cerrados == null) {
+                cerrados = new ContadorFrecuentes(capacidad);
+                for (int atras = 1; atras < largo; atras++) {
+                    cerrados.fusionar(anillo[posicion(panelActual - atras)]);
+                }
+                cerradosPorLargo[largo] = cerrados;
+            }
+            return cerrados.mayores(limite, anillo[posicion(panelActual)]);
+        }
+
+        private void avanzar(long panel) {
+            if (panel <= panelActual) {
+                return;
+            }
+            long desde = panelActual == Long.MIN_VALUE ? panel : Math.max(panelActual + 1, panel - anillo.length + 1);
+            for (long p = desde; p <= panel; p++) {
+                anillo[posicion(p)].vaciar();
+            }
+            panelActual = panel;
+            Arrays.fill(cerradosPorLargo, null);
+        }
+
+        private int posicion(long panel) {
+            return (int) Math.floorMod(panel, (long) anillo.length);
+        }
+    }
+
+    /**
+     * Producto del ranking con sus unidades vendidas
+     */
+    public static class ProductoVendido {
+        private final UUID productoId;
+        private final long unidades;
+        private final long errorMaximo;
+
+        public ProductoVendido(UUID productoId, long unidades, long errorMaximo) {
+            this.productoId = productoId;
+            this.unidades = unidades;
+            this.errorMaximo = errorMaximo;
+        }
+
+        public UUID getProductoId() {
+            return productoId;
+        }
+
+        /**
+         * Obtiene las unidades vendidas estimadas
+         * @return unidades; las reales están entre unidades - errorMaximo y unidades
+         */
+        public long getUnidades() {
+            return unidades;
+        }
+
+        public long getErrorMaximo() {
+            return errorMaximo;
+        }
+
+        public boolean esExacto() {
+            return errorMaximo == 0;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.tienda.aplicacion.servicio;
+
+import com.tienda.dominio.modelo.EstadoOrden;
+import com.tienda.dominio.modelo.OrdenCompra;
+import com.tienda.dominio.repositorio.RepositorioOrdenCompra;
+import com.tienda.dominio.servicio.Observer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Adaptador que publica los eventos de {@link Observer} del modelo a partir de lo que se
+ * guarda en un repositorio de órdenes: {@link Observer#ORDEN_CREADA} al guardar una
+ * orden nueva, {@link Observer#ORDEN_COMPLETADA} al guardarla completada por primera vez
+ * y {@link Observer#ORDEN_ELIMINADA} al eliminarla. Los observadores se notifican después
+ * de guardar, y el fallo de uno no impide notificar a los demás.
+ *
+ * <p>Para reconocer una orden que pasa a completada solo recuerda el estado de las
+ * pendientes, que al crearse se cargan del repositorio.
+ */
+public class RepositorioOrdenCompraObservado implements RepositorioOrdenCompra {
+
+    private final RepositorioOrdenCompra delegado;
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
+    /** Órdenes pendientes; una orden sale de aquí al completarse, cancelarse o eliminarse */
+    private final Set<UUID> pendientes = ConcurrentHashMap.newKeySet();
+
+    public RepositorioOrdenCompraObservado(RepositorioOrdenCompra delegado) {
+        this.delegado = delegado;
+        for (OrdenCompra orden : delegado.obtenerPorEstado(EstadoOrden.PENDIENTE)) {
+            pendientes.add(orden.getId());
+        }
+    }
+
+    /**
+     * Agrega un observer que recibirá los eventos de las órdenes guardadas desde ahora
+     * @param observer observer a agregar
+     */
+    public void agregarObserver(Observer observer) {
+        observers.add(observer);
+    }
+
+    /**
+     * Elimina un observer
+     * @param observer observer a eliminar
+     */
+    public void eliminarObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    @Override
+    public OrdenCompra guardar(OrdenCompra orden) {
+        boolean nueva = !delegado.existe(orden.getId());
+        OrdenCompra guardada = delegado.guardar(orden);
+        boolean estabaPendiente;
+        if (guardada.getEstado() == EstadoOrden.PENDIENTE) {
+            estabaPendiente = !pendientes.add(guardada.getId());
+        } else {
+            estabaPendiente = pendientes.remove(guardada.getId());
+        }
+        if (nueva) {
+            notificar(guardada, Observer.ORDEN_CREADA);
+        }
+        if (guardada.getEstado() == EstadoOrden.COMPLETADA && (nueva || estabaPendiente)) {
+            notificar(guardada, Observer.ORDEN_COMPLETADA);
+        }
+        return guardada;
+    }
+
+    @Override
+    public boolean eliminar(UUID id) {
+        Optional<OrdenCompra> orden = delegado.buscarPorId(id);
+        boolean eliminada = delegado.eliminar(id);
+        pendientes.remove(id);
+        if (eliminada && orden.isPresent()) {
+            notificar(orden.get(), Observer.ORDEN_ELIMINADA);
+        }
+        return eliminada;
+    }
+
+    @Override
+    public Optional<OrdenCompra> buscarPorId(UUID id) {
+        return delegado.buscarPorId(id);
+    }
+
+    @Override
+    public List<OrdenCompra> obtenerPorUsuario(UUID usuarioId) {
+        return delegado.obtenerPorUsuario(usuarioId);
+    }
+
+    @Override
+    public List<OrdenCompra> obtenerTodas() {
+        return delegado.obtenerTodas();
+    }
+
+    @Override
+    public List<OrdenCompra> obtenerPorEstado(EstadoOrden estado) {
+        return delegado.obtenerPorEstado(estado);
+    }
+
+    @Override
+    public List<OrdenCompra> obtenerPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        return delegado.obtenerPorRangoFechas(fechaInicio, fechaFin);
+    }
+
+    @Override
+    public boolean existe(UUID id) {
+        return delegado.existe(id);
+    }
+
+    private void notificar(OrdenCompra orden, String evento) {
+        for (Observer observer : observers) {
+            try {
+                observer.actualizar(orden, evento);
+            } catch (RuntimeException e) {
+                System.err.println("Error al notificar " + evento + " de la orden " + orden.getId() + " a "
+                        + observer.getIdentificador() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.tienda.aplicacion.servicio;
 
+import com.tienda.dominio.modelo.EstadoOrden;
 import com.tienda.dominio.modelo.OrdenCompra;
 import com.tienda.dominio.modelo.Producto;
 import com.tienda.dominio.repositorio.RepositorioOrdenCompra;
 import com.tienda.dominio.repositorio.RepositorioProducto;
+import com.tienda.compartido.Dinero;
 import com.tienda.compartido.excepcion.ExcepcionNegocio;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -19,11 +23,62 @@ public class ServicioGenerarReporte {
     
     private final RepositorioOrdenCompra repositorioOrdenCompra;
     private final RepositorioProducto repositorioProducto;
+    /** Cubo de ventas cargado desde el repositorio; null si no hay */
+    private final CuboVentas cuboVentas;
+    /** Ranking cargado con las órdenes completadas del repositorio; null si no hay */
+    private final RankingProductosVendidos rankingProductos;
     
     public ServicioGenerarReporte(RepositorioOrdenCompra repositorioOrdenCompra, 
                                  RepositorioProducto repositorioProducto) {
+        this(repositorioOrdenCompra, repositorioProducto, null);
+    }
+    
+    /**
+     * Crea el servicio con un cubo de ventas; los totales de los reportes por período se
+     * leen del cubo en lugar de recorrer las órdenes. El cubo se reconstruye con las
+     * órdenes del repositorio. Si el repositorio es un {@link RepositorioOrdenCompraObservado},
+     * el cubo queda suscrito a sus eventos; si no, quien guarda las órdenes debe pasarle
+     * las creadas y las eliminadas con {@link CuboVentas#registrar} y {@link CuboVentas#retirar}.
+     */
+    public ServicioGenerarReporte(RepositorioOrdenCompra repositorioOrdenCompra, 
+                                 RepositorioProducto repositorioProducto,
+                                 CuboVentas cuboVentas) {
+        this(repositorioOrdenCompra, repositorioProducto, cuboVentas, null);
+    }
+    
+    /**
+     * Crea el servicio con un cubo de ventas y un ranking de productos vendidos, nuevo y
+     * vacío. El ranking se carga con las órdenes completadas del repositorio, cada una en
+     * el instante de su última actualización. Si el repositorio es un
+     * {@link RepositorioOrdenCompraObservado}, después queda suscrito a las que se
+     * completen; si no, quien guarda las órdenes debe pasarlas a
+     * {@link RankingProductosVendidos#registrar(OrdenCompra)}.
+     */
+    public ServicioGenerarReporte(RepositorioOrdenCompra repositorioOrdenCompra, 
+                                 RepositorioProducto repositorioProducto,
+                                 CuboVentas cuboVentas,
+                                 RankingProductosVendidos rankingProductos) {
         this.repositorioOrdenCompra = repositorioOrdenCompra;
         this.repositorioProducto = repositorioProducto;
+        this.cuboVentas = cuboVentas;
+        this.rankingProductos = rankingProductos;
+        if (cuboVentas != null) {
+            // Suscrito antes de reconstruir, para que las órdenes que llegan mientras tanto
+            // se cuenten una sola vez
+            if (repositorioOrdenCompra instanceof RepositorioOrdenCompraObservado) {
+                ((RepositorioOrdenCompraObservado) repositorioOrdenCompra).agregarObserver(cuboVentas);
+            }
+            cuboVentas.reconstruir(repositorioOrdenCompra.obtenerTodas().stream());
+        }
+        if (rankingProductos != null) {
+            for (OrdenCompra orden : repositorioOrdenCompra.obtenerPorEstado(EstadoOrden.COMPLETADA)) {
+                rankingProductos.registrar(orden,
+                        orden.getFechaActualizacion().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+            if (repositorioOrdenCompra instanceof RepositorioOrdenCompraObservado) {
+                ((RepositorioOrdenCompraObservado) repositorioOrdenCompra).agregarObserver(rankingProductos);
+            }
+        }
     }
     
     /**
@@ -37,6 +92,10 @@ public class ServicioGenerarReporte {
             throw new ExcepcionNegocio("La fecha de inicio no puede ser posterior a la fecha de fin");
         }
         
+        if (cuboVentas != null) {
+            return generarReporteDesdeCubo(fechaInicio, fechaFin);
+        }
+        
         List<OrdenCompra> ordenes = repositorioOrdenCompra.obtenerTodas()
                 .stream()
                 .filter(orden -> {
@@ -49,12 +108,58 @@ public class ServicioGenerarReporte {
         reporte.put("fechaInicio", fechaInicio);
         reporte.put("fechaFin", fechaFin);
         reporte.put("totalOrdenes", ordenes.size());
-        reporte.put("totalVentas", calcularTotalVentas(ordenes));
+        reporte.put("totalVentas", calcularTotalVentas(ordenes).aBigDecimal());
         reporte.put("ordenes", ordenes);
         
         return reporte;
     }
     
+    /**
+     * Arma el reporte con los totales del cubo; las órdenes del período se consultan por
+     * rango de fechas en el repositorio
+     */
+    private Map<String, Object> generarReporteDesdeCubo(LocalDate fechaInicio, LocalDate fechaFin) {
+        CuboVentas.ResumenPeriodo resumen = cuboVentas.resumir(fechaInicio, fechaFin);
+        
+        Map<String, Object> reporte = new HashMap<>();
+        reporte.put("fechaInicio", fechaInicio);
+        reporte.put("fechaFin", fechaFin);
+        reporte.put("totalOrdenes", Math.toIntExact(resumen.getOrdenes()));
+        reporte.put("totalVentas", resumen.getTotalVentas().aBigDecimal());
+        reporte.put("unidadesVendidas", resumen.getUnidades());
+        reporte.put("ordenes", repositorioOrdenCompra.obtenerPorRangoFechas(
+                fechaInicio.atStartOfDay(), fechaFin.atTime(LocalTime.MAX)));
+        
+        return reporte;
+    }
+    
+    /**
+     * Genera la tendencia de ventas mes a mes de un rango, desde las cubetas mensuales
+     * del cubo de ventas
+     * @param desde primer mes
+     * @param hasta último mes, inclusive
+     * @return un mapa por mes con sus órdenes, ventas y unidades
+     */
+    public List<Map<String, Object>> generarTendenciaMensual(YearMonth desde, YearMonth hasta) {
+        if (cuboVentas == null) {
+            throw new IllegalStateException("La tendencia mensual requiere un cubo de ventas");
+        }
+        if (desde.isAfter(hasta)) {
+            throw new ExcepcionNegocio("El mes de inicio no puede ser posterior al mes de fin");
+        }
+        
+        List<Map<String, Object>> tendencia = new ArrayList<>();
+        cuboVentas.tendenciaMensual(desde, hasta).forEach((mes, resumen) -> {
+            Map<String, Object> fila = new HashMap<>();
+            fila.put("mes", mes);
+            fila.put("totalOrdenes", resumen.getOrdenes());
+            fila.put("totalVentas", resumen.getTotalVentas().aBigDecimal());
+            fila.put("unidadesVendidas", resumen.getUnidades());
+            tendencia.add(fila);
+        });
+        return tendencia;
+    }
+    
     /**
      * Obtiene los productos más vendidos
      * @return lista de productos ordenados por cantidad vendida
@@ -86,7 +191,8 @@ public class ServicioGenerarReporte {
                             .ifPresent(producto -> {
                                 productoVenta.put("nombreProducto", producto.getNombre());
                                 productoVenta.put("precioUnitario", producto.getPrecio());
-                                productoVenta.put("totalVentas", producto.getPrecio().multiply(BigDecimal.valueOf(entry.getValue())));
+                                productoVenta.put("totalVentas",
+                                        Dinero.de(producto.getPrecio()).multiplicar(entry.getValue()).aBigDecimal());
                             });
                     
                     return productoVenta;
@@ -94,15 +200,49 @@ public class ServicioGenerarReporte {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Obtiene los productos más vendidos de una ventana desde el ranking, sin recorrer
+     * las órdenes; solo se buscan en el repositorio los productos del resultado
+     * @param ventana período del ranking
+     * @param limite cantidad máxima de productos
+     * @return lista de productos ordenados por cantidad vendida, con la cota de error
+     *         de cada cantidad
+     */
+    public List<Map<String, Object>> obtenerProductosMasVendidos(RankingProductosVendidos.Ventana ventana,
+                                                                 int limite) {
+        if (rankingProductos == null) {
+            throw new IllegalStateException("El ranking por ventana requiere un ranking de productos vendidos");
+        }
+        
+        List<Map<String, Object>> ranking = new ArrayList<>(limite);
+        for (RankingProductosVendidos.ProductoVendido vendido : rankingProductos.masVendidos(ventana, limite)) {
+            Map<String, Object> productoVenta = new HashMap<>();
+            productoVenta.put("productoId", vendido.getProductoId().toString());
+            productoVenta.put("cantidadVendida", vendido.getUnidades());
+            productoVenta.put("errorMaximo", vendido.getErrorMaximo());
+            repositorioProducto.buscarPorId(vendido.getProductoId())
+                    .ifPresent(producto -> {
+                        productoVenta.put("nombreProducto", producto.getNombre());
+                        productoVenta.put("precioUnitario", producto.getPrecio());
+                        productoVenta.put("totalVentas",
+                                Dinero.de(producto.getPrecio()).multiplicar(vendido.getUnidades()).aBigDecimal());
+                    });
+            ranking.add(productoVenta);
+        }
+        return ranking;
+    }
+    
     /**
      * Calcula el total de ventas de una lista de órdenes
      * @param ordenes lista de órdenes
-     * @return total de ventas
+     * @return total de ventas, exacto al centavo
      */
-    private double calcularTotalVentas(List<OrdenCompra> ordenes) {
-        return ordenes.stream()
-                .mapToDouble(orden -> orden.getTotal().doubleValue())
-                .sum();
+    private Dinero calcularTotalVentas(List<OrdenCompra> ordenes) {
+        Dinero total = Dinero.CERO;
+        for (OrdenCompra orden : ordenes) {
+            total = total.sumar(orden.getTotal());
+        }
+        return total;
     }
     
     /**
@@ -116,9 +256,12 @@ public class ServicioGenerarReporte {
         reporte.put("totalProductos", productos.size());
         reporte.put("productosActivos", productos.stream().filter(Producto::isActivo).count());
         reporte.put("productosSinStock", productos.stream().filter(p -> p.getStockDisponible() == 0).count());
-        reporte.put("valorTotalInventario", productos.stream()
-                .mapToDouble(p -> p.getPrecio().multiply(BigDecimal.valueOf(p.getStockDisponible())).doubleValue())
-                .sum());
+        Dinero valorTotalInventario = Dinero.CERO;
+        for (Producto producto : productos) {
+            valorTotalInventario = valorTotalInventario.sumar(
+                    Dinero.de(producto.getPrecio()).multiplicar(producto.getStockDisponible()));
+        }
+        reporte.put("valorTotalInventario", valorTotalInventario.aBigDecimal());
         reporte.put("productos", productos);
         
         return reporte;
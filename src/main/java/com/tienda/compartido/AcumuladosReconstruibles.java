@@ -0,0 +1,155 @@
+package com.tienda.compartido;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Acumulados que se mantienen con eventos y que pueden reconstruirse desde cero
+ * recorriendo el origen, sin detener los eventos ni contarlos dos veces.
+ *
+ * <p>Mientras dura una reconstrucción, cada evento se aplica a los acumulados actuales
+ * y se anota por identificador. El recorrido y los eventos se reparten cada elemento:
+ * quien lo anota primero lo cuenta en los acumulados nuevos y el otro lo omite. Al
+ * terminar, los acumulados nuevos reemplazan a los actuales y las anotaciones se
+ * descartan.
+ *
+ * @param <K> identificador de los elementos contados
+ * @param <T> acumulados
+ */
+public final class AcumuladosReconstruibles<K, T> {
+
+    private enum Anotacion {
+        CONTADO,
+        RETIRADO
+    }
+
+    private final ReadWriteLock candado = new ReentrantReadWriteLock();
+    private final Object reconstruccion = new Object();
+    private volatile T actuales;
+    /** Reconstrucción en curso, o null si no hay ninguna */
+    private volatile EnCurso<K, T> enCurso;
+
+    public AcumuladosReconstruibles(T iniciales) {
+        this.actuales = iniciales;
+    }
+
+    /**
+     * Obtiene los acumulados actuales para consultarlos
+     * @return acumulados actuales
+     */
+    public T getActuales() {
+        return actuales;
+    }
+
+    /**
+     * Aplica el evento que suma un elemento a los acumulados
+     * @param id identificador del elemento
+     * @param suma operación que suma el elemento en los acumulados indicados
+     */
+    public void sumar(K id, Consumer<T> suma) {
+        candado.readLock().lock();
+        try {
+            suma.accept(actuales);
+            EnCurso<K, T> reconstruyendo = enCurso;
+            if (reconstruyendo != null && reconstruyendo.anotar(id)) {
+                suma.accept(reconstruyendo.nuevos);
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica el evento que quita de los acumulados un elemento ya sumado
+     * @param id identificador del elemento
+     * @param resta operación que descuenta el elemento de los acumulados indicados
+     */
+    public void retirar(K id, Consumer<T> resta) {
+        candado.readLock().lock();
+        try {
+            resta.accept(actuales);
+            EnCurso<K, T> reconstruyendo = enCurso;
+            if (reconstruyendo != null && reconstruyendo.anotarRetiro(id)) {
+                resta.accept(reconstruyendo.nuevos);
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reconstruye los acumulados recorriendo el origen. Los eventos siguen aplicándose
+     * mientras tanto; un elemento que ya contó un evento no se vuelve a contar en el
+     * recorrido, y viceversa. Las reconstrucciones simultáneas se ejecutan de a una.
+     * Solo se contaría dos veces el evento de un elemento que el recorrido ya encontró si
+     * llega después de terminar, es decir, si quien lo publica tarda entre guardar el
+     * elemento y publicar el evento más que toda la reconstrucción.
+     * @param nuevos acumulados vacíos que reemplazarán a los actuales
+     * @param elementos elementos del origen que deben contarse
+     * @param identificador identificador de cada elemento
+     * @param contar operación que suma un elemento en los acumulados nuevos
+     * @param <E> tipo de los elementos del origen
+     */
+    public <E> void reconstruir(T nuevos, Stream<E> elementos, Function<E, K> identificador,
+                                BiConsumer<T, E> contar) {
+        synchronized (reconstruccion) {
+            EnCurso<K, T> reconstruyendo = new EnCurso<>(nuevos);
+            candado.writeLock().lock();
+            try {
+                enCurso = reconstruyendo;
+            } finally {
+                candado.writeLock().unlock();
+            }
+            boolean recorrido = false;
+            try {
+                elementos.forEach(elemento -> {
+                    if (reconstruyendo.anotar(identificador.apply(elemento))) {
+                        contar.accept(nuevos, elemento);
+                    }
+                });
+                recorrido = true;
+            } finally {
+                candado.writeLock().lock();
+                try {
+                    if (recorrido) {
+                        actuales = nuevos;
+                    }
+                    enCurso = null;
+                } finally {
+                    candado.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    private static final class EnCurso<K, T> {
+        private final T nuevos;
+        private final Map<K, Anotacion> anotaciones = new ConcurrentHashMap<>();
+
+        private EnCurso(T nuevos) {
+            this.nuevos = nuevos;
+        }
+
+        /**
+         * Anota un elemento como contado
+         * @return true si nadie lo había anotado, y por lo tanto corresponde contarlo
+         */
+        private boolean anotar(K id) {
+            return anotaciones.putIfAbsent(id, Anotacion.CONTADO) == null;
+        }
+
+        /**
+         * Anota un elemento como retirado, para que el recorrido ya no lo cuente
+         * @return true si estaba contado en los acumulados nuevos y hay que descontarlo
+         */
+        private boolean anotarRetiro(K id) {
+            return anotaciones.put(id, Anotacion.RETIRADO) == Anotacion.CONTADO;
+        }
+    }
+}
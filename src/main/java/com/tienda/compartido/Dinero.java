@@ -0,0 +1,182 @@
+package com.tienda.compartido;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Monto de dinero inmutable en unidades menores de una moneda (por ejemplo, centavos).
+ * Las sumas y productos operan sobre un long y fallan con ArithmeticException si
+ * desbordan, en lugar de perder precisión; la conversión a BigDecimal queda para los
+ * bordes del sistema (DTOs, formato y entrada de precios).
+ */
+public final class Dinero implements Comparable<Dinero> {
+
+    /** Moneda de la tienda */
+    public static final Currency MONEDA_POR_DEFECTO = Currency.getInstance("BOB");
+    public static final Dinero CERO = new Dinero(0, MONEDA_POR_DEFECTO);
+
+    private final long unidadesMenores;
+    private final Currency moneda;
+
+    private Dinero(long unidadesMenores, Currency moneda) {
+        this.unidadesMenores = unidadesMenores;
+        this.moneda = moneda;
+    }
+
+    /**
+     * Crea un monto a partir de unidades menores
+     * @param unidadesMenores monto en unidades menores de la moneda
+     * @param moneda moneda del monto
+     * @return monto
+     */
+    public static Dinero deUnidadesMenores(long unidadesMenores, Currency moneda) {
+        Objects.requireNonNull(moneda, "La moneda es requerida");
+        if (unidadesMenores == 0 && moneda == MONEDA_POR_DEFECTO) {
+            return CERO;
+        }
+        return new Dinero(unidadesMenores, moneda);
+    }
+
+    /**
+     * Crea un monto en la moneda de la tienda a partir de unidades menores
+     * @param unidadesMenores monto en unidades menores
+     * @return monto
+     */
+    public static Dinero deUnidadesMenores(long unidadesMenores) {
+        return deUnidadesMenores(unidadesMenores, MONEDA_POR_DEFECTO);
+    }
+
+    /**
+     * Convierte un BigDecimal en la moneda de la tienda, redondeando al centavo con
+     * redondeo bancario si tiene más decimales que la moneda
+     * @param monto monto decimal
+     * @return monto
+     */
+    public static Dinero de(BigDecimal monto) {
+        return de(monto, MONEDA_POR_DEFECTO);
+    }
+
+    /**
+     * Convierte un BigDecimal, redondeando a la cantidad de decimales de la moneda
+     * @param monto monto decimal
+     * @param moneda moneda del monto
+     * @return monto
+     */
+    public static Dinero de(BigDecimal monto, Currency moneda) {
+        Objects.requireNonNull(monto, "El monto es requerido");
+        BigDecimal escalado = monto.setScale(decimales(moneda), RoundingMode.HALF_EVEN);
+        return deUnidadesMenores(escalado.unscaledValue().longValueExact(), moneda);
+    }
+
+    /**
+     * Crea el monto cero de una moneda
+     * @param moneda moneda
+     * @return monto cero
+     */
+    public static Dinero cero(Currency moneda) {
+        return deUnidadesMenores(0, moneda);
+    }
+
+    public long getUnidadesMenores() {
+        return unidadesMenores;
+    }
+
+    public Currency getMoneda() {
+        return moneda;
+    }
+
+    /**
+     * Suma dos montos de la misma moneda
+     * @param otro monto a sumar
+     * @return suma
+     */
+    public Dinero sumar(Dinero otro) {
+        verificarMoneda(otro);
+        if (otro.unidadesMenores == 0) {
+            return this;
+        }
+        return deUnidadesMenores(Math.addExact(unidadesMenores, otro.unidadesMenores), moneda);
+    }
+
+    /**
+     * Resta dos montos de la misma moneda
+     * @param otro monto a restar
+     * @return diferencia
+     */
+    public Dinero restar(Dinero otro) {
+        verificarMoneda(otro);
+        return deUnidadesMenores(Math.subtractExact(unidadesMenores, otro.unidadesMenores), moneda);
+    }
+
+    /**
+     * Multiplica el monto por una cantidad
+     * @param cantidad multiplicador
+     * @return producto
+     */
+    public Dinero multiplicar(long cantidad) {
+        if (cantidad == 1) {
+            return this;
+        }
+        return deUnidadesMenores(Math.multiplyExact(unidadesMenores, cantidad), moneda);
+    }
+
+    public boolean esCero() {
+        return unidadesMenores == 0;
+    }
+
+    /**
+     * Convierte el monto a BigDecimal con la escala de la moneda
+     * @return monto decimal
+     */
+    public BigDecimal aBigDecimal() {
+        return BigDecimal.valueOf(unidadesMenores, decimales(moneda));
+    }
+
+    /**
+     * Verifica que otro monto esté en la misma moneda
+     * @param otro monto a comparar
+     * @throws IllegalArgumentException si las monedas difieren
+     */
+    public void verificarMoneda(Dinero otro) {
+        if (!moneda.equals(otro.moneda)) {
+            throw new IllegalArgumentException("No se pueden combinar montos en " + moneda + " y " + otro.moneda);
+        }
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        verificarMoneda(otro);
+        return Long.compare(unidadesMenores, otro.unidadesMenores);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Dinero)) {
+            return false;
+        }
+        Dinero otro = (Dinero) o;
+        return unidadesMenores == otro.unidadesMenores && moneda.equals(otro.moneda);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(unidadesMenores) + moneda.hashCode();
+    }
+
+    /**
+     * Monto con los decimales de la moneda y sin símbolo, por ejemplo {@code 959.97}
+     */
+    @Override
+    public String toString() {
+        return aBigDecimal().toPlainString();
+    }
+
+    private static int decimales(Currency moneda) {
+        return Math.max(moneda.getDefaultFractionDigits(), 0);
+    }
+}
@@ -15,6 +15,7 @@ public class MensajesSistema {
     public static final String USUARIO_NO_ENCONTRADO = "Usuario no encontrado";
     public static final String USUARIO_YA_EXISTE = "El usuario ya existe";
     public static final String CREDENCIALES_INVALIDAS = "Credenciales inválidas";
+    public static final String SESION_INVALIDA = "La sesión no es válida o expiró";
     
     // Mensajes de Orden
     public static final String ORDEN_NO_ENCONTRADA = "Orden no encontrada";
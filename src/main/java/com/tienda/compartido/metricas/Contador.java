@@ -0,0 +1,35 @@
+package com.tienda.compartido.metricas;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador monótono de eventos. Usa un {@link LongAdder}, así que incrementarlo desde
+ * muchos hilos no compite por una misma variable.
+ */
+public final class Contador {
+
+    static final Contador INACTIVO = new Contador(false);
+
+    private final boolean activo;
+    private final LongAdder valor = new LongAdder();
+
+    Contador(boolean activo) {
+        this.activo = activo;
+    }
+
+    public void incrementar() {
+        if (activo) {
+            valor.increment();
+        }
+    }
+
+    public void sumar(long cantidad) {
+        if (activo) {
+            valor.add(cantidad);
+        }
+    }
+
+    public long getValor() {
+        return valor.sum();
+    }
+}
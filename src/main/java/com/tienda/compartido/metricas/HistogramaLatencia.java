@@ -0,0 +1,99 @@
+package com.tienda.compartido.metricas;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias en nanosegundos con cubetas logarítmico-lineales, al estilo
+ * de HdrHistogram: cada potencia de dos se divide en 16 cubetas iguales, de modo que
+ * el error relativo de cualquier percentil es menor a 6,25% desde 1 ns hasta unos 36
+ * minutos. Registrar un valor no asigna memoria: calcula la cubeta con operaciones de
+ * bits y hace un incremento atómico.
+ */
+public final class HistogramaLatencia {
+
+    private static final int BITS_SUBCUBETA = 4;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    /** Los valores de 2^41 ns o más se acumulan en la última cubeta */
+    private static final int EXPONENTE_MAXIMO = 40;
+    static final int CUBETAS = (EXPONENTE_MAXIMO - BITS_SUBCUBETA + 2) * SUBCUBETAS;
+
+    static final HistogramaLatencia INACTIVO = new HistogramaLatencia(false);
+
+    private final boolean activo;
+    private final AtomicLongArray cuentas;
+    private final LongAdder sumaNanos;
+
+    HistogramaLatencia(boolean activo) {
+        this.activo = activo;
+        this.cuentas = new AtomicLongArray(activo ? CUBETAS : 0);
+        this.sumaNanos = new LongAdder();
+    }
+
+    /**
+     * Registra una latencia
+     * @param nanos latencia en nanosegundos; los valores negativos cuentan como 0
+     */
+    public void registrar(long nanos) {
+        if (!activo) {
+            return;
+        }
+        long valor = Math.max(0, nanos);
+        cuentas.incrementAndGet(indice(valor));
+        sumaNanos.add(valor);
+    }
+
+    /**
+     * Registra el tiempo transcurrido desde un instante de {@link System#nanoTime()}
+     * @param inicioNanos instante de inicio
+     */
+    public void registrarDesde(long inicioNanos) {
+        if (activo) {
+            registrar(System.nanoTime() - inicioNanos);
+        }
+    }
+
+    /**
+     * Copia el estado actual. Las cuentas se leen una por una, así que con registros
+     * concurrentes la copia puede incluir parte de ellos.
+     * @return instantánea del histograma
+     */
+    public InstantaneaHistograma obtenerInstantanea() {
+        long[] copia = new long[cuentas.length()];
+        for (int i = 0; i < copia.length; i++) {
+            copia[i] = cuentas.get(i);
+        }
+        return new InstantaneaHistograma(copia, sumaNanos.sum());
+    }
+
+    static int indice(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        if (exponente > EXPONENTE_MAXIMO) {
+            return CUBETAS - 1;
+        }
+        int subcubeta = (int) (valor >>> (exponente - BITS_SUBCUBETA)) & (SUBCUBETAS - 1);
+        return (exponente - BITS_SUBCUBETA + 1) * SUBCUBETAS + subcubeta;
+    }
+
+    /**
+     * Obtiene el límite inferior (incluido) de una cubeta
+     */
+    static long limiteInferior(int indice) {
+        if (indice < 2 * SUBCUBETAS) {
+            return indice;
+        }
+        int exponente = indice / SUBCUBETAS + BITS_SUBCUBETA - 1;
+        long subcubeta = indice % SUBCUBETAS;
+        return (SUBCUBETAS + subcubeta) << (exponente - BITS_SUBCUBETA);
+    }
+
+    /**
+     * Obtiene el límite superior (excluido) de una cubeta
+     */
+    static long limiteSuperior(int indice) {
+        return indice == CUBETAS - 1 ? Long.MAX_VALUE : limiteInferior(indice + 1);
+    }
+}
@@ -0,0 +1,90 @@
+package com.tienda.compartido.metricas;
+
+/**
+ * Copia inmutable de un {@link HistogramaLatencia}, con percentiles aproximados
+ */
+public final class InstantaneaHistograma {
+
+    private final long[] cuentas;
+    private final long total;
+    private final long sumaNanos;
+
+    InstantaneaHistograma(long[] cuentas, long sumaNanos) {
+        this.cuentas = cuentas;
+        this.sumaNanos = sumaNanos;
+        long suma = 0;
+        for (long cuenta : cuentas) {
+            suma += cuenta;
+        }
+        this.total = suma;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getSumaNanos() {
+        return sumaNanos;
+    }
+
+    public long getPromedioNanos() {
+        return total == 0 ? 0 : sumaNanos / total;
+    }
+
+    /**
+     * Obtiene un percentil de las latencias registradas
+     * @param percentil percentil entre 0 y 100
+     * @return valor representativo de la cubeta que contiene el percentil, en nanosegundos;
+     *         0 si el histograma está vacío
+     */
+    public long getPercentilNanos(double percentil) {
+        if (percentil < 0 || percentil > 100) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 100");
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(total * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < cuentas.length; i++) {
+            acumulado += cuentas[i];
+            if (acumulado >= objetivo) {
+                return valorRepresentativo(i);
+            }
+        }
+        return valorRepresentativo(cuentas.length - 1);
+    }
+
+    /**
+     * Obtiene la mayor latencia registrada, con la precisión de su cubeta
+     * @return máximo en nanosegundos; 0 si el histograma está vacío
+     */
+    public long getMaximoNanos() {
+        for (int i = cuentas.length - 1; i >= 0; i--) {
+            if (cuentas[i] > 0) {
+                return valorRepresentativo(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Cuenta las latencias menores que un límite; el límite debe coincidir con el borde
+     * de una cubeta (por ejemplo, una potencia de dos) para que la cuenta sea exacta
+     * @param limiteNanos límite superior excluido
+     * @return cantidad de latencias menores al límite
+     */
+    public long contarMenoresA(long limiteNanos) {
+        long acumulado = 0;
+        for (int i = 0; i < cuentas.length && HistogramaLatencia.limiteSuperior(i) <= limiteNanos; i++) {
+            acumulado += cuentas[i];
+        }
+        return acumulado;
+    }
+
+    private static long valorRepresentativo(int indice) {
+        long inferior = HistogramaLatencia.limiteInferior(indice);
+        long superior = HistogramaLatencia.limiteSuperior(indice);
+        return superior == Long.MAX_VALUE ? inferior : inferior + (superior - inferior - 1) / 2;
+    }
+}
@@ -0,0 +1,110 @@
+package com.tienda.compartido.metricas;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Latencias y errores por operación de un componente (un servicio, un repositorio o un
+ * canal), en las familias {@code <prefijo>_latencia_segundos} y
+ * {@code <prefijo>_errores_total} con las etiquetas {@code componente} y
+ * {@code operacion}. Pensado para envolver cada método público:
+ *
+ * <pre>
+ * return metricas.medir("crearOrden", () -&gt; ...);
+ * </pre>
+ *
+ * Tras la primera llamada de cada operación, registrar es una búsqueda en un mapa y un
+ * incremento atómico, sin asignar memoria; con el registro desactivado no hace nada.
+ */
+public final class MetricasOperaciones {
+
+    private final RegistroMetricas registro;
+    private final String nombreLatencia;
+    private final String ayudaLatencia;
+    private final String nombreErrores;
+    private final String ayudaErrores;
+    private final String componente;
+    private final boolean activo;
+    private final ConcurrentHashMap<String, HistogramaLatencia> latencias = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Contador> errores = new ConcurrentHashMap<>();
+
+    /**
+     * @param registro registro donde se crean las métricas
+     * @param prefijo prefijo de las familias, por ejemplo {@code tienda_servicio}
+     * @param descripcion qué se mide, para la ayuda de las familias, por ejemplo "operaciones de servicio"
+     * @param componente valor de la etiqueta {@code componente}
+     */
+    public MetricasOperaciones(RegistroMetricas registro, String prefijo, String descripcion, String componente) {
+        this.registro = registro;
+        this.nombreLatencia = prefijo + "_latencia_segundos";
+        this.ayudaLatencia = "Latencia de " + descripcion;
+        this.nombreErrores = prefijo + "_errores_total";
+        this.ayudaErrores = "Errores de " + descripcion;
+        this.componente = componente;
+        this.activo = registro.estaActivo();
+    }
+
+    /**
+     * Ejecuta una operación registrando su duración y, si lanza una excepción, un error
+     * @param operacion nombre de la operación
+     * @param cuerpo operación a ejecutar
+     * @return resultado de la operación
+     */
+    public <T> T medir(String operacion, Supplier<T> cuerpo) {
+        long inicio = System.nanoTime();
+        try {
+            return cuerpo.get();
+        } catch (RuntimeException | Error e) {
+            registrarError(operacion);
+            throw e;
+        } finally {
+            registrar(operacion, inicio);
+        }
+    }
+
+    /**
+     * Ejecuta una operación sin resultado registrando su duración y sus errores
+     * @param operacion nombre de la operación
+     * @param cuerpo operación a ejecutar
+     */
+    public void medir(String operacion, Runnable cuerpo) {
+        medir(operacion, () -> {
+            cuerpo.run();
+            return null;
+        });
+    }
+
+    /**
+     * Registra la duración de una operación
+     * @param operacion nombre de la operación
+     * @param inicioNanos instante de inicio, de {@link System#nanoTime()}
+     */
+    public void registrar(String operacion, long inicioNanos) {
+        if (!activo) {
+            return;
+        }
+        long duracion = System.nanoTime() - inicioNanos;
+        HistogramaLatencia latencia = latencias.get(operacion);
+        if (latencia == null) {
+            latencia = latencias.computeIfAbsent(operacion, clave -> registro.histograma(
+                    nombreLatencia, ayudaLatencia, "componente", componente, "operacion", clave));
+        }
+        latencia.registrar(duracion);
+    }
+
+    /**
+     * Cuenta una operación que terminó con una excepción
+     * @param operacion nombre de la operación
+     */
+    public void registrarError(String operacion) {
+        if (!activo) {
+            return;
+        }
+        Contador contador = errores.get(operacion);
+        if (contador == null) {
+            contador = errores.computeIfAbsent(operacion, clave -> registro.contador(
+                    nombreErrores, ayudaErrores, "componente", componente, "operacion", clave));
+        }
+        contador.incrementar();
+    }
+}
@@ -0,0 +1,205 @@
+package com.tienda.compartido.metricas;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registro en proceso de contadores, medidores e histogramas de latencia, exportable en
+ * el formato de texto de Prometheus. Cada métrica pertenece a una familia (nombre, ayuda
+ * y tipo) y se distingue por sus etiquetas, que se pasan como pares clave, valor.
+ * Pedir dos veces la misma métrica devuelve la misma instancia.
+ *
+ * <p>Un registro {@link #desactivado() desactivado} devuelve métricas que no registran
+ * nada y no exporta ninguna, para medir sin costo cuando no se usan.
+ */
+public class RegistroMetricas {
+
+    private static final RegistroMetricas DESACTIVADO = new RegistroMetricas(false);
+    /** Bordes de las cubetas exportadas: potencias de dos de 2^10 ns (~1 µs) a 2^36 ns (~69 s) */
+    private static final int EXPONENTE_BORDE_MINIMO = 10;
+    private static final int EXPONENTE_BORDE_MAXIMO = 36;
+    private static final double NANOS_POR_SEGUNDO = 1_000_000_000.0;
+
+    private enum Tipo {
+        COUNTER,
+        GAUGE,
+        HISTOGRAM
+    }
+
+    private final boolean activo;
+    private final Map<String, Familia> familias = new ConcurrentSkipListMap<>();
+
+    public RegistroMetricas() {
+        this(true);
+    }
+
+    private RegistroMetricas(boolean activo) {
+        this.activo = activo;
+    }
+
+    /**
+     * Obtiene el registro compartido que no registra nada
+     * @return registro desactivado
+     */
+    public static RegistroMetricas desactivado() {
+        return DESACTIVADO;
+    }
+
+    public boolean estaActivo() {
+        return activo;
+    }
+
+    /**
+     * Obtiene o crea un contador
+     * @param nombre nombre de la familia; por convención termina en {@code _total}
+     * @param ayuda descripción de la familia
+     * @param etiquetas pares clave, valor
+     * @return contador
+     */
+    public Contador contador(String nombre, String ayuda, String... etiquetas) {
+        if (!activo) {
+            return Contador.INACTIVO;
+        }
+        return (Contador) familia(nombre, ayuda, Tipo.COUNTER).series
+                .computeIfAbsent(formatearEtiquetas(etiquetas), clave -> new Contador(true));
+    }
+
+    /**
+     * Obtiene o crea un histograma de latencias
+     * @param nombre nombre de la familia; por convención termina en {@code _segundos}
+     * @param ayuda descripción de la familia
+     * @param etiquetas pares clave, valor
+     * @return histograma
+     */
+    public HistogramaLatencia histograma(String nombre, String ayuda, String... etiquetas) {
+        if (!activo) {
+            return HistogramaLatencia.INACTIVO;
+        }
+        return (HistogramaLatencia) familia(nombre, ayuda, Tipo.HISTOGRAM).series
+                .computeIfAbsent(formatearEtiquetas(etiquetas), clave -> new HistogramaLatencia(true));
+    }
+
+    /**
+     * Registra un medidor cuyo valor se lee al exportar; si ya existía, se reemplaza
+     * @param nombre nombre de la familia
+     * @param ayuda descripción de la familia
+     * @param valor función que devuelve el valor actual
+     * @param etiquetas pares clave, valor
+     */
+    public void medidor(String nombre, String ayuda, DoubleSupplier valor, String... etiquetas) {
+        if (activo) {
+            familia(nombre, ayuda, Tipo.GAUGE).series.put(formatearEtiquetas(etiquetas), valor);
+        }
+    }
+
+    /**
+     * Exporta todas las métricas en el formato de texto de Prometheus (versión 0.0.4)
+     * @return texto de exposición
+     */
+    public String exportarPrometheus() {
+        StringBuilder salida = new StringBuilder(4096);
+        for (Familia familia : familias.values()) {
+            salida.append("# HELP ").append(familia.nombre).append(' ').append(familia.ayuda).append('\n');
+            salida.append("# TYPE ").append(familia.nombre).append(' ')
+                    .append(familia.tipo.name().toLowerCase(Locale.ROOT)).append('\n');
+            for (Map.Entry<String, Object> serie : new ConcurrentSkipListMap<>(familia.series).entrySet()) {
+                escribirSerie(salida, familia, serie.getKey(), serie.getValue());
+            }
+        }
+        return salida.toString();
+    }
+
+    private static void escribirSerie(StringBuilder salida, Familia familia, String etiquetas, Object metrica) {
+        switch (familia.tipo) {
+            case COUNTER:
+                escribirMuestra(salida, familia.nombre, etiquetas, null, ((Contador) metrica).getValor());
+                break;
+            case GAUGE:
+                escribirMuestra(salida, familia.nombre, etiquetas, null, ((DoubleSupplier) metrica).getAsDouble());
+                break;
+            default:
+                InstantaneaHistograma instantanea = ((HistogramaLatencia) metrica).obtenerInstantanea();
+                String cubetas = familia.nombre + "_bucket";
+                for (int exponente = EXPONENTE_BORDE_MINIMO; exponente <= EXPONENTE_BORDE_MAXIMO; exponente++) {
+                    long borde = 1L << exponente;
+                    escribirMuestra(salida, cubetas, etiquetas, Double.toString(borde / NANOS_POR_SEGUNDO),
+                            instantanea.contarMenoresA(borde));
+                }
+                escribirMuestra(salida, cubetas, etiquetas, "+Inf", instantanea.getTotal());
+                escribirMuestra(salida, familia.nombre + "_sum", etiquetas, null,
+                        instantanea.getSumaNanos() / NANOS_POR_SEGUNDO);
+                escribirMuestra(salida, familia.nombre + "_count", etiquetas, null, instantanea.getTotal());
+                break;
+        }
+    }
+
+    private static void escribirMuestra(StringBuilder salida, String nombre, String etiquetas, String le,
+                                        Object valor) {
+        salida.append(nombre);
+        if (le != null) {
+            salida.append('{').append(etiquetas);
+            if (!etiquetas.isEmpty()) {
+                salida.append(',');
+            }
+            salida.append("le=\"").append(le).append("\"}");
+        } else if (!etiquetas.isEmpty()) {
+            salida.append('{').append(etiquetas).append('}');
+        }
+        salida.append(' ').append(valor).append('\n');
+    }
+
+    private Familia familia(String nombre, String ayuda, Tipo tipo) {
+        Familia familia = familias.computeIfAbsent(nombre, clave -> new Familia(clave, ayuda, tipo));
+        if (familia.tipo != tipo) {
+            throw new IllegalArgumentException("La métrica " + nombre + " ya está registrada como "
+                    + familia.tipo.name().toLowerCase(Locale.ROOT));
+        }
+        return familia;
+    }
+
+    /**
+     * Convierte los pares clave, valor al formato de Prometheus, sin llaves; el resultado
+     * identifica la serie dentro de su familia
+     */
+    private static String formatearEtiquetas(String[] etiquetas) {
+        if (etiquetas.length % 2 != 0) {
+            throw new IllegalArgumentException("Las etiquetas deben ser pares clave, valor");
+        }
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < etiquetas.length; i += 2) {
+            if (i > 0) {
+                texto.append(',');
+            }
+            texto.append(etiquetas[i]).append("=\"");
+            String valor = etiquetas[i + 1];
+            for (int j = 0; j < valor.length(); j++) {
+                char c = valor.charAt(j);
+                if (c == '\\' || c == '"') {
+                    texto.append('\\').append(c);
+                } else if (c == '\n') {
+                    texto.append("\\n");
+                } else {
+                    texto.append(c);
+                }
+            }
+            texto.append('"');
+        }
+        return texto.toString();
+    }
+
+    private static final class Familia {
+        private final String nombre;
+        private final String ayuda;
+        private final Tipo tipo;
+        private final Map<String, Object> series = new ConcurrentHashMap<>();
+
+        private Familia(String nombre, String ayuda, Tipo tipo) {
+            this.nombre = nombre;
+            this.ayuda = ayuda;
+            this.tipo = tipo;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.tienda.dominio;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Interfaz del almacén de sesiones de los usuarios autenticados
+ */
+public interface AlmacenSesiones {
+    
+    /**
+     * Crea una sesión para un usuario ya autenticado
+     * @param usuarioId ID del usuario
+     * @return token opaco de la sesión
+     */
+    String crear(UUID usuarioId);
+    
+    /**
+     * Valida un token de sesión
+     * @param token token devuelto por {@link #crear(UUID)}
+     * @return Optional con el ID del usuario si la sesión existe y no venció
+     */
+    Optional<UUID> validar(String token);
+    
+    /**
+     * Revoca una sesión
+     * @param token token de la sesión
+     * @return true si la sesión existía
+     */
+    boolean revocar(String token);
+    
+    /**
+     * Revoca todas las sesiones de un usuario
+     * @param usuarioId ID del usuario
+     * @return cantidad de sesiones revocadas
+     */
+    int revocarUsuario(UUID usuarioId);
+}
@@ -0,0 +1,29 @@
+package com.tienda.dominio;
+
+/**
+ * Interfaz del codificador de contraseñas de los usuarios
+ */
+public interface CodificadorContrasenas {
+    
+    /**
+     * Codifica una contraseña para guardarla
+     * @param contrasena contraseña en texto plano
+     * @return contraseña codificada
+     */
+    String codificar(String contrasena);
+    
+    /**
+     * Verifica una contraseña contra el valor guardado
+     * @param contrasena contraseña en texto plano
+     * @param guardado contraseña codificada o guardada
+     * @return true si la contraseña corresponde al valor guardado
+     */
+    boolean verificar(String contrasena, String guardado);
+    
+    /**
+     * Indica si el valor guardado debe volver a codificarse con la configuración actual
+     * @param guardado contraseña codificada o guardada
+     * @return true si conviene recodificarla en el próximo inicio de sesión
+     */
+    boolean necesitaRecodificar(String guardado);
+}
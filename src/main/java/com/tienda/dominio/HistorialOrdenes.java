@@ -0,0 +1,149 @@
+package com.tienda.dominio;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Historial de órdenes de un usuario. Solo guarda el ID y la fecha de creación de cada
+ * orden en un arreglo de longs (24 bytes por orden), sin referencias a las órdenes, y
+ * solo admite agregar. Las entradas quedan ordenadas por fecha de creación e ID y se
+ * consultan por páginas de la más reciente a la más antigua; las órdenes se resuelven
+ * en el repositorio al armar cada página.
+ */
+public class HistorialOrdenes {
+
+    private static final int CAMPOS = 3;
+    private static final int CAPACIDAD_INICIAL = 4;
+
+    /** Por cada orden: bits altos del ID, bits bajos del ID y fecha de creación en nanosegundos */
+    private long[] entradas = new long[CAPACIDAD_INICIAL * CAMPOS];
+    private volatile int tamano;
+
+    /**
+     * Agrega una orden al historial; si ya estaba registrada no hace nada
+     * @param id ID de la orden
+     * @param fechaCreacion fecha de creación de la orden
+     */
+    public synchronized void agregar(UUID id, LocalDateTime fechaCreacion) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        long fecha = aNanos(fechaCreacion);
+
+        // Las órdenes llegan casi siempre en orden de creación: se busca la posición desde el final
+        int posicion = tamano;
+        while (posicion > 0 && comparar(posicion - 1, fecha, msb, lsb) > 0) {
+            posicion--;
+        }
+        if (posicion > 0 && comparar(posicion - 1, fecha, msb, lsb) == 0) {
+            return;
+        }
+
+        long[] destino = entradas;
+        if ((tamano + 1) * CAMPOS > destino.length) {
+            destino = Arrays.copyOf(destino, destino.length * 2);
+        } else if (posicion < tamano) {
+            // Los lectores pueden estar recorriendo el arreglo actual: se inserta en una copia
+            destino = destino.clone();
+        }
+        System.arraycopy(destino, posicion * CAMPOS, destino, (posicion + 1) * CAMPOS, (tamano - posicion) * CAMPOS);
+        destino[posicion * CAMPOS] = msb;
+        destino[posicion * CAMPOS + 1] = lsb;
+        destino[posicion * CAMPOS + 2] = fecha;
+        entradas = destino;
+        tamano = tamano + 1;
+    }
+
+    /**
+     * Cantidad de órdenes registradas
+     * @return tamaño del historial
+     */
+    public int getTamano() {
+        return tamano;
+    }
+
+    /**
+     * Obtiene una página de IDs de órdenes, de la más reciente a la más antigua
+     * @param cursor cursor devuelto por la página anterior, o null para la primera
+     * @param tamanoPagina cantidad máxima de IDs
+     * @return página de IDs
+     */
+    public Pagina<UUID> obtenerPagina(String cursor, int tamanoPagina) {
+        if (tamanoPagina <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a cero");
+        }
+        int cantidad;
+        long[] vista;
+        synchronized (this) {
+            cantidad = tamano;
+            vista = entradas;
+        }
+
+        int fin = cursor != null ? posicionAnteriorA(vista, cantidad, cursor) : cantidad;
+        int inicio = Math.max(0, fin - tamanoPagina);
+        List<UUID> ids = new ArrayList<>(fin - inicio);
+        for (int i = fin - 1; i >= inicio; i--) {
+            ids.add(new UUID(vista[i * CAMPOS], vista[i * CAMPOS + 1]));
+        }
+        String siguiente = inicio > 0 ? codificar(vista, inicio) : null;
+        return new Pagina<>(ids, siguiente);
+    }
+
+    private int comparar(int posicion, long fecha, long msb, long lsb) {
+        return comparar(entradas, posicion, fecha, msb, lsb);
+    }
+
+    private static int comparar(long[] vista, int posicion, long fecha, long msb, long lsb) {
+        int porFecha = Long.compare(vista[posicion * CAMPOS + 2], fecha);
+        if (porFecha != 0) {
+            return porFecha;
+        }
+        UUID id = new UUID(vista[posicion * CAMPOS], vista[posicion * CAMPOS + 1]);
+        return id.compareTo(new UUID(msb, lsb));
+    }
+
+    /**
+     * Cantidad de entradas estrictamente anteriores a la clave del cursor
+     */
+    private static int posicionAnteriorA(long[] vista, int cantidad, String cursor) {
+        long fecha;
+        UUID id;
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = texto.indexOf('|');
+            fecha = aNanos(LocalDateTime.parse(texto.substring(0, separador)));
+            id = UUID.fromString(texto.substring(separador + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor, e);
+        }
+        int bajo = 0;
+        int alto = cantidad;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (comparar(vista, medio, fecha, id.getMostSignificantBits(), id.getLeastSignificantBits()) < 0) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    private static String codificar(long[] vista, int posicion) {
+        long nanos = vista[posicion * CAMPOS + 2];
+        LocalDateTime fecha = LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+        String texto = fecha + "|" + new UUID(vista[posicion * CAMPOS], vista[posicion * CAMPOS + 1]);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long aNanos(LocalDateTime fecha) {
+        return Math.addExact(Math.multiplyExact(fecha.toEpochSecond(ZoneOffset.UTC), 1_000_000_000L), fecha.getNano());
+    }
+}
@@ -0,0 +1,18 @@
+package com.tienda.dominio;
+
+/**
+ * Observador de los cambios en el ciclo de vida de las órdenes de compra
+ */
+public interface ObservadorOrden {
+
+    String ORDEN_CREADA = "ORDEN_CREADA";
+    String ORDEN_COMPLETADA = "ORDEN_COMPLETADA";
+    String ORDEN_CANCELADA = "ORDEN_CANCELADA";
+
+    /**
+     * Método llamado cuando una orden cambia en su ciclo de vida
+     * @param orden orden afectada
+     * @param evento tipo de evento que ocurrió
+     */
+    void actualizar(OrdenCompra orden, String evento);
+}
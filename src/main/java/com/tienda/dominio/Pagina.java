@@ -0,0 +1,42 @@
+package com.tienda.dominio;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Página de resultados de una consulta paginada por cursor
+ * @param <T> tipo de los elementos
+ */
+public class Pagina<T> {
+    private final List<T> elementos;
+    private final String cursorSiguiente;
+
+    public Pagina(List<T> elementos, String cursorSiguiente) {
+        this.elementos = Collections.unmodifiableList(elementos);
+        this.cursorSiguiente = cursorSiguiente;
+    }
+
+    /**
+     * Obtiene los elementos de la página
+     * @return elementos de la página
+     */
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    /**
+     * Obtiene el cursor para pedir la página siguiente
+     * @return cursor opaco, o null si no hay más resultados
+     */
+    public String getCursorSiguiente() {
+        return cursorSiguiente;
+    }
+
+    /**
+     * Verifica si existen más resultados después de esta página
+     * @return true si hay una página siguiente
+     */
+    public boolean hayMas() {
+        return cursorSiguiente != null;
+    }
+}
@@ -2,6 +2,7 @@ package com.tienda.dominio;
 
 import java.math.BigDecimal;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Entidad de dominio que representa un producto en la tienda
@@ -11,7 +12,7 @@ public class Producto {
     private String nombre;
     private String descripcion;
     private BigDecimal precio;
-    private int stockDisponible;
+    private final AtomicInteger stockDisponible = new AtomicInteger();
     private boolean activo;
 
     public Producto() {
@@ -24,7 +25,7 @@ public class Producto {
         this.nombre = nombre;
         this.descripcion = descripcion;
         this.precio = precio;
-        this.stockDisponible = stockInicial;
+        this.stockDisponible.set(stockInicial);
     }
 
     // Getters y Setters
@@ -61,11 +62,11 @@ public class Producto {
     }
 
     public int getStockDisponible() {
-        return stockDisponible;
+        return stockDisponible.get();
     }
 
     public void setStockDisponible(int stockDisponible) {
-        this.stockDisponible = stockDisponible;
+        this.stockDisponible.set(stockDisponible);
     }
 
     public boolean isActivo() {
@@ -82,10 +83,25 @@ public class Producto {
      * @throws IllegalArgumentException si no hay suficiente stock
      */
     public void descontarStock(int cantidad) {
-        if (cantidad > stockDisponible) {
+        if (!reservarStock(cantidad)) {
             throw new IllegalArgumentException("Stock insuficiente para el producto: " + nombre);
         }
-        this.stockDisponible -= cantidad;
+    }
+
+    /**
+     * Intenta descontar stock de forma atómica (compare-and-set)
+     * @param cantidad cantidad a descontar
+     * @return true si había stock suficiente y se descontó
+     */
+    public boolean reservarStock(int cantidad) {
+        int actual;
+        do {
+            actual = stockDisponible.get();
+            if (cantidad > actual) {
+                return false;
+            }
+        } while (!stockDisponible.compareAndSet(actual, actual - cantidad));
+        return true;
     }
 
     /**
@@ -94,7 +110,7 @@ public class Producto {
      */
     public void agregarStock(int cantidad) {
         if (cantidad > 0) {
-            this.stockDisponible += cantidad;
+            this.stockDisponible.addAndGet(cantidad);
         }
     }
 
@@ -104,6 +120,6 @@ public class Producto {
      * @return true si hay stock suficiente
      */
     public boolean tieneStockSuficiente(int cantidad) {
-        return stockDisponible >= cantidad;
+        return stockDisponible.get() >= cantidad;
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Interfaz del repositorio de órdenes de compra
@@ -52,6 +53,39 @@ public interface RepositorioOrdenCompra {
      */
     List<OrdenCompra> obtenerPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin);
     
+    /**
+     * Obtiene una página de órdenes, de la más reciente a la más antigua
+     * @param cursor cursor devuelto por la página anterior, o null para la primera
+     * @param tamano cantidad máxima de órdenes por página
+     * @return página de órdenes
+     */
+    Pagina<OrdenCompra> obtenerPagina(String cursor, int tamano);
+    
+    /**
+     * Obtiene una página de órdenes en un rango de fechas, de la más reciente a la más antigua
+     * @param fechaInicio fecha de inicio
+     * @param fechaFin fecha de fin
+     * @param cursor cursor devuelto por la página anterior, o null para la primera
+     * @param tamano cantidad máxima de órdenes por página
+     * @return página de órdenes
+     */
+    Pagina<OrdenCompra> obtenerPaginaPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin,
+                                                    String cursor, int tamano);
+    
+    /**
+     * Recorre todas las órdenes sin copiarlas a una lista
+     * @return stream de órdenes
+     */
+    Stream<OrdenCompra> recorrerTodas();
+    
+    /**
+     * Recorre las órdenes de un rango de fechas sin copiarlas, de la más reciente a la más antigua
+     * @param fechaInicio fecha de inicio
+     * @param fechaFin fecha de fin
+     * @return stream de órdenes en el rango
+     */
+    Stream<OrdenCompra> recorrerPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin);
+    
     /**
      * Elimina una orden
      * @param id ID de la orden a eliminar
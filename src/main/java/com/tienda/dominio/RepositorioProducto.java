@@ -3,6 +3,7 @@ package com.tienda.dominio;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Interfaz del repositorio de productos
@@ -35,6 +36,26 @@ public interface RepositorioProducto {
      */
     List<Producto> obtenerTodos();
     
+    /**
+     * Obtiene una página de productos activos ordenados por ID
+     * @param cursor cursor devuelto por la página anterior, o null para la primera
+     * @param tamano cantidad máxima de productos por página
+     * @return página de productos activos
+     */
+    Pagina<Producto> obtenerPaginaActivos(String cursor, int tamano);
+    
+    /**
+     * Recorre todos los productos sin copiarlos a una lista
+     * @return stream de productos
+     */
+    Stream<Producto> recorrerTodos();
+    
+    /**
+     * Recorre los productos activos sin copiarlos a una lista
+     * @return stream de productos activos
+     */
+    Stream<Producto> recorrerActivos();
+    
     /**
      * Elimina un producto
      * @param id ID del producto a eliminar
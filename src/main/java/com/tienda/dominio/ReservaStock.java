@@ -0,0 +1,115 @@
+package com.tienda.dominio;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reserva de stock de varios productos tomada como una sola unidad.
+ * Mientras está activa el stock ya fue descontado de cada producto; al liberarla
+ * se devuelve todo y al confirmarla queda descontado de forma definitiva. Una reserva
+ * tomada para varias órdenes a la vez se puede repartir en una reserva por orden.
+ */
+public class ReservaStock {
+
+    public enum EstadoReserva {
+        ACTIVA,
+        CONFIRMADA,
+        LIBERADA,
+        REPARTIDA
+    }
+
+    private final List<LineaReserva> lineas;
+    private final AtomicReference<EstadoReserva> estado;
+
+    public ReservaStock(List<LineaReserva> lineas) {
+        this.lineas = Collections.unmodifiableList(new ArrayList<>(lineas));
+        this.estado = new AtomicReference<>(EstadoReserva.ACTIVA);
+    }
+
+    public List<LineaReserva> getLineas() {
+        return lineas;
+    }
+
+    public EstadoReserva getEstado() {
+        return estado.get();
+    }
+
+    /**
+     * Confirma la reserva; el stock queda descontado
+     * @return true si la reserva estaba activa y se confirmó
+     */
+    public boolean confirmar() {
+        return estado.compareAndSet(EstadoReserva.ACTIVA, EstadoReserva.CONFIRMADA);
+    }
+
+    /**
+     * Libera la reserva devolviendo el stock a cada producto.
+     * Es idempotente: solo la primera llamada sobre una reserva activa devuelve stock.
+     * @return true si la reserva estaba activa y se liberó
+     */
+    public boolean liberar() {
+        if (!estado.compareAndSet(EstadoReserva.ACTIVA, EstadoReserva.LIBERADA)) {
+            return false;
+        }
+        for (LineaReserva linea : lineas) {
+            linea.getProducto().agregarStock(linea.getCantidad());
+        }
+        return true;
+    }
+
+    /**
+     * Reparte la reserva en varias reservas activas sin tocar el stock; cada una se
+     * confirma o se libera por su cuenta y esta deja de estar activa
+     * @param partes cantidad por producto de cada nueva reserva; deben sumar lo reservado
+     * @return una reserva activa por parte, en el mismo orden
+     * @throws IllegalArgumentException si las partes no suman las cantidades reservadas
+     * @throws IllegalStateException si la reserva ya no estaba activa
+     */
+    public List<ReservaStock> repartir(List<Map<Producto, Integer>> partes) {
+        Map<Producto, Integer> pendiente = new HashMap<>();
+        for (LineaReserva linea : lineas) {
+            pendiente.merge(linea.getProducto(), linea.getCantidad(), Integer::sum);
+        }
+        List<ReservaStock> reservas = new ArrayList<>(partes.size());
+        for (Map<Producto, Integer> parte : partes) {
+            List<LineaReserva> lineasParte = new ArrayList<>(parte.size());
+            parte.forEach((producto, cantidad) -> {
+                pendiente.merge(producto, -cantidad, Integer::sum);
+                lineasParte.add(new LineaReserva(producto, cantidad));
+            });
+            reservas.add(new ReservaStock(lineasParte));
+        }
+        if (pendiente.values().stream().anyMatch(cantidad -> cantidad != 0)) {
+            throw new IllegalArgumentException("Las partes no suman las cantidades reservadas");
+        }
+        if (!estado.compareAndSet(EstadoReserva.ACTIVA, EstadoReserva.REPARTIDA)) {
+            throw new IllegalStateException("Solo se puede repartir una reserva activa");
+        }
+        return reservas;
+    }
+
+    /**
+     * Cantidad reservada de un producto concreto
+     */
+    public static class LineaReserva {
+        private final Producto producto;
+        private final int cantidad;
+
+        public LineaReserva(Producto producto, int cantidad) {
+            this.producto = producto;
+            this.cantidad = cantidad;
+        }
+
+        public Producto getProducto() {
+            return producto;
+        }
+
+        public int getCantidad() {
+            return cantidad;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.tienda.dominio;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resumen de las notificaciones de órdenes de un usuario agrupadas en una ventana de
+ * tiempo. Cada orden aparece una sola vez: si se creó dentro de la ventana figura como
+ * nueva, y si no, con el estado que tenía antes del primer cambio; el estado actual es
+ * el de la orden.
+ */
+public class ResumenOrdenes {
+
+    private final Usuario destinatario;
+    private final List<EntradaResumen> entradas;
+
+    public ResumenOrdenes(Usuario destinatario, List<EntradaResumen> entradas) {
+        this.destinatario = destinatario;
+        this.entradas = Collections.unmodifiableList(new ArrayList<>(entradas));
+    }
+
+    public Usuario getDestinatario() {
+        return destinatario;
+    }
+
+    public List<EntradaResumen> getEntradas() {
+        return entradas;
+    }
+
+    /**
+     * Obtiene la cantidad de notificaciones individuales que reemplaza el resumen
+     * @return notificaciones agrupadas
+     */
+    public int getEventos() {
+        int eventos = 0;
+        for (EntradaResumen entrada : entradas) {
+            eventos += entrada.getEventos();
+        }
+        return eventos;
+    }
+
+    /**
+     * Orden incluida en un resumen
+     */
+    public static class EntradaResumen {
+        private final OrdenCompra orden;
+        private final OrdenCompra.EstadoOrden estadoAnterior;
+        private final int eventos;
+
+        /**
+         * @param orden orden notificada
+         * @param estadoAnterior estado antes del primer cambio, o null si la orden es nueva
+         * @param eventos notificaciones de la orden agrupadas en la entrada
+         */
+        public EntradaResumen(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior, int eventos) {
+            this.orden = orden;
+            this.estadoAnterior = estadoAnterior;
+            this.eventos = eventos;
+        }
+
+        public OrdenCompra getOrden() {
+            return orden;
+        }
+
+        public OrdenCompra.EstadoOrden getEstadoAnterior() {
+            return estadoAnterior;
+        }
+
+        public boolean esNueva() {
+            return estadoAnterior == null;
+        }
+
+        public int getEventos() {
+            return eventos;
+        }
+    }
+}
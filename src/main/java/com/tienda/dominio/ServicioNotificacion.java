@@ -1,5 +1,7 @@
 package com.tienda.dominio;
 
+import java.util.List;
+
 /**
  * Interfaz del servicio de notificaciones
  */
@@ -11,13 +13,38 @@ public interface ServicioNotificacion {
      */
     void notificarNuevaOrden(OrdenCompra orden);
     
+    /**
+     * Notifica la creación de varias órdenes en bloque
+     * @param ordenes órdenes creadas
+     */
+    default void notificarNuevasOrdenes(List<OrdenCompra> ordenes) {
+        for (OrdenCompra orden : ordenes) {
+            notificarNuevaOrden(orden);
+        }
+    }
+    
     /**
      * Notifica el cambio de estado de una orden
      * @param orden orden con estado cambiado
      * @param estadoAnterior estado anterior de la orden
      */
     void notificarCambioEstado(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior);
-    
+
+    /**
+     * Notifica en un solo mensaje varias novedades de órdenes de un mismo usuario.
+     * Por defecto envía cada entrada como notificación individual.
+     * @param resumen resumen de órdenes del usuario
+     */
+    default void notificarResumen(ResumenOrdenes resumen) {
+        for (ResumenOrdenes.EntradaResumen entrada : resumen.getEntradas()) {
+            if (entrada.esNueva()) {
+                notificarNuevaOrden(entrada.getOrden());
+            } else {
+                notificarCambioEstado(entrada.getOrden(), entrada.getEstadoAnterior());
+            }
+        }
+    }
+
     /**
      * Notifica un mensaje personalizado
      * @param destinatario usuario destinatario
@@ -1,8 +1,6 @@
 package com.tienda.dominio;
 
 import java.util.UUID;
-import java.util.List;
-import java.util.ArrayList;
 
 /**
  * Entidad de dominio que representa un usuario del sistema
@@ -15,12 +13,12 @@ public class Usuario {
     private String telefono;
     private String telegramId;
     private boolean activo;
-    private List<OrdenCompra> historialOrdenes;
+    private final HistorialOrdenes historialOrdenes;
 
     public Usuario() {
         this.id = UUID.randomUUID();
         this.activo = true;
-        this.historialOrdenes = new ArrayList<>();
+        this.historialOrdenes = new HistorialOrdenes();
     }
 
     public Usuario(String nombre, String email, String password) {
@@ -87,16 +85,16 @@ public class Usuario {
         this.activo = activo;
     }
 
-    public List<OrdenCompra> getHistorialOrdenes() {
-        return new ArrayList<>(historialOrdenes);
+    public HistorialOrdenes getHistorialOrdenes() {
+        return historialOrdenes;
     }
 
     /**
-     * Agrega una orden al historial del usuario
+     * Agrega una orden al historial del usuario; se registra solo su ID y fecha de creación
      * @param orden orden a agregar
      */
     public void agregarOrdenAlHistorial(OrdenCompra orden) {
-        this.historialOrdenes.add(orden);
+        this.historialOrdenes.agregar(orden.getId(), orden.getFechaCreacion());
     }
 
     /**
@@ -1,42 +1,68 @@
 package com.tienda.dominio.modelo;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Representa el inventario general de productos
  * Implementa el patrón Singleton para garantizar una única instancia
+ *
+ * <p>Los productos se reparten por ID en fragmentos, cada uno con su mapa y su cerrojo
+ * de lectura/escritura: las búsquedas por ID son O(1) y las actualizaciones de stock
+ * son atómicas dentro del fragmento del producto, sin bloquear a los demás. El stock de
+ * los productos del inventario debe modificarse a través de esta clase.
  */
 public class Inventario {
-    private static Inventario instancia;
-    private List<Producto> productos;
+    private static final int FRAGMENTOS = 64;
+
+    private final Fragmento[] fragmentos;
 
     /**
      * Constructor privado para implementar Singleton
      */
     private Inventario() {
-        this.productos = new ArrayList<>();
+        this.fragmentos = new Fragmento[FRAGMENTOS];
+        for (int i = 0; i < FRAGMENTOS; i++) {
+            fragmentos[i] = new Fragmento();
+        }
     }
-    
+
+    /**
+     * Inicialización perezosa y segura entre hilos: la JVM crea la instancia al cargar
+     * esta clase, la primera vez que se llama a {@link #getInstancia()}
+     */
+    private static class Contenedor {
+        private static final Inventario INSTANCIA = new Inventario();
+    }
+
     /**
      * Obtiene la instancia única del inventario
      * @return instancia del inventario
      */
     public static Inventario getInstancia() {
-        if (instancia == null) {
-            instancia = new Inventario();
-        }
-        return instancia;
+        return Contenedor.INSTANCIA;
     }
 
     /**
-     * Añade un producto al inventario
+     * Añade un producto al inventario; si ya hay un producto con el mismo ID no hace nada
      * @param producto producto a añadir
      */
     public void añadirProducto(Producto producto) {
-        if (producto != null && !productos.contains(producto)) {
-            productos.add(producto);
+        if (producto == null || producto.getId() == null) {
+            return;
+        }
+        Fragmento fragmento = fragmentoDe(producto.getId());
+        fragmento.cerrojo.writeLock().lock();
+        try {
+            fragmento.productos.putIfAbsent(producto.getId(), producto);
+        } finally {
+            fragmento.cerrojo.writeLock().unlock();
         }
     }
 
@@ -47,11 +73,62 @@ public class Inventario {
      * @return true si hay stock suficiente
      */
     public boolean verificarDisponibilidadStock(String productoId, int cantidad) {
-        Optional<Producto> producto = productos.stream()
-                .filter(p -> p.getId().toString().equals(productoId))
-                .findFirst();
-        
-        return producto.isPresent() && producto.get().tieneStockSuficiente(cantidad);
+        UUID id = convertirId(productoId);
+        return id != null && verificarDisponibilidadStock(id, cantidad);
+    }
+
+    /**
+     * Verifica la disponibilidad de stock para un producto
+     * @param productoId ID del producto
+     * @param cantidad cantidad requerida
+     * @return true si hay stock suficiente
+     */
+    public boolean verificarDisponibilidadStock(UUID productoId, int cantidad) {
+        Fragmento fragmento = fragmentoDe(productoId);
+        fragmento.cerrojo.readLock().lock();
+        try {
+            Producto producto = fragmento.productos.get(productoId);
+            return producto != null && producto.tieneStockSuficiente(cantidad);
+        } finally {
+            fragmento.cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Verifica en una sola llamada la disponibilidad de stock de varios productos. Los
+     * fragmentos involucrados se bloquean juntos (en orden fijo), por lo que el resultado
+     * corresponde a un mismo instante del inventario.
+     * @param cantidadesPorProducto cantidad requerida por ID de producto
+     * @return true si todos los productos existen y tienen stock suficiente
+     */
+    public boolean verificarDisponibilidadStock(Map<UUID, Integer> cantidadesPorProducto) {
+        Map<Integer, List<Map.Entry<UUID, Integer>>> porFragmento = new TreeMap<>();
+        for (Map.Entry<UUID, Integer> entrada : cantidadesPorProducto.entrySet()) {
+            porFragmento.computeIfAbsent(indiceDe(entrada.getKey()), indice -> new ArrayList<>()).add(entrada);
+        }
+
+        List<Fragmento> bloqueados = new ArrayList<>(porFragmento.size());
+        try {
+            for (Integer indice : porFragmento.keySet()) {
+                Fragmento fragmento = fragmentos[indice];
+                fragmento.cerrojo.readLock().lock();
+                bloqueados.add(fragmento);
+            }
+            for (Map.Entry<Integer, List<Map.Entry<UUID, Integer>>> grupo : porFragmento.entrySet()) {
+                Map<UUID, Producto> productos = fragmentos[grupo.getKey()].productos;
+                for (Map.Entry<UUID, Integer> entrada : grupo.getValue()) {
+                    Producto producto = productos.get(entrada.getKey());
+                    if (producto == null || !producto.tieneStockSuficiente(entrada.getValue())) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } finally {
+            for (Fragmento fragmento : bloqueados) {
+                fragmento.cerrojo.readLock().unlock();
+            }
+        }
     }
 
     /**
@@ -61,15 +138,50 @@ public class Inventario {
      * @return true si se actualizó correctamente
      */
     public boolean actualizarStockProducto(String productoId, int nuevaCantidad) {
-        Optional<Producto> producto = productos.stream()
-                .filter(p -> p.getId().toString().equals(productoId))
-                .findFirst();
-        
-        if (producto.isPresent()) {
-            producto.get().setStockDisponible(nuevaCantidad);
+        UUID id = convertirId(productoId);
+        return id != null && actualizarStockProducto(id, nuevaCantidad);
+    }
+
+    /**
+     * Actualiza el stock de un producto
+     * @param productoId ID del producto
+     * @param nuevaCantidad nueva cantidad en stock
+     * @return true si se actualizó correctamente
+     */
+    public boolean actualizarStockProducto(UUID productoId, int nuevaCantidad) {
+        Fragmento fragmento = fragmentoDe(productoId);
+        fragmento.cerrojo.writeLock().lock();
+        try {
+            Producto producto = fragmento.productos.get(productoId);
+            if (producto == null) {
+                return false;
+            }
+            producto.setStockDisponible(nuevaCantidad);
             return true;
+        } finally {
+            fragmento.cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Descuenta stock de un producto si alcanza, como una única operación atómica
+     * @param productoId ID del producto
+     * @param cantidad cantidad a descontar
+     * @return true si el producto existe y tenía stock suficiente
+     */
+    public boolean descontarStock(UUID productoId, int cantidad) {
+        Fragmento fragmento = fragmentoDe(productoId);
+        fragmento.cerrojo.writeLock().lock();
+        try {
+            Producto producto = fragmento.productos.get(productoId);
+            if (producto == null || !producto.tieneStockSuficiente(cantidad)) {
+                return false;
+            }
+            producto.descontarStock(cantidad);
+            return true;
+        } finally {
+            fragmento.cerrojo.writeLock().unlock();
         }
-        return false;
     }
 
     /**
@@ -78,9 +190,23 @@ public class Inventario {
      * @return Optional con el producto si existe
      */
     public Optional<Producto> obtenerProducto(String productoId) {
-        return productos.stream()
-                .filter(p -> p.getId().toString().equals(productoId))
-                .findFirst();
+        UUID id = convertirId(productoId);
+        return id != null ? obtenerProducto(id) : Optional.empty();
+    }
+
+    /**
+     * Obtiene un producto por ID
+     * @param productoId ID del producto
+     * @return Optional con el producto si existe
+     */
+    public Optional<Producto> obtenerProducto(UUID productoId) {
+        Fragmento fragmento = fragmentoDe(productoId);
+        fragmento.cerrojo.readLock().lock();
+        try {
+            return Optional.ofNullable(fragmento.productos.get(productoId));
+        } finally {
+            fragmento.cerrojo.readLock().unlock();
+        }
     }
 
     /**
@@ -88,7 +214,16 @@ public class Inventario {
      * @return lista de productos
      */
     public List<Producto> obtenerProductos() {
-        return new ArrayList<>(productos);
+        List<Producto> resultado = new ArrayList<>();
+        for (Fragmento fragmento : fragmentos) {
+            fragmento.cerrojo.readLock().lock();
+            try {
+                resultado.addAll(fragmento.productos.values());
+            } finally {
+                fragmento.cerrojo.readLock().unlock();
+            }
+        }
+        return resultado;
     }
 
     /**
@@ -96,9 +231,20 @@ public class Inventario {
      * @return lista de productos con stock > 0
      */
     public List<Producto> obtenerProductosDisponibles() {
-        return productos.stream()
-                .filter(p -> p.getStockDisponible() > 0 && p.isActivo())
-                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        List<Producto> resultado = new ArrayList<>();
+        for (Fragmento fragmento : fragmentos) {
+            fragmento.cerrojo.readLock().lock();
+            try {
+                for (Producto producto : fragmento.productos.values()) {
+                    if (producto.getStockDisponible() > 0 && producto.isActivo()) {
+                        resultado.add(producto);
+                    }
+                }
+            } finally {
+                fragmento.cerrojo.readLock().unlock();
+            }
+        }
+        return resultado;
     }
 
     /**
@@ -107,6 +253,50 @@ public class Inventario {
      * @return true si se eliminó correctamente
      */
     public boolean eliminarProducto(String productoId) {
-        return productos.removeIf(p -> p.getId().toString().equals(productoId));
+        UUID id = convertirId(productoId);
+        return id != null && eliminarProducto(id);
+    }
+
+    /**
+     * Elimina un producto del inventario
+     * @param productoId ID del producto a eliminar
+     * @return true si se eliminó correctamente
+     */
+    public boolean eliminarProducto(UUID productoId) {
+        Fragmento fragmento = fragmentoDe(productoId);
+        fragmento.cerrojo.writeLock().lock();
+        try {
+            return fragmento.productos.remove(productoId) != null;
+        } finally {
+            fragmento.cerrojo.writeLock().unlock();
+        }
+    }
+
+    private Fragmento fragmentoDe(UUID productoId) {
+        return fragmentos[indiceDe(productoId)];
+    }
+
+    private static int indiceDe(UUID productoId) {
+        int hash = productoId.hashCode();
+        return (hash ^ (hash >>> 16)) & (FRAGMENTOS - 1);
+    }
+
+    private static UUID convertirId(String productoId) {
+        if (productoId == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(productoId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parte del inventario con su propio cerrojo
+     */
+    private static class Fragmento {
+        private final Map<UUID, Producto> productos = new HashMap<>();
+        private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
     }
-} 
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.tienda.dominio.modelo;
 
-import java.math.BigDecimal;
+import com.tienda.compartido.Dinero;
+
 import java.util.UUID;
 
 /**
@@ -10,7 +11,7 @@ public class ItemOrden {
     private UUID id;
     private Producto producto;
     private int cantidad;
-    private BigDecimal precioUnitario;
+    private Dinero precioUnitario;
 
     public ItemOrden() {
         this.id = UUID.randomUUID();
@@ -20,7 +21,7 @@ public class ItemOrden {
         this();
         this.producto = producto;
         this.cantidad = cantidad;
-        this.precioUnitario = producto.getPrecio();
+        this.precioUnitario = Dinero.de(producto.getPrecio());
     }
 
     // Getters y Setters
@@ -39,7 +40,7 @@ public class ItemOrden {
     public void setProducto(Producto producto) {
         this.producto = producto;
         if (producto != null) {
-            this.precioUnitario = producto.getPrecio();
+            this.precioUnitario = Dinero.de(producto.getPrecio());
         }
     }
 
@@ -51,11 +52,11 @@ public class ItemOrden {
         this.cantidad = cantidad;
     }
 
-    public BigDecimal getPrecioUnitario() {
+    public Dinero getPrecioUnitario() {
         return precioUnitario;
     }
 
-    public void setPrecioUnitario(BigDecimal precioUnitario) {
+    public void setPrecioUnitario(Dinero precioUnitario) {
         this.precioUnitario = precioUnitario;
     }
 
@@ -63,7 +64,7 @@ public class ItemOrden {
      * Calcula el subtotal del item
      * @return subtotal del item
      */
-    public BigDecimal getSubtotal() {
-        return precioUnitario.multiply(BigDecimal.valueOf(cantidad));
+    public Dinero getSubtotal() {
+        return precioUnitario.multiplicar(cantidad);
     }
 } 
\ No newline at end of file
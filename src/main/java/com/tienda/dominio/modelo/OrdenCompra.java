@@ -1,30 +1,42 @@
 package com.tienda.dominio.modelo;
 
-import java.math.BigDecimal;
+import com.tienda.compartido.Dinero;
+
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Currency;
 import java.util.UUID;
 import java.util.List;
 import java.util.ArrayList;
 
 /**
  * Entidad de dominio que representa una orden de compra
+ *
+ * <p>El total se mantiene a medida que se agregan items, sin volver a recorrerlos, y
+ * los items se exponen como una vista de solo lectura. Quien guarde la orden debe
+ * llamar a {@link #congelarItems()}; este paquete no tiene un repositorio que lo haga.
  */
 public class OrdenCompra {
     private UUID id;
     private Usuario usuario;
     private List<ItemOrden> items;
+    private List<ItemOrden> vistaItems;
+    private volatile boolean itemsCongelados;
     private EstadoOrden estado;
     private LocalDateTime fechaCreacion;
     private LocalDateTime fechaActualizacion;
-    private BigDecimal total;
+    private long totalUnidadesMenores;
+    private Currency moneda;
+    /** Total ya convertido a Dinero; null si cambió desde la última consulta */
+    private Dinero total;
 
     public OrdenCompra() {
         this.id = UUID.randomUUID();
         this.items = new ArrayList<>();
+        this.vistaItems = Collections.unmodifiableList(items);
         this.estado = EstadoOrden.PENDIENTE;
         this.fechaCreacion = LocalDateTime.now();
         this.fechaActualizacion = LocalDateTime.now();
-        this.total = BigDecimal.ZERO;
     }
 
     public OrdenCompra(Usuario usuario) {
@@ -49,12 +61,18 @@ public class OrdenCompra {
         this.usuario = usuario;
     }
 
+    /**
+     * Obtiene los items de la orden
+     * @return vista de solo lectura de los items, sin copiarlos
+     */
     public List<ItemOrden> getItems() {
-        return new ArrayList<>(items);
+        return vistaItems;
     }
 
     public void setItems(List<ItemOrden> items) {
+        verificarItemsModificables();
         this.items = new ArrayList<>(items);
+        this.vistaItems = Collections.unmodifiableList(this.items);
         calcularTotal();
     }
 
@@ -83,30 +101,71 @@ public class OrdenCompra {
         this.fechaActualizacion = fechaActualizacion;
     }
 
-    public BigDecimal getTotal() {
-        return total;
+    public Dinero getTotal() {
+        Dinero actual = total;
+        if (actual == null) {
+            actual = moneda != null ? Dinero.deUnidadesMenores(totalUnidadesMenores, moneda) : Dinero.CERO;
+            total = actual;
+        }
+        return actual;
     }
 
-    public void setTotal(BigDecimal total) {
+    public void setTotal(Dinero total) {
         this.total = total;
+        this.totalUnidadesMenores = total.getUnidadesMenores();
+        this.moneda = total.getMoneda();
     }
 
     /**
-     * Agrega un item a la orden
+     * Agrega un item a la orden y suma su subtotal al total
      * @param item item a agregar
+     * @throws IllegalStateException si los items de la orden están congelados
      */
     public void agregarItem(ItemOrden item) {
+        verificarItemsModificables();
+        sumarAlTotal(item);
         this.items.add(item);
-        calcularTotal();
     }
 
     /**
-     * Calcula el total de la orden
+     * Congela los items de la orden; a partir de aquí no se pueden agregar ni reemplazar.
+     * Debe llamarlo quien guarda la orden, una vez armada.
+     */
+    public void congelarItems() {
+        this.itemsCongelados = true;
+    }
+
+    public boolean tieneItemsCongelados() {
+        return itemsCongelados;
+    }
+
+    private void verificarItemsModificables() {
+        if (itemsCongelados) {
+            throw new IllegalStateException("Los items de la orden " + id + " ya no se pueden modificar");
+        }
+    }
+
+    /**
+     * Recalcula el total desde cero; solo se usa al reemplazar todos los items
      */
     private void calcularTotal() {
-        this.total = items.stream()
-                .map(item -> item.getPrecioUnitario().multiply(BigDecimal.valueOf(item.getCantidad())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        this.totalUnidadesMenores = 0;
+        this.moneda = null;
+        this.total = null;
+        for (ItemOrden item : items) {
+            sumarAlTotal(item);
+        }
+    }
+
+    private void sumarAlTotal(ItemOrden item) {
+        Dinero precio = item.getPrecioUnitario();
+        if (moneda != null && !moneda.equals(precio.getMoneda())) {
+            throw new IllegalArgumentException("No se pueden combinar montos en " + moneda + " y " + precio.getMoneda());
+        }
+        long subtotal = Math.multiplyExact(precio.getUnidadesMenores(), (long) item.getCantidad());
+        this.totalUnidadesMenores = Math.addExact(totalUnidadesMenores, subtotal);
+        this.moneda = precio.getMoneda();
+        this.total = null;
     }
 
     /**
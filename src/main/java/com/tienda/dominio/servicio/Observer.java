@@ -8,6 +8,10 @@ import com.tienda.dominio.modelo.OrdenCompra;
  */
 public interface Observer {
     
+    String ORDEN_CREADA = "ORDEN_CREADA";
+    String ORDEN_COMPLETADA = "ORDEN_COMPLETADA";
+    String ORDEN_ELIMINADA = "ORDEN_ELIMINADA";
+    
     /**
      * Método llamado cuando se actualiza el estado de una orden
      * @param orden orden que ha cambiado
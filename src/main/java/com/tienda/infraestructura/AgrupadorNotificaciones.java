@@ -0,0 +1,248 @@
+package com.tienda.infraestructura;
+
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.ResumenOrdenes;
+import com.tienda.dominio.ServicioNotificacion;
+import com.tienda.dominio.Usuario;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agrupa las notificaciones de órdenes de cada usuario durante una ventana de tiempo y
+ * las entrega al destino como un único resumen, de modo que una orden creada y luego
+ * completada o cancelada en pocos segundos genera un mensaje por canal en lugar de dos.
+ * La ventana de un usuario empieza con su primera notificación pendiente; se vacía al
+ * vencer o al juntar la cantidad máxima de notificaciones. Una ventana con una sola
+ * notificación se entrega tal cual, sin formato de resumen. Los mensajes personalizados
+ * no se agrupan.
+ */
+public class AgrupadorNotificaciones implements ServicioNotificacion {
+
+    private static final Duration VENTANA_POR_DEFECTO = Duration.ofSeconds(10);
+    private static final int MAX_EVENTOS_POR_DEFECTO = 20;
+
+    private final ServicioNotificacion destino;
+    private final long ventanaNanos;
+    private final int maxEventos;
+    private final ConcurrentHashMap<UUID, Pendiente> pendientes;
+    private final ScheduledThreadPoolExecutor temporizador;
+    private volatile boolean activo;
+
+    private final AtomicLong eventosRecibidos = new AtomicLong();
+    private final AtomicLong eventosEntregados = new AtomicLong();
+    private final AtomicLong notificacionesEnviadas = new AtomicLong();
+    private final AtomicLong resumenesEnviados = new AtomicLong();
+
+    public AgrupadorNotificaciones(ServicioNotificacion destino) {
+        this(destino, VENTANA_POR_DEFECTO, MAX_EVENTOS_POR_DEFECTO);
+    }
+
+    /**
+     * @param destino servicio que recibe las notificaciones agrupadas
+     * @param ventana tiempo que se acumulan las notificaciones de un usuario
+     * @param maxEventos notificaciones pendientes de un usuario que vacían la ventana antes de tiempo
+     */
+    public AgrupadorNotificaciones(ServicioNotificacion destino, Duration ventana, int maxEventos) {
+        if (ventana.isNegative() || ventana.isZero()) {
+            throw new IllegalArgumentException("La ventana de agrupación debe ser mayor a cero");
+        }
+        if (maxEventos < 1) {
+            throw new IllegalArgumentException("La cantidad máxima de eventos debe ser mayor a cero");
+        }
+        this.destino = destino;
+        this.ventanaNanos = ventana.toNanos();
+        this.maxEventos = maxEventos;
+        this.pendientes = new ConcurrentHashMap<>();
+        this.temporizador = new ScheduledThreadPoolExecutor(1, tarea -> {
+            Thread hilo = new Thread(tarea, "agrupador-notificaciones");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.activo = true;
+    }
+
+    @Override
+    public void notificarNuevaOrden(OrdenCompra orden) {
+        agregar(orden, null);
+    }
+
+    @Override
+    public void notificarCambioEstado(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
+        agregar(orden, estadoAnterior);
+    }
+
+    @Override
+    public void notificarResumen(ResumenOrdenes resumen) {
+        eventosRecibidos.addAndGet(resumen.getEventos());
+        eventosEntregados.addAndGet(resumen.getEventos());
+        notificacionesEnviadas.incrementAndGet();
+        resumenesEnviados.incrementAndGet();
+        destino.notificarResumen(resumen);
+    }
+
+    @Override
+    public void notificarMensaje(Usuario destinatario, String asunto, String mensaje) {
+        eventosRecibidos.incrementAndGet();
+        eventosEntregados.incrementAndGet();
+        notificacionesEnviadas.incrementAndGet();
+        destino.notificarMensaje(destinatario, asunto, mensaje);
+    }
+
+    /**
+     * Suma la notificación a la ventana del usuario de la orden
+     * @param orden orden notificada
+     * @param estadoAnterior estado previo, o null si la orden es nueva
+     */
+    private void agregar(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
+        eventosRecibidos.incrementAndGet();
+        Usuario usuario = orden.getUsuario();
+        if (!activo) {
+            entregar(new Pendiente(usuario).agregar(orden, estadoAnterior));
+            return;
+        }
+        UUID clave = usuario.getId();
+        Pendiente[] creado = new Pendiente[1];
+        Pendiente[] completo = new Pendiente[1];
+        // compute hace atómicos el alta, la acumulación y el vaciado por tamaño de cada usuario
+        pendientes.compute(clave, (id, pendiente) -> {
+            if (pendiente == null) {
+                pendiente = new Pendiente(usuario);
+                creado[0] = pendiente;
+            }
+            pendiente.agregar(orden, estadoAnterior);
+            if (pendiente.eventos >= maxEventos) {
+                completo[0] = pendiente;
+                return null;
+            }
+            return pendiente;
+        });
+        if (completo[0] != null) {
+            entregar(completo[0]);
+        } else if (creado[0] != null) {
+            programarVaciado(clave, creado[0]);
+        }
+    }
+
+    private void programarVaciado(UUID clave, Pendiente pendiente) {
+        try {
+            temporizador.schedule(() -> vaciar(clave, pendiente), ventanaNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // El agrupador se cerró mientras se abría la ventana
+            vaciar(clave, pendiente);
+        }
+    }
+
+    /**
+     * Entrega la ventana si sigue pendiente; si ya se vació por tamaño no hace nada
+     */
+    private void vaciar(UUID clave, Pendiente pendiente) {
+        if (pendientes.remove(clave, pendiente)) {
+            entregar(pendiente);
+        }
+    }
+
+    private void entregar(Pendiente pendiente) {
+        eventosEntregados.addAndGet(pendiente.eventos);
+        notificacionesEnviadas.incrementAndGet();
+        try {
+            if (pendiente.eventos == 1) {
+                ResumenOrdenes.EntradaResumen entrada = pendiente.entradas.values().iterator().next().aEntrada();
+                if (entrada.esNueva()) {
+                    destino.notificarNuevaOrden(entrada.getOrden());
+                } else {
+                    destino.notificarCambioEstado(entrada.getOrden(), entrada.getEstadoAnterior());
+                }
+            } else {
+                resumenesEnviados.incrementAndGet();
+                destino.notificarResumen(pendiente.aResumen());
+            }
+        } catch (Exception e) {
+            System.err.println("Error al entregar notificaciones agrupadas de " + pendiente.usuario.getNombre()
+                    + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene una instantánea de las estadísticas del agrupador
+     * @return estadísticas actuales
+     */
+    public EstadisticasAgrupadorNotificaciones obtenerEstadisticas() {
+        return new EstadisticasAgrupadorNotificaciones(
+                pendientes.size(),
+                eventosRecibidos.get(),
+                eventosEntregados.get(),
+                notificacionesEnviadas.get(),
+                resumenesEnviados.get());
+    }
+
+    /**
+     * Entrega todas las ventanas pendientes y deja de agrupar; las notificaciones
+     * posteriores pasan directo al destino
+     */
+    public void cerrar() {
+        activo = false;
+        temporizador.shutdownNow();
+        for (Map.Entry<UUID, Pendiente> entrada : pendientes.entrySet()) {
+            vaciar(entrada.getKey(), entrada.getValue());
+        }
+    }
+
+    /**
+     * Notificaciones pendientes de un usuario. Solo se modifica dentro de
+     * {@code pendientes.compute}, o antes de publicarse.
+     */
+    private static final class Pendiente {
+        private final Usuario usuario;
+        private final Map<UUID, EntradaPendiente> entradas = new LinkedHashMap<>();
+        private int eventos;
+
+        private Pendiente(Usuario usuario) {
+            this.usuario = usuario;
+        }
+
+        private Pendiente agregar(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
+            EntradaPendiente entrada = entradas.get(orden.getId());
+            if (entrada == null) {
+                // La primera notificación de la orden fija si es nueva o de qué estado viene
+                entradas.put(orden.getId(), new EntradaPendiente(orden, estadoAnterior));
+            } else {
+                entrada.eventos++;
+            }
+            eventos++;
+            return this;
+        }
+
+        private ResumenOrdenes aResumen() {
+            List<ResumenOrdenes.EntradaResumen> resumen = new ArrayList<>(entradas.size());
+            for (EntradaPendiente entrada : entradas.values()) {
+                resumen.add(entrada.aEntrada());
+            }
+            return new ResumenOrdenes(usuario, resumen);
+        }
+    }
+
+    private static final class EntradaPendiente {
+        private final OrdenCompra orden;
+        private final OrdenCompra.EstadoOrden estadoAnterior;
+        private int eventos = 1;
+
+        private EntradaPendiente(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
+            this.orden = orden;
+            this.estadoAnterior = estadoAnterior;
+        }
+
+        private ResumenOrdenes.EntradaResumen aEntrada() {
+            return new ResumenOrdenes.EntradaResumen(orden, estadoAnterior, eventos);
+        }
+    }
+}
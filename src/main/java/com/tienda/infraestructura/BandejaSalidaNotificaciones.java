@@ -0,0 +1,217 @@
+package com.tienda.infraestructura;
+
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.ResumenOrdenes;
+import com.tienda.dominio.ServicioNotificacion;
+import com.tienda.dominio.Usuario;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bandeja de salida (outbox) de notificaciones.
+ * Registra cada notificación como una intención en una cola acotada y un grupo de
+ * trabajadores la entrega después al servicio destino, de modo que la latencia de
+ * los canales no se suma al tiempo de respuesta de la orden.
+ * Garantiza entrega al menos una vez mientras el proceso siga vivo: una entrega que
+ * falla se reintenta, con una espera que se duplica en cada intento, hasta agotar los
+ * intentos configurados. Registrar nunca entrega ni espera en el hilo llamante: si la
+ * cola está llena o la bandeja cerrada, la intención se rechaza y se cuenta.
+ */
+public class BandejaSalidaNotificaciones implements ServicioNotificacion {
+
+    private static final int CAPACIDAD_POR_DEFECTO = 10_000;
+    private static final int TRABAJADORES_POR_DEFECTO = 2;
+    private static final int MAX_INTENTOS_POR_DEFECTO = 3;
+    private static final long ESPERA_REINTENTO_BASE_MILLIS = 100;
+    private static final long ESPERA_REINTENTO_MAXIMA_MILLIS = 5000;
+
+    private final ServicioNotificacion destino;
+    private final BlockingQueue<IntencionNotificacion> cola;
+    private final List<Thread> trabajadores;
+    private final int maxIntentos;
+    private volatile boolean activa;
+
+    private final AtomicLong registradas = new AtomicLong();
+    private final AtomicLong entregadas = new AtomicLong();
+    private final AtomicLong reintentos = new AtomicLong();
+    private final AtomicLong descartadas = new AtomicLong();
+    private final AtomicLong rechazadas = new AtomicLong();
+    private final AtomicLong retrasoUltimoNanos = new AtomicLong();
+    private final AtomicLong retrasoMaximoNanos = new AtomicLong();
+
+    public BandejaSalidaNotificaciones(ServicioNotificacion destino) {
+        this(destino, CAPACIDAD_POR_DEFECTO, TRABAJADORES_POR_DEFECTO, MAX_INTENTOS_POR_DEFECTO);
+    }
+
+    public BandejaSalidaNotificaciones(ServicioNotificacion destino, int capacidad, int numeroTrabajadores,
+                                       int maxIntentos) {
+        if (capacidad <= 0 || numeroTrabajadores <= 0 || maxIntentos <= 0) {
+            throw new IllegalArgumentException("Capacidad, trabajadores e intentos deben ser mayores a cero");
+        }
+        this.destino = destino;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.maxIntentos = maxIntentos;
+        this.activa = true;
+        this.trabajadores = new ArrayList<>(numeroTrabajadores);
+        for (int i = 0; i < numeroTrabajadores; i++) {
+            Thread trabajador = new Thread(this::procesarCola, "bandeja-salida-" + (i + 1));
+            trabajador.setDaemon(true);
+            trabajador.start();
+            trabajadores.add(trabajador);
+        }
+    }
+
+    @Override
+    public void notificarNuevaOrden(OrdenCompra orden) {
+        registrar(IntencionNotificacion.nuevaOrden(orden));
+    }
+
+    @Override
+    public void notificarCambioEstado(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
+        registrar(IntencionNotificacion.cambioEstado(orden, estadoAnterior));
+    }
+
+    @Override
+    public void notificarResumen(ResumenOrdenes resumen) {
+        registrar(IntencionNotificacion.resumen(resumen));
+    }
+
+    @Override
+    public void notificarMensaje(Usuario destinatario, String asunto, String mensaje) {
+        registrar(IntencionNotificacion.mensaje(destinatario, asunto, mensaje));
+    }
+
+    /**
+     * Registra una intención en la cola sin bloquear. Si la cola está llena o la
+     * bandeja ya se cerró, la intención se rechaza en lugar de entregarse en el hilo
+     * llamante, que es el de la orden.
+     * @param intencion intención a registrar
+     */
+    private void registrar(IntencionNotificacion intencion) {
+        registradas.incrementAndGet();
+        if (activa && cola.offer(intencion)) {
+            return;
+        }
+        rechazadas.incrementAndGet();
+        System.err.println("Bandeja de salida " + (activa ? "llena" : "cerrada")
+                + ": se rechazó una notificación de tipo " + intencion.getTipo());
+    }
+
+    /**
+     * Ciclo de cada trabajador: toma intenciones de la cola y las entrega
+     */
+    private void procesarCola() {
+        while (activa || !cola.isEmpty()) {
+            try {
+                IntencionNotificacion intencion = cola.poll(100, TimeUnit.MILLISECONDS);
+                if (intencion != null) {
+                    registrarRetraso(intencion);
+                    entregar(intencion);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Entrega una intención reintentando mientras queden intentos disponibles, con una
+     * espera creciente entre intentos para no insistir sobre un destino que está fallando
+     * @param intencion intención a entregar
+     */
+    private void entregar(IntencionNotificacion intencion) {
+        while (true) {
+            try {
+                intencion.entregar(destino);
+                entregadas.incrementAndGet();
+                return;
+            } catch (Exception e) {
+                if (intencion.getIntentos() >= maxIntentos || !esperarReintento(intencion.getIntentos())) {
+                    descartadas.incrementAndGet();
+                    System.err.println("Error al entregar notificación tras " + intencion.getIntentos()
+                            + " intentos: " + e.getMessage());
+                    return;
+                }
+                reintentos.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Espera antes de un reintento: la base después del primer intento y el doble tras
+     * cada uno de los siguientes, hasta un máximo
+     * @param intentos intentos ya realizados
+     * @return false si el hilo fue interrumpido durante la espera
+     */
+    private boolean esperarReintento(int intentos) {
+        long esperaMillis = Math.min(ESPERA_REINTENTO_BASE_MILLIS << Math.min(intentos - 1, 10),
+                ESPERA_REINTENTO_MAXIMA_MILLIS);
+        try {
+            Thread.sleep(esperaMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void registrarRetraso(IntencionNotificacion intencion) {
+        long retraso = System.nanoTime() - intencion.getRegistradaEnNanos();
+        retrasoUltimoNanos.set(retraso);
+        retrasoMaximoNanos.accumulateAndGet(retraso, Math::max);
+    }
+
+    /**
+     * Obtiene la cantidad de intenciones pendientes en la cola
+     * @return profundidad actual de la cola
+     */
+    public int getProfundidadCola() {
+        return cola.size();
+    }
+
+    /**
+     * Obtiene una instantánea de las estadísticas de la bandeja
+     * @return estadísticas actuales
+     */
+    public EstadisticasBandejaSalida obtenerEstadisticas() {
+        return new EstadisticasBandejaSalida(
+                cola.size(),
+                registradas.get(),
+                entregadas.get(),
+                reintentos.get(),
+                descartadas.get(),
+                rechazadas.get(),
+                TimeUnit.NANOSECONDS.toMillis(retrasoUltimoNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(retrasoMaximoNanos.get()));
+    }
+
+    /**
+     * Deja de aceptar intenciones en la cola y espera a que los trabajadores
+     * entreguen las pendientes
+     * @param esperaMaximaMillis tiempo máximo de espera
+     * @return true si la cola quedó vacía
+     */
+    public boolean cerrar(long esperaMaximaMillis) {
+        activa = false;
+        long limite = System.currentTimeMillis() + esperaMaximaMillis;
+        for (Thread trabajador : trabajadores) {
+            long restante = limite - System.currentTimeMillis();
+            if (restante <= 0) {
+                break;
+            }
+            try {
+                trabajador.join(restante);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return cola.isEmpty();
+    }
+}
@@ -0,0 +1,161 @@
+package com.tienda.infraestructura;
+
+import com.tienda.dominio.ServicioNotificacion;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Canal de notificación aislado (bulkhead): tiene su propio grupo de hilos con una cola
+ * acotada, un tiempo máximo por envío y un interruptor de circuito. Un proveedor lento o
+ * caído solo ocupa los hilos de su canal.
+ */
+final class CanalAislado {
+
+    private final String nombre;
+    private final ServicioNotificacion servicio;
+    private final ThreadPoolExecutor ejecutor;
+    private final long tiempoMaximoNanos;
+    private final InterruptorCircuito interruptor;
+
+    private final AtomicLong exitos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong tiemposAgotados = new AtomicLong();
+    private final AtomicLong rechazosCola = new AtomicLong();
+    private final AtomicLong rechazosCircuito = new AtomicLong();
+
+    CanalAislado(String nombre, ServicioNotificacion servicio, int hilos, int capacidadCola,
+                 Duration tiempoMaximo, InterruptorCircuito interruptor) {
+        if (hilos < 1 || capacidadCola < 1) {
+            throw new IllegalArgumentException("Hilos y capacidad de cola deben ser mayores a cero");
+        }
+        if (tiempoMaximo.isNegative() || tiempoMaximo.isZero()) {
+            throw new IllegalArgumentException("El tiempo máximo por envío debe ser mayor a cero");
+        }
+        this.nombre = nombre;
+        this.servicio = servicio;
+        this.tiempoMaximoNanos = tiempoMaximo.toNanos();
+        this.interruptor = interruptor;
+        AtomicInteger numeroHilo = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), tarea -> {
+                    Thread hilo = new Thread(tarea, "notificacion-" + nombre + "-" + numeroHilo.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+    }
+
+    String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Encola un envío en el grupo de hilos del canal
+     * @param envio llamada al servicio del canal
+     * @param llamadas cantidad de notificaciones que hace el envío; escala el tiempo máximo
+     * @return envío en curso, o null si el circuito está abierto o la cola está llena
+     */
+    EnvioEnCurso enviar(Consumer<ServicioNotificacion> envio, int llamadas) {
+        if (!interruptor.permitirLlamada()) {
+            rechazosCircuito.incrementAndGet();
+            return null;
+        }
+        try {
+            Future<?> futuro = ejecutor.submit(() -> envio.accept(servicio));
+            return new EnvioEnCurso(futuro, System.nanoTime() + tiempoMaximoNanos * Math.max(1, llamadas));
+        } catch (RejectedExecutionException e) {
+            rechazosCola.incrementAndGet();
+            // La llamada no llegó al proveedor: no cuenta como fallo del canal
+            interruptor.descartarLlamada();
+            return null;
+        }
+    }
+
+    /**
+     * Espera el resultado de un envío hasta su tiempo máximo; si lo supera se cancela
+     * @param envio envío en curso
+     * @param descripcion descripción de la notificación para el registro de errores
+     * @return true si el envío terminó bien
+     */
+    boolean esperar(EnvioEnCurso envio, String descripcion) {
+        try {
+            envio.futuro.get(Math.max(0, envio.limiteNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            exitos.incrementAndGet();
+            interruptor.registrarExito();
+            return true;
+        } catch (TimeoutException e) {
+            envio.futuro.cancel(true);
+            tiemposAgotados.incrementAndGet();
+            interruptor.registrarFallo();
+            System.err.println("Tiempo agotado al enviar " + descripcion + " por " + nombre);
+        } catch (ExecutionException | CancellationException e) {
+            fallos.incrementAndGet();
+            interruptor.registrarFallo();
+            Throwable causa = e.getCause() != null ? e.getCause() : e;
+            System.err.println("Error al enviar " + descripcion + " por " + nombre + ": " + causa.getMessage());
+        } catch (InterruptedException e) {
+            envio.futuro.cancel(true);
+            // Sin resultado no hay éxito ni fallo; si era la llamada de prueba, se libera
+            interruptor.descartarLlamada();
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Envía por el canal y espera el resultado, informando el fallo al llamante en
+     * lugar de solo registrarlo; lo usa la bandeja de salida del canal para reintentar
+     * @param envio llamada al servicio del canal
+     * @param descripcion descripción de la notificación para el registro de errores
+     * @throws IllegalStateException si el canal rechaza el envío, falla o agota su tiempo
+     */
+    void entregar(Consumer<ServicioNotificacion> envio, String descripcion) {
+        EnvioEnCurso enCurso = enviar(envio, 1);
+        if (enCurso == null) {
+            throw new IllegalStateException("El canal " + nombre + " rechazó el envío de " + descripcion);
+        }
+        if (!esperar(enCurso, descripcion)) {
+            throw new IllegalStateException("No se pudo enviar " + descripcion + " por " + nombre);
+        }
+    }
+
+    EstadisticasCanalNotificacion obtenerEstadisticas() {
+        return new EstadisticasCanalNotificacion(nombre, interruptor.getEstado(), exitos.get(), fallos.get(),
+                tiemposAgotados.get(), rechazosCola.get(), rechazosCircuito.get());
+    }
+
+    /**
+     * Deja de aceptar envíos y espera a que terminen los encolados
+     * @param esperaMaximaNanos tiempo máximo de espera
+     * @return true si el canal terminó
+     */
+    boolean cerrar(long esperaMaximaNanos) {
+        ejecutor.shutdown();
+        try {
+            return ejecutor.awaitTermination(esperaMaximaNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    static final class EnvioEnCurso {
+        private final Future<?> futuro;
+        private final long limiteNanos;
+
+        private EnvioEnCurso(Future<?> futuro, long limiteNanos) {
+            this.futuro = futuro;
+            this.limiteNanos = limiteNanos;
+        }
+    }
+}
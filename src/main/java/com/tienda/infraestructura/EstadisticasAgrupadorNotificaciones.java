@@ -0,0 +1,64 @@
+package com.tienda.infraestructura;
+
+import java.util.Locale;
+
+/**
+ * Instantánea de las estadísticas del agrupador de notificaciones. Cada notificación
+ * enviada sale por todos los canales, así que la razón de reducción es también la de
+ * llamadas a cada proveedor.
+ */
+public class EstadisticasAgrupadorNotificaciones {
+    private final int usuariosPendientes;
+    private final long eventosRecibidos;
+    private final long eventosEntregados;
+    private final long notificacionesEnviadas;
+    private final long resumenesEnviados;
+
+    public EstadisticasAgrupadorNotificaciones(int usuariosPendientes, long eventosRecibidos, long eventosEntregados,
+                                               long notificacionesEnviadas, long resumenesEnviados) {
+        this.usuariosPendientes = usuariosPendientes;
+        this.eventosRecibidos = eventosRecibidos;
+        this.eventosEntregados = eventosEntregados;
+        this.notificacionesEnviadas = notificacionesEnviadas;
+        this.resumenesEnviados = resumenesEnviados;
+    }
+
+    public int getUsuariosPendientes() {
+        return usuariosPendientes;
+    }
+
+    public long getEventosRecibidos() {
+        return eventosRecibidos;
+    }
+
+    public long getEventosEntregados() {
+        return eventosEntregados;
+    }
+
+    public long getNotificacionesEnviadas() {
+        return notificacionesEnviadas;
+    }
+
+    public long getResumenesEnviados() {
+        return resumenesEnviados;
+    }
+
+    /**
+     * Obtiene cuántas notificaciones originales cubre, en promedio, cada notificación enviada
+     * @return razón de reducción; 1 si no se agrupó nada
+     */
+    public double getRazonReduccion() {
+        return notificacionesEnviadas == 0 ? 1.0 : (double) eventosEntregados / notificacionesEnviadas;
+    }
+
+    @Override
+    public String toString() {
+        long ahorradas = eventosEntregados - notificacionesEnviadas;
+        return "Agrupador de notificaciones: recibidas=" + eventosRecibidos
+                + ", enviadas=" + notificacionesEnviadas
+                + ", resumenes=" + resumenesEnviados
+                + ", pendientes=" + usuariosPendientes
+                + ", reduccion=" + String.format(Locale.ROOT, "%.2f", getRazonReduccion()) + "x"
+                + " (" + ahorradas + " envios ahorrados por canal)";
+    }
+}
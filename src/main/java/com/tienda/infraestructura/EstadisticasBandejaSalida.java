@@ -0,0 +1,71 @@
+package com.tienda.infraestructura;
+
+/**
+ * Instantánea de las estadísticas de la bandeja de salida de notificaciones
+ */
+public class EstadisticasBandejaSalida {
+    private final int profundidadCola;
+    private final long registradas;
+    private final long entregadas;
+    private final long reintentos;
+    private final long descartadas;
+    private final long rechazadas;
+    private final long retrasoUltimoMillis;
+    private final long retrasoMaximoMillis;
+
+    public EstadisticasBandejaSalida(int profundidadCola, long registradas, long entregadas, long reintentos,
+                                     long descartadas, long rechazadas,
+                                     long retrasoUltimoMillis, long retrasoMaximoMillis) {
+        this.profundidadCola = profundidadCola;
+        this.registradas = registradas;
+        this.entregadas = entregadas;
+        this.reintentos = reintentos;
+        this.descartadas = descartadas;
+        this.rechazadas = rechazadas;
+        this.retrasoUltimoMillis = retrasoUltimoMillis;
+        this.retrasoMaximoMillis = retrasoMaximoMillis;
+    }
+
+    public int getProfundidadCola() {
+        return profundidadCola;
+    }
+
+    public long getRegistradas() {
+        return registradas;
+    }
+
+    public long getEntregadas() {
+        return entregadas;
+    }
+
+    public long getReintentos() {
+        return reintentos;
+    }
+
+    public long getDescartadas() {
+        return descartadas;
+    }
+
+    public long getRechazadas() {
+        return rechazadas;
+    }
+
+    public long getRetrasoUltimoMillis() {
+        return retrasoUltimoMillis;
+    }
+
+    public long getRetrasoMaximoMillis() {
+        return retrasoMaximoMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Bandeja de salida: cola=" + profundidadCola
+                + ", registradas=" + registradas
+                + ", entregadas=" + entregadas
+                + ", reintentos=" + reintentos
+                + ", descartadas=" + descartadas
+                + ", rechazadas=" + rechazadas
+                + ", retraso=" + retrasoUltimoMillis + "ms (max " + retrasoMaximoMillis + "ms)";
+    }
+}
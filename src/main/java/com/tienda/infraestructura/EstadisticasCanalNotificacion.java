@@ -0,0 +1,72 @@
+package com.tienda.infraestructura;
+
+/**
+ * Instantánea de las estadísticas de un canal del servicio de notificación compuesto
+ */
+public class EstadisticasCanalNotificacion {
+    private final String canal;
+    private final InterruptorCircuito.Estado estadoCircuito;
+    private final long exitos;
+    private final long fallos;
+    private final long tiemposAgotados;
+    private final long rechazosCola;
+    private final long rechazosCircuito;
+
+    public EstadisticasCanalNotificacion(String canal, InterruptorCircuito.Estado estadoCircuito, long exitos,
+                                         long fallos, long tiemposAgotados, long rechazosCola,
+                                         long rechazosCircuito) {
+        this.canal = canal;
+        this.estadoCircuito = estadoCircuito;
+        this.exitos = exitos;
+        this.fallos = fallos;
+        this.tiemposAgotados = tiemposAgotados;
+        this.rechazosCola = rechazosCola;
+        this.rechazosCircuito = rechazosCircuito;
+    }
+
+    public String getCanal() {
+        return canal;
+    }
+
+    public InterruptorCircuito.Estado getEstadoCircuito() {
+        return estadoCircuito;
+    }
+
+    public long getExitos() {
+        return exitos;
+    }
+
+    public long getFallos() {
+        return fallos;
+    }
+
+    public long getTiemposAgotados() {
+        return tiemposAgotados;
+    }
+
+    public long getRechazosCola() {
+        return rechazosCola;
+    }
+
+    public long getRechazosCircuito() {
+        return rechazosCircuito;
+    }
+
+    /**
+     * Envíos rechazados sin intentarse, por cola llena o por circuito abierto
+     * @return cantidad de rechazos
+     */
+    public long getRechazos() {
+        return rechazosCola + rechazosCircuito;
+    }
+
+    @Override
+    public String toString() {
+        return "Canal " + canal + ": circuito=" + estadoCircuito
+                + ", exitos=" + exitos
+                + ", fallos=" + fallos
+                + ", tiempos agotados=" + tiemposAgotados
+                + ", rechazos cola=" + rechazosCola
+                + ", rechazos circuito=" + rechazosCircuito;
+    }
+}
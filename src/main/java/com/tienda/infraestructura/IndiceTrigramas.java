@@ -0,0 +1,160 @@
+package com.tienda.infraestructura;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas sobre textos normalizados (sin mayúsculas ni acentos).
+ * Una búsqueda intersecta las listas de los trigramas de la consulta, empezando por la
+ * más corta, y verifica cada candidato con una búsqueda de subcadena sobre el texto
+ * normalizado, por lo que el resultado coincide con un recorrido lineal con contains.
+ * Las consultas de menos de tres caracteres recorren los textos normalizados.
+ */
+public class IndiceTrigramas {
+    
+    private static final int LONGITUD_TRIGRAMA = 3;
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    
+    private final Map<UUID, String> textosIndexados = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> listasPorTrigrama = new ConcurrentHashMap<>();
+    
+    /**
+     * Indexa o reindexa el texto de un elemento; solo se tocan los trigramas que cambian
+     * @param id ID del elemento
+     * @param texto texto a indexar, o null para quitarlo del índice
+     */
+    public void indexar(UUID id, String texto) {
+        if (texto == null) {
+            quitar(id);
+            return;
+        }
+        String normalizado = normalizar(texto);
+        // compute serializa las actualizaciones concurrentes de un mismo elemento
+        textosIndexados.compute(id, (clave, anterior) -> {
+            if (normalizado.equals(anterior)) {
+                return anterior;
+            }
+            Set<String> trigramasAnteriores = anterior != null ? trigramas(anterior) : Collections.emptySet();
+            Set<String> trigramasNuevos = trigramas(normalizado);
+            for (String trigrama : trigramasAnteriores) {
+                if (!trigramasNuevos.contains(trigrama)) {
+                    quitarDeLista(trigrama, id);
+                }
+            }
+            for (String trigrama : trigramasNuevos) {
+                if (!trigramasAnteriores.contains(trigrama)) {
+                    agregarALista(trigrama, id);
+                }
+            }
+            return normalizado;
+        });
+    }
+    
+    /**
+     * Quita un elemento del índice
+     * @param id ID del elemento
+     */
+    public void quitar(UUID id) {
+        textosIndexados.computeIfPresent(id, (clave, anterior) -> {
+            for (String trigrama : trigramas(anterior)) {
+                quitarDeLista(trigrama, id);
+            }
+            return null;
+        });
+    }
+    
+    /**
+     * Busca los elementos cuyo texto normalizado contiene la consulta normalizada
+     * @param consulta texto a buscar
+     * @return IDs de los elementos que coinciden
+     */
+    public Set<UUID> buscar(String consulta) {
+        String normalizada = normalizar(consulta);
+        Set<UUID> resultado = new HashSet<>();
+        
+        if (normalizada.length() < LONGITUD_TRIGRAMA) {
+            textosIndexados.forEach((id, texto) -> {
+                if (texto.contains(normalizada)) {
+                    resultado.add(id);
+                }
+            });
+            return resultado;
+        }
+        
+        List<Set<UUID>> listas = new ArrayList<>();
+        for (String trigrama : trigramas(normalizada)) {
+            Set<UUID> lista = listasPorTrigrama.get(trigrama);
+            if (lista == null || lista.isEmpty()) {
+                return resultado;
+            }
+            listas.add(lista);
+        }
+        listas.sort(Comparator.comparingInt(Set::size));
+        
+        Set<UUID> menor = listas.get(0);
+        List<Set<UUID>> resto = listas.subList(1, listas.size());
+        candidatos:
+        for (UUID id : menor) {
+            for (Set<UUID> lista : resto) {
+                if (!lista.contains(id)) {
+                    continue candidatos;
+                }
+            }
+            String texto = textosIndexados.get(id);
+            if (texto != null && texto.contains(normalizada)) {
+                resultado.add(id);
+            }
+        }
+        return resultado;
+    }
+    
+    /**
+     * Cantidad de elementos indexados
+     * @return cantidad de elementos
+     */
+    public int getCantidadIndexados() {
+        return textosIndexados.size();
+    }
+    
+    /**
+     * Normaliza un texto para el índice: descompone los caracteres acentuados,
+     * elimina las marcas diacríticas y pasa a minúsculas
+     * @param texto texto original
+     * @return texto normalizado
+     */
+    public static String normalizar(String texto) {
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return MARCAS_DIACRITICAS.matcher(descompuesto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+    
+    private static Set<String> trigramas(String normalizado) {
+        Set<String> resultado = new HashSet<>();
+        for (int i = 0; i + LONGITUD_TRIGRAMA <= normalizado.length(); i++) {
+            resultado.add(normalizado.substring(i, i + LONGITUD_TRIGRAMA));
+        }
+        return resultado;
+    }
+    
+    /**
+     * Agrega el elemento a la lista dentro de la operación atómica del mapa, para que un
+     * quitarDeLista concurrente no descarte la lista vacía justo antes del agregado
+     */
+    private void agregarALista(String trigrama, UUID id) {
+        listasPorTrigrama.compute(trigrama, (t, lista) -> {
+            if (lista == null) {
+                lista = ConcurrentHashMap.newKeySet();
+            }
+            lista.add(id);
+            return lista;
+        });
+    }
+    
+    private void quitarDeLista(String trigrama, UUID id) {
+        listasPorTrigrama.computeIfPresent(trigrama, (t, lista) -> {
+            lista.remove(id);
+            return lista.isEmpty() ? null : lista;
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package com.tienda.infraestructura;
+
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.ResumenOrdenes;
+import com.tienda.dominio.ServicioNotificacion;
+import com.tienda.dominio.Usuario;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Intención de notificación registrada en la bandeja de salida.
+ * Guarda una copia de las órdenes al momento de registrarse, de modo que la
+ * notificación muestra la orden tal como estaba aunque se entregue más tarde.
+ */
+public class IntencionNotificacion {
+
+    public enum TipoIntencion {
+        NUEVA_ORDEN,
+        CAMBIO_ESTADO,
+        RESUMEN,
+        MENSAJE
+    }
+
+    private final TipoIntencion tipo;
+    private final OrdenCompra orden;
+    private final OrdenCompra.EstadoOrden estadoAnterior;
+    private final Usuario destinatario;
+    private final String asunto;
+    private final String mensaje;
+    private final ResumenOrdenes resumen;
+    private final long registradaEnNanos;
+    private int intentos;
+
+    private IntencionNotificacion(TipoIntencion tipo, OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior,
+                                  Usuario destinatario, String asunto, String mensaje, ResumenOrdenes resumen) {
+        this.tipo = tipo;
+        this.orden = orden;
+        this.estadoAnterior = estadoAnterior;
+        this.destinatario = destinatario;
+        this.asunto = asunto;
+        this.mensaje = mensaje;
+        this.resumen = resumen;
+        this.registradaEnNanos = System.nanoTime();
+    }
+
+    public static IntencionNotificacion nuevaOrden(OrdenCompra orden) {
+        return new IntencionNotificacion(TipoIntencion.NUEVA_ORDEN, orden.copiar(), null, null, null, null, null);
+    }
+
+    public static IntencionNotificacion cambioEstado(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
+        return new IntencionNotificacion(TipoIntencion.CAMBIO_ESTADO, orden.copiar(), estadoAnterior,
+                null, null, null, null);
+    }
+
+    public static IntencionNotificacion mensaje(Usuario destinatario, String asunto, String mensaje) {
+        return new IntencionNotificacion(TipoIntencion.MENSAJE, null, null, destinatario, asunto, mensaje, null);
+    }
+
+    public static IntencionNotificacion resumen(ResumenOrdenes resumen) {
+        List<ResumenOrdenes.EntradaResumen> entradas = new ArrayList<>(resumen.getEntradas().size());
+        for (ResumenOrdenes.EntradaResumen entrada : resumen.getEntradas()) {
+            entradas.add(new ResumenOrdenes.EntradaResumen(entrada.getOrden().copiar(), entrada.getEstadoAnterior(),
+                    entrada.getEventos()));
+        }
+        return new IntencionNotificacion(TipoIntencion.RESUMEN, null, null, resumen.getDestinatario(),
+                null, null, new ResumenOrdenes(resumen.getDestinatario(), entradas));
+    }
+
+    /**
+     * Entrega la intención al servicio de notificación indicado
+     * @param destino servicio que realiza el envío
+     */
+    public void entregar(ServicioNotificacion destino) {
+        intentos++;
+        switch (tipo) {
+            case NUEVA_ORDEN:
+                destino.notificarNuevaOrden(orden);
+                break;
+            case CAMBIO_ESTADO:
+                destino.notificarCambioEstado(orden, estadoAnterior);
+                break;
+            case RESUMEN:
+                destino.notificarResumen(resumen);
+                break;
+            default:
+                destino.notificarMensaje(destinatario, asunto, mensaje);
+                break;
+        }
+    }
+
+    public TipoIntencion getTipo() {
+        return tipo;
+    }
+
+    public OrdenCompra getOrden() {
+        return orden;
+    }
+
+    public OrdenCompra.EstadoOrden getEstadoAnterior() {
+        return estadoAnterior;
+    }
+
+    public Usuario getDestinatario() {
+        return destinatario;
+    }
+
+    public String getAsunto() {
+        return asunto;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    public ResumenOrdenes getResumen() {
+        return resumen;
+    }
+
+    public long getRegistradaEnNanos() {
+        return registradaEnNanos;
+    }
+
+    public int getIntentos() {
+        return intentos;
+    }
+}
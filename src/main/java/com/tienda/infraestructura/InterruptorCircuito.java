@@ -0,0 +1,100 @@
+package com.tienda.infraestructura;
+
+import java.time.Duration;
+
+/**
+ * Interruptor de circuito (circuit breaker) para un servicio externo.
+ * Tras una cantidad de fallos consecutivos se abre y rechaza las llamadas sin
+ * intentarlas; pasada la espera deja pasar una sola llamada de prueba: si tiene éxito
+ * el circuito se cierra y si falla vuelve a abrirse por otra espera completa.
+ */
+public class InterruptorCircuito {
+
+    public enum Estado {
+        CERRADO,
+        ABIERTO,
+        SEMIABIERTO
+    }
+
+    private final int fallosParaAbrir;
+    private final long esperaNanos;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallosConsecutivos;
+    private long abiertoDesdeNanos;
+    private boolean pruebaEnCurso;
+
+    /**
+     * @param fallosParaAbrir fallos consecutivos que abren el circuito
+     * @param espera tiempo que el circuito permanece abierto antes de probar
+     */
+    public InterruptorCircuito(int fallosParaAbrir, Duration espera) {
+        if (fallosParaAbrir < 1) {
+            throw new IllegalArgumentException("La cantidad de fallos para abrir debe ser mayor a cero");
+        }
+        if (espera.isNegative()) {
+            throw new IllegalArgumentException("La espera no puede ser negativa");
+        }
+        this.fallosParaAbrir = fallosParaAbrir;
+        this.esperaNanos = espera.toNanos();
+    }
+
+    /**
+     * Indica si se puede hacer una llamada. Con el circuito abierto y la espera cumplida
+     * autoriza una única llamada de prueba, que debe informarse con
+     * {@link #registrarExito()} o {@link #registrarFallo()}.
+     * @return true si la llamada puede hacerse
+     */
+    public synchronized boolean permitirLlamada() {
+        switch (estado) {
+            case CERRADO:
+                return true;
+            case ABIERTO:
+                if (System.nanoTime() - abiertoDesdeNanos < esperaNanos) {
+                    return false;
+                }
+                estado = Estado.SEMIABIERTO;
+                pruebaEnCurso = true;
+                return true;
+            default:
+                if (pruebaEnCurso) {
+                    return false;
+                }
+                pruebaEnCurso = true;
+                return true;
+        }
+    }
+
+    /**
+     * Informa una llamada exitosa
+     */
+    public synchronized void registrarExito() {
+        fallosConsecutivos = 0;
+        pruebaEnCurso = false;
+        estado = Estado.CERRADO;
+    }
+
+    /**
+     * Informa una llamada fallida o que superó su tiempo máximo
+     */
+    public synchronized void registrarFallo() {
+        pruebaEnCurso = false;
+        fallosConsecutivos++;
+        if (estado == Estado.SEMIABIERTO || fallosConsecutivos >= fallosParaAbrir) {
+            estado = Estado.ABIERTO;
+            abiertoDesdeNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Informa que una llamada autorizada no llegó a hacerse; si era la de prueba, la
+     * siguiente llamada puede tomar su lugar
+     */
+    public synchronized void descartarLlamada() {
+        pruebaEnCurso = false;
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+}
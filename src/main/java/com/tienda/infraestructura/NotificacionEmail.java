@@ -1,21 +1,55 @@
 package com.tienda.infraestructura;
 
 import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.ResumenOrdenes;
 import com.tienda.dominio.ServicioNotificacion;
 import com.tienda.dominio.Usuario;
+import com.tienda.infraestructura.envio.MensajeSaliente;
+import com.tienda.infraestructura.envio.PrioridadEnvio;
+import com.tienda.infraestructura.envio.ProveedorConsola;
+import com.tienda.infraestructura.envio.ProveedorMensajes;
+import com.tienda.infraestructura.plantilla.FormatoMensaje;
+import com.tienda.infraestructura.plantilla.PlantillaMensaje;
+import com.tienda.infraestructura.plantilla.PlantillaResumen;
+import com.tienda.infraestructura.plantilla.PlantillasOrden;
 
 /**
  * Implementación de notificación por correo electrónico
  */
 public class NotificacionEmail implements ServicioNotificacion {
     
+    private static final PlantillaMensaje PLANTILLA_NUEVA_ORDEN =
+            PlantillaMensaje.compilar(PlantillasOrden.EMAIL_NUEVA_ORDEN, FormatoMensaje.TEXTO);
+    private static final PlantillaMensaje PLANTILLA_CAMBIO_ESTADO =
+            PlantillaMensaje.compilar(PlantillasOrden.EMAIL_CAMBIO_ESTADO, FormatoMensaje.TEXTO);
+    private static final PlantillaResumen PLANTILLA_RESUMEN = PlantillaResumen.compilar(
+            PlantillasOrden.EMAIL_RESUMEN_ENCABEZADO, PlantillasOrden.EMAIL_RESUMEN_ORDEN,
+            PlantillasOrden.EMAIL_RESUMEN_PIE, FormatoMensaje.TEXTO);
+    
+    private final ProveedorMensajes proveedor;
+    
+    /**
+     * Crea el canal con un proveedor simulado que escribe los mensajes en consola
+     */
+    public NotificacionEmail() {
+        this(new ProveedorConsola("EMAIL"));
+    }
+    
+    /**
+     * @param proveedor proveedor que entrega los mensajes, directo o a través de un
+     *                  planificador de envíos con límites
+     */
+    public NotificacionEmail(ProveedorMensajes proveedor) {
+        this.proveedor = proveedor;
+    }
+    
     @Override
     public void notificarNuevaOrden(OrdenCompra orden) {
         Usuario usuario = orden.getUsuario();
         String asunto = "Nueva orden de compra creada";
         String mensaje = generarMensajeNuevaOrden(orden);
         
-        enviarEmail(usuario.getEmail(), asunto, mensaje);
+        enviarEmail(usuario.getEmail(), asunto, mensaje, PrioridadEnvio.TRANSACCIONAL);
     }
     
     @Override
@@ -24,12 +58,20 @@ public class NotificacionEmail implements ServicioNotificacion {
         String asunto = "Estado de orden actualizado";
         String mensaje = generarMensajeCambioEstado(orden, estadoAnterior);
         
-        enviarEmail(usuario.getEmail(), asunto, mensaje);
+        enviarEmail(usuario.getEmail(), asunto, mensaje, PrioridadEnvio.TRANSACCIONAL);
+    }
+    
+    @Override
+    public void notificarResumen(ResumenOrdenes resumen) {
+        String asunto = "Novedades de tus órdenes";
+        String mensaje = PLANTILLA_RESUMEN.renderizar(resumen);
+        
+        enviarEmail(resumen.getDestinatario().getEmail(), asunto, mensaje, PrioridadEnvio.TRANSACCIONAL);
     }
     
     @Override
     public void notificarMensaje(Usuario destinatario, String asunto, String mensaje) {
-        enviarEmail(destinatario.getEmail(), asunto, mensaje);
+        enviarEmail(destinatario.getEmail(), asunto, mensaje, PrioridadEnvio.PROMOCIONAL);
     }
     
     /**
@@ -38,24 +80,7 @@ public class NotificacionEmail implements ServicioNotificacion {
      * @return mensaje formateado
      */
     private String generarMensajeNuevaOrden(OrdenCompra orden) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Hola ").append(orden.getUsuario().getNombre()).append(",\n\n");
-        sb.append("Tu orden de compra ha sido creada exitosamente.\n");
-        sb.append("Detalles de la orden:\n");
-        sb.append("- ID de orden: ").append(orden.getId()).append("\n");
-        sb.append("- Fecha: ").append(orden.getFechaCreacion()).append("\n");
-        sb.append("- Estado: ").append(orden.getEstado()).append("\n");
-        sb.append("- Total: $").append(orden.getTotal()).append("\n\n");
-        
-        sb.append("Productos:\n");
-        orden.getItems().forEach(item -> 
-            sb.append("- ").append(item.getProducto().getNombre())
-              .append(" x").append(item.getCantidad())
-              .append(" = $").append(item.getSubtotal()).append("\n"));
-        
-        sb.append("\nGracias por tu compra!");
-        
-        return sb.toString();
+        return PLANTILLA_NUEVA_ORDEN.renderizar(orden, null);
     }
     
     /**
@@ -65,37 +90,17 @@ public class NotificacionEmail implements ServicioNotificacion {
      * @return mensaje formateado
      */
     private String generarMensajeCambioEstado(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Hola ").append(orden.getUsuario().getNombre()).append(",\n\n");
-        sb.append("El estado de tu orden ha cambiado.\n");
-        sb.append("Detalles:\n");
-        sb.append("- ID de orden: ").append(orden.getId()).append("\n");
-        sb.append("- Estado anterior: ").append(estadoAnterior).append("\n");
-        sb.append("- Estado actual: ").append(orden.getEstado()).append("\n");
-        sb.append("- Fecha de actualización: ").append(orden.getFechaActualizacion()).append("\n\n");
-        
-        if (orden.getEstado() == OrdenCompra.EstadoOrden.COMPLETADA) {
-            sb.append("¡Tu orden ha sido completada! Gracias por tu compra.\n");
-        } else if (orden.getEstado() == OrdenCompra.EstadoOrden.CANCELADA) {
-            sb.append("Tu orden ha sido cancelada. Si tienes alguna pregunta, contáctanos.\n");
-        }
-        
-        return sb.toString();
+        return PLANTILLA_CAMBIO_ESTADO.renderizar(orden, estadoAnterior);
     }
     
     /**
-     * Simula el envío de un email
+     * Entrega el mensaje al proveedor del canal
      * @param email dirección de email
      * @param asunto asunto del email
-     * @param mensaje contenido del email
+     * @param mensaje contenido del mensaje
+     * @param prioridad transaccional para órdenes, promocional para mensajes personalizados
      */
-    private void enviarEmail(String email, String asunto, String mensaje) {
-        // En una implementación real, aquí se integraría con un servicio de email
-        // como JavaMail, SendGrid, AWS SES, etc.
-        System.out.println("=== EMAIL ENVIADO ===");
-        System.out.println("Para: " + email);
-        System.out.println("Asunto: " + asunto);
-        System.out.println("Mensaje: " + mensaje);
-        System.out.println("=====================");
+    private void enviarEmail(String email, String asunto, String mensaje, PrioridadEnvio prioridad) {
+        proveedor.enviar(new MensajeSaliente(email, asunto, mensaje, prioridad));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.tienda.infraestructura;
+
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.ServicioNotificacion;
+import com.tienda.dominio.Usuario;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Canal de notificación local que no envía nada y solo simula la latencia
+ * de un proveedor externo. Útil para medir el efecto de canales lentos y, con
+ * {@link #setFallando(boolean)}, el de un proveedor caído.
+ */
+public class NotificacionSimulada implements ServicioNotificacion {
+
+    private final long retardoMillis;
+    private final AtomicLong envios = new AtomicLong();
+    private volatile boolean fallando;
+
+    public NotificacionSimulada(long retardoMillis) {
+        this.retardoMillis = retardoMillis;
+    }
+
+    @Override
+    public void notificarNuevaOrden(OrdenCompra orden) {
+        simularEnvio();
+    }
+
+    @Override
+    public void notificarCambioEstado(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
+        simularEnvio();
+    }
+
+    @Override
+    public void notificarMensaje(Usuario destinatario, String asunto, String mensaje) {
+        simularEnvio();
+    }
+
+    /**
+     * Obtiene la cantidad de envíos simulados
+     * @return envíos realizados
+     */
+    public long getEnvios() {
+        return envios.get();
+    }
+
+    /**
+     * Hace que los envíos siguientes fallen, después del retardo, como un proveedor caído
+     * @param fallando true para fallar, false para volver a enviar con normalidad
+     */
+    public void setFallando(boolean fallando) {
+        this.fallando = fallando;
+    }
+
+    private void simularEnvio() {
+        if (retardoMillis > 0) {
+            try {
+                Thread.sleep(retardoMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (fallando) {
+            throw new IllegalStateException("Proveedor de notificaciones simulado no disponible");
+        }
+        envios.incrementAndGet();
+    }
+}
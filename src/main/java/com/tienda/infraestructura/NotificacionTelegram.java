@@ -1,14 +1,48 @@
 package com.tienda.infraestructura;
 
 import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.ResumenOrdenes;
 import com.tienda.dominio.ServicioNotificacion;
 import com.tienda.dominio.Usuario;
+import com.tienda.infraestructura.envio.MensajeSaliente;
+import com.tienda.infraestructura.envio.PrioridadEnvio;
+import com.tienda.infraestructura.envio.ProveedorConsola;
+import com.tienda.infraestructura.envio.ProveedorMensajes;
+import com.tienda.infraestructura.plantilla.FormatoMensaje;
+import com.tienda.infraestructura.plantilla.PlantillaMensaje;
+import com.tienda.infraestructura.plantilla.PlantillaResumen;
+import com.tienda.infraestructura.plantilla.PlantillasOrden;
 
 /**
  * Implementación de notificación por Telegram
  */
 public class NotificacionTelegram implements ServicioNotificacion {
     
+    private static final PlantillaMensaje PLANTILLA_NUEVA_ORDEN =
+            PlantillaMensaje.compilar(PlantillasOrden.MENSAJERIA_NUEVA_ORDEN, FormatoMensaje.TELEGRAM);
+    private static final PlantillaMensaje PLANTILLA_CAMBIO_ESTADO =
+            PlantillaMensaje.compilar(PlantillasOrden.MENSAJERIA_CAMBIO_ESTADO, FormatoMensaje.TELEGRAM);
+    private static final PlantillaResumen PLANTILLA_RESUMEN = PlantillaResumen.compilar(
+            PlantillasOrden.MENSAJERIA_RESUMEN_ENCABEZADO, PlantillasOrden.MENSAJERIA_RESUMEN_ORDEN,
+            PlantillasOrden.MENSAJERIA_RESUMEN_PIE, FormatoMensaje.TELEGRAM);
+    
+    private final ProveedorMensajes proveedor;
+    
+    /**
+     * Crea el canal con un proveedor simulado que escribe los mensajes en consola
+     */
+    public NotificacionTelegram() {
+        this(new ProveedorConsola("TELEGRAM"));
+    }
+    
+    /**
+     * @param proveedor proveedor que entrega los mensajes, directo o a través de un
+     *                  planificador de envíos con límites
+     */
+    public NotificacionTelegram(ProveedorMensajes proveedor) {
+        this.proveedor = proveedor;
+    }
+    
     @Override
     public void notificarNuevaOrden(OrdenCompra orden) {
         Usuario usuario = orden.getUsuario();
@@ -19,7 +53,7 @@ public class NotificacionTelegram implements ServicioNotificacion {
         }
         
         String mensaje = generarMensajeNuevaOrden(orden);
-        enviarTelegram(usuario.getTelegramId(), mensaje);
+        enviarTelegram(usuario.getTelegramId(), mensaje, PrioridadEnvio.TRANSACCIONAL);
     }
     
     @Override
@@ -32,7 +66,20 @@ public class NotificacionTelegram implements ServicioNotificacion {
         }
         
         String mensaje = generarMensajeCambioEstado(orden, estadoAnterior);
-        enviarTelegram(usuario.getTelegramId(), mensaje);
+        enviarTelegram(usuario.getTelegramId(), mensaje, PrioridadEnvio.TRANSACCIONAL);
+    }
+    
+    @Override
+    public void notificarResumen(ResumenOrdenes resumen) {
+        Usuario destinatario = resumen.getDestinatario();
+        
+        if (!destinatario.puedeRecibirTelegram()) {
+            System.out.println("Usuario " + destinatario.getNombre() + " no tiene Telegram ID registrado");
+            return;
+        }
+        
+        String mensaje = PLANTILLA_RESUMEN.renderizar(resumen);
+        enviarTelegram(destinatario.getTelegramId(), mensaje, PrioridadEnvio.TRANSACCIONAL);
     }
     
     @Override
@@ -43,7 +90,7 @@ public class NotificacionTelegram implements ServicioNotificacion {
         }
         
         String mensajeCompleto = "*" + asunto + "*\n\n" + mensaje;
-        enviarTelegram(destinatario.getTelegramId(), mensajeCompleto);
+        enviarTelegram(destinatario.getTelegramId(), mensajeCompleto, PrioridadEnvio.PROMOCIONAL);
     }
     
     /**
@@ -52,24 +99,7 @@ public class NotificacionTelegram implements ServicioNotificacion {
      * @return mensaje formateado
      */
     private String generarMensajeNuevaOrden(OrdenCompra orden) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("🛒 *Nueva Orden Creada*\n\n");
-        sb.append("Hola ").append(orden.getUsuario().getNombre()).append("!\n\n");
-        sb.append("Tu orden ha sido creada exitosamente.\n\n");
-        sb.append("*Detalles:*\n");
-        sb.append("📋 ID: `").append(orden.getId()).append("`\n");
-        sb.append("📅 Fecha: ").append(orden.getFechaCreacion()).append("\n");
-        sb.append("💰 Total: $").append(orden.getTotal()).append("\n\n");
-        
-        sb.append("*Productos:*\n");
-        orden.getItems().forEach(item -> 
-            sb.append("• ").append(item.getProducto().getNombre())
-              .append(" x").append(item.getCantidad())
-              .append(" = $").append(item.getSubtotal()).append("\n"));
-        
-        sb.append("\n¡Gracias por tu compra! 🎉");
-        
-        return sb.toString();
+        return PLANTILLA_NUEVA_ORDEN.renderizar(orden, null);
     }
     
     /**
@@ -79,35 +109,16 @@ public class NotificacionTelegram implements ServicioNotificacion {
      * @return mensaje formateado
      */
     private String generarMensajeCambioEstado(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("🔄 *Estado de Orden Actualizado*\n\n");
-        sb.append("Hola ").append(orden.getUsuario().getNombre()).append("!\n\n");
-        sb.append("El estado de tu orden ha cambiado.\n\n");
-        sb.append("*Detalles:*\n");
-        sb.append("📋 ID: `").append(orden.getId()).append("`\n");
-        sb.append("📊 Estado anterior: ").append(estadoAnterior).append("\n");
-        sb.append("📊 Estado actual: ").append(orden.getEstado()).append("\n");
-        sb.append("📅 Actualizado: ").append(orden.getFechaActualizacion()).append("\n\n");
-        
-        if (orden.getEstado() == OrdenCompra.EstadoOrden.COMPLETADA) {
-            sb.append("✅ ¡Tu orden ha sido completada! ¡Gracias por tu compra!");
-        } else if (orden.getEstado() == OrdenCompra.EstadoOrden.CANCELADA) {
-            sb.append("❌ Tu orden ha sido cancelada. Si tienes alguna pregunta, contáctanos.");
-        }
-        
-        return sb.toString();
+        return PLANTILLA_CAMBIO_ESTADO.renderizar(orden, estadoAnterior);
     }
     
     /**
-     * Simula el envío de un mensaje por Telegram
+     * Entrega el mensaje al proveedor del canal
      * @param telegramId ID de Telegram del usuario
      * @param mensaje contenido del mensaje
+     * @param prioridad transaccional para órdenes, promocional para mensajes personalizados
      */
-    private void enviarTelegram(String telegramId, String mensaje) {
-        // En una implementación real, aquí se integraría con la API de Telegram Bot
-        System.out.println("=== TELEGRAM ENVIADO ===");
-        System.out.println("Para: " + telegramId);
-        System.out.println("Mensaje: " + mensaje);
-        System.out.println("========================");
+    private void enviarTelegram(String telegramId, String mensaje, PrioridadEnvio prioridad) {
+        proveedor.enviar(new MensajeSaliente(telegramId, null, mensaje, prioridad));
     }
 } 
\ No newline at end of file
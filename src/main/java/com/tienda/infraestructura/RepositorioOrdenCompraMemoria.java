@@ -1,73 +1,322 @@
 package com.tienda.infraestructura;
 
 import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.Pagina;
 import com.tienda.dominio.RepositorioOrdenCompra;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
 
 /**
- * Implementación en memoria del repositorio de órdenes de compra
+ * Implementación en memoria del repositorio de órdenes de compra.
+ * Mantiene índices secundarios concurrentes por usuario, por estado y por fecha de
+ * creación, de modo que las consultas cuestan en proporción al tamaño del resultado.
+ * Los índices se actualizan al guardar, por lo que un cambio de estado se refleja
+ * en ellos cuando la orden se vuelve a guardar. Al guardar una orden se congelan sus items.
  */
 public class RepositorioOrdenCompraMemoria implements RepositorioOrdenCompra {
-    
+
     private final Map<UUID, OrdenCompra> ordenes = new ConcurrentHashMap<>();
-    
+    private final Map<UUID, EntradaIndice> entradasIndexadas = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<ClaveOrden, OrdenCompra> indicePorFecha = new ConcurrentSkipListMap<>();
+    private final Map<UUID, ConcurrentSkipListSet<ClaveOrden>> indicePorUsuario = new ConcurrentHashMap<>();
+    private final Map<OrdenCompra.EstadoOrden, ConcurrentSkipListSet<ClaveOrden>> indicePorEstado;
+
+    public RepositorioOrdenCompraMemoria() {
+        Map<OrdenCompra.EstadoOrden, ConcurrentSkipListSet<ClaveOrden>> porEstado =
+                new EnumMap<>(OrdenCompra.EstadoOrden.class);
+        for (OrdenCompra.EstadoOrden estado : OrdenCompra.EstadoOrden.values()) {
+            porEstado.put(estado, new ConcurrentSkipListSet<>());
+        }
+        this.indicePorEstado = Collections.unmodifiableMap(porEstado);
+    }
+
     @Override
     public OrdenCompra guardar(OrdenCompra orden) {
         if (orden.getId() == null) {
             orden.setId(UUID.randomUUID());
         }
-        ordenes.put(orden.getId(), orden);
+        orden.congelarItems();
+        // compute serializa las actualizaciones concurrentes de una misma orden
+        ordenes.compute(orden.getId(), (id, anterior) -> {
+            reindexar(orden);
+            return orden;
+        });
         return orden;
     }
-    
+
     @Override
     public Optional<OrdenCompra> buscarPorId(UUID id) {
         return Optional.ofNullable(ordenes.get(id));
     }
-    
+
     @Override
     public List<OrdenCompra> obtenerPorUsuario(UUID usuarioId) {
-        return ordenes.values().stream()
-                .filter(orden -> orden.getUsuario().getId().equals(usuarioId))
-                .sorted(Comparator.comparing(OrdenCompra::getFechaCreacion).reversed())
-                .collect(Collectors.toList());
+        ConcurrentSkipListSet<ClaveOrden> claves = indicePorUsuario.get(usuarioId);
+        if (claves == null) {
+            return new ArrayList<>();
+        }
+        List<OrdenCompra> resultado = new ArrayList<>();
+        for (ClaveOrden clave : claves.descendingSet()) {
+            OrdenCompra orden = indicePorFecha.get(clave);
+            if (orden != null && orden.getUsuario() != null && usuarioId.equals(orden.getUsuario().getId())) {
+                resultado.add(orden);
+            }
+        }
+        return resultado;
     }
-    
+
     @Override
     public List<OrdenCompra> obtenerTodas() {
         return new ArrayList<>(ordenes.values());
     }
-    
+
     @Override
     public List<OrdenCompra> obtenerPorEstado(OrdenCompra.EstadoOrden estado) {
-        return ordenes.values().stream()
-                .filter(orden -> orden.getEstado() == estado)
-                .sorted(Comparator.comparing(OrdenCompra::getFechaCreacion).reversed())
-                .collect(Collectors.toList());
+        List<OrdenCompra> resultado = new ArrayList<>();
+        for (ClaveOrden clave : indicePorEstado.get(estado).descendingSet()) {
+            OrdenCompra orden = indicePorFecha.get(clave);
+            if (orden != null && orden.getEstado() == estado) {
+                resultado.add(orden);
+            }
+        }
+        return resultado;
     }
-    
+
     @Override
     public List<OrdenCompra> obtenerPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-        return ordenes.values().stream()
-                .filter(orden -> {
-                    LocalDateTime fechaOrden = orden.getFechaCreacion();
-                    return !fechaOrden.isBefore(fechaInicio) && !fechaOrden.isAfter(fechaFin);
-                })
-                .sorted(Comparator.comparing(OrdenCompra::getFechaCreacion).reversed())
-                .collect(Collectors.toList());
-    }
-    
+        if (fechaInicio.isAfter(fechaFin)) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(indicePorFecha
+                .subMap(ClaveOrden.desde(fechaInicio), true, ClaveOrden.hasta(fechaFin), true)
+                .descendingMap()
+                .values());
+    }
+
+    @Override
+    public Pagina<OrdenCompra> obtenerPagina(String cursor, int tamano) {
+        return paginar(indicePorFecha.descendingMap(), cursor, tamano);
+    }
+
+    @Override
+    public Pagina<OrdenCompra> obtenerPaginaPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin,
+                                                           String cursor, int tamano) {
+        if (fechaInicio.isAfter(fechaFin)) {
+            return new Pagina<>(new ArrayList<>(), null);
+        }
+        return paginar(indicePorFecha
+                .subMap(ClaveOrden.desde(fechaInicio), true, ClaveOrden.hasta(fechaFin), true)
+                .descendingMap(), cursor, tamano);
+    }
+
+    @Override
+    public Stream<OrdenCompra> recorrerTodas() {
+        return ordenes.values().stream();
+    }
+
+    @Override
+    public Stream<OrdenCompra> recorrerPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        if (fechaInicio.isAfter(fechaFin)) {
+            return Stream.empty();
+        }
+        return indicePorFecha
+                .subMap(ClaveOrden.desde(fechaInicio), true, ClaveOrden.hasta(fechaFin), true)
+                .descendingMap()
+                .values()
+                .stream();
+    }
+
     @Override
     public boolean eliminar(UUID id) {
-        return ordenes.remove(id) != null;
+        boolean[] eliminada = new boolean[1];
+        ordenes.computeIfPresent(id, (clave, orden) -> {
+            desindexar(id);
+            eliminada[0] = true;
+            return null;
+        });
+        return eliminada[0];
     }
-    
+
     @Override
     public boolean existe(UUID id) {
         return ordenes.containsKey(id);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Arma una página a partir de una vista ordenada del índice por fecha
+     * @param vista vista del índice en el orden de recorrido
+     * @param cursor cursor de la página anterior, o null
+     * @param tamano cantidad máxima de órdenes
+     * @return página de órdenes
+     */
+    private Pagina<OrdenCompra> paginar(NavigableMap<ClaveOrden, OrdenCompra> vista, String cursor, int tamano) {
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a cero");
+        }
+        if (cursor != null) {
+            vista = vista.tailMap(ClaveOrden.decodificar(cursor), false);
+        }
+
+        List<OrdenCompra> elementos = new ArrayList<>(tamano);
+        ClaveOrden ultima = null;
+        for (Map.Entry<ClaveOrden, OrdenCompra> entrada : vista.entrySet()) {
+            if (elementos.size() == tamano) {
+                return new Pagina<>(elementos, ultima.codificar());
+            }
+            elementos.add(entrada.getValue());
+            ultima = entrada.getKey();
+        }
+        return new Pagina<>(elementos, null);
+    }
+
+    /**
+     * Actualiza los índices de una orden; se invoca dentro de compute sobre su ID
+     * @param orden orden guardada
+     */
+    private void reindexar(OrdenCompra orden) {
+        EntradaIndice nueva = new EntradaIndice(orden);
+        EntradaIndice anterior = entradasIndexadas.put(orden.getId(), nueva);
+
+        if (anterior != null && !anterior.clave.equals(nueva.clave)) {
+            quitarDeIndices(anterior);
+            anterior = null;
+        }
+
+        indicePorFecha.put(nueva.clave, orden);
+        if (anterior == null || !Objects.equals(anterior.usuarioId, nueva.usuarioId)) {
+            if (anterior != null && anterior.usuarioId != null) {
+                quitarDeUsuario(anterior);
+            }
+            if (nueva.usuarioId != null) {
+                indicePorUsuario.computeIfAbsent(nueva.usuarioId, id -> new ConcurrentSkipListSet<>())
+                        .add(nueva.clave);
+            }
+        }
+        if (anterior == null || anterior.estado != nueva.estado) {
+            if (anterior != null) {
+                indicePorEstado.get(anterior.estado).remove(anterior.clave);
+            }
+            indicePorEstado.get(nueva.estado).add(nueva.clave);
+        }
+    }
+
+    /**
+     * Quita una orden de todos los índices; se invoca dentro de compute sobre su ID
+     * @param id ID de la orden
+     */
+    private void desindexar(UUID id) {
+        EntradaIndice entrada = entradasIndexadas.remove(id);
+        if (entrada != null) {
+            quitarDeIndices(entrada);
+        }
+    }
+
+    private void quitarDeIndices(EntradaIndice entrada) {
+        if (entrada.usuarioId != null) {
+            quitarDeUsuario(entrada);
+        }
+        indicePorEstado.get(entrada.estado).remove(entrada.clave);
+        indicePorFecha.remove(entrada.clave);
+    }
+
+    private void quitarDeUsuario(EntradaIndice entrada) {
+        ConcurrentSkipListSet<ClaveOrden> claves = indicePorUsuario.get(entrada.usuarioId);
+        if (claves != null) {
+            claves.remove(entrada.clave);
+        }
+    }
+
+    /**
+     * Valores con los que una orden quedó indexada la última vez que se guardó
+     */
+    private static class EntradaIndice {
+        private final ClaveOrden clave;
+        private final UUID usuarioId;
+        private final OrdenCompra.EstadoOrden estado;
+
+        private EntradaIndice(OrdenCompra orden) {
+            this.clave = new ClaveOrden(orden.getFechaCreacion(), orden.getId());
+            this.usuarioId = orden.getUsuario() != null ? orden.getUsuario().getId() : null;
+            this.estado = orden.getEstado();
+        }
+    }
+
+    /**
+     * Clave de los índices: fecha de creación y, para desempatar, el ID de la orden
+     */
+    private static final class ClaveOrden implements Comparable<ClaveOrden> {
+        private static final UUID ID_MINIMO = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+        private static final UUID ID_MAXIMO = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+        private final LocalDateTime fecha;
+        private final UUID id;
+
+        private ClaveOrden(LocalDateTime fecha, UUID id) {
+            this.fecha = fecha;
+            this.id = id;
+        }
+
+        private static ClaveOrden desde(LocalDateTime fecha) {
+            return new ClaveOrden(fecha, ID_MINIMO);
+        }
+
+        private static ClaveOrden hasta(LocalDateTime fecha) {
+            return new ClaveOrden(fecha, ID_MAXIMO);
+        }
+
+        /**
+         * Codifica la clave como cursor opaco
+         * @return cursor
+         */
+        private String codificar() {
+            String texto = fecha + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Decodifica un cursor generado por {@link #codificar()}
+         * @param cursor cursor opaco
+         * @return clave representada por el cursor
+         */
+        private static ClaveOrden decodificar(String cursor) {
+            try {
+                String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separador = texto.indexOf('|');
+                return new ClaveOrden(LocalDateTime.parse(texto.substring(0, separador)),
+                        UUID.fromString(texto.substring(separador + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor, e);
+            }
+        }
+
+        @Override
+        public int compareTo(ClaveOrden otra) {
+            int porFecha = fecha.compareTo(otra.fecha);
+            return porFecha != 0 ? porFecha : id.compareTo(otra.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ClaveOrden)) {
+                return false;
+            }
+            ClaveOrden otra = (ClaveOrden) o;
+            return fecha.equals(otra.fecha) && id.equals(otra.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * fecha.hashCode() + id.hashCode();
+        }
+    }
+}
@@ -1,18 +1,24 @@
 package com.tienda.infraestructura;
 
+import com.tienda.dominio.Pagina;
 import com.tienda.dominio.Producto;
 import com.tienda.dominio.RepositorioProducto;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
- * Implementación en memoria del repositorio de productos
+ * Implementación en memoria del repositorio de productos.
+ * La búsqueda por nombre usa un índice de trigramas que ignora mayúsculas y acentos.
  */
 public class RepositorioProductoMemoria implements RepositorioProducto {
     
     private final Map<UUID, Producto> productos = new ConcurrentHashMap<>();
+    private final IndiceTrigramas indiceNombres = new IndiceTrigramas();
+    private final NavigableSet<UUID> idsOrdenados = new ConcurrentSkipListSet<>();
     
     @Override
     public Producto guardar(Producto producto) {
@@ -20,6 +26,8 @@ public class RepositorioProductoMemoria implements RepositorioProducto {
             producto.setId(UUID.randomUUID());
         }
         productos.put(producto.getId(), producto);
+        indiceNombres.indexar(producto.getId(), producto.getNombre());
+        idsOrdenados.add(producto.getId());
         return producto;
     }
     
@@ -40,6 +48,37 @@ public class RepositorioProductoMemoria implements RepositorioProducto {
         return new ArrayList<>(productos.values());
     }
     
+    @Override
+    public Pagina<Producto> obtenerPaginaActivos(String cursor, int tamano) {
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a cero");
+        }
+        NavigableSet<UUID> ids = cursor == null ? idsOrdenados : idsOrdenados.tailSet(decodificarCursor(cursor), false);
+        
+        List<Producto> elementos = new ArrayList<>(tamano);
+        for (UUID id : ids) {
+            Producto producto = productos.get(id);
+            if (producto == null || !producto.isActivo()) {
+                continue;
+            }
+            if (elementos.size() == tamano) {
+                return new Pagina<>(elementos, elementos.get(tamano - 1).getId().toString());
+            }
+            elementos.add(producto);
+        }
+        return new Pagina<>(elementos, null);
+    }
+    
+    @Override
+    public Stream<Producto> recorrerTodos() {
+        return productos.values().stream();
+    }
+    
+    @Override
+    public Stream<Producto> recorrerActivos() {
+        return productos.values().stream().filter(Producto::isActivo);
+    }
+    
     @Override
     public boolean eliminar(UUID id) {
         Producto producto = productos.get(id);
@@ -62,10 +101,21 @@ public class RepositorioProductoMemoria implements RepositorioProducto {
             return new ArrayList<>();
         }
         
-        String nombreLower = nombre.toLowerCase();
-        return productos.values().stream()
-                .filter(producto -> producto.isActivo() && 
-                        producto.getNombre().toLowerCase().contains(nombreLower))
-                .collect(Collectors.toList());
+        List<Producto> resultado = new ArrayList<>();
+        for (UUID id : indiceNombres.buscar(nombre)) {
+            Producto producto = productos.get(id);
+            if (producto != null && producto.isActivo()) {
+                resultado.add(producto);
+            }
+        }
+        return resultado;
+    }
+    
+    private UUID decodificarCursor(String cursor) {
+        try {
+            return UUID.fromString(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor, e);
+        }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.tienda.infraestructura;
 
+import com.tienda.dominio.CodificadorContrasenas;
 import com.tienda.dominio.Usuario;
 import com.tienda.dominio.RepositorioUsuario;
 
@@ -8,12 +9,19 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
- * Implementación en memoria del repositorio de usuarios
+ * Implementación en memoria del repositorio de usuarios.
+ * Las contraseñas se guardan codificadas y se verifican con el codificador indicado,
+ * el mismo que usa el servicio de usuarios para codificarlas.
  */
 public class RepositorioUsuarioMemoria implements RepositorioUsuario {
     
     private final Map<UUID, Usuario> usuarios = new ConcurrentHashMap<>();
     private final Map<String, UUID> usuariosPorEmail = new ConcurrentHashMap<>();
+    private final CodificadorContrasenas codificadorContrasenas;
+    
+    public RepositorioUsuarioMemoria(CodificadorContrasenas codificadorContrasenas) {
+        this.codificadorContrasenas = codificadorContrasenas;
+    }
     
     @Override
     public Usuario guardar(Usuario usuario) {
@@ -37,7 +45,7 @@ public class RepositorioUsuarioMemoria implements RepositorioUsuario {
         }
         
         UUID id = usuariosPorEmail.get(email.toLowerCase());
-        return Optional.ofNullable(usuarios.get(id));
+        return id != null ? Optional.ofNullable(usuarios.get(id)) : Optional.empty();
     }
     
     @Override
@@ -80,6 +88,6 @@ public class RepositorioUsuarioMemoria implements RepositorioUsuario {
     public Optional<Usuario> autenticar(String email, String password) {
         return buscarPorEmail(email)
                 .filter(usuario -> usuario.isActivo() && 
-                        password.equals(usuario.getPassword()));
+                        codificadorContrasenas.verificar(password, usuario.getPassword()));
     }
 } 
\ No newline at end of file
@@ -1,61 +1,255 @@
 package com.tienda.infraestructura;
 
 import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.ResumenOrdenes;
 import com.tienda.dominio.ServicioNotificacion;
 import com.tienda.dominio.Usuario;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Servicio de notificación compuesto que maneja múltiples canales
+ *
+ * <p>Cada canal corre aislado en su propio grupo de hilos acotado, con un tiempo máximo
+ * por envío y un interruptor de circuito. Una notificación se envía a todos los canales
+ * en paralelo y la llamada espera a lo sumo el mayor de sus tiempos máximos, de modo que
+ * un proveedor lento o caído no demora a los demás.
+ *
+ * <p>Con bandeja por canal, cada canal tiene además su propia bandeja de salida delante:
+ * notificar solo registra la intención en cada bandeja, sin esperar a los proveedores, y
+ * cada bandeja reintenta únicamente los envíos que fallaron en su canal.
  */
 public class ServicioNotificacionCompuesto implements ServicioNotificacion {
 
-    private final List<ServicioNotificacion> serviciosNotificacion;
+    private static final int HILOS_POR_DEFECTO = 2;
+    private static final int CAPACIDAD_COLA_POR_DEFECTO = 100;
+    private static final Duration TIEMPO_MAXIMO_POR_DEFECTO = Duration.ofSeconds(2);
+    private static final int FALLOS_PARA_ABRIR_POR_DEFECTO = 5;
+    private static final Duration ESPERA_CIRCUITO_POR_DEFECTO = Duration.ofSeconds(30);
+
+    private final List<CanalAislado> canales;
+    private final List<BandejaSalidaNotificaciones> bandejas;
+    private final boolean bandejaPorCanal;
 
     public ServicioNotificacionCompuesto() {
-        this.serviciosNotificacion = new ArrayList<>();
+        this(false);
+    }
+
+    /**
+     * @param bandejaPorCanal true para poner una bandeja de salida delante de cada canal;
+     *                        false para enviar y esperar a los canales en la llamada
+     */
+    public ServicioNotificacionCompuesto(boolean bandejaPorCanal) {
+        this.canales = new CopyOnWriteArrayList<>();
+        this.bandejas = new CopyOnWriteArrayList<>();
+        this.bandejaPorCanal = bandejaPorCanal;
     }
 
     /**
-     * Agrega un servicio de notificación
+     * Agrega un servicio de notificación con la configuración por defecto
      * @param servicio servicio a agregar
      */
     public void agregarServicio(ServicioNotificacion servicio) {
-        this.serviciosNotificacion.add(servicio);
+        agregarServicio(servicio.getClass().getSimpleName(), servicio);
+    }
+
+    /**
+     * Agrega un servicio de notificación con nombre y la configuración por defecto
+     * @param nombre nombre del canal en estadísticas y errores
+     * @param servicio servicio a agregar
+     */
+    public void agregarServicio(String nombre, ServicioNotificacion servicio) {
+        agregarServicio(nombre, servicio, HILOS_POR_DEFECTO, CAPACIDAD_COLA_POR_DEFECTO, TIEMPO_MAXIMO_POR_DEFECTO,
+                FALLOS_PARA_ABRIR_POR_DEFECTO, ESPERA_CIRCUITO_POR_DEFECTO);
+    }
+
+    /**
+     * Agrega un servicio de notificación como canal aislado
+     * @param nombre nombre del canal en estadísticas y errores
+     * @param servicio servicio a agregar
+     * @param hilos hilos propios del canal
+     * @param capacidadCola envíos que pueden esperar un hilo libre; los demás se rechazan
+     * @param tiempoMaximo tiempo máximo de cada envío, contado desde que se encola
+     * @param fallosParaAbrir fallos consecutivos que abren el circuito del canal
+     * @param esperaCircuito tiempo que el circuito queda abierto antes de probar el canal
+     */
+    public void agregarServicio(String nombre, ServicioNotificacion servicio, int hilos, int capacidadCola,
+                                Duration tiempoMaximo, int fallosParaAbrir, Duration esperaCircuito) {
+        CanalAislado canal = new CanalAislado(nombre, servicio, hilos, capacidadCola, tiempoMaximo,
+                new InterruptorCircuito(fallosParaAbrir, esperaCircuito));
+        this.canales.add(canal);
+        if (bandejaPorCanal) {
+            this.bandejas.add(new BandejaSalidaNotificaciones(new EntradaCanal(canal)));
+        }
     }
 
     @Override
     public void notificarNuevaOrden(OrdenCompra orden) {
-        for (ServicioNotificacion servicio : serviciosNotificacion) {
-            try {
-                servicio.notificarNuevaOrden(orden);
-            } catch (Exception e) {
-                System.err.println("Error al enviar notificación de nueva orden: " + e.getMessage());
+        difundir("notificación de nueva orden", servicio -> servicio.notificarNuevaOrden(orden));
+    }
+
+    @Override
+    public void notificarNuevasOrdenes(List<OrdenCompra> ordenes) {
+        // Un envío por canal con todo el lote y un tiempo máximo proporcional a su tamaño;
+        // una orden que falla no impide notificar las siguientes
+        difundir("notificación de nuevas órdenes", ordenes.size(), servicio -> {
+            RuntimeException primerError = null;
+            for (OrdenCompra orden : ordenes) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                try {
+                    servicio.notificarNuevaOrden(orden);
+                } catch (RuntimeException e) {
+                    if (primerError == null) {
+                        primerError = e;
+                    } else {
+                        primerError.addSuppressed(e);
+                    }
+                }
             }
-        }
+            if (primerError != null) {
+                throw primerError;
+            }
+        });
     }
 
     @Override
     public void notificarCambioEstado(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
-        for (ServicioNotificacion servicio : serviciosNotificacion) {
-            try {
-                servicio.notificarCambioEstado(orden, estadoAnterior);
-            } catch (Exception e) {
-                System.err.println("Error al enviar notificación de cambio de estado: " + e.getMessage());
-            }
-        }
+        difundir("notificación de cambio de estado", servicio -> servicio.notificarCambioEstado(orden, estadoAnterior));
+    }
+
+    @Override
+    public void notificarResumen(ResumenOrdenes resumen) {
+        difundir("resumen de órdenes", servicio -> servicio.notificarResumen(resumen));
     }
 
     @Override
     public void notificarMensaje(Usuario destinatario, String asunto, String mensaje) {
-        for (ServicioNotificacion servicio : serviciosNotificacion) {
-            try {
-                servicio.notificarMensaje(destinatario, asunto, mensaje);
-            } catch (Exception e) {
-                System.err.println("Error al enviar mensaje personalizado: " + e.getMessage());
+        difundir("mensaje personalizado", servicio -> servicio.notificarMensaje(destinatario, asunto, mensaje));
+    }
+
+    /**
+     * Obtiene las estadísticas de cada canal, en el orden en que se agregaron
+     * @return estadísticas por canal
+     */
+    public List<EstadisticasCanalNotificacion> obtenerEstadisticas() {
+        List<EstadisticasCanalNotificacion> estadisticas = new ArrayList<>(canales.size());
+        for (CanalAislado canal : canales) {
+            estadisticas.add(canal.obtenerEstadisticas());
+        }
+        return estadisticas;
+    }
+
+    /**
+     * Obtiene las estadísticas de la bandeja de salida de cada canal
+     * @return estadísticas por nombre de canal; vacío si no hay bandeja por canal
+     */
+    public Map<String, EstadisticasBandejaSalida> obtenerEstadisticasBandejas() {
+        Map<String, EstadisticasBandejaSalida> estadisticas = new LinkedHashMap<>();
+        for (int i = 0; i < bandejas.size(); i++) {
+            estadisticas.put(canales.get(i).getNombre(), bandejas.get(i).obtenerEstadisticas());
+        }
+        return estadisticas;
+    }
+
+    /**
+     * Obtiene la cantidad de intenciones pendientes en las bandejas de todos los canales
+     * @return profundidad total de las colas
+     */
+    public int getProfundidadBandejas() {
+        int profundidad = 0;
+        for (BandejaSalidaNotificaciones bandeja : bandejas) {
+            profundidad += bandeja.getProfundidadCola();
+        }
+        return profundidad;
+    }
+
+    /**
+     * Deja de aceptar envíos y espera a que las bandejas entreguen sus pendientes y
+     * luego a que los canales terminen los encolados
+     * @param esperaMaximaMillis tiempo máximo de espera en total
+     * @return true si todos los canales terminaron
+     */
+    public boolean cerrar(long esperaMaximaMillis) {
+        long limite = System.nanoTime() + esperaMaximaMillis * 1_000_000L;
+        boolean terminados = true;
+        for (BandejaSalidaNotificaciones bandeja : bandejas) {
+            terminados &= bandeja.cerrar(Math.max(0, (limite - System.nanoTime()) / 1_000_000L));
+        }
+        for (CanalAislado canal : canales) {
+            terminados &= canal.cerrar(Math.max(0, limite - System.nanoTime()));
+        }
+        return terminados;
+    }
+
+    /**
+     * Encola el envío en todos los canales y luego espera cada uno hasta su tiempo
+     * máximo. Los errores de un canal se registran y no afectan a los demás.
+     * Con bandeja por canal solo registra el envío en cada bandeja.
+     */
+    private void difundir(String descripcion, Consumer<ServicioNotificacion> envio) {
+        difundir(descripcion, 1, envio);
+    }
+
+    private void difundir(String descripcion, int llamadas, Consumer<ServicioNotificacion> envio) {
+        if (bandejaPorCanal) {
+            for (BandejaSalidaNotificaciones bandeja : bandejas) {
+                envio.accept(bandeja);
             }
+            return;
+        }
+        List<CanalAislado> destinos = new ArrayList<>(canales.size());
+        List<CanalAislado.EnvioEnCurso> envios = new ArrayList<>(canales.size());
+        for (CanalAislado canal : canales) {
+            CanalAislado.EnvioEnCurso enCurso = canal.enviar(envio, llamadas);
+            if (enCurso != null) {
+                destinos.add(canal);
+                envios.add(enCurso);
+            }
+        }
+        for (int i = 0; i < envios.size(); i++) {
+            destinos.get(i).esperar(envios.get(i), descripcion);
+        }
+    }
+
+    /**
+     * Destino de la bandeja de un canal: envía por el canal aislado y lanza la excepción
+     * cuando el envío falla, para que la bandeja lo reintente
+     */
+    private static final class EntradaCanal implements ServicioNotificacion {
+        private final CanalAislado canal;
+
+        private EntradaCanal(CanalAislado canal) {
+            this.canal = canal;
+        }
+
+        @Override
+        public void notificarNuevaOrden(OrdenCompra orden) {
+            canal.entregar(servicio -> servicio.notificarNuevaOrden(orden), "notificación de nueva orden");
+        }
+
+        @Override
+        public void notificarCambioEstado(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
+            canal.entregar(servicio -> servicio.notificarCambioEstado(orden, estadoAnterior),
+                    "notificación de cambio de estado");
+        }
+
+        @Override
+        public void notificarResumen(ResumenOrdenes resumen) {
+            canal.entregar(servicio -> servicio.notificarResumen(resumen), "resumen de órdenes");
+        }
+
+        @Override
+        public void notificarMensaje(Usuario destinatario, String asunto, String mensaje) {
+            canal.entregar(servicio -> servicio.notificarMensaje(destinatario, asunto, mensaje),
+                    "mensaje personalizado");
         }
     }
-}
\ No newline at end of file
+}
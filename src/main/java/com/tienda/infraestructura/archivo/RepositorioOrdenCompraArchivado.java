@@ -0,0 +1,722 @@
+package com.tienda.infraestructura.archivo;
+
+import com.tienda.compartido.Dinero;
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.Pagina;
+import com.tienda.dominio.Producto;
+import com.tienda.dominio.RepositorioOrdenCompra;
+import com.tienda.dominio.RepositorioProducto;
+import com.tienda.dominio.RepositorioUsuario;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Repositorio de órdenes con un nivel de archivo. Las órdenes completadas o canceladas
+ * más antiguas que una antigüedad mínima se mueven del repositorio delegado (nivel
+ * caliente) a segmentos columnares mapeados en memoria, y dejan de ocupar el heap como
+ * grafos de objetos. Las consultas combinan ambos niveles de forma transparente; las
+ * órdenes archivadas se materializan al leerlas, resolviendo usuario y productos.
+ *
+ * <p>Un movimiento publica primero el segmento y luego retira las órdenes del nivel
+ * caliente. Las consultas leen primero el nivel caliente y después toman la lista de
+ * segmentos; si un movimiento ocurrió entre ambas lecturas se descartan del archivo las
+ * órdenes ya devueltas por el nivel caliente, por lo que cada orden aparece una vez.
+ */
+public class RepositorioOrdenCompraArchivado implements RepositorioOrdenCompra, AutoCloseable {
+
+    private static final String PREFIJO_SEGMENTO = "ordenes-";
+    private static final String EXTENSION_SEGMENTO = ".col";
+    private static final String ARCHIVO_OCULTAS = "ocultas.ids";
+    private static final int TAMANO_REGISTRO_OCULTA = 24;
+    private static final int FILAS_POR_SEGMENTO = 1_000_000;
+    private static final long BYTES_POR_SEGMENTO = 1L << 30;
+    private static final int BYTES_POR_FILA = 110;
+    private static final int BYTES_POR_ITEM = 46;
+
+    private final RepositorioOrdenCompra delegado;
+    private final RepositorioUsuario repositorioUsuario;
+    private final RepositorioProducto repositorioProducto;
+    private final Path directorio;
+    private final Duration antiguedadMinima;
+
+    private volatile List<SegmentoColumnar> segmentos;
+    private volatile long fechaMaximaArchivada = Long.MIN_VALUE;
+    /** Órdenes reemplazadas o eliminadas: se ocultan en los segmentos con número menor al asociado */
+    private final Map<UUID, Long> ocultas = new ConcurrentHashMap<>();
+    private final FileChannel canalOcultas;
+    /** Impar mientras hay un movimiento en curso; cambia al empezar y al terminar cada uno */
+    private final AtomicLong generacion = new AtomicLong();
+    private volatile long siguienteSegmento;
+    private final ScheduledExecutorService programador;
+
+    public RepositorioOrdenCompraArchivado(RepositorioOrdenCompra delegado,
+                                           RepositorioUsuario repositorioUsuario,
+                                           RepositorioProducto repositorioProducto,
+                                           Path directorio,
+                                           Duration antiguedadMinima) {
+        this(delegado, repositorioUsuario, repositorioProducto, directorio, antiguedadMinima, null);
+    }
+
+    /**
+     * Crea el repositorio abriendo los segmentos existentes en el directorio
+     * @param delegado repositorio del nivel caliente
+     * @param repositorioUsuario repositorio para resolver los usuarios de las órdenes archivadas
+     * @param repositorioProducto repositorio para resolver los productos de las órdenes archivadas
+     * @param directorio directorio de los segmentos
+     * @param antiguedadMinima antigüedad desde la creación a partir de la cual se archiva una orden
+     * @param intervaloArchivado cada cuánto archivar en segundo plano, o null para hacerlo solo
+     *                           con {@link #archivar()}
+     */
+    public RepositorioOrdenCompraArchivado(RepositorioOrdenCompra delegado,
+                                           RepositorioUsuario repositorioUsuario,
+                                           RepositorioProducto repositorioProducto,
+                                           Path directorio,
+                                           Duration antiguedadMinima,
+                                           Duration intervaloArchivado) {
+        this.delegado = delegado;
+        this.repositorioUsuario = repositorioUsuario;
+        this.repositorioProducto = repositorioProducto;
+        this.directorio = directorio;
+        this.antiguedadMinima = antiguedadMinima;
+        try {
+            Files.createDirectories(directorio);
+            this.canalOcultas = FileChannel.open(directorio.resolve(ARCHIVO_OCULTAS),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            cargarOcultas();
+            this.segmentos = abrirSegmentos();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el archivo de órdenes en " + directorio, e);
+        }
+        completarMovimientoInterrumpido();
+
+        if (intervaloArchivado != null) {
+            this.programador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+                Thread hilo = new Thread(tarea, "archivo-ordenes");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            long periodo = intervaloArchivado.toMillis();
+            programador.scheduleWithFixedDelay(this::archivarEnSegundoPlano, periodo, periodo, TimeUnit.MILLISECONDS);
+        } else {
+            this.programador = null;
+        }
+    }
+
+    /**
+     * Mueve al archivo las órdenes completadas o canceladas más antiguas que la antigüedad mínima
+     * @return cantidad de órdenes archivadas
+     */
+    public synchronized int archivar() {
+        LocalDateTime limite = LocalDateTime.now().minus(antiguedadMinima);
+        List<OrdenCompra> candidatas = delegado.recorrerPorRangoFechas(LocalDateTime.MIN, limite)
+                .filter(orden -> !orden.estaPendiente())
+                .filter(SegmentoColumnar::esArchivable)
+                .collect(Collectors.toList());
+        if (candidatas.isEmpty()) {
+            return 0;
+        }
+
+        generacion.incrementAndGet();
+        try {
+            int desde = 0;
+            while (desde < candidatas.size()) {
+                int hasta = finDeLote(candidatas, desde);
+                List<OrdenCompra> lote = candidatas.subList(desde, hasta);
+                publicarSegmento(lote);
+                for (OrdenCompra orden : lote) {
+                    // Si la orden se volvió a guardar mientras se archivaba, queda la versión caliente
+                    Optional<OrdenCompra> actual = delegado.buscarPorId(orden.getId());
+                    if (actual.isPresent() && actual.get() == orden) {
+                        delegado.eliminar(orden.getId());
+                    } else {
+                        ocultar(orden.getId());
+                    }
+                }
+                desde = hasta;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir un segmento del archivo de órdenes", e);
+        } finally {
+            generacion.incrementAndGet();
+        }
+        return candidatas.size();
+    }
+
+    /**
+     * Cantidad de órdenes en el archivo, incluidas las ocultas por una versión más nueva
+     * @return cantidad de filas archivadas
+     */
+    public long getOrdenesArchivadas() {
+        long total = 0;
+        for (SegmentoColumnar segmento : segmentos) {
+            total += segmento.getFilas();
+        }
+        return total;
+    }
+
+    @Override
+    public OrdenCompra guardar(OrdenCompra orden) {
+        OrdenCompra guardada = delegado.guardar(orden);
+        // Una orden archivada que se vuelve a guardar pasa a leerse del nivel caliente
+        if (SegmentoColumnar.aNanos(guardada.getFechaCreacion()) <= fechaMaximaArchivada
+                && buscarArchivada(guardada.getId()) != null) {
+            ocultar(guardada.getId());
+        }
+        return guardada;
+    }
+
+    @Override
+    public Optional<OrdenCompra> buscarPorId(UUID id) {
+        Optional<OrdenCompra> caliente = delegado.buscarPorId(id);
+        if (caliente.isPresent()) {
+            return caliente;
+        }
+        Posicion posicion = buscarArchivada(id);
+        return posicion != null ? Optional.of(materializar(posicion.segmento, posicion.fila)) : Optional.empty();
+    }
+
+    @Override
+    public List<OrdenCompra> obtenerPorUsuario(UUID usuarioId) {
+        Lectura lectura = leer(delegado.obtenerPorUsuario(usuarioId));
+        List<OrdenCompra> resultado = new ArrayList<>(lectura.calientes);
+        for (SegmentoColumnar segmento : lectura.segmentos) {
+            for (int fila : segmento.filasDeUsuario(usuarioId)) {
+                if (lectura.esVisible(segmento, fila)) {
+                    resultado.add(materializar(segmento, fila));
+                }
+            }
+        }
+        resultado.sort(MAS_RECIENTE_PRIMERO);
+        return resultado;
+    }
+
+    @Override
+    public List<OrdenCompra> obtenerTodas() {
+        return recorrerTodas().collect(Collectors.toList());
+    }
+
+    @Override
+    public List<OrdenCompra> obtenerPorEstado(OrdenCompra.EstadoOrden estado) {
+        Lectura lectura = leer(delegado.obtenerPorEstado(estado));
+        List<OrdenCompra> resultado = new ArrayList<>(lectura.calientes);
+        for (SegmentoColumnar segmento : lectura.segmentos) {
+            for (int fila = segmento.getFilas() - 1; fila >= 0; fila--) {
+                if (segmento.estado(fila) == estado && lectura.esVisible(segmento, fila)) {
+                    resultado.add(materializar(segmento, fila));
+                }
+            }
+        }
+        resultado.sort(MAS_RECIENTE_PRIMERO);
+        return resultado;
+    }
+
+    @Override
+    public List<OrdenCompra> obtenerPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        return recorrerPorRangoFechas(fechaInicio, fechaFin).collect(Collectors.toList());
+    }
+
+    @Override
+    public Pagina<OrdenCompra> obtenerPagina(String cursor, int tamano) {
+        return obtenerPaginaPorRangoFechas(LocalDateTime.MIN, LocalDateTime.MAX, cursor, tamano);
+    }
+
+    @Override
+    public Pagina<OrdenCompra> obtenerPaginaPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin,
+                                                           String cursor, int tamano) {
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a cero");
+        }
+        if (fechaInicio.isAfter(fechaFin)) {
+            return new Pagina<>(new ArrayList<>(), null);
+        }
+        Clave desde = cursor != null ? Clave.decodificar(cursor) : null;
+        LocalDateTime finCaliente = desde != null && desde.fecha.isBefore(fechaFin) ? desde.fecha : fechaFin;
+
+        // El nivel caliente aporta a lo sumo una página
+        List<OrdenCompra> calientes = delegado.recorrerPorRangoFechas(fechaInicio, finCaliente)
+                .filter(orden -> desde == null || Clave.de(orden).compareTo(desde) < 0)
+                .limit(tamano)
+                .collect(Collectors.toList());
+        Lectura lectura = leer(calientes);
+        Iterator<OrdenCompra> recorrido = new RecorridoFusionado(lectura, fechaInicio, fechaFin, desde);
+
+        List<OrdenCompra> elementos = new ArrayList<>(tamano);
+        while (elementos.size() < tamano && recorrido.hasNext()) {
+            elementos.add(recorrido.next());
+        }
+        String siguiente = recorrido.hasNext() ? Clave.de(elementos.get(tamano - 1)).codificar() : null;
+        return new Pagina<>(elementos, siguiente);
+    }
+
+    @Override
+    public Stream<OrdenCompra> recorrerTodas() {
+        Lectura lectura = leer(delegado.obtenerTodas());
+        Stream<OrdenCompra> archivadas = lectura.segmentos.stream()
+                .flatMap(segmento -> IntStream.range(0, segmento.getFilas())
+                        .filter(fila -> lectura.esVisible(segmento, fila))
+                        .mapToObj(fila -> materializar(segmento, fila)));
+        return Stream.concat(lectura.calientes.stream(), archivadas);
+    }
+
+    @Override
+    public Stream<OrdenCompra> recorrerPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        if (fechaInicio.isAfter(fechaFin)) {
+            return Stream.empty();
+        }
+        Lectura lectura = leer(delegado.obtenerPorRangoFechas(fechaInicio, fechaFin));
+        Iterator<OrdenCompra> recorrido = new RecorridoFusionado(lectura, fechaInicio, fechaFin, null);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(recorrido,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public boolean eliminar(UUID id) {
+        boolean eliminada = delegado.eliminar(id);
+        if (buscarArchivada(id) != null) {
+            ocultar(id);
+            eliminada = true;
+        }
+        return eliminada;
+    }
+
+    @Override
+    public boolean existe(UUID id) {
+        return delegado.existe(id) || buscarArchivada(id) != null;
+    }
+
+    /**
+     * Detiene el archivado en segundo plano y libera el archivo de órdenes ocultas
+     */
+    @Override
+    public void close() {
+        if (programador != null) {
+            programador.shutdownNow();
+        }
+        try {
+            canalOcultas.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void archivarEnSegundoPlano() {
+        try {
+            archivar();
+        } catch (RuntimeException e) {
+            System.err.println("Error al archivar órdenes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lee el nivel caliente y luego toma la lista de segmentos
+     * @param calientes resultado ya leído del nivel caliente
+     * @return lectura combinada
+     */
+    private Lectura leer(List<OrdenCompra> calientes) {
+        return leer(calientes, generacion.get());
+    }
+
+    private Lectura leer(List<OrdenCompra> calientes, long generacionInicial) {
+        List<SegmentoColumnar> vigentes = segmentos;
+        long generacionFinal = generacion.get();
+        Set<UUID> idsCalientes = null;
+        if (generacionInicial != generacionFinal || (generacionInicial & 1) == 1) {
+            idsCalientes = new HashSet<>();
+            for (OrdenCompra orden : calientes) {
+                idsCalientes.add(orden.getId());
+            }
+        }
+        return new Lectura(calientes, vigentes, idsCalientes);
+    }
+
+    /**
+     * Fin del lote que empieza en la posición dada, acotado en filas y en bytes para que
+     * cada segmento pueda mapearse con un único buffer
+     */
+    private static int finDeLote(List<OrdenCompra> candidatas, int desde) {
+        long bytes = 0;
+        int hasta = desde;
+        while (hasta < candidatas.size() && hasta - desde < FILAS_POR_SEGMENTO) {
+            bytes += BYTES_POR_FILA + BYTES_POR_ITEM * candidatas.get(hasta).getItems().size();
+            if (bytes > BYTES_POR_SEGMENTO && hasta > desde) {
+                break;
+            }
+            hasta++;
+        }
+        return hasta;
+    }
+
+    private void publicarSegmento(List<OrdenCompra> ordenes) throws IOException {
+        Path definitivo = rutaSegmento(siguienteSegmento++);
+        Path temporal = definitivo.resolveSibling(definitivo.getFileName() + ".tmp");
+        Files.deleteIfExists(temporal);
+        SegmentoColumnar.escribir(temporal, ordenes);
+        Files.move(temporal, definitivo, StandardCopyOption.ATOMIC_MOVE);
+
+        SegmentoColumnar segmento = SegmentoColumnar.abrir(definitivo, siguienteSegmento - 1);
+        List<SegmentoColumnar> nuevos = new ArrayList<>(segmentos);
+        nuevos.add(segmento);
+        segmentos = Collections.unmodifiableList(nuevos);
+        fechaMaximaArchivada = Math.max(fechaMaximaArchivada, segmento.getFechaMaxima());
+    }
+
+    private List<SegmentoColumnar> abrirSegmentos() throws IOException {
+        List<Long> numeros = new ArrayList<>();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.map(ruta -> ruta.getFileName().toString())
+                    .filter(nombre -> nombre.startsWith(PREFIJO_SEGMENTO) && nombre.endsWith(EXTENSION_SEGMENTO))
+                    .forEach(nombre -> numeros.add(Long.parseLong(nombre.substring(
+                            PREFIJO_SEGMENTO.length(), nombre.length() - EXTENSION_SEGMENTO.length()))));
+        }
+        numeros.sort(null);
+        List<SegmentoColumnar> abiertos = new ArrayList<>();
+        for (long numero : numeros) {
+            SegmentoColumnar segmento = SegmentoColumnar.abrir(rutaSegmento(numero), numero);
+            abiertos.add(segmento);
+            fechaMaximaArchivada = Math.max(fechaMaximaArchivada, segmento.getFechaMaxima());
+            siguienteSegmento = numero + 1;
+        }
+        return Collections.unmodifiableList(abiertos);
+    }
+
+    /**
+     * Si el proceso se detuvo entre publicar el último segmento y retirar sus órdenes del
+     * nivel caliente (persistente), termina el retiro
+     */
+    private void completarMovimientoInterrumpido() {
+        if (segmentos.isEmpty()) {
+            return;
+        }
+        SegmentoColumnar ultimo = segmentos.get(segmentos.size() - 1);
+        for (int fila = 0; fila < ultimo.getFilas(); fila++) {
+            UUID id = ultimo.id(fila);
+            if (!estaOculta(ultimo, id) && delegado.existe(id)) {
+                delegado.eliminar(id);
+            }
+        }
+    }
+
+    /**
+     * Busca la copia archivada visible de una orden, empezando por el segmento más nuevo
+     * @param id ID de la orden
+     * @return posición de la orden, o null si no está archivada o está oculta
+     */
+    private Posicion buscarArchivada(UUID id) {
+        List<SegmentoColumnar> vigentes = segmentos;
+        for (int i = vigentes.size() - 1; i >= 0; i--) {
+            SegmentoColumnar segmento = vigentes.get(i);
+            int fila = segmento.buscarFila(id);
+            if (fila >= 0) {
+                return estaOculta(segmento, id) ? null : new Posicion(segmento, fila);
+            }
+        }
+        return null;
+    }
+
+    private boolean estaOculta(SegmentoColumnar segmento, UUID id) {
+        Long hasta = ocultas.get(id);
+        return hasta != null && segmento.getNumero() < hasta;
+    }
+
+    /**
+     * Oculta las copias archivadas de una orden en todos los segmentos publicados hasta ahora
+     * @param id ID de la orden
+     */
+    private void ocultar(UUID id) {
+        synchronized (canalOcultas) {
+            long hasta = siguienteSegmento;
+            ocultas.put(id, hasta);
+            ByteBuffer registro = ByteBuffer.allocate(TAMANO_REGISTRO_OCULTA);
+            registro.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).putLong(hasta).flip();
+            try {
+                canalOcultas.write(registro, canalOcultas.size());
+                canalOcultas.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo registrar la orden oculta " + id, e);
+            }
+        }
+    }
+
+    private void cargarOcultas() throws IOException {
+        long completos = canalOcultas.size() / TAMANO_REGISTRO_OCULTA * TAMANO_REGISTRO_OCULTA;
+        ByteBuffer contenido = ByteBuffer.allocate(Math.toIntExact(completos));
+        while (contenido.hasRemaining() && canalOcultas.read(contenido, contenido.position()) >= 0) {
+            // leer hasta completar
+        }
+        contenido.flip();
+        while (contenido.remaining() >= TAMANO_REGISTRO_OCULTA) {
+            ocultas.put(new UUID(contenido.getLong(), contenido.getLong()), contenido.getLong());
+        }
+        canalOcultas.truncate(completos);
+    }
+
+    /**
+     * Reconstruye una orden archivada; usuario y productos se resuelven en sus repositorios
+     */
+    private OrdenCompra materializar(SegmentoColumnar segmento, int fila) {
+        int primerItem = segmento.primerItem(fila);
+        int finItems = segmento.primerItem(fila + 1);
+        List<ItemOrden> items = new ArrayList<>(finItems - primerItem);
+        for (int item = primerItem; item < finItems; item++) {
+            UUID productoId = segmento.productoId(item);
+            Dinero precioUnitario = segmento.precioUnitario(item);
+            Producto producto = repositorioProducto.buscarPorId(productoId).orElseGet(() -> {
+                // El producto ya no existe; se conserva el precio al que se vendió
+                Producto eliminado = new Producto();
+                eliminado.setId(productoId);
+                eliminado.setPrecio(precioUnitario.aBigDecimal());
+                eliminado.setActivo(false);
+                return eliminado;
+            });
+            ItemOrden itemOrden = new ItemOrden();
+            itemOrden.setId(segmento.itemId(item));
+            itemOrden.setProducto(producto);
+            itemOrden.setCantidad(segmento.cantidad(item));
+            itemOrden.setPrecioUnitario(precioUnitario);
+            items.add(itemOrden);
+        }
+
+        OrdenCompra orden = new OrdenCompra();
+        orden.setId(segmento.id(fila));
+        UUID usuarioId = segmento.usuarioId(fila);
+        orden.setUsuario(usuarioId != null ? repositorioUsuario.buscarPorId(usuarioId).orElse(null) : null);
+        orden.setItems(items);
+        orden.setTotal(segmento.total(fila));
+        orden.setEstado(segmento.estado(fila));
+        orden.setFechaCreacion(SegmentoColumnar.desdeNanos(segmento.fechaCreacion(fila)));
+        orden.setFechaActualizacion(SegmentoColumnar.desdeNanos(segmento.fechaActualizacion(fila)));
+        orden.congelarItems();
+        return orden;
+    }
+
+    private Path rutaSegmento(long numero) {
+        return directorio.resolve(String.format("%s%020d%s", PREFIJO_SEGMENTO, numero, EXTENSION_SEGMENTO));
+    }
+
+    private static final Comparator<OrdenCompra> MAS_RECIENTE_PRIMERO =
+            Comparator.comparing(Clave::de, Comparator.reverseOrder());
+
+    /**
+     * Resultado del nivel caliente junto con los segmentos vigentes al leerlo
+     */
+    private final class Lectura {
+        private final List<OrdenCompra> calientes;
+        private final List<SegmentoColumnar> segmentos;
+        private final Set<UUID> idsCalientes;
+        private final boolean hayOcultas;
+
+        private Lectura(List<OrdenCompra> calientes, List<SegmentoColumnar> segmentos, Set<UUID> idsCalientes) {
+            this.calientes = calientes;
+            this.segmentos = segmentos;
+            this.idsCalientes = idsCalientes;
+            this.hayOcultas = !ocultas.isEmpty();
+        }
+
+        private boolean esVisible(SegmentoColumnar segmento, int fila) {
+            if (!hayOcultas && idsCalientes == null) {
+                return true;
+            }
+            UUID id = segmento.id(fila);
+            return !(hayOcultas && estaOculta(segmento, id)) && !(idsCalientes != null && idsCalientes.contains(id));
+        }
+    }
+
+    private static final class Posicion {
+        private final SegmentoColumnar segmento;
+        private final int fila;
+
+        private Posicion(SegmentoColumnar segmento, int fila) {
+            this.segmento = segmento;
+            this.fila = fila;
+        }
+    }
+
+    /**
+     * Recorrido de la más reciente a la más antigua que fusiona el nivel caliente con
+     * cada segmento; las órdenes archivadas se materializan a medida que se consumen
+     */
+    private final class RecorridoFusionado implements Iterator<OrdenCompra> {
+        private final Lectura lectura;
+        private final PriorityQueue<Fuente> fuentes = new PriorityQueue<>();
+        private final Clave antesDe;
+        private OrdenCompra siguiente;
+
+        private RecorridoFusionado(Lectura lectura, LocalDateTime fechaInicio, LocalDateTime fechaFin, Clave antesDe) {
+            this.lectura = lectura;
+            this.antesDe = antesDe;
+            Fuente caliente = new Fuente(lectura.calientes.iterator());
+            if (caliente.avanzar()) {
+                fuentes.add(caliente);
+            }
+            long inicio = SegmentoColumnar.aNanos(fechaInicio);
+            long fin = SegmentoColumnar.aNanos(fechaFin);
+            if (antesDe != null) {
+                fin = Math.min(fin, SegmentoColumnar.aNanos(antesDe.fecha));
+            }
+            for (SegmentoColumnar segmento : lectura.segmentos) {
+                if (segmento.getFilas() == 0 || segmento.getFechaMaxima() < inicio || segmento.getFechaMinima() > fin) {
+                    continue;
+                }
+                Fuente fuente = new Fuente(segmento, segmento.primeraFilaDesde(inicio), segmento.primeraFilaDespuesDe(fin));
+                if (fuente.avanzar()) {
+                    fuentes.add(fuente);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (siguiente == null && !fuentes.isEmpty()) {
+                Fuente fuente = fuentes.poll();
+                if (antesDe == null || fuente.clave.compareTo(antesDe) < 0) {
+                    siguiente = fuente.actual();
+                }
+                if (fuente.avanzar()) {
+                    fuentes.add(fuente);
+                }
+            }
+            return siguiente != null;
+        }
+
+        @Override
+        public OrdenCompra next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            OrdenCompra resultado = siguiente;
+            siguiente = null;
+            return resultado;
+        }
+
+        /**
+         * Nivel caliente o rango de filas de un segmento, consumido de atrás hacia adelante
+         */
+        private final class Fuente implements Comparable<Fuente> {
+            private final Iterator<OrdenCompra> calientes;
+            private final SegmentoColumnar segmento;
+            private final int primeraFila;
+            private int fila;
+            private OrdenCompra orden;
+            private Clave clave;
+
+            private Fuente(Iterator<OrdenCompra> calientes) {
+                this.calientes = calientes;
+                this.segmento = null;
+                this.primeraFila = 0;
+            }
+
+            private Fuente(SegmentoColumnar segmento, int primeraFila, int finFilas) {
+                this.calientes = null;
+                this.segmento = segmento;
+                this.primeraFila = primeraFila;
+                this.fila = finFilas;
+            }
+
+            private boolean avanzar() {
+                if (calientes != null) {
+                    if (!calientes.hasNext()) {
+                        return false;
+                    }
+                    orden = calientes.next();
+                    clave = Clave.de(orden);
+                    return true;
+                }
+                while (--fila >= primeraFila) {
+                    if (lectura.esVisible(segmento, fila)) {
+                        orden = null;
+                        clave = new Clave(SegmentoColumnar.desdeNanos(segmento.fechaCreacion(fila)), segmento.id(fila));
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            private OrdenCompra actual() {
+                if (orden == null) {
+                    orden = materializar(segmento, fila);
+                }
+                return orden;
+            }
+
+            @Override
+            public int compareTo(Fuente otra) {
+                return otra.clave.compareTo(clave);
+            }
+        }
+    }
+
+    /**
+     * Fecha de creación e ID de una orden; es también el cursor de paginación
+     */
+    private static final class Clave implements Comparable<Clave> {
+        private final LocalDateTime fecha;
+        private final UUID id;
+
+        private Clave(LocalDateTime fecha, UUID id) {
+            this.fecha = fecha;
+            this.id = id;
+        }
+
+        private static Clave de(OrdenCompra orden) {
+            return new Clave(orden.getFechaCreacion(), orden.getId());
+        }
+
+        private String codificar() {
+            String texto = fecha + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static Clave decodificar(String cursor) {
+            try {
+                String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separador = texto.indexOf('|');
+                return new Clave(LocalDateTime.parse(texto.substring(0, separador)),
+                        UUID.fromString(texto.substring(separador + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor, e);
+            }
+        }
+
+        @Override
+        public int compareTo(Clave otra) {
+            int porFecha = fecha.compareTo(otra.fecha);
+            return porFecha != 0 ? porFecha : id.compareTo(otra.id);
+        }
+    }
+}
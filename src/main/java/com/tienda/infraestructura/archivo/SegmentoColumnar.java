@@ -0,0 +1,464 @@
+package com.tienda.infraestructura.archivo;
+
+import com.tienda.compartido.Dinero;
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.OrdenCompra;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Segmento de archivo de órdenes en formato columnar, mapeado en memoria y de solo lectura.
+ * Las filas están ordenadas por fecha de creación e ID; cada columna es un arreglo
+ * contiguo de valores de ancho fijo (IDs, usuarios, fechas, totales, estado y el rango de
+ * items), seguidas por las columnas de items y por dos índices ordenados por ID de orden
+ * y por ID de usuario. Las lecturas acceden al mapeo con posiciones absolutas, sin copiar
+ * el segmento al heap. Los montos se guardan en unidades menores de la moneda del
+ * segmento, que va en la cabecera.
+ */
+final class SegmentoColumnar {
+
+    private static final int MAGIA = 0x4F52444E;
+    private static final int VERSION = 2;
+    private static final int TAMANO_CABECERA = 64;
+
+    private final Path ruta;
+    private final long numero;
+    private final MappedByteBuffer datos;
+    private final int filas;
+    private final int items;
+    private final long fechaMinima;
+    private final long fechaMaxima;
+    private final Currency moneda;
+    private final Disposicion disposicion;
+
+    private SegmentoColumnar(Path ruta, long numero, MappedByteBuffer datos) {
+        this.ruta = ruta;
+        this.numero = numero;
+        this.datos = datos;
+        if (leerInt(0) != MAGIA || leerInt(4) != VERSION) {
+            throw new IllegalStateException("Segmento de archivo con formato desconocido: " + ruta);
+        }
+        this.filas = leerInt(8);
+        this.items = leerInt(12);
+        this.fechaMinima = leerLong(16);
+        this.fechaMaxima = leerLong(24);
+        byte[] codigoMoneda = new byte[3];
+        for (int i = 0; i < codigoMoneda.length; i++) {
+            codigoMoneda[i] = leerByte(32 + i);
+        }
+        this.moneda = Currency.getInstance(new String(codigoMoneda, StandardCharsets.US_ASCII));
+        this.disposicion = new Disposicion(filas, items);
+        if (datos.capacity() != disposicion.tamanoTotal) {
+            throw new IllegalStateException("Segmento de archivo incompleto: " + ruta);
+        }
+    }
+
+    /**
+     * Mapea un segmento existente
+     * @param ruta archivo del segmento
+     * @param numero número de secuencia del segmento; los más nuevos tienen números mayores
+     * @return segmento mapeado
+     */
+    static SegmentoColumnar abrir(Path ruta, long numero) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            return new SegmentoColumnar(ruta, numero, canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
+    }
+
+    /**
+     * Escribe un segmento con las órdenes dadas. Todos los montos deben estar en la
+     * moneda de la tienda (ver {@link #esArchivable(OrdenCompra)}).
+     * @param ruta archivo a crear
+     * @param ordenes órdenes a archivar
+     */
+    static void escribir(Path ruta, List<OrdenCompra> ordenes) throws IOException {
+        List<OrdenCompra> ordenadas = new ArrayList<>(ordenes);
+        ordenadas.sort(Comparator.comparing(OrdenCompra::getFechaCreacion).thenComparing(OrdenCompra::getId));
+        int filas = ordenadas.size();
+        int items = 0;
+        for (OrdenCompra orden : ordenadas) {
+            items += orden.getItems().size();
+        }
+        Disposicion d = new Disposicion(filas, items);
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(d.tamanoTotal));
+
+        buffer.putInt(0, MAGIA).putInt(4, VERSION).putInt(8, filas).putInt(12, items);
+        buffer.putLong(16, filas > 0 ? aNanos(ordenadas.get(0).getFechaCreacion()) : 0);
+        buffer.putLong(24, filas > 0 ? aNanos(ordenadas.get(filas - 1).getFechaCreacion()) : 0);
+        byte[] codigoMoneda = Dinero.MONEDA_POR_DEFECTO.getCurrencyCode().getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < codigoMoneda.length; i++) {
+            buffer.put(32 + i, codigoMoneda[i]);
+        }
+
+        int item = 0;
+        for (int fila = 0; fila < filas; fila++) {
+            OrdenCompra orden = ordenadas.get(fila);
+            UUID usuarioId = orden.getUsuario() != null ? orden.getUsuario().getId() : null;
+            buffer.putLong((int) (d.idMsb + 8L * fila), orden.getId().getMostSignificantBits());
+            buffer.putLong((int) (d.idLsb + 8L * fila), orden.getId().getLeastSignificantBits());
+            buffer.putLong((int) (d.usuarioMsb + 8L * fila), usuarioId != null ? usuarioId.getMostSignificantBits() : 0);
+            buffer.putLong((int) (d.usuarioLsb + 8L * fila), usuarioId != null ? usuarioId.getLeastSignificantBits() : 0);
+            buffer.putLong((int) (d.fechaCreacion + 8L * fila), aNanos(orden.getFechaCreacion()));
+            buffer.putLong((int) (d.fechaActualizacion + 8L * fila), aNanos(orden.getFechaActualizacion()));
+            buffer.putLong((int) (d.total + 8L * fila), orden.getTotal().getUnidadesMenores());
+            buffer.put((int) (d.estado + fila), (byte) orden.getEstado().ordinal());
+            buffer.putInt((int) (d.primerItem + 4L * fila), item);
+            for (ItemOrden itemOrden : orden.getItems()) {
+                UUID itemId = itemOrden.getId();
+                buffer.putLong((int) (d.itemIdMsb + 8L * item), itemId != null ? itemId.getMostSignificantBits() : 0);
+                buffer.putLong((int) (d.itemIdLsb + 8L * item), itemId != null ? itemId.getLeastSignificantBits() : 0);
+                buffer.putLong((int) (d.productoMsb + 8L * item), itemOrden.getProducto().getId().getMostSignificantBits());
+                buffer.putLong((int) (d.productoLsb + 8L * item), itemOrden.getProducto().getId().getLeastSignificantBits());
+                buffer.putInt((int) (d.cantidad + 4L * item), itemOrden.getCantidad());
+                buffer.putLong((int) (d.precioUnitario + 8L * item), itemOrden.getPrecioUnitario().getUnidadesMenores());
+                item++;
+            }
+        }
+        buffer.putInt((int) (d.primerItem + 4L * filas), item);
+
+        escribirIndice(buffer, d.indiceIdMsb, d.indiceIdLsb, d.indiceIdFila, filas,
+                fila -> ordenadas.get(fila).getId());
+        escribirIndice(buffer, d.indiceUsuarioMsb, d.indiceUsuarioLsb, d.indiceUsuarioFila, filas,
+                fila -> ordenadas.get(fila).getUsuario() != null ? ordenadas.get(fila).getUsuario().getId() : new UUID(0, 0));
+
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            buffer.rewind();
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            canal.force(true);
+        }
+    }
+
+    /**
+     * Indica si una orden puede representarse en el formato del segmento
+     * @param orden orden candidata
+     * @return true si tiene fechas, productos con ID y montos en la moneda de la tienda
+     */
+    static boolean esArchivable(OrdenCompra orden) {
+        if (!enMonedaDeTienda(orden.getTotal()) || orden.getFechaCreacion() == null
+                || orden.getFechaActualizacion() == null) {
+            return false;
+        }
+        for (ItemOrden item : orden.getItems()) {
+            if (!enMonedaDeTienda(item.getPrecioUnitario()) || item.getProducto() == null
+                    || item.getProducto().getId() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Path getRuta() {
+        return ruta;
+    }
+
+    long getNumero() {
+        return numero;
+    }
+
+    int getFilas() {
+        return filas;
+    }
+
+    long getFechaMinima() {
+        return fechaMinima;
+    }
+
+    long getFechaMaxima() {
+        return fechaMaxima;
+    }
+
+    long idMsb(int fila) {
+        return leerLong(disposicion.idMsb + 8 * fila);
+    }
+
+    long idLsb(int fila) {
+        return leerLong(disposicion.idLsb + 8 * fila);
+    }
+
+    UUID id(int fila) {
+        return new UUID(idMsb(fila), idLsb(fila));
+    }
+
+    UUID usuarioId(int fila) {
+        long msb = leerLong(disposicion.usuarioMsb + 8 * fila);
+        long lsb = leerLong(disposicion.usuarioLsb + 8 * fila);
+        return msb == 0 && lsb == 0 ? null : new UUID(msb, lsb);
+    }
+
+    long fechaCreacion(int fila) {
+        return leerLong(disposicion.fechaCreacion + 8 * fila);
+    }
+
+    long fechaActualizacion(int fila) {
+        return leerLong(disposicion.fechaActualizacion + 8 * fila);
+    }
+
+    Dinero total(int fila) {
+        return Dinero.deUnidadesMenores(leerLong(disposicion.total + 8L * fila), moneda);
+    }
+
+    OrdenCompra.EstadoOrden estado(int fila) {
+        return OrdenCompra.EstadoOrden.values()[leerByte(disposicion.estado + fila)];
+    }
+
+    int primerItem(int fila) {
+        return leerInt(disposicion.primerItem + 4 * fila);
+    }
+
+    UUID itemId(int item) {
+        long msb = leerLong(disposicion.itemIdMsb + 8 * item);
+        long lsb = leerLong(disposicion.itemIdLsb + 8 * item);
+        return msb == 0 && lsb == 0 ? null : new UUID(msb, lsb);
+    }
+
+    UUID productoId(int item) {
+        return new UUID(leerLong(disposicion.productoMsb + 8 * item), leerLong(disposicion.productoLsb + 8 * item));
+    }
+
+    int cantidad(int item) {
+        return leerInt(disposicion.cantidad + 4 * item);
+    }
+
+    Dinero precioUnitario(int item) {
+        return Dinero.deUnidadesMenores(leerLong(disposicion.precioUnitario + 8L * item), moneda);
+    }
+
+    /**
+     * Busca la fila de una orden con el índice por ID
+     * @param id ID de la orden
+     * @return fila de la orden, o -1 si no está en el segmento
+     */
+    int buscarFila(UUID id) {
+        int posicion = buscarEnIndice(disposicion.indiceIdMsb, disposicion.indiceIdLsb, id);
+        if (posicion < 0) {
+            return -1;
+        }
+        return leerInt(disposicion.indiceIdFila + 4 * posicion);
+    }
+
+    /**
+     * Filas de las órdenes de un usuario, de la más reciente a la más antigua
+     * @param usuarioId ID del usuario
+     * @return filas del usuario
+     */
+    int[] filasDeUsuario(UUID usuarioId) {
+        int posicion = buscarEnIndice(disposicion.indiceUsuarioMsb, disposicion.indiceUsuarioLsb, usuarioId);
+        if (posicion < 0) {
+            return new int[0];
+        }
+        int desde = posicion;
+        while (desde > 0 && claveIgual(disposicion.indiceUsuarioMsb, disposicion.indiceUsuarioLsb, desde - 1, usuarioId)) {
+            desde--;
+        }
+        int hasta = posicion;
+        while (hasta < filas - 1 && claveIgual(disposicion.indiceUsuarioMsb, disposicion.indiceUsuarioLsb, hasta + 1, usuarioId)) {
+            hasta++;
+        }
+        int[] resultado = new int[hasta - desde + 1];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = leerInt(disposicion.indiceUsuarioFila + 4L * (desde + i));
+        }
+        Arrays.sort(resultado);
+        for (int i = 0, j = resultado.length - 1; i < j; i++, j--) {
+            int temporal = resultado[i];
+            resultado[i] = resultado[j];
+            resultado[j] = temporal;
+        }
+        return resultado;
+    }
+
+    /**
+     * Primera fila con fecha de creación mayor o igual a la dada
+     * @param fechaNanos fecha en nanosegundos desde la época
+     * @return índice de la fila, o la cantidad de filas si no hay ninguna
+     */
+    int primeraFilaDesde(long fechaNanos) {
+        int bajo = 0;
+        int alto = filas;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (fechaCreacion(medio) < fechaNanos) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * Primera fila con fecha de creación mayor a la dada
+     * @param fechaNanos fecha en nanosegundos desde la época
+     * @return índice de la fila, o la cantidad de filas si no hay ninguna
+     */
+    int primeraFilaDespuesDe(long fechaNanos) {
+        return fechaNanos == Long.MAX_VALUE ? filas : primeraFilaDesde(fechaNanos + 1);
+    }
+
+    private long leerLong(long posicion) {
+        return datos.getLong((int) posicion);
+    }
+
+    private int leerInt(long posicion) {
+        return datos.getInt((int) posicion);
+    }
+
+    private byte leerByte(long posicion) {
+        return datos.get((int) posicion);
+    }
+
+    private int buscarEnIndice(long columnaMsb, long columnaLsb, UUID clave) {
+        int bajo = 0;
+        int alto = filas - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            int comparacion = new UUID(leerLong(columnaMsb + 8 * medio), leerLong(columnaLsb + 8 * medio))
+                    .compareTo(clave);
+            if (comparacion < 0) {
+                bajo = medio + 1;
+            } else if (comparacion > 0) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -1;
+    }
+
+    private boolean claveIgual(long columnaMsb, long columnaLsb, int posicion, UUID clave) {
+        return leerLong(columnaMsb + 8 * posicion) == clave.getMostSignificantBits()
+                && leerLong(columnaLsb + 8 * posicion) == clave.getLeastSignificantBits();
+    }
+
+    private static void escribirIndice(ByteBuffer buffer, long columnaMsb, long columnaLsb, long columnaFila,
+                                       int filas, java.util.function.IntFunction<UUID> clave) {
+        Integer[] orden = new Integer[filas];
+        for (int i = 0; i < filas; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, Comparator.comparing(clave::apply));
+        for (int i = 0; i < filas; i++) {
+            UUID id = clave.apply(orden[i]);
+            buffer.putLong(Math.toIntExact(columnaMsb + 8L * i), id.getMostSignificantBits());
+            buffer.putLong(Math.toIntExact(columnaLsb + 8L * i), id.getLeastSignificantBits());
+            buffer.putInt(Math.toIntExact(columnaFila + 4L * i), orden[i]);
+        }
+    }
+
+    private static boolean enMonedaDeTienda(Dinero monto) {
+        return monto != null && monto.getMoneda().equals(Dinero.MONEDA_POR_DEFECTO);
+    }
+
+    /**
+     * Convierte una fecha a nanosegundos desde la época, saturando fuera del rango de long
+     * @param fecha fecha a convertir
+     * @return nanosegundos desde 1970-01-01T00:00 (UTC)
+     */
+    static long aNanos(LocalDateTime fecha) {
+        long segundos = fecha.toEpochSecond(ZoneOffset.UTC);
+        if (segundos >= Long.MAX_VALUE / 1_000_000_000L) {
+            return Long.MAX_VALUE;
+        }
+        if (segundos <= Long.MIN_VALUE / 1_000_000_000L) {
+            return Long.MIN_VALUE;
+        }
+        return segundos * 1_000_000_000L + fecha.getNano();
+    }
+
+    static LocalDateTime desdeNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    /**
+     * Posición de cada columna dentro del archivo, derivada de la cantidad de filas e items
+     */
+    private static final class Disposicion {
+        private final long idMsb;
+        private final long idLsb;
+        private final long usuarioMsb;
+        private final long usuarioLsb;
+        private final long fechaCreacion;
+        private final long fechaActualizacion;
+        private final long total;
+        private final long primerItem;
+        private final long itemIdMsb;
+        private final long itemIdLsb;
+        private final long productoMsb;
+        private final long productoLsb;
+        private final long precioUnitario;
+        private final long indiceIdMsb;
+        private final long indiceIdLsb;
+        private final long indiceUsuarioMsb;
+        private final long indiceUsuarioLsb;
+        private final long cantidad;
+        private final long indiceIdFila;
+        private final long indiceUsuarioFila;
+        private final long estado;
+        private final long tamanoTotal;
+
+        private Disposicion(int filas, int items) {
+            // Columnas de 8 bytes primero, luego las de 4 y al final las de 1 para mantener la alineación
+            long posicion = TAMANO_CABECERA;
+            idMsb = posicion;
+            posicion += 8L * filas;
+            idLsb = posicion;
+            posicion += 8L * filas;
+            usuarioMsb = posicion;
+            posicion += 8L * filas;
+            usuarioLsb = posicion;
+            posicion += 8L * filas;
+            fechaCreacion = posicion;
+            posicion += 8L * filas;
+            fechaActualizacion = posicion;
+            posicion += 8L * filas;
+            total = posicion;
+            posicion += 8L * filas;
+            indiceIdMsb = posicion;
+            posicion += 8L * filas;
+            indiceIdLsb = posicion;
+            posicion += 8L * filas;
+            indiceUsuarioMsb = posicion;
+            posicion += 8L * filas;
+            indiceUsuarioLsb = posicion;
+            posicion += 8L * filas;
+            itemIdMsb = posicion;
+            posicion += 8L * items;
+            itemIdLsb = posicion;
+            posicion += 8L * items;
+            productoMsb = posicion;
+            posicion += 8L * items;
+            productoLsb = posicion;
+            posicion += 8L * items;
+            precioUnitario = posicion;
+            posicion += 8L * items;
+            primerItem = posicion;
+            posicion += 4L * (filas + 1);
+            indiceIdFila = posicion;
+            posicion += 4L * filas;
+            indiceUsuarioFila = posicion;
+            posicion += 4L * filas;
+            cantidad = posicion;
+            posicion += 4L * items;
+            estado = posicion;
+            posicion += filas;
+            tamanoTotal = posicion;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.tienda.infraestructura.durable;
+
+import com.tienda.dominio.CodificadorContrasenas;
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.Producto;
+import com.tienda.dominio.RepositorioOrdenCompra;
+import com.tienda.dominio.RepositorioProducto;
+import com.tienda.dominio.RepositorioUsuario;
+import com.tienda.dominio.Usuario;
+import com.tienda.infraestructura.RepositorioOrdenCompraMemoria;
+import com.tienda.infraestructura.RepositorioProductoMemoria;
+import com.tienda.infraestructura.RepositorioUsuarioMemoria;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Modo durable de los repositorios en memoria. Los repositorios que entrega aplican cada
+ * cambio en memoria y luego lo agregan a un registro de escritura anticipada común, de
+ * modo que el orden entre productos, usuarios y órdenes se conserva. Periódicamente se
+ * escribe un snapshot compacto y se descartan los segmentos del log que cubre.
+ * Al abrir, se carga el último snapshot, se reaplica el resto del log y se reconstruye
+ * el historial de órdenes de cada usuario.
+ */
+public class AlmacenDurable implements AutoCloseable {
+
+    private static final int MAGIA_SNAPSHOT = 0x54534E50;
+    private static final String PREFIJO_SNAPSHOT = "snapshot-";
+    private static final String EXTENSION_SNAPSHOT = ".bin";
+    private static final long BYTES_ENTRE_SNAPSHOTS = 256L * 1024 * 1024;
+
+    private final Path directorio;
+    private final long bytesEntreSnapshots;
+    private final RepositorioProductoMemoria productosMemoria = new RepositorioProductoMemoria();
+    private final RepositorioUsuarioMemoria usuariosMemoria;
+    private final RepositorioOrdenCompraMemoria ordenesMemoria = new RepositorioOrdenCompraMemoria();
+    private final RepositorioProductoDurable repositorioProducto;
+    private final RepositorioUsuarioDurable repositorioUsuario;
+    private final RepositorioOrdenCompraDurable repositorioOrden;
+    private final RegistroEscrituraAnticipada registro;
+    private final ScheduledExecutorService programador;
+    private final Map<UUID, Producto> productosPendientes = new HashMap<>();
+    private final Map<UUID, Usuario> usuariosPendientes = new HashMap<>();
+
+    private final long registrosRecuperados;
+    private final long milisRecuperacion;
+
+    public AlmacenDurable(Path directorio, CodificadorContrasenas codificadorContrasenas) {
+        this(directorio, codificadorContrasenas, true, BYTES_ENTRE_SNAPSHOTS);
+    }
+
+    /**
+     * Abre el almacén recuperando el estado guardado en el directorio
+     * @param directorio directorio de datos
+     * @param codificadorContrasenas codificador con el que el repositorio de usuarios
+     *                               verifica las contraseñas
+     * @param esperarSincronizacion si cada escritura espera el fsync de su lote; sin
+     *                              espera, una caída puede perder las escrituras del
+     *                              último lote todavía no sincronizado
+     * @param bytesEntreSnapshots bytes de log que disparan un nuevo snapshot, o 0 para
+     *                            tomarlos solo de forma explícita
+     */
+    public AlmacenDurable(Path directorio, CodificadorContrasenas codificadorContrasenas,
+                          boolean esperarSincronizacion, long bytesEntreSnapshots) {
+        this.directorio = directorio;
+        this.usuariosMemoria = new RepositorioUsuarioMemoria(codificadorContrasenas);
+        this.bytesEntreSnapshots = bytesEntreSnapshots;
+        long inicio = System.nanoTime();
+        long segmentoInicial;
+        long recuperados;
+        try {
+            Files.createDirectories(directorio);
+            segmentoInicial = ultimoSnapshot();
+            recuperados = cargarSnapshot(segmentoInicial);
+            recuperados += RegistroEscrituraAnticipada.recorrer(directorio, segmentoInicial, this::aplicar);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo recuperar el almacén durable de " + directorio, e);
+        }
+        reconstruirHistoriales();
+        productosPendientes.clear();
+        usuariosPendientes.clear();
+        this.registrosRecuperados = recuperados;
+        this.milisRecuperacion = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+        this.registro = new RegistroEscrituraAnticipada(directorio, segmentoInicial, esperarSincronizacion);
+        this.repositorioProducto = new RepositorioProductoDurable(productosMemoria, registro);
+        this.repositorioUsuario = new RepositorioUsuarioDurable(usuariosMemoria, registro);
+        this.repositorioOrden = new RepositorioOrdenCompraDurable(ordenesMemoria, registro);
+
+        this.programador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "almacen-durable-snapshot");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        if (bytesEntreSnapshots > 0) {
+            programador.scheduleWithFixedDelay(this::tomarSnapshotSiCorresponde, 1, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    public RepositorioProducto getRepositorioProducto() {
+        return repositorioProducto;
+    }
+
+    public RepositorioUsuario getRepositorioUsuario() {
+        return repositorioUsuario;
+    }
+
+    public RepositorioOrdenCompra getRepositorioOrden() {
+        return repositorioOrden;
+    }
+
+    public long getRegistrosRecuperados() {
+        return registrosRecuperados;
+    }
+
+    public long getMilisRecuperacion() {
+        return milisRecuperacion;
+    }
+
+    public long getSincronizaciones() {
+        return registro.getSincronizaciones();
+    }
+
+    /**
+     * Escribe un snapshot del estado actual y elimina el log y los snapshots que cubre.
+     * El log se rota antes de recorrer los repositorios: como cada cambio se aplica en
+     * memoria antes de registrarse, todo lo que quedó en segmentos anteriores es visible
+     * en el recorrido, y lo posterior se reaplica sobre el snapshot al recuperar. Las
+     * órdenes se escriben ordenadas por fecha para que la carga reconstruya los índices
+     * con inserciones contiguas.
+     */
+    public synchronized void tomarSnapshot() {
+        long segmento = registro.rotar();
+        Path definitivo = rutaSnapshot(segmento);
+        Path temporal = definitivo.resolveSibling(definitivo.getFileName() + ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                OutputStream archivo = Channels.newOutputStream(canal);
+                DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(archivo, 1 << 20));
+                salida.writeInt(MAGIA_SNAPSHOT);
+                Iterator<byte[]> registros = Stream.of(
+                        productosMemoria.recorrerTodos().map(CodificadorRegistros::codificarProducto),
+                        usuariosMemoria.obtenerTodos().stream().map(CodificadorRegistros::codificarUsuario),
+                        ordenesMemoria.recorrerPorRangoFechas(LocalDateTime.MIN, LocalDateTime.MAX)
+                                .map(CodificadorRegistros::codificarOrden))
+                        .flatMap(s -> s)
+                        .iterator();
+                while (registros.hasNext()) {
+                    RegistroEscrituraAnticipada.escribirRegistro(salida, registros.next());
+                }
+                salida.flush();
+                canal.force(true);
+            }
+            Files.move(temporal, definitivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            sincronizarDirectorio();
+
+            registro.eliminarSegmentosAnteriores(segmento);
+            for (long anterior : listarSnapshots()) {
+                if (anterior < segmento) {
+                    Files.deleteIfExists(rutaSnapshot(anterior));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el snapshot " + definitivo, e);
+        }
+    }
+
+    /**
+     * Detiene los snapshots periódicos y cierra el log después de sincronizar lo pendiente
+     */
+    @Override
+    public void close() {
+        programador.shutdownNow();
+        try {
+            programador.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        registro.close();
+    }
+
+    private void tomarSnapshotSiCorresponde() {
+        try {
+            if (registro.getBytesSegmentoActual() >= bytesEntreSnapshots) {
+                tomarSnapshot();
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error al tomar el snapshot del almacén durable: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica un registro del snapshot o del log sobre los repositorios en memoria.
+     * Una orden puede aparecer antes que el producto o usuario que referencia (por
+     * escrituras concurrentes o por el recorrido del snapshot); en ese caso se usa una
+     * instancia provisoria que el registro posterior completa en el lugar.
+     * @param contenido contenido del registro
+     */
+    private void aplicar(byte[] contenido) {
+        try {
+            DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(contenido));
+            byte tipo = entrada.readByte();
+            switch (tipo) {
+                case CodificadorRegistros.PRODUCTO:
+                    productosMemoria.guardar(CodificadorRegistros.leerProducto(entrada, this::buscarProducto));
+                    break;
+                case CodificadorRegistros.USUARIO:
+                    usuariosMemoria.guardar(CodificadorRegistros.leerUsuario(entrada, this::buscarUsuario));
+                    break;
+                case CodificadorRegistros.ORDEN:
+                case CodificadorRegistros.ORDEN_DECIMAL:
+                    ordenesMemoria.guardar(CodificadorRegistros.leerOrden(entrada, tipo,
+                            id -> ordenesMemoria.buscarPorId(id).orElse(null),
+                            this::resolverUsuario,
+                            this::resolverProducto));
+                    break;
+                case CodificadorRegistros.ORDEN_ELIMINADA:
+                    ordenesMemoria.eliminar(CodificadorRegistros.leerUuid(entrada));
+                    break;
+                default:
+                    throw new IllegalStateException("Tipo de registro desconocido: " + tipo);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Registro ilegible en " + directorio, e);
+        }
+    }
+
+    private Producto buscarProducto(UUID id) {
+        Producto producto = productosPendientes.remove(id);
+        return producto != null ? producto : productosMemoria.buscarPorId(id).orElse(null);
+    }
+
+    private Usuario buscarUsuario(UUID id) {
+        Usuario usuario = usuariosPendientes.remove(id);
+        return usuario != null ? usuario : usuariosMemoria.buscarPorId(id).orElse(null);
+    }
+
+    private Producto resolverProducto(UUID id) {
+        return productosMemoria.buscarPorId(id).orElseGet(() -> productosPendientes.computeIfAbsent(id, clave -> {
+            // Su registro llega más adelante y completa nombre, precio y stock; mientras tanto
+            // el item de la orden conserva su propio precio unitario
+            Producto provisorio = new Producto();
+            provisorio.setId(clave);
+            provisorio.setPrecio(BigDecimal.ZERO);
+            return provisorio;
+        }));
+    }
+
+    private Usuario resolverUsuario(UUID id) {
+        return usuariosMemoria.buscarPorId(id).orElseGet(() -> usuariosPendientes.computeIfAbsent(id, clave -> {
+            Usuario provisorio = new Usuario();
+            provisorio.setId(clave);
+            return provisorio;
+        }));
+    }
+
+    private long cargarSnapshot(long segmento) throws IOException {
+        if (segmento == 0) {
+            return 0;
+        }
+        Path ruta = rutaSnapshot(segmento);
+        long registros = 0;
+        try (InputStream archivo = Files.newInputStream(ruta);
+             DataInputStream entrada = new DataInputStream(new BufferedInputStream(archivo, 1 << 20))) {
+            if (entrada.readInt() != MAGIA_SNAPSHOT) {
+                throw new IllegalStateException("Snapshot con formato desconocido: " + ruta);
+            }
+            long leidos = Integer.BYTES;
+            byte[] contenido;
+            while ((contenido = RegistroEscrituraAnticipada.leerRegistro(entrada)) != null) {
+                aplicar(contenido);
+                leidos += 2 * Integer.BYTES + contenido.length;
+                registros++;
+            }
+            if (leidos != Files.size(ruta)) {
+                throw new IllegalStateException("Snapshot corrupto: " + ruta);
+            }
+        }
+        return registros;
+    }
+
+    /**
+     * Reconstruye el historial de órdenes de los usuarios, que no se persiste
+     */
+    private void reconstruirHistoriales() {
+        // El índice por fecha entrega las órdenes de la más reciente a la más antigua
+        List<OrdenCompra> ordenes = ordenesMemoria.obtenerPorRangoFechas(LocalDateTime.MIN, LocalDateTime.MAX);
+        for (int i = ordenes.size() - 1; i >= 0; i--) {
+            OrdenCompra orden = ordenes.get(i);
+            if (orden.getUsuario() != null) {
+                orden.getUsuario().agregarOrdenAlHistorial(orden);
+            }
+        }
+    }
+
+    private long ultimoSnapshot() throws IOException {
+        List<Long> snapshots = listarSnapshots();
+        return snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+    }
+
+    private List<Long> listarSnapshots() throws IOException {
+        List<Long> snapshots = new ArrayList<>();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.map(ruta -> ruta.getFileName().toString())
+                    .filter(nombre -> nombre.startsWith(PREFIJO_SNAPSHOT) && nombre.endsWith(EXTENSION_SNAPSHOT))
+                    .forEach(nombre -> snapshots.add(Long.parseLong(nombre.substring(
+                            PREFIJO_SNAPSHOT.length(), nombre.length() - EXTENSION_SNAPSHOT.length()))));
+        }
+        snapshots.sort(null);
+        return snapshots;
+    }
+
+    private Path rutaSnapshot(long segmento) {
+        return directorio.resolve(String.format("%s%020d%s", PREFIJO_SNAPSHOT, segmento, EXTENSION_SNAPSHOT));
+    }
+
+    private void sincronizarDirectorio() {
+        // Persiste el renombrado; no todos los sistemas permiten abrir un directorio
+        try (FileChannel canal = FileChannel.open(directorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // El renombrado atómico ya ocurrió; solo se pierde la garantía ante un corte de energía
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.tienda.infraestructura.durable;
+
+import com.tienda.compartido.Dinero;
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.Producto;
+import com.tienda.dominio.Usuario;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Codificación binaria de las entidades que se escriben en el registro de escritura
+ * anticipada y en los snapshots. Cada registro empieza con un byte de tipo y lleva el
+ * estado completo de la entidad, de modo que reaplicarlo es idempotente.
+ */
+final class CodificadorRegistros {
+
+    static final byte PRODUCTO = 1;
+    static final byte USUARIO = 2;
+    /** Orden con montos decimales, anterior a {@link #ORDEN}; solo se lee */
+    static final byte ORDEN_DECIMAL = 3;
+    static final byte ORDEN_ELIMINADA = 4;
+    /** Orden con montos en unidades menores y moneda */
+    static final byte ORDEN = 5;
+
+    private CodificadorRegistros() {
+    }
+
+    static byte[] codificarProducto(Producto producto) {
+        return codificar(PRODUCTO, salida -> {
+            escribirUuid(salida, producto.getId());
+            escribirTexto(salida, producto.getNombre());
+            escribirTexto(salida, producto.getDescripcion());
+            escribirDecimal(salida, producto.getPrecio());
+            salida.writeInt(producto.getStockDisponible());
+            salida.writeBoolean(producto.isActivo());
+        });
+    }
+
+    static byte[] codificarUsuario(Usuario usuario) {
+        return codificar(USUARIO, salida -> {
+            escribirUuid(salida, usuario.getId());
+            escribirTexto(salida, usuario.getNombre());
+            escribirTexto(salida, usuario.getEmail());
+            escribirTexto(salida, usuario.getPassword());
+            escribirTexto(salida, usuario.getTelefono());
+            escribirTexto(salida, usuario.getTelegramId());
+            salida.writeBoolean(usuario.isActivo());
+        });
+    }
+
+    static byte[] codificarOrden(OrdenCompra orden) {
+        return codificar(ORDEN, salida -> {
+            escribirUuid(salida, orden.getId());
+            escribirUuid(salida, orden.getUsuario() != null ? orden.getUsuario().getId() : null);
+            salida.writeUTF(orden.getEstado().name());
+            escribirFecha(salida, orden.getFechaCreacion());
+            escribirFecha(salida, orden.getFechaActualizacion());
+            escribirDinero(salida, orden.getTotal());
+            List<ItemOrden> items = orden.getItems();
+            salida.writeInt(items.size());
+            for (ItemOrden item : items) {
+                escribirUuid(salida, item.getId());
+                escribirUuid(salida, item.getProducto().getId());
+                salida.writeInt(item.getCantidad());
+                escribirDinero(salida, item.getPrecioUnitario());
+            }
+        });
+    }
+
+    static byte[] codificarOrdenEliminada(UUID id) {
+        return codificar(ORDEN_ELIMINADA, salida -> escribirUuid(salida, id));
+    }
+
+    /**
+     * Lee un producto sobre una instancia existente o nueva
+     * @param entrada datos posicionados después del byte de tipo
+     * @param buscar resuelve la instancia actual del producto, o null si no existe
+     * @return producto con el estado leído
+     */
+    static Producto leerProducto(DataInput entrada, Function<UUID, Producto> buscar) throws IOException {
+        UUID id = leerUuid(entrada);
+        Producto producto = buscar.apply(id);
+        if (producto == null) {
+            producto = new Producto();
+            producto.setId(id);
+        }
+        producto.setNombre(leerTexto(entrada));
+        producto.setDescripcion(leerTexto(entrada));
+        producto.setPrecio(leerDecimal(entrada));
+        producto.setStockDisponible(entrada.readInt());
+        producto.setActivo(entrada.readBoolean());
+        return producto;
+    }
+
+    /**
+     * Lee un usuario sobre una instancia existente o nueva
+     * @param entrada datos posicionados después del byte de tipo
+     * @param buscar resuelve la instancia actual del usuario, o null si no existe
+     * @return usuario con el estado leído
+     */
+    static Usuario leerUsuario(DataInput entrada, Function<UUID, Usuario> buscar) throws IOException {
+        UUID id = leerUuid(entrada);
+        Usuario usuario = buscar.apply(id);
+        if (usuario == null) {
+            usuario = new Usuario();
+            usuario.setId(id);
+        }
+        usuario.setNombre(leerTexto(entrada));
+        usuario.setEmail(leerTexto(entrada));
+        usuario.setPassword(leerTexto(entrada));
+        usuario.setTelefono(leerTexto(entrada));
+        usuario.setTelegramId(leerTexto(entrada));
+        usuario.setActivo(entrada.readBoolean());
+        return usuario;
+    }
+
+    /**
+     * Lee una orden resolviendo su usuario y sus productos ya recuperados
+     * @param entrada datos posicionados después del byte de tipo
+     * @param tipo tipo del registro, {@link #ORDEN} u {@link #ORDEN_DECIMAL}
+     * @param buscarOrden resuelve la instancia actual de la orden, o null si no existe
+     * @param buscarUsuario resuelve usuarios por ID
+     * @param buscarProducto resuelve productos por ID
+     * @return orden con el estado leído
+     */
+    static OrdenCompra leerOrden(DataInput entrada, byte tipo,
+                                 Function<UUID, OrdenCompra> buscarOrden,
+                                 Function<UUID, Usuario> buscarUsuario,
+                                 Function<UUID, Producto> buscarProducto) throws IOException {
+        UUID id = leerUuid(entrada);
+        UUID usuarioId = leerUuid(entrada);
+        OrdenCompra.EstadoOrden estado = OrdenCompra.EstadoOrden.valueOf(entrada.readUTF());
+        LocalDateTime fechaCreacion = leerFecha(entrada);
+        LocalDateTime fechaActualizacion = leerFecha(entrada);
+        Dinero total = leerMonto(entrada, tipo);
+        
+        int cantidadItems = entrada.readInt();
+        List<ItemOrden> items = new ArrayList<>(cantidadItems);
+        for (int i = 0; i < cantidadItems; i++) {
+            UUID itemId = leerUuid(entrada);
+            UUID productoId = leerUuid(entrada);
+            Producto producto = buscarProducto.apply(productoId);
+            if (producto == null) {
+                throw new IllegalStateException("La orden " + id + " referencia un producto inexistente: " + productoId);
+            }
+            ItemOrden item = new ItemOrden();
+            item.setId(itemId);
+            item.setProducto(producto);
+            item.setCantidad(entrada.readInt());
+            item.setPrecioUnitario(leerMonto(entrada, tipo));
+            items.add(item);
+        }
+        
+        OrdenCompra orden = buscarOrden.apply(id);
+        if (orden == null) {
+            orden = new OrdenCompra();
+            orden.setId(id);
+        }
+        orden.setUsuario(usuarioId != null ? buscarUsuario.apply(usuarioId) : null);
+        // Los items de una orden ya guardada no cambian; solo se asignan la primera vez
+        if (!orden.tieneItemsCongelados()) {
+            orden.setItems(items);
+        }
+        orden.setTotal(total);
+        orden.setEstado(estado);
+        orden.setFechaCreacion(fechaCreacion);
+        orden.setFechaActualizacion(fechaActualizacion);
+        return orden;
+    }
+
+    static UUID leerUuid(DataInput entrada) throws IOException {
+        if (!entrada.readBoolean()) {
+            return null;
+        }
+        return new UUID(entrada.readLong(), entrada.readLong());
+    }
+
+    private static byte[] codificar(byte tipo, Escritura escritura) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream salida = new DataOutputStream(bytes);
+        try {
+            salida.writeByte(tipo);
+            escritura.escribir(salida);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void escribirUuid(DataOutput salida, UUID id) throws IOException {
+        salida.writeBoolean(id != null);
+        if (id != null) {
+            salida.writeLong(id.getMostSignificantBits());
+            salida.writeLong(id.getLeastSignificantBits());
+        }
+    }
+
+    private static void escribirTexto(DataOutput salida, String texto) throws IOException {
+        if (texto == null) {
+            salida.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        salida.writeInt(bytes.length);
+        salida.write(bytes);
+    }
+
+    private static String leerTexto(DataInput entrada) throws IOException {
+        int longitud = entrada.readInt();
+        if (longitud < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[longitud];
+        entrada.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void escribirDecimal(DataOutput salida, BigDecimal valor) throws IOException {
+        if (valor == null) {
+            salida.writeInt(-1);
+            return;
+        }
+        byte[] sinEscala = valor.unscaledValue().toByteArray();
+        salida.writeInt(sinEscala.length);
+        salida.write(sinEscala);
+        salida.writeInt(valor.scale());
+    }
+
+    private static BigDecimal leerDecimal(DataInput entrada) throws IOException {
+        int longitud = entrada.readInt();
+        if (longitud < 0) {
+            return null;
+        }
+        byte[] sinEscala = new byte[longitud];
+        entrada.readFully(sinEscala);
+        return new BigDecimal(new BigInteger(sinEscala), entrada.readInt());
+    }
+
+    private static void escribirDinero(DataOutput salida, Dinero valor) throws IOException {
+        salida.writeUTF(valor.getMoneda().getCurrencyCode());
+        salida.writeLong(valor.getUnidadesMenores());
+    }
+
+    private static Dinero leerMonto(DataInput entrada, byte tipo) throws IOException {
+        if (tipo == ORDEN_DECIMAL) {
+            BigDecimal valor = leerDecimal(entrada);
+            return valor != null ? Dinero.de(valor) : Dinero.CERO;
+        }
+        Currency moneda = Currency.getInstance(entrada.readUTF());
+        return Dinero.deUnidadesMenores(entrada.readLong(), moneda);
+    }
+
+    private static void escribirFecha(DataOutput salida, LocalDateTime fecha) throws IOException {
+        salida.writeBoolean(fecha != null);
+        if (fecha != null) {
+            salida.writeLong(fecha.toEpochSecond(ZoneOffset.UTC));
+            salida.writeInt(fecha.getNano());
+        }
+    }
+
+    private static LocalDateTime leerFecha(DataInput entrada) throws IOException {
+        if (!entrada.readBoolean()) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(entrada.readLong(), entrada.readInt(), ZoneOffset.UTC);
+    }
+
+    @FunctionalInterface
+    private interface Escritura {
+        void escribir(DataOutput salida) throws IOException;
+    }
+}
@@ -0,0 +1,387 @@
+package com.tienda.infraestructura.durable;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Registro de escritura anticipada (WAL) de solo agregado, dividido en segmentos.
+ * Cada registro se escribe como [longitud][crc32][contenido]. Los escritores solo copian
+ * el registro a un buffer en memoria; un único hilo sincronizador escribe todo lo
+ * acumulado y hace un solo fsync por lote (group commit). Con espera de sincronización,
+ * {@link #agregar(byte[])} retorna cuando el lote que contiene al registro ya está en disco.
+ */
+public class RegistroEscrituraAnticipada implements AutoCloseable {
+
+    private static final String PREFIJO_SEGMENTO = "wal-";
+    private static final String EXTENSION_SEGMENTO = ".log";
+    private static final int TAMANO_CABECERA = 8;
+    private static final int TAMANO_MAXIMO_REGISTRO = 64 * 1024 * 1024;
+
+    private final Path directorio;
+    private final boolean esperarSincronizacion;
+
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private final Condition hayPendientes = cerrojo.newCondition();
+    private final Condition sincronizado = cerrojo.newCondition();
+    private ByteBuffer pendiente = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer enEscritura = ByteBuffer.allocate(1 << 16);
+    private long secuenciaAsignada;
+    private long secuenciaSincronizada;
+    private boolean rotacionSolicitada;
+    private boolean abierto = true;
+    private IOException fallo;
+
+    private FileChannel canal;
+    private volatile long segmentoActual;
+    private final AtomicLong bytesSegmentoActual = new AtomicLong();
+    private final AtomicLong sincronizaciones = new AtomicLong();
+    private final AtomicLong registrosEscritos = new AtomicLong();
+    private final Thread sincronizador;
+
+    /**
+     * Abre el registro escribiendo en un segmento nuevo posterior a los existentes
+     * @param directorio directorio de los segmentos
+     * @param segmentoInicial número mínimo del segmento nuevo
+     * @param esperarSincronizacion si los escritores esperan el fsync de su registro
+     */
+    public RegistroEscrituraAnticipada(Path directorio, long segmentoInicial, boolean esperarSincronizacion) {
+        this.directorio = directorio;
+        this.esperarSincronizacion = esperarSincronizacion;
+        try {
+            Files.createDirectories(directorio);
+            long siguiente = segmentoInicial;
+            for (long segmento : listarSegmentos(directorio)) {
+                siguiente = Math.max(siguiente, segmento + 1);
+            }
+            abrirSegmento(siguiente);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el registro de escritura anticipada", e);
+        }
+        this.sincronizador = new Thread(this::sincronizar, "wal-sincronizador");
+        this.sincronizador.setDaemon(true);
+        this.sincronizador.start();
+    }
+
+    /**
+     * Agrega un registro al final del log
+     * @param registro contenido del registro
+     */
+    public void agregar(byte[] registro) {
+        if (registro.length > TAMANO_MAXIMO_REGISTRO) {
+            throw new IllegalArgumentException("El registro excede el tamaño máximo: " + registro.length);
+        }
+        int crc = calcularCrc(registro);
+        long secuencia;
+        cerrojo.lock();
+        try {
+            verificarEstado();
+            asegurarCapacidad(TAMANO_CABECERA + registro.length);
+            boolean estabaVacio = pendiente.position() == 0;
+            pendiente.putInt(registro.length).putInt(crc).put(registro);
+            secuencia = ++secuenciaAsignada;
+            if (estabaVacio) {
+                hayPendientes.signal();
+            }
+            if (!esperarSincronizacion) {
+                return;
+            }
+            while (secuenciaSincronizada < secuencia) {
+                verificarEstado();
+                sincronizado.awaitUninterruptibly();
+            }
+            verificarEstado();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Cierra el segmento actual y empieza uno nuevo. Todo registro agregado antes de la
+     * llamada queda en un segmento anterior al retornado.
+     * @return número del nuevo segmento
+     */
+    public long rotar() {
+        cerrojo.lock();
+        try {
+            verificarEstado();
+            long objetivo = segmentoActual + 1;
+            rotacionSolicitada = true;
+            hayPendientes.signal();
+            while (segmentoActual < objetivo) {
+                verificarEstado();
+                sincronizado.awaitUninterruptibly();
+            }
+            return segmentoActual;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Elimina los segmentos anteriores a uno dado, ya cubiertos por un snapshot
+     * @param segmento primer segmento a conservar
+     */
+    public void eliminarSegmentosAnteriores(long segmento) throws IOException {
+        for (long existente : listarSegmentos(directorio)) {
+            if (existente < segmento) {
+                Files.deleteIfExists(rutaSegmento(directorio, existente));
+            }
+        }
+    }
+
+    public long getSegmentoActual() {
+        return segmentoActual;
+    }
+
+    public long getBytesSegmentoActual() {
+        return bytesSegmentoActual.get();
+    }
+
+    public long getSincronizaciones() {
+        return sincronizaciones.get();
+    }
+
+    public long getRegistrosEscritos() {
+        return registrosEscritos.get();
+    }
+
+    /**
+     * Cierra el registro después de escribir y sincronizar lo pendiente
+     */
+    @Override
+    public void close() {
+        cerrojo.lock();
+        try {
+            if (!abierto) {
+                return;
+            }
+            abierto = false;
+            hayPendientes.signal();
+        } finally {
+            cerrojo.unlock();
+        }
+        try {
+            sincronizador.join(TimeUnit.SECONDS.toMillis(30));
+            canal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo cerrar el registro de escritura anticipada", e);
+        }
+    }
+
+    /**
+     * Bucle del hilo sincronizador: toma todo lo acumulado, lo escribe y hace fsync
+     */
+    private void sincronizar() {
+        while (true) {
+            long hasta;
+            boolean rotar;
+            cerrojo.lock();
+            try {
+                while (pendiente.position() == 0 && !rotacionSolicitada && abierto) {
+                    hayPendientes.awaitUninterruptibly();
+                }
+                if (pendiente.position() == 0 && !rotacionSolicitada) {
+                    return;
+                }
+                ByteBuffer lote = pendiente;
+                pendiente = enEscritura;
+                enEscritura = lote;
+                hasta = secuenciaAsignada;
+                rotar = rotacionSolicitada;
+                rotacionSolicitada = false;
+            } finally {
+                cerrojo.unlock();
+            }
+
+            IOException error = null;
+            try {
+                enEscritura.flip();
+                int bytes = enEscritura.remaining();
+                while (enEscritura.hasRemaining()) {
+                    canal.write(enEscritura);
+                }
+                enEscritura.clear();
+                canal.force(false);
+                sincronizaciones.incrementAndGet();
+                bytesSegmentoActual.addAndGet(bytes);
+                if (rotar) {
+                    canal.close();
+                    abrirSegmento(segmentoActual + 1);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+
+            cerrojo.lock();
+            try {
+                if (error != null) {
+                    fallo = error;
+                } else {
+                    registrosEscritos.addAndGet(hasta - secuenciaSincronizada);
+                    secuenciaSincronizada = hasta;
+                }
+                sincronizado.signalAll();
+                if (error != null) {
+                    return;
+                }
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+    }
+
+    private void abrirSegmento(long segmento) throws IOException {
+        canal = FileChannel.open(rutaSegmento(directorio, segmento),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        bytesSegmentoActual.set(canal.size());
+        segmentoActual = segmento;
+    }
+
+    private void asegurarCapacidad(int requerido) {
+        if (pendiente.remaining() >= requerido) {
+            return;
+        }
+        int capacidad = pendiente.capacity();
+        while (capacidad - pendiente.position() < requerido) {
+            capacidad *= 2;
+        }
+        ByteBuffer ampliado = ByteBuffer.allocate(capacidad);
+        pendiente.flip();
+        ampliado.put(pendiente);
+        pendiente = ampliado;
+    }
+
+    private void verificarEstado() {
+        if (fallo != null) {
+            throw new UncheckedIOException("El registro de escritura anticipada falló", fallo);
+        }
+        if (!abierto) {
+            throw new IllegalStateException("El registro de escritura anticipada está cerrado");
+        }
+    }
+
+    /**
+     * Escribe un registro con su cabecera en una salida de datos (usado por los snapshots)
+     * @param salida salida de datos
+     * @param registro contenido del registro
+     */
+    static void escribirRegistro(DataOutput salida, byte[] registro) throws IOException {
+        salida.writeInt(registro.length);
+        salida.writeInt(calcularCrc(registro));
+        salida.write(registro);
+    }
+
+    /**
+     * Lee el siguiente registro con su cabecera
+     * @param entrada entrada de datos
+     * @return contenido del registro, o null si la entrada terminó o el registro está
+     *         incompleto o corrupto
+     */
+    static byte[] leerRegistro(DataInputStream entrada) throws IOException {
+        try {
+            int longitud = entrada.readInt();
+            int crc = entrada.readInt();
+            if (longitud < 0 || longitud > TAMANO_MAXIMO_REGISTRO) {
+                return null;
+            }
+            byte[] registro = new byte[longitud];
+            entrada.readFully(registro);
+            return calcularCrc(registro) == crc ? registro : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Recorre los registros de los segmentos a partir de uno dado, en orden. Un registro
+     * incompleto o corrupto al final del último segmento con datos se considera una
+     * escritura interrumpida y se trunca; en cualquier otro lugar es un error.
+     * @param directorio directorio de los segmentos
+     * @param desdeSegmento primer segmento a recorrer
+     * @param consumidor recibe el contenido de cada registro
+     * @return cantidad de registros recorridos
+     */
+    static long recorrer(Path directorio, long desdeSegmento, Consumer<byte[]> consumidor) throws IOException {
+        List<Long> segmentos = new ArrayList<>();
+        for (long segmento : listarSegmentos(directorio)) {
+            Path ruta = rutaSegmento(directorio, segmento);
+            if (Files.size(ruta) == 0) {
+                Files.delete(ruta);
+            } else if (segmento >= desdeSegmento) {
+                segmentos.add(segmento);
+            }
+        }
+
+        long registros = 0;
+        for (int i = 0; i < segmentos.size(); i++) {
+            Path ruta = rutaSegmento(directorio, segmentos.get(i));
+            long tamano = Files.size(ruta);
+            long validos = 0;
+            try (InputStream archivo = Files.newInputStream(ruta);
+                 DataInputStream entrada = new DataInputStream(new BufferedInputStream(archivo, 1 << 20))) {
+                byte[] registro;
+                while ((registro = leerRegistro(entrada)) != null) {
+                    consumidor.accept(registro);
+                    validos += TAMANO_CABECERA + registro.length;
+                    registros++;
+                }
+            }
+            if (validos < tamano) {
+                if (i < segmentos.size() - 1) {
+                    throw new IllegalStateException("Registro corrupto en " + ruta + " en la posición " + validos);
+                }
+                try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.WRITE)) {
+                    canal.truncate(validos);
+                    canal.force(true);
+                }
+            }
+        }
+        return registros;
+    }
+
+    static List<Long> listarSegmentos(Path directorio) throws IOException {
+        List<Long> segmentos = new ArrayList<>();
+        if (!Files.isDirectory(directorio)) {
+            return segmentos;
+        }
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.map(ruta -> ruta.getFileName().toString())
+                    .filter(nombre -> nombre.startsWith(PREFIJO_SEGMENTO) && nombre.endsWith(EXTENSION_SEGMENTO))
+                    .forEach(nombre -> segmentos.add(Long.parseLong(nombre.substring(
+                            PREFIJO_SEGMENTO.length(), nombre.length() - EXTENSION_SEGMENTO.length()))));
+        }
+        segmentos.sort(null);
+        return segmentos;
+    }
+
+    private static Path rutaSegmento(Path directorio, long segmento) {
+        return directorio.resolve(String.format("%s%020d%s", PREFIJO_SEGMENTO, segmento, EXTENSION_SEGMENTO));
+    }
+
+    private static int calcularCrc(byte[] registro) {
+        CRC32 crc = new CRC32();
+        crc.update(registro, 0, registro.length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,93 @@
+package com.tienda.infraestructura.durable;
+
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.Pagina;
+import com.tienda.dominio.RepositorioOrdenCompra;
+import com.tienda.infraestructura.RepositorioOrdenCompraMemoria;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Repositorio de órdenes en memoria cuyos cambios se registran en el log durable
+ */
+public class RepositorioOrdenCompraDurable implements RepositorioOrdenCompra {
+
+    private final RepositorioOrdenCompraMemoria delegado;
+    private final RegistroEscrituraAnticipada registro;
+
+    RepositorioOrdenCompraDurable(RepositorioOrdenCompraMemoria delegado, RegistroEscrituraAnticipada registro) {
+        this.delegado = delegado;
+        this.registro = registro;
+    }
+
+    @Override
+    public OrdenCompra guardar(OrdenCompra orden) {
+        OrdenCompra guardada = delegado.guardar(orden);
+        registro.agregar(CodificadorRegistros.codificarOrden(guardada));
+        return guardada;
+    }
+
+    @Override
+    public Optional<OrdenCompra> buscarPorId(UUID id) {
+        return delegado.buscarPorId(id);
+    }
+
+    @Override
+    public List<OrdenCompra> obtenerPorUsuario(UUID usuarioId) {
+        return delegado.obtenerPorUsuario(usuarioId);
+    }
+
+    @Override
+    public List<OrdenCompra> obtenerTodas() {
+        return delegado.obtenerTodas();
+    }
+
+    @Override
+    public List<OrdenCompra> obtenerPorEstado(OrdenCompra.EstadoOrden estado) {
+        return delegado.obtenerPorEstado(estado);
+    }
+
+    @Override
+    public List<OrdenCompra> obtenerPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        return delegado.obtenerPorRangoFechas(fechaInicio, fechaFin);
+    }
+
+    @Override
+    public Pagina<OrdenCompra> obtenerPagina(String cursor, int tamano) {
+        return delegado.obtenerPagina(cursor, tamano);
+    }
+
+    @Override
+    public Pagina<OrdenCompra> obtenerPaginaPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin,
+                                                           String cursor, int tamano) {
+        return delegado.obtenerPaginaPorRangoFechas(fechaInicio, fechaFin, cursor, tamano);
+    }
+
+    @Override
+    public Stream<OrdenCompra> recorrerTodas() {
+        return delegado.recorrerTodas();
+    }
+
+    @Override
+    public Stream<OrdenCompra> recorrerPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+        return delegado.recorrerPorRangoFechas(fechaInicio, fechaFin);
+    }
+
+    @Override
+    public boolean eliminar(UUID id) {
+        if (!delegado.eliminar(id)) {
+            return false;
+        }
+        registro.agregar(CodificadorRegistros.codificarOrdenEliminada(id));
+        return true;
+    }
+
+    @Override
+    public boolean existe(UUID id) {
+        return delegado.existe(id);
+    }
+}
@@ -0,0 +1,82 @@
+package com.tienda.infraestructura.durable;
+
+import com.tienda.dominio.Pagina;
+import com.tienda.dominio.Producto;
+import com.tienda.dominio.RepositorioProducto;
+import com.tienda.infraestructura.RepositorioProductoMemoria;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Repositorio de productos en memoria cuyos cambios se registran en el log durable
+ */
+public class RepositorioProductoDurable implements RepositorioProducto {
+
+    private final RepositorioProductoMemoria delegado;
+    private final RegistroEscrituraAnticipada registro;
+
+    RepositorioProductoDurable(RepositorioProductoMemoria delegado, RegistroEscrituraAnticipada registro) {
+        this.delegado = delegado;
+        this.registro = registro;
+    }
+
+    @Override
+    public Producto guardar(Producto producto) {
+        Producto guardado = delegado.guardar(producto);
+        registro.agregar(CodificadorRegistros.codificarProducto(guardado));
+        return guardado;
+    }
+
+    @Override
+    public Optional<Producto> buscarPorId(UUID id) {
+        return delegado.buscarPorId(id);
+    }
+
+    @Override
+    public List<Producto> obtenerTodosActivos() {
+        return delegado.obtenerTodosActivos();
+    }
+
+    @Override
+    public List<Producto> obtenerTodos() {
+        return delegado.obtenerTodos();
+    }
+
+    @Override
+    public Pagina<Producto> obtenerPaginaActivos(String cursor, int tamano) {
+        return delegado.obtenerPaginaActivos(cursor, tamano);
+    }
+
+    @Override
+    public Stream<Producto> recorrerTodos() {
+        return delegado.recorrerTodos();
+    }
+
+    @Override
+    public Stream<Producto> recorrerActivos() {
+        return delegado.recorrerActivos();
+    }
+
+    @Override
+    public boolean eliminar(UUID id) {
+        if (!delegado.eliminar(id)) {
+            return false;
+        }
+        delegado.buscarPorId(id).ifPresent(producto ->
+                registro.agregar(CodificadorRegistros.codificarProducto(producto)));
+        return true;
+    }
+
+    @Override
+    public boolean existe(UUID id) {
+        return delegado.existe(id);
+    }
+
+    @Override
+    public List<Producto> buscarPorNombre(String nombre) {
+        return delegado.buscarPorNombre(nombre);
+    }
+}
@@ -0,0 +1,75 @@
+package com.tienda.infraestructura.durable;
+
+import com.tienda.dominio.RepositorioUsuario;
+import com.tienda.dominio.Usuario;
+import com.tienda.infraestructura.RepositorioUsuarioMemoria;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Repositorio de usuarios en memoria cuyos cambios se registran en el log durable
+ */
+public class RepositorioUsuarioDurable implements RepositorioUsuario {
+
+    private final RepositorioUsuarioMemoria delegado;
+    private final RegistroEscrituraAnticipada registro;
+
+    RepositorioUsuarioDurable(RepositorioUsuarioMemoria delegado, RegistroEscrituraAnticipada registro) {
+        this.delegado = delegado;
+        this.registro = registro;
+    }
+
+    @Override
+    public Usuario guardar(Usuario usuario) {
+        Usuario guardado = delegado.guardar(usuario);
+        registro.agregar(CodificadorRegistros.codificarUsuario(guardado));
+        return guardado;
+    }
+
+    @Override
+    public Optional<Usuario> buscarPorId(UUID id) {
+        return delegado.buscarPorId(id);
+    }
+
+    @Override
+    public Optional<Usuario> buscarPorEmail(String email) {
+        return delegado.buscarPorEmail(email);
+    }
+
+    @Override
+    public List<Usuario> obtenerTodosActivos() {
+        return delegado.obtenerTodosActivos();
+    }
+
+    @Override
+    public List<Usuario> obtenerTodos() {
+        return delegado.obtenerTodos();
+    }
+
+    @Override
+    public boolean eliminar(UUID id) {
+        if (!delegado.eliminar(id)) {
+            return false;
+        }
+        delegado.buscarPorId(id).ifPresent(usuario ->
+                registro.agregar(CodificadorRegistros.codificarUsuario(usuario)));
+        return true;
+    }
+
+    @Override
+    public boolean existe(UUID id) {
+        return delegado.existe(id);
+    }
+
+    @Override
+    public boolean existePorEmail(String email) {
+        return delegado.existePorEmail(email);
+    }
+
+    @Override
+    public Optional<Usuario> autenticar(String email, String password) {
+        return delegado.autenticar(email, password);
+    }
+}
@@ -0,0 +1,75 @@
+package com.tienda.infraestructura.envio;
+
+/**
+ * Cubo de tokens (token bucket): se recarga a una tasa constante hasta su capacidad y
+ * cada envío consume un token, de modo que admite ráfagas de hasta la capacidad y en
+ * promedio la tasa configurada. No es seguro entre hilos; el planificador lo usa bajo
+ * su propio candado.
+ */
+final class CuboTokens {
+
+    private static final long NANOS_POR_SEGUNDO = 1_000_000_000L;
+
+    private final double tokensPorNano;
+    private final double capacidad;
+    private double tokens;
+    private long ultimaRecargaNanos;
+
+    CuboTokens(double tokensPorSegundo, int capacidad, long ahoraNanos) {
+        if (tokensPorSegundo <= 0 || capacidad < 1) {
+            throw new IllegalArgumentException("La tasa y la capacidad del cubo de tokens deben ser mayores a cero");
+        }
+        this.tokensPorNano = tokensPorSegundo / NANOS_POR_SEGUNDO;
+        this.capacidad = capacidad;
+        this.tokens = capacidad;
+        this.ultimaRecargaNanos = ahoraNanos;
+    }
+
+    /**
+     * Calcula cuánto falta para que haya un token disponible
+     * @param ahoraNanos instante actual de {@link System#nanoTime()}
+     * @return espera en nanosegundos; 0 si ya hay un token
+     */
+    long esperaNanos(long ahoraNanos) {
+        recargar(ahoraNanos);
+        if (tokens >= 1) {
+            return 0;
+        }
+        // Durante una suspensión la última recarga queda en el futuro
+        long hastaRecarga = Math.max(0, ultimaRecargaNanos - ahoraNanos);
+        return hastaRecarga + (long) Math.ceil((1 - tokens) / tokensPorNano);
+    }
+
+    /**
+     * Consume un token; debe llamarse solo tras {@link #esperaNanos(long)} igual a 0
+     */
+    void tomar() {
+        tokens -= 1;
+    }
+
+    /**
+     * Vacía el cubo y detiene la recarga hasta el instante indicado, por ejemplo tras
+     * un rechazo por límite del proveedor
+     * @param hastaNanos instante de {@link System#nanoTime()} en que vuelve a recargarse
+     */
+    void suspenderHasta(long hastaNanos) {
+        tokens = 0;
+        ultimaRecargaNanos = Math.max(ultimaRecargaNanos, hastaNanos);
+    }
+
+    /**
+     * Indica si el cubo está lleno, es decir, si olvidarlo no cambia ningún límite
+     */
+    boolean estaLleno(long ahoraNanos) {
+        recargar(ahoraNanos);
+        return tokens >= capacidad;
+    }
+
+    private void recargar(long ahoraNanos) {
+        long transcurrido = ahoraNanos - ultimaRecargaNanos;
+        if (transcurrido > 0) {
+            tokens = Math.min(capacidad, tokens + transcurrido * tokensPorNano);
+            ultimaRecargaNanos = ahoraNanos;
+        }
+    }
+}
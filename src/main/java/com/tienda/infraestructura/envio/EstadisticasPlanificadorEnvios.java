@@ -0,0 +1,105 @@
+package com.tienda.infraestructura.envio;
+
+/**
+ * Instantánea de las estadísticas de un planificador de envíos, con el tiempo en cola
+ * de los mensajes entregados de cada prioridad
+ */
+public class EstadisticasPlanificadorEnvios {
+    private final String proveedor;
+    private final int pendientes;
+    private final long programados;
+    private final long enviados;
+    private final long limitados;
+    private final long reintentos;
+    private final long descartados;
+    private final long[] enviadosPorPrioridad;
+    private final long[] esperaPromedioMillis;
+    private final long[] esperaMaximaMillis;
+
+    public EstadisticasPlanificadorEnvios(String proveedor, int pendientes, long programados, long enviados,
+                                          long limitados, long reintentos, long descartados,
+                                          long[] enviadosPorPrioridad, long[] esperaPromedioMillis,
+                                          long[] esperaMaximaMillis) {
+        this.proveedor = proveedor;
+        this.pendientes = pendientes;
+        this.programados = programados;
+        this.enviados = enviados;
+        this.limitados = limitados;
+        this.reintentos = reintentos;
+        this.descartados = descartados;
+        this.enviadosPorPrioridad = enviadosPorPrioridad.clone();
+        this.esperaPromedioMillis = esperaPromedioMillis.clone();
+        this.esperaMaximaMillis = esperaMaximaMillis.clone();
+    }
+
+    public String getProveedor() {
+        return proveedor;
+    }
+
+    public int getPendientes() {
+        return pendientes;
+    }
+
+    public long getProgramados() {
+        return programados;
+    }
+
+    public long getEnviados() {
+        return enviados;
+    }
+
+    /**
+     * Obtiene la cantidad de rechazos del proveedor por exceder su límite
+     * @return respuestas 429 recibidas
+     */
+    public long getLimitados() {
+        return limitados;
+    }
+
+    public long getReintentos() {
+        return reintentos;
+    }
+
+    public long getDescartados() {
+        return descartados;
+    }
+
+    public long getEnviados(PrioridadEnvio prioridad) {
+        return enviadosPorPrioridad[prioridad.ordinal()];
+    }
+
+    /**
+     * Obtiene el tiempo promedio en cola de los mensajes entregados de una prioridad
+     * @param prioridad prioridad de los mensajes
+     * @return espera promedio en milisegundos
+     */
+    public long getEsperaPromedioMillis(PrioridadEnvio prioridad) {
+        return esperaPromedioMillis[prioridad.ordinal()];
+    }
+
+    /**
+     * Obtiene el mayor tiempo en cola de los mensajes entregados de una prioridad
+     * @param prioridad prioridad de los mensajes
+     * @return espera máxima en milisegundos
+     */
+    public long getEsperaMaximaMillis(PrioridadEnvio prioridad) {
+        return esperaMaximaMillis[prioridad.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder("Envios ").append(proveedor)
+                .append(": pendientes=").append(pendientes)
+                .append(", programados=").append(programados)
+                .append(", enviados=").append(enviados)
+                .append(", limitados=").append(limitados)
+                .append(", reintentos=").append(reintentos)
+                .append(", descartados=").append(descartados);
+        for (PrioridadEnvio prioridad : PrioridadEnvio.values()) {
+            texto.append(", espera ").append(prioridad.name().toLowerCase())
+                    .append('=').append(getEsperaPromedioMillis(prioridad)).append("ms")
+                    .append(" (max ").append(getEsperaMaximaMillis(prioridad)).append("ms)");
+        }
+        return texto.toString();
+    }
+}
@@ -0,0 +1,27 @@
+package com.tienda.infraestructura.envio;
+
+/**
+ * Rechazo de un proveedor por exceder su límite de envíos (HTTP 429)
+ */
+public class ExcepcionLimiteProveedor extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long esperaSugeridaMillis;
+
+    /**
+     * @param mensaje descripción del rechazo
+     * @param esperaSugeridaMillis espera indicada por el proveedor, o -1 si no indicó ninguna
+     */
+    public ExcepcionLimiteProveedor(String mensaje, long esperaSugeridaMillis) {
+        super(mensaje);
+        this.esperaSugeridaMillis = esperaSugeridaMillis;
+    }
+
+    /**
+     * Obtiene la espera indicada por el proveedor antes de reintentar
+     * @return espera en milisegundos, o -1 si el proveedor no indicó ninguna
+     */
+    public long getEsperaSugeridaMillis() {
+        return esperaSugeridaMillis;
+    }
+}
@@ -0,0 +1,41 @@
+package com.tienda.infraestructura.envio;
+
+/**
+ * Mensaje listo para entregar a un proveedor externo
+ */
+public final class MensajeSaliente {
+
+    private final String destinatario;
+    private final String asunto;
+    private final String contenido;
+    private final PrioridadEnvio prioridad;
+
+    /**
+     * @param destinatario dirección del destinatario en el proveedor (email, teléfono, ID)
+     * @param asunto asunto del mensaje, o null si el canal no lo usa
+     * @param contenido contenido del mensaje
+     * @param prioridad prioridad del mensaje en la cola de envíos
+     */
+    public MensajeSaliente(String destinatario, String asunto, String contenido, PrioridadEnvio prioridad) {
+        this.destinatario = destinatario;
+        this.asunto = asunto;
+        this.contenido = contenido;
+        this.prioridad = prioridad;
+    }
+
+    public String getDestinatario() {
+        return destinatario;
+    }
+
+    public String getAsunto() {
+        return asunto;
+    }
+
+    public String getContenido() {
+        return contenido;
+    }
+
+    public PrioridadEnvio getPrioridad() {
+        return prioridad;
+    }
+}
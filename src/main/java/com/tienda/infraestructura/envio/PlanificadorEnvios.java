@@ -0,0 +1,328 @@
+package com.tienda.infraestructura.envio;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Planificador de envíos de un proveedor: encola los mensajes y los entrega respetando
+ * un cubo de tokens del proveedor y otro por destinatario. Un mensaje que excede algún
+ * límite espera en la cola; entre los que pueden salir, los transaccionales van antes
+ * que los promocionales y, dentro de cada prioridad, en orden de llegada. Un mensaje
+ * cuyo destinatario está limitado no demora a los de otros destinatarios.
+ *
+ * <p>Si el proveedor responde que se excedió su límite (HTTP 429), el cubo del proveedor
+ * se suspende por la espera que indique y el mensaje vuelve a la cola. Otros fallos se
+ * reintentan con espera creciente hasta agotar los intentos.
+ *
+ * <p>Un único hilo entrega los mensajes de cada planificador, así que la tasa real
+ * también queda acotada por la latencia del proveedor.
+ */
+public class PlanificadorEnvios implements ProveedorMensajes {
+
+    private static final int CAPACIDAD_COLA_POR_DEFECTO = 10_000;
+    private static final int MAX_INTENTOS_POR_DEFECTO = 5;
+    private static final long ESPERA_LIMITE_POR_DEFECTO_MILLIS = 1000;
+    private static final long ESPERA_REINTENTO_BASE_MILLIS = 500;
+    private static final int UMBRAL_LIMPIEZA_CUBOS = 10_000;
+
+    private static final Comparator<MensajeProgramado> ORDEN_COLA =
+            Comparator.<MensajeProgramado>comparingInt(programado -> programado.mensaje.getPrioridad().ordinal())
+                    .thenComparingLong(programado -> programado.secuencia);
+
+    private final String nombre;
+    private final ProveedorMensajes proveedor;
+    private final double tasaDestinatario;
+    private final int rafagaDestinatario;
+    private final int capacidadCola;
+    private final int maxIntentos;
+
+    private final ReentrantLock candado = new ReentrantLock();
+    private final Condition hayCambios = candado.newCondition();
+    private final TreeSet<MensajeProgramado> cola = new TreeSet<>(ORDEN_COLA);
+    private final CuboTokens cuboProveedor;
+    private final Map<String, CuboTokens> cubosDestinatario = new HashMap<>();
+    private int umbralLimpieza = UMBRAL_LIMPIEZA_CUBOS;
+    private long siguienteSecuencia;
+    private volatile boolean activo;
+    private final Thread despachador;
+
+    private final AtomicLong programados = new AtomicLong();
+    private final AtomicLong enviados = new AtomicLong();
+    private final AtomicLong limitados = new AtomicLong();
+    private final AtomicLong reintentos = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+    private final EsperaCola[] esperas;
+
+    public PlanificadorEnvios(String nombre, ProveedorMensajes proveedor, double tasaProveedor, int rafagaProveedor,
+                              double tasaDestinatario, int rafagaDestinatario) {
+        this(nombre, proveedor, tasaProveedor, rafagaProveedor, tasaDestinatario, rafagaDestinatario,
+                CAPACIDAD_COLA_POR_DEFECTO, MAX_INTENTOS_POR_DEFECTO);
+    }
+
+    /**
+     * @param nombre nombre del proveedor en estadísticas y errores
+     * @param proveedor proveedor que entrega los mensajes
+     * @param tasaProveedor envíos por segundo admitidos por el proveedor
+     * @param rafagaProveedor envíos seguidos admitidos por el proveedor
+     * @param tasaDestinatario envíos por segundo admitidos por destinatario
+     * @param rafagaDestinatario envíos seguidos admitidos por destinatario
+     * @param capacidadCola mensajes que pueden esperar; los demás se rechazan
+     * @param maxIntentos intentos de entrega de cada mensaje antes de descartarlo
+     */
+    public PlanificadorEnvios(String nombre, ProveedorMensajes proveedor, double tasaProveedor, int rafagaProveedor,
+                              double tasaDestinatario, int rafagaDestinatario, int capacidadCola, int maxIntentos) {
+        if (capacidadCola < 1 || maxIntentos < 1) {
+            throw new IllegalArgumentException("Capacidad de cola e intentos deben ser mayores a cero");
+        }
+        long ahora = System.nanoTime();
+        this.nombre = nombre;
+        this.proveedor = proveedor;
+        this.cuboProveedor = new CuboTokens(tasaProveedor, rafagaProveedor, ahora);
+        // Valida los parámetros por destinatario antes del primer mensaje
+        new CuboTokens(tasaDestinatario, rafagaDestinatario, ahora);
+        this.tasaDestinatario = tasaDestinatario;
+        this.rafagaDestinatario = rafagaDestinatario;
+        this.capacidadCola = capacidadCola;
+        this.maxIntentos = maxIntentos;
+        this.esperas = new EsperaCola[PrioridadEnvio.values().length];
+        for (int i = 0; i < esperas.length; i++) {
+            esperas[i] = new EsperaCola();
+        }
+        this.activo = true;
+        this.despachador = new Thread(this::despachar, "envios-" + nombre);
+        this.despachador.setDaemon(true);
+        this.despachador.start();
+    }
+
+    /**
+     * Encola un mensaje para entregarlo cuando los límites lo permitan
+     * @param mensaje mensaje a entregar
+     * @throws IllegalStateException si el planificador está cerrado o la cola está llena
+     */
+    @Override
+    public void enviar(MensajeSaliente mensaje) {
+        candado.lock();
+        try {
+            if (!activo) {
+                throw new IllegalStateException("El planificador de envíos " + nombre + " está cerrado");
+            }
+            if (cola.size() >= capacidadCola) {
+                throw new IllegalStateException("Cola de envíos llena para " + nombre);
+            }
+            long ahora = System.nanoTime();
+            cola.add(new MensajeProgramado(mensaje, siguienteSecuencia++, ahora));
+            programados.incrementAndGet();
+            hayCambios.signal();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Ciclo del despachador: toma el próximo mensaje que pueda salir y lo entrega
+     */
+    private void despachar() {
+        while (true) {
+            MensajeProgramado elegido;
+            try {
+                elegido = esperarSiguiente();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (elegido == null) {
+                return;
+            }
+            entregar(elegido);
+        }
+    }
+
+    /**
+     * Espera hasta que algún mensaje pueda salir y consume sus tokens
+     * @return mensaje a entregar, o null si el planificador se cerró y la cola está vacía
+     */
+    private MensajeProgramado esperarSiguiente() throws InterruptedException {
+        candado.lock();
+        try {
+            while (true) {
+                if (cola.isEmpty()) {
+                    if (!activo) {
+                        return null;
+                    }
+                    hayCambios.await();
+                    continue;
+                }
+                long ahora = System.nanoTime();
+                long espera = cuboProveedor.esperaNanos(ahora);
+                if (espera == 0) {
+                    espera = Long.MAX_VALUE;
+                    for (Iterator<MensajeProgramado> it = cola.iterator(); it.hasNext(); ) {
+                        MensajeProgramado candidato = it.next();
+                        CuboTokens cuboDestinatario = cuboDestinatario(candidato.mensaje.getDestinatario(), ahora);
+                        long esperaCandidato = Math.max(candidato.noAntesDeNanos - ahora,
+                                cuboDestinatario.esperaNanos(ahora));
+                        if (esperaCandidato <= 0) {
+                            it.remove();
+                            cuboProveedor.tomar();
+                            cuboDestinatario.tomar();
+                            return candidato;
+                        }
+                        espera = Math.min(espera, esperaCandidato);
+                    }
+                }
+                hayCambios.awaitNanos(espera);
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    private CuboTokens cuboDestinatario(String destinatario, long ahora) {
+        CuboTokens cubo = cubosDestinatario.get(destinatario);
+        if (cubo == null) {
+            if (cubosDestinatario.size() >= umbralLimpieza) {
+                // Un cubo lleno equivale a uno nuevo: se olvidan para no crecer sin límite
+                cubosDestinatario.values().removeIf(existente -> existente.estaLleno(ahora));
+                umbralLimpieza = Math.max(UMBRAL_LIMPIEZA_CUBOS, cubosDestinatario.size() * 2);
+            }
+            cubo = new CuboTokens(tasaDestinatario, rafagaDestinatario, ahora);
+            cubosDestinatario.put(destinatario, cubo);
+        }
+        return cubo;
+    }
+
+    private void entregar(MensajeProgramado programado) {
+        programado.intentos++;
+        try {
+            proveedor.enviar(programado.mensaje);
+            enviados.incrementAndGet();
+            esperas[programado.mensaje.getPrioridad().ordinal()]
+                    .registrar(System.nanoTime() - programado.encoladoNanos);
+        } catch (ExcepcionLimiteProveedor e) {
+            limitados.incrementAndGet();
+            long esperaMillis = e.getEsperaSugeridaMillis() >= 0
+                    ? e.getEsperaSugeridaMillis() : ESPERA_LIMITE_POR_DEFECTO_MILLIS;
+            long hasta = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMillis);
+            candado.lock();
+            try {
+                cuboProveedor.suspenderHasta(hasta);
+            } finally {
+                candado.unlock();
+            }
+            reprogramar(programado, hasta, e);
+        } catch (RuntimeException e) {
+            long esperaMillis = ESPERA_REINTENTO_BASE_MILLIS << Math.min(programado.intentos - 1, 10);
+            reprogramar(programado, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMillis), e);
+        }
+    }
+
+    private void reprogramar(MensajeProgramado programado, long noAntesDeNanos, RuntimeException causa) {
+        if (programado.intentos >= maxIntentos) {
+            descartados.incrementAndGet();
+            System.err.println("Error al enviar mensaje por " + nombre + " tras " + programado.intentos
+                    + " intentos: " + causa.getMessage());
+            return;
+        }
+        reintentos.incrementAndGet();
+        candado.lock();
+        try {
+            programado.noAntesDeNanos = noAntesDeNanos;
+            cola.add(programado);
+            hayCambios.signal();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de mensajes que esperan en la cola
+     * @return mensajes pendientes
+     */
+    public int getPendientes() {
+        candado.lock();
+        try {
+            return cola.size();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Obtiene una instantánea de las estadísticas del planificador
+     * @return estadísticas actuales
+     */
+    public EstadisticasPlanificadorEnvios obtenerEstadisticas() {
+        PrioridadEnvio[] prioridades = PrioridadEnvio.values();
+        long[] cantidades = new long[prioridades.length];
+        long[] promedios = new long[prioridades.length];
+        long[] maximas = new long[prioridades.length];
+        for (int i = 0; i < prioridades.length; i++) {
+            long cantidad = esperas[i].cantidad.get();
+            cantidades[i] = cantidad;
+            promedios[i] = cantidad == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(esperas[i].totalNanos.get() / cantidad);
+            maximas[i] = TimeUnit.NANOSECONDS.toMillis(esperas[i].maximaNanos.get());
+        }
+        return new EstadisticasPlanificadorEnvios(nombre, getPendientes(), programados.get(), enviados.get(),
+                limitados.get(), reintentos.get(), descartados.get(), cantidades, promedios, maximas);
+    }
+
+    /**
+     * Deja de aceptar mensajes y espera a que se entreguen los pendientes
+     * @param esperaMaximaMillis tiempo máximo de espera
+     * @return true si la cola quedó vacía
+     */
+    public boolean cerrar(long esperaMaximaMillis) {
+        candado.lock();
+        try {
+            activo = false;
+            hayCambios.signalAll();
+        } finally {
+            candado.unlock();
+        }
+        try {
+            despachador.join(esperaMaximaMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (despachador.isAlive()) {
+            despachador.interrupt();
+        }
+        return getPendientes() == 0;
+    }
+
+    private static final class MensajeProgramado {
+        private final MensajeSaliente mensaje;
+        private final long secuencia;
+        private final long encoladoNanos;
+        private long noAntesDeNanos;
+        private int intentos;
+
+        private MensajeProgramado(MensajeSaliente mensaje, long secuencia, long encoladoNanos) {
+            this.mensaje = mensaje;
+            this.secuencia = secuencia;
+            this.encoladoNanos = encoladoNanos;
+            this.noAntesDeNanos = encoladoNanos;
+        }
+    }
+
+    /**
+     * Tiempo en cola, desde que se encola hasta que se entrega, de los mensajes de una prioridad
+     */
+    private static final class EsperaCola {
+        private final AtomicLong cantidad = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maximaNanos = new AtomicLong();
+
+        private void registrar(long esperaNanos) {
+            cantidad.incrementAndGet();
+            totalNanos.addAndGet(esperaNanos);
+            maximaNanos.accumulateAndGet(esperaNanos, Math::max);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.tienda.infraestructura.envio;
+
+/**
+ * Prioridad de un mensaje en la cola de envíos. Con el proveedor limitado, los mensajes
+ * transaccionales (órdenes y cambios de estado) salen antes que los promocionales.
+ */
+public enum PrioridadEnvio {
+    TRANSACCIONAL,
+    PROMOCIONAL
+}
@@ -0,0 +1,32 @@
+package com.tienda.infraestructura.envio;
+
+/**
+ * Proveedor simulado que escribe cada mensaje en la salida estándar
+ */
+public class ProveedorConsola implements ProveedorMensajes {
+
+    private final String encabezado;
+    private final String cierre;
+
+    /**
+     * @param canal nombre del canal en el encabezado, por ejemplo "EMAIL"
+     */
+    public ProveedorConsola(String canal) {
+        this.encabezado = "=== " + canal + " ENVIADO ===";
+        this.cierre = "=".repeat(encabezado.length());
+    }
+
+    @Override
+    public void enviar(MensajeSaliente mensaje) {
+        // Un solo println para que los mensajes de distintos hilos no se intercalen
+        StringBuilder salida = new StringBuilder(encabezado.length() * 2 + mensaje.getContenido().length() + 64);
+        salida.append(encabezado).append('\n');
+        salida.append("Para: ").append(mensaje.getDestinatario()).append('\n');
+        if (mensaje.getAsunto() != null) {
+            salida.append("Asunto: ").append(mensaje.getAsunto()).append('\n');
+        }
+        salida.append("Mensaje: ").append(mensaje.getContenido()).append('\n');
+        salida.append(cierre);
+        System.out.println(salida);
+    }
+}
@@ -0,0 +1,117 @@
+package com.tienda.infraestructura.envio;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Proveedor que entrega cada mensaje con un POST JSON
+ * ({@code {"destinatario":..., "asunto":..., "contenido":...}}) a la API del canal.
+ * Una respuesta 429 se informa con {@link ExcepcionLimiteProveedor}, con la espera de
+ * {@code Retry-After} si viene en segundos; cualquier otra respuesta fuera de 2xx es un fallo.
+ */
+public class ProveedorHttp implements ProveedorMensajes {
+
+    private static final int DEMASIADAS_SOLICITUDES = 429;
+
+    private final HttpClient cliente;
+    private final URI url;
+    private final Duration tiempoMaximo;
+
+    /**
+     * @param url dirección de la API de envío
+     * @param tiempoMaximo tiempo máximo de conexión y de respuesta
+     */
+    public ProveedorHttp(URI url, Duration tiempoMaximo) {
+        this.url = url;
+        this.tiempoMaximo = tiempoMaximo;
+        this.cliente = HttpClient.newBuilder().connectTimeout(tiempoMaximo).build();
+    }
+
+    @Override
+    public void enviar(MensajeSaliente mensaje) {
+        HttpRequest solicitud = HttpRequest.newBuilder(url)
+                .timeout(tiempoMaximo)
+                .header("Content-Type", "application/json; charset=utf-8")
+                .POST(HttpRequest.BodyPublishers.ofString(aJson(mensaje)))
+                .build();
+        HttpResponse<Void> respuesta;
+        try {
+            respuesta = cliente.send(solicitud, HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo contactar al proveedor " + url, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Envío interrumpido", e);
+        }
+        int estado = respuesta.statusCode();
+        if (estado == DEMASIADAS_SOLICITUDES) {
+            throw new ExcepcionLimiteProveedor("El proveedor " + url + " limitó el envío",
+                    esperaSugeridaMillis(respuesta));
+        }
+        if (estado < 200 || estado >= 300) {
+            throw new IllegalStateException("El proveedor " + url + " respondió " + estado);
+        }
+    }
+
+    private static long esperaSugeridaMillis(HttpResponse<?> respuesta) {
+        String reintentar = respuesta.headers().firstValue("Retry-After").orElse(null);
+        if (reintentar == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(reintentar.trim())) * 1000;
+        } catch (NumberFormatException e) {
+            // Retry-After como fecha HTTP: se usa la espera por defecto del planificador
+            return -1;
+        }
+    }
+
+    private static String aJson(MensajeSaliente mensaje) {
+        StringBuilder json = new StringBuilder(mensaje.getContenido().length() + 96);
+        json.append('{');
+        agregarCampo(json, "destinatario", mensaje.getDestinatario()).append(',');
+        agregarCampo(json, "asunto", mensaje.getAsunto()).append(',');
+        agregarCampo(json, "contenido", mensaje.getContenido());
+        return json.append('}').toString();
+    }
+
+    private static StringBuilder agregarCampo(StringBuilder json, String nombre, String valor) {
+        json.append('"').append(nombre).append("\":");
+        if (valor == null) {
+            return json.append("null");
+        }
+        json.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"');
+    }
+}
@@ -0,0 +1,15 @@
+package com.tienda.infraestructura.envio;
+
+/**
+ * Proveedor externo que entrega mensajes de un canal (servicio de email, API de
+ * WhatsApp o de Telegram)
+ */
+public interface ProveedorMensajes {
+
+    /**
+     * Entrega un mensaje
+     * @param mensaje mensaje a entregar
+     * @throws ExcepcionLimiteProveedor si el proveedor rechazó el envío por exceder su límite
+     */
+    void enviar(MensajeSaliente mensaje);
+}
@@ -0,0 +1,72 @@
+package com.tienda.infraestructura.metricas;
+
+import com.tienda.compartido.metricas.MetricasOperaciones;
+import com.tienda.compartido.metricas.RegistroMetricas;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Envuelve la implementación de una interfaz (un repositorio o un canal de notificación)
+ * en un proxy que mide la latencia y cuenta los errores de cada método con
+ * {@link MetricasOperaciones}. Los métodos de {@link Object} pasan sin medirse.
+ */
+public final class InstrumentadorMetricas {
+
+    private InstrumentadorMetricas() {
+    }
+
+    /**
+     * Instrumenta un componente si el registro está activo; si no, lo devuelve sin cambios
+     * @param interfaz interfaz a exponer
+     * @param objetivo implementación que atiende las llamadas
+     * @param registro registro de métricas
+     * @param prefijo prefijo de las familias, por ejemplo {@code tienda_repositorio}
+     * @param descripcion qué se mide, para la ayuda de las familias
+     * @param componente valor de la etiqueta {@code componente}
+     * @param <T> tipo de la interfaz
+     * @return objetivo, instrumentado si corresponde
+     */
+    public static <T> T instrumentar(Class<T> interfaz, T objetivo, RegistroMetricas registro, String prefijo,
+                                     String descripcion, String componente) {
+        if (!registro.estaActivo()) {
+            return objetivo;
+        }
+        return instrumentar(interfaz, objetivo, new MetricasOperaciones(registro, prefijo, descripcion, componente));
+    }
+
+    /**
+     * Crea el proxy instrumentado
+     * @param interfaz interfaz a exponer
+     * @param objetivo implementación que atiende las llamadas
+     * @param metricas métricas del componente
+     * @param <T> tipo de la interfaz
+     * @return objetivo instrumentado
+     */
+    public static <T> T instrumentar(Class<T> interfaz, T objetivo, MetricasOperaciones metricas) {
+        if (!interfaz.isInterface()) {
+            throw new IllegalArgumentException(interfaz.getName() + " no es una interfaz");
+        }
+        InvocationHandler manejador = (proxy, metodo, argumentos) -> invocar(objetivo, metricas, metodo, argumentos);
+        return interfaz.cast(Proxy.newProxyInstance(interfaz.getClassLoader(), new Class<?>[]{interfaz}, manejador));
+    }
+
+    private static Object invocar(Object objetivo, MetricasOperaciones metricas, Method metodo, Object[] argumentos)
+            throws Throwable {
+        if (metodo.getDeclaringClass() == Object.class) {
+            return metodo.invoke(objetivo, argumentos);
+        }
+        String operacion = metodo.getName();
+        long inicio = System.nanoTime();
+        try {
+            return metodo.invoke(objetivo, argumentos);
+        } catch (InvocationTargetException e) {
+            metricas.registrarError(operacion);
+            throw e.getCause();
+        } finally {
+            metricas.registrar(operacion, inicio);
+        }
+    }
+}
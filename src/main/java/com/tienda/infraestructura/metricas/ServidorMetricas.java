@@ -0,0 +1,78 @@
+package com.tienda.infraestructura.metricas;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tienda.compartido.metricas.RegistroMetricas;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP embebido que expone las métricas del registro en {@code /metrics}, en el
+ * formato de texto de Prometheus. Atiende con un solo hilo; la exportación solo lee
+ * las métricas, así que no bloquea a quienes las registran.
+ */
+public class ServidorMetricas implements AutoCloseable {
+
+    private static final String RUTA = "/metrics";
+    private static final String TIPO_CONTENIDO = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+    private final RegistroMetricas registro;
+
+    /**
+     * Inicia el servidor
+     * @param puerto puerto TCP; 0 elige uno libre
+     * @param registro registro a exponer
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public ServidorMetricas(int puerto, RegistroMetricas registro) throws IOException {
+        this.registro = registro;
+        this.servidor = HttpServer.create(new InetSocketAddress(puerto), 0);
+        this.ejecutor = Executors.newSingleThreadExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "servidor-metricas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.servidor.createContext(RUTA, this::atender);
+        this.servidor.setExecutor(ejecutor);
+        this.servidor.start();
+    }
+
+    /**
+     * Obtiene el puerto en que escucha el servidor
+     * @return puerto TCP
+     */
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    private void atender(HttpExchange intercambio) throws IOException {
+        try {
+            if (!"GET".equals(intercambio.getRequestMethod())) {
+                intercambio.getResponseHeaders().add("Allow", "GET");
+                intercambio.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] cuerpo = registro.exportarPrometheus().getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().add("Content-Type", TIPO_CONTENIDO);
+            intercambio.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        } finally {
+            intercambio.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+        ejecutor.shutdownNow();
+    }
+}
@@ -2,17 +2,20 @@ package com.tienda.infraestructura.persistencia;
 
 import com.tienda.dominio.modelo.Producto;
 import com.tienda.dominio.repositorio.RepositorioProducto;
+import com.tienda.infraestructura.IndiceTrigramas;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
- * Implementación en memoria del repositorio de productos
+ * Implementación en memoria del repositorio de productos.
+ * La búsqueda por nombre usa un índice de trigramas que ignora mayúsculas y acentos.
  */
 public class RepositorioProductoMemoria implements RepositorioProducto {
     
     private final Map<UUID, Producto> productos = new ConcurrentHashMap<>();
+    private final IndiceTrigramas indiceNombres = new IndiceTrigramas();
     
     @Override
     public Producto guardar(Producto producto) {
@@ -20,6 +23,7 @@ public class RepositorioProductoMemoria implements RepositorioProducto {
             producto.setId(UUID.randomUUID());
         }
         productos.put(producto.getId(), producto);
+        indiceNombres.indexar(producto.getId(), producto.getNombre());
         return producto;
     }
     
@@ -62,10 +66,13 @@ public class RepositorioProductoMemoria implements RepositorioProducto {
             return new ArrayList<>();
         }
         
-        String nombreLower = nombre.toLowerCase();
-        return productos.values().stream()
-                .filter(producto -> producto.isActivo() && 
-                        producto.getNombre().toLowerCase().contains(nombreLower))
-                .collect(Collectors.toList());
+        List<Producto> resultado = new ArrayList<>();
+        for (UUID id : indiceNombres.buscar(nombre)) {
+            Producto producto = productos.get(id);
+            if (producto != null && producto.isActivo()) {
+                resultado.add(producto);
+            }
+        }
+        return resultado;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.tienda.infraestructura.plantilla;
+
+/**
+ * Formato de salida de un canal de notificación. Las plantillas marcan el texto en
+ * negrita con {@code *...*} y el texto de ancho fijo con {@code `...`}; cada formato
+ * decide al compilar qué marcas conserva.
+ */
+public enum FormatoMensaje {
+    /** Texto plano, sin marcas (email) */
+    TEXTO(false, false),
+    /** Markdown de WhatsApp: negrita, sin ancho fijo en línea */
+    WHATSAPP(true, false),
+    /** Markdown de Telegram: negrita y ancho fijo */
+    TELEGRAM(true, true);
+
+    private final boolean conservaNegrita;
+    private final boolean conservaAnchoFijo;
+
+    FormatoMensaje(boolean conservaNegrita, boolean conservaAnchoFijo) {
+        this.conservaNegrita = conservaNegrita;
+        this.conservaAnchoFijo = conservaAnchoFijo;
+    }
+
+    /**
+     * Indica si una marca de la plantilla se copia al mensaje
+     * @param marca carácter de marca ({@code *} o {@code `})
+     * @return true si el formato la conserva
+     */
+    boolean conserva(char marca) {
+        return marca == '*' ? conservaNegrita : conservaAnchoFijo;
+    }
+}
@@ -0,0 +1,385 @@
+package com.tienda.infraestructura.plantilla;
+
+import com.tienda.compartido.Dinero;
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.OrdenCompra;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Plantilla de mensaje de orden compilada una sola vez. El texto fuente usa campos entre
+ * llaves ({@code {nombre}}, {@code {id}}, {@code {fecha}}, {@code {fechaActualizacion}},
+ * {@code {estado}}, {@code {estadoAnterior}}, {@code {total}}) y secciones:
+ * {@code {#items}...{/items}} se repite por item, con {@code {producto}},
+ * {@code {cantidad}} y {@code {subtotal}}, y {@code {#completada}...{/completada}} y
+ * {@code {#cancelada}...{/cancelada}} se escriben solo si la orden está en ese estado, y
+ * {@code {#nueva}...{/nueva}} y {@code {#cambio}...{/cambio}} según se renderice sin o con
+ * estado anterior.
+ *
+ * <p>Al compilar, las marcas de formato se resuelven según el {@link FormatoMensaje} y el
+ * texto fijo queda agrupado, de modo que renderizar solo recorre los segmentos. Los
+ * valores se escriben directamente en un buffer reutilizado por hilo (IDs, fechas y
+ * montos sin crear cadenas intermedias); la única asignación por mensaje es el String
+ * resultante. Una plantilla compilada es inmutable y se puede compartir entre hilos.
+ */
+public final class PlantillaMensaje {
+
+    private static final int CAPACIDAD_BUFFER = 1024;
+    /** Un buffer que creció más que esto no se conserva, para no retener memoria */
+    private static final int CAPACIDAD_MAXIMA_RETENIDA = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(CAPACIDAD_BUFFER));
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Segmento[] segmentos;
+
+    private PlantillaMensaje(Segmento[] segmentos) {
+        this.segmentos = segmentos;
+    }
+
+    /**
+     * Compila una plantilla para un formato de canal
+     * @param fuente texto de la plantilla
+     * @param formato formato del canal
+     * @return plantilla compilada
+     * @throws IllegalArgumentException si la plantilla tiene campos o secciones inválidos
+     */
+    public static PlantillaMensaje compilar(String fuente, FormatoMensaje formato) {
+        Deque<List<Segmento>> abiertas = new ArrayDeque<>();
+        Deque<Seccion> secciones = new ArrayDeque<>();
+        abiertas.push(new ArrayList<>());
+        StringBuilder literal = new StringBuilder();
+
+        int i = 0;
+        while (i < fuente.length()) {
+            char c = fuente.charAt(i);
+            if (c == '*' || c == '`') {
+                if (formato.conserva(c)) {
+                    literal.append(c);
+                }
+                i++;
+                continue;
+            }
+            if (c != '{') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            int cierre = fuente.indexOf('}', i);
+            if (cierre < 0) {
+                throw new IllegalArgumentException("Llave sin cerrar en la posición " + i + " de la plantilla");
+            }
+            String marca = fuente.substring(i + 1, cierre);
+            i = cierre + 1;
+            agregarLiteral(abiertas.peek(), literal);
+
+            if (marca.startsWith("#")) {
+                secciones.push(Seccion.desdeNombre(marca.substring(1)));
+                abiertas.push(new ArrayList<>());
+            } else if (marca.startsWith("/")) {
+                Seccion seccion = Seccion.desdeNombre(marca.substring(1));
+                if (secciones.isEmpty() || secciones.peek() != seccion) {
+                    throw new IllegalArgumentException("Cierre de sección inesperado: {" + marca + "}");
+                }
+                secciones.pop();
+                Segmento[] contenido = abiertas.pop().toArray(new Segmento[0]);
+                abiertas.peek().add(segmentoDeSeccion(seccion, contenido));
+            } else {
+                Campo campo = Campo.desdeNombre(marca);
+                if (campo.esDeItem() && !secciones.contains(Seccion.ITEMS)) {
+                    throw new IllegalArgumentException("El campo {" + marca + "} solo se usa dentro de {#items}");
+                }
+                abiertas.peek().add(segmentoDeCampo(campo));
+            }
+        }
+        if (!secciones.isEmpty()) {
+            throw new IllegalArgumentException("Sección sin cerrar: {#" + secciones.peek().nombre + "}");
+        }
+        agregarLiteral(abiertas.peek(), literal);
+        return new PlantillaMensaje(abiertas.pop().toArray(new Segmento[0]));
+    }
+
+    /**
+     * Renderiza el mensaje de una orden
+     * @param orden orden a notificar
+     * @param estadoAnterior estado previo de la orden, o null si no aplica
+     * @return mensaje
+     */
+    public String renderizar(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        renderizarEn(buffer, orden, estadoAnterior);
+        String mensaje = buffer.toString();
+        if (buffer.capacity() > CAPACIDAD_MAXIMA_RETENIDA) {
+            BUFFER.set(new StringBuilder(CAPACIDAD_BUFFER));
+        }
+        return mensaje;
+    }
+
+    /**
+     * Escribe el mensaje de una orden al final de un buffer
+     * @param destino buffer de destino
+     * @param orden orden a notificar
+     * @param estadoAnterior estado previo de la orden, o null si no aplica
+     */
+    public void renderizarEn(StringBuilder destino, OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
+        escribirTodos(segmentos, destino, orden, estadoAnterior, null);
+    }
+
+    private static void escribirTodos(Segmento[] segmentos, StringBuilder destino, OrdenCompra orden,
+                                      OrdenCompra.EstadoOrden estadoAnterior, ItemOrden item) {
+        for (Segmento segmento : segmentos) {
+            segmento.escribir(destino, orden, estadoAnterior, item);
+        }
+    }
+
+    private static void agregarLiteral(List<Segmento> segmentos, StringBuilder literal) {
+        if (literal.length() > 0) {
+            String texto = literal.toString();
+            segmentos.add((destino, orden, estadoAnterior, item) -> destino.append(texto));
+            literal.setLength(0);
+        }
+    }
+
+    private static Segmento segmentoDeSeccion(Seccion seccion, Segmento[] contenido) {
+        switch (seccion) {
+            case ITEMS:
+                return (destino, orden, estadoAnterior, item) -> {
+                    List<ItemOrden> items = orden.getItems();
+                    for (int i = 0; i < items.size(); i++) {
+                        escribirTodos(contenido, destino, orden, estadoAnterior, items.get(i));
+                    }
+                };
+            case COMPLETADA:
+                return (destino, orden, estadoAnterior, item) -> {
+                    if (orden.getEstado() == OrdenCompra.EstadoOrden.COMPLETADA) {
+                        escribirTodos(contenido, destino, orden, estadoAnterior, item);
+                    }
+                };
+            case CANCELADA:
+                return (destino, orden, estadoAnterior, item) -> {
+                    if (orden.getEstado() == OrdenCompra.EstadoOrden.CANCELADA) {
+                        escribirTodos(contenido, destino, orden, estadoAnterior, item);
+                    }
+                };
+            case NUEVA:
+                return (destino, orden, estadoAnterior, item) -> {
+                    if (estadoAnterior == null) {
+                        escribirTodos(contenido, destino, orden, estadoAnterior, item);
+                    }
+                };
+            case CAMBIO:
+                return (destino, orden, estadoAnterior, item) -> {
+                    if (estadoAnterior != null) {
+                        escribirTodos(contenido, destino, orden, estadoAnterior, item);
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("Sección no soportada: " + seccion);
+        }
+    }
+
+    private static Segmento segmentoDeCampo(Campo campo) {
+        switch (campo) {
+            case NOMBRE:
+                return (destino, orden, estadoAnterior, item) -> destino.append(orden.getUsuario().getNombre());
+            case ID:
+                return (destino, orden, estadoAnterior, item) -> escribirUuid(destino, orden.getId());
+            case FECHA:
+                return (destino, orden, estadoAnterior, item) -> escribirFecha(destino, orden.getFechaCreacion());
+            case FECHA_ACTUALIZACION:
+                return (destino, orden, estadoAnterior, item) -> escribirFecha(destino, orden.getFechaActualizacion());
+            case ESTADO:
+                return (destino, orden, estadoAnterior, item) -> destino.append(orden.getEstado());
+            case ESTADO_ANTERIOR:
+                return (destino, orden, estadoAnterior, item) -> destino.append(estadoAnterior);
+            case TOTAL:
+                return (destino, orden, estadoAnterior, item) -> {
+                    Dinero total = orden.getTotal();
+                    escribirMonto(destino, total.getUnidadesMenores(), total.getMoneda().getDefaultFractionDigits());
+                };
+            case PRODUCTO:
+                return (destino, orden, estadoAnterior, item) -> destino.append(item.getProducto().getNombre());
+            case CANTIDAD:
+                return (destino, orden, estadoAnterior, item) -> destino.append(item.getCantidad());
+            case SUBTOTAL:
+                return (destino, orden, estadoAnterior, item) -> {
+                    Dinero precio = item.getPrecioUnitario();
+                    escribirMonto(destino, Math.multiplyExact(precio.getUnidadesMenores(), (long) item.getCantidad()),
+                            precio.getMoneda().getDefaultFractionDigits());
+                };
+            default:
+                throw new IllegalArgumentException("Campo no soportado: " + campo);
+        }
+    }
+
+    /**
+     * Escribe un UUID con el mismo formato que {@link UUID#toString()}
+     */
+    static void escribirUuid(StringBuilder destino, UUID id) {
+        if (id == null) {
+            destino.append((String) null);
+            return;
+        }
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        escribirHex(destino, msb >>> 32, 8);
+        destino.append('-');
+        escribirHex(destino, msb >>> 16, 4);
+        destino.append('-');
+        escribirHex(destino, msb, 4);
+        destino.append('-');
+        escribirHex(destino, lsb >>> 48, 4);
+        destino.append('-');
+        escribirHex(destino, lsb, 12);
+    }
+
+    private static void escribirHex(StringBuilder destino, long valor, int digitos) {
+        for (int desplazamiento = (digitos - 1) * 4; desplazamiento >= 0; desplazamiento -= 4) {
+            destino.append(HEX[(int) (valor >>> desplazamiento) & 0xF]);
+        }
+    }
+
+    /**
+     * Escribe una fecha con el mismo formato que {@link LocalDateTime#toString()}
+     */
+    static void escribirFecha(StringBuilder destino, LocalDateTime fecha) {
+        if (fecha == null || fecha.getYear() < 0 || fecha.getYear() > 9999) {
+            destino.append(fecha);
+            return;
+        }
+        escribirDigitos(destino, fecha.getYear(), 4);
+        destino.append('-');
+        escribirDigitos(destino, fecha.getMonthValue(), 2);
+        destino.append('-');
+        escribirDigitos(destino, fecha.getDayOfMonth(), 2);
+        destino.append('T');
+        escribirDigitos(destino, fecha.getHour(), 2);
+        destino.append(':');
+        escribirDigitos(destino, fecha.getMinute(), 2);
+        int segundos = fecha.getSecond();
+        int nanos = fecha.getNano();
+        if (segundos > 0 || nanos > 0) {
+            destino.append(':');
+            escribirDigitos(destino, segundos, 2);
+            if (nanos > 0) {
+                destino.append('.');
+                if (nanos % 1_000_000 == 0) {
+                    escribirDigitos(destino, nanos / 1_000_000, 3);
+                } else if (nanos % 1000 == 0) {
+                    escribirDigitos(destino, nanos / 1000, 6);
+                } else {
+                    escribirDigitos(destino, nanos, 9);
+                }
+            }
+        }
+    }
+
+    /**
+     * Escribe un monto en unidades menores con los decimales de su moneda, con el mismo
+     * formato que {@link Dinero#toString()}
+     */
+    static void escribirMonto(StringBuilder destino, long unidadesMenores, int decimales) {
+        if (decimales <= 0) {
+            destino.append(unidadesMenores);
+            return;
+        }
+        if (unidadesMenores == Long.MIN_VALUE) {
+            destino.append(BigDecimal.valueOf(unidadesMenores, decimales).toPlainString());
+            return;
+        }
+        long absoluto = Math.abs(unidadesMenores);
+        long divisor = potenciaDeDiez(decimales);
+        if (unidadesMenores < 0) {
+            destino.append('-');
+        }
+        destino.append(absoluto / divisor).append('.');
+        escribirDigitos(destino, absoluto % divisor, decimales);
+    }
+
+    /**
+     * Escribe un número no negativo completando con ceros a la izquierda
+     */
+    private static void escribirDigitos(StringBuilder destino, long valor, int digitos) {
+        for (int faltantes = digitos - 1; faltantes > 0 && valor < potenciaDeDiez(faltantes); faltantes--) {
+            destino.append('0');
+        }
+        destino.append(valor);
+    }
+
+    private static long potenciaDeDiez(int exponente) {
+        long resultado = 1;
+        for (int i = 0; i < exponente; i++) {
+            resultado *= 10;
+        }
+        return resultado;
+    }
+
+    @FunctionalInterface
+    private interface Segmento {
+        void escribir(StringBuilder destino, OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior, ItemOrden item);
+    }
+
+    private enum Seccion {
+        ITEMS("items"),
+        COMPLETADA("completada"),
+        CANCELADA("cancelada"),
+        NUEVA("nueva"),
+        CAMBIO("cambio");
+
+        private final String nombre;
+
+        Seccion(String nombre) {
+            this.nombre = nombre;
+        }
+
+        private static Seccion desdeNombre(String nombre) {
+            for (Seccion seccion : values()) {
+                if (seccion.nombre.equals(nombre)) {
+                    return seccion;
+                }
+            }
+            throw new IllegalArgumentException("Sección desconocida en la plantilla: " + nombre);
+        }
+    }
+
+    private enum Campo {
+        NOMBRE("nombre", false),
+        ID("id", false),
+        FECHA("fecha", false),
+        FECHA_ACTUALIZACION("fechaActualizacion", false),
+        ESTADO("estado", false),
+        ESTADO_ANTERIOR("estadoAnterior", false),
+        TOTAL("total", false),
+        PRODUCTO("producto", true),
+        CANTIDAD("cantidad", true),
+        SUBTOTAL("subtotal", true);
+
+        private final String nombre;
+        private final boolean deItem;
+
+        Campo(String nombre, boolean deItem) {
+            this.nombre = nombre;
+            this.deItem = deItem;
+        }
+
+        private boolean esDeItem() {
+            return deItem;
+        }
+
+        private static Campo desdeNombre(String nombre) {
+            for (Campo campo : values()) {
+                if (campo.nombre.equals(nombre)) {
+                    return campo;
+                }
+            }
+            throw new IllegalArgumentException("Campo desconocido en la plantilla: " + nombre);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.tienda.infraestructura.plantilla;
+
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.ResumenOrdenes;
+
+import java.util.List;
+
+/**
+ * Plantilla de un resumen de órdenes: un encabezado, una entrada por orden y un pie,
+ * cada uno compilado como {@link PlantillaMensaje}. El encabezado y el pie se renderizan
+ * con la primera orden del resumen; cada entrada, con su orden y el estado anterior
+ * (null si la orden es nueva, lo que activa la sección {@code {#nueva}}).
+ */
+public final class PlantillaResumen {
+
+    private static final int CAPACIDAD_POR_ENTRADA = 512;
+
+    private final PlantillaMensaje encabezado;
+    private final PlantillaMensaje entrada;
+    private final PlantillaMensaje pie;
+
+    private PlantillaResumen(PlantillaMensaje encabezado, PlantillaMensaje entrada, PlantillaMensaje pie) {
+        this.encabezado = encabezado;
+        this.entrada = entrada;
+        this.pie = pie;
+    }
+
+    /**
+     * Compila las tres partes de un resumen para un formato de canal
+     * @param encabezado texto del encabezado
+     * @param entrada texto de cada orden
+     * @param pie texto del pie
+     * @param formato formato del canal
+     * @return plantilla compilada
+     */
+    public static PlantillaResumen compilar(String encabezado, String entrada, String pie, FormatoMensaje formato) {
+        return new PlantillaResumen(
+                PlantillaMensaje.compilar(encabezado, formato),
+                PlantillaMensaje.compilar(entrada, formato),
+                PlantillaMensaje.compilar(pie, formato));
+    }
+
+    /**
+     * Renderiza el mensaje de un resumen
+     * @param resumen resumen con al menos una orden
+     * @return mensaje
+     */
+    public String renderizar(ResumenOrdenes resumen) {
+        List<ResumenOrdenes.EntradaResumen> entradas = resumen.getEntradas();
+        if (entradas.isEmpty()) {
+            throw new IllegalArgumentException("El resumen no tiene órdenes");
+        }
+        OrdenCompra primera = entradas.get(0).getOrden();
+        StringBuilder mensaje = new StringBuilder(CAPACIDAD_POR_ENTRADA * (entradas.size() + 1));
+        encabezado.renderizarEn(mensaje, primera, null);
+        for (int i = 0; i < entradas.size(); i++) {
+            ResumenOrdenes.EntradaResumen actual = entradas.get(i);
+            entrada.renderizarEn(mensaje, actual.getOrden(), actual.getEstadoAnterior());
+        }
+        pie.renderizarEn(mensaje, primera, null);
+        return mensaje.toString();
+    }
+}
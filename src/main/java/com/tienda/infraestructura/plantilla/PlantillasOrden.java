@@ -0,0 +1,92 @@
+package com.tienda.infraestructura.plantilla;
+
+/**
+ * Textos fuente de los mensajes de órdenes. WhatsApp y Telegram comparten las mismas
+ * plantillas y difieren solo en el {@link FormatoMensaje} con que se compilan.
+ */
+public final class PlantillasOrden {
+
+    public static final String EMAIL_NUEVA_ORDEN =
+            "Hola {nombre},\n\n"
+            + "Tu orden de compra ha sido creada exitosamente.\n"
+            + "Detalles de la orden:\n"
+            + "- ID de orden: {id}\n"
+            + "- Fecha: {fecha}\n"
+            + "- Estado: {estado}\n"
+            + "- Total: ${total}\n\n"
+            + "Productos:\n"
+            + "{#items}- {producto} x{cantidad} = ${subtotal}\n{/items}"
+            + "\nGracias por tu compra!";
+
+    public static final String EMAIL_CAMBIO_ESTADO =
+            "Hola {nombre},\n\n"
+            + "El estado de tu orden ha cambiado.\n"
+            + "Detalles:\n"
+            + "- ID de orden: {id}\n"
+            + "- Estado anterior: {estadoAnterior}\n"
+            + "- Estado actual: {estado}\n"
+            + "- Fecha de actualización: {fechaActualizacion}\n\n"
+            + "{#completada}¡Tu orden ha sido completada! Gracias por tu compra.\n{/completada}"
+            + "{#cancelada}Tu orden ha sido cancelada. Si tienes alguna pregunta, contáctanos.\n{/cancelada}";
+
+    public static final String MENSAJERIA_NUEVA_ORDEN =
+            "🛒 *Nueva Orden Creada*\n\n"
+            + "Hola {nombre}!\n\n"
+            + "Tu orden ha sido creada exitosamente.\n\n"
+            + "*Detalles:*\n"
+            + "📋 ID: `{id}`\n"
+            + "📅 Fecha: {fecha}\n"
+            + "💰 Total: ${total}\n\n"
+            + "*Productos:*\n"
+            + "{#items}• {producto} x{cantidad} = ${subtotal}\n{/items}"
+            + "\n¡Gracias por tu compra! 🎉";
+
+    public static final String MENSAJERIA_CAMBIO_ESTADO =
+            "🔄 *Estado de Orden Actualizado*\n\n"
+            + "Hola {nombre}!\n\n"
+            + "El estado de tu orden ha cambiado.\n\n"
+            + "*Detalles:*\n"
+            + "📋 ID: `{id}`\n"
+            + "📊 Estado anterior: {estadoAnterior}\n"
+            + "📊 Estado actual: {estado}\n"
+            + "📅 Actualizado: {fechaActualizacion}\n\n"
+            + "{#completada}✅ ¡Tu orden ha sido completada! ¡Gracias por tu compra!{/completada}"
+            + "{#cancelada}❌ Tu orden ha sido cancelada. Si tienes alguna pregunta, contáctanos.{/cancelada}";
+
+    public static final String EMAIL_RESUMEN_ENCABEZADO =
+            "Hola {nombre},\n\n"
+            + "Estas son las novedades de tus órdenes:\n\n";
+
+    public static final String EMAIL_RESUMEN_ORDEN =
+            "- Orden {id}\n"
+            + "{#nueva}  Creada: {fecha}\n"
+            + "  Total: ${total}\n"
+            + "{#items}  - {producto} x{cantidad} = ${subtotal}\n{/items}{/nueva}"
+            + "{#cambio}  Estado anterior: {estadoAnterior}\n{/cambio}"
+            + "  Estado actual: {estado}\n"
+            + "  Actualizada: {fechaActualizacion}\n\n";
+
+    public static final String EMAIL_RESUMEN_PIE =
+            "Gracias por tu compra!";
+
+    public static final String MENSAJERIA_RESUMEN_ENCABEZADO =
+            "📦 *Novedades de tus Órdenes*\n\n"
+            + "Hola {nombre}!\n\n";
+
+    public static final String MENSAJERIA_RESUMEN_ORDEN =
+            "📋 *Orden* `{id}`\n"
+            + "{#nueva}📅 Creada: {fecha}\n"
+            + "💰 Total: ${total}\n"
+            + "{#items}• {producto} x{cantidad} = ${subtotal}\n{/items}{/nueva}"
+            + "{#cambio}📊 Estado anterior: {estadoAnterior}\n{/cambio}"
+            + "📊 Estado actual: {estado}\n"
+            + "{#completada}✅ Completada\n{/completada}"
+            + "{#cancelada}❌ Cancelada\n{/cancelada}"
+            + "\n";
+
+    public static final String MENSAJERIA_RESUMEN_PIE =
+            "¡Gracias por tu compra! 🎉";
+
+    private PlantillasOrden() {
+    }
+}
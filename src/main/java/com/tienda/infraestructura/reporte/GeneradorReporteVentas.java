@@ -1,10 +1,10 @@
 package com.tienda.infraestructura.reporte;
 
+import com.tienda.compartido.Dinero;
 import com.tienda.dominio.modelo.OrdenCompra;
 import com.tienda.dominio.repositorio.RepositorioOrdenCompra;
 import com.tienda.compartido.excepcion.ExcepcionNegocio;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -86,10 +86,10 @@ public class GeneradorReporteVentas {
         private final LocalDateTime fechaInicio;
         private final LocalDateTime fechaFin;
         private final List<OrdenCompra> ordenes;
-        private final BigDecimal totalVentas;
+        private final Dinero totalVentas;
         private final int totalOrdenes;
         private final Map<String, Integer> productosVendidos;
-        private final Map<String, BigDecimal> volumenPorProducto;
+        private final Map<String, Dinero> volumenPorProducto;
         
         public ReporteVentas(LocalDateTime fechaInicio, LocalDateTime fechaFin, List<OrdenCompra> ordenes) {
             this.fechaInicio = fechaInicio;
@@ -101,10 +101,10 @@ public class GeneradorReporteVentas {
             this.volumenPorProducto = calcularVolumenPorProducto();
         }
         
-        private BigDecimal calcularTotalVentas() {
+        private Dinero calcularTotalVentas() {
             return ordenes.stream()
                     .map(OrdenCompra::getTotal)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+                    .reduce(Dinero.CERO, Dinero::sumar);
         }
         
         private Map<String, Integer> calcularProductosVendidos() {
@@ -116,14 +116,12 @@ public class GeneradorReporteVentas {
                     ));
         }
         
-        private Map<String, BigDecimal> calcularVolumenPorProducto() {
+        private Map<String, Dinero> calcularVolumenPorProducto() {
             return ordenes.stream()
                     .flatMap(orden -> orden.getItems().stream())
                     .collect(Collectors.groupingBy(
                             item -> item.getProducto().getNombre(),
-                            Collectors.reducing(BigDecimal.ZERO, 
-                                    item -> item.getPrecioUnitario().multiply(BigDecimal.valueOf(item.getCantidad())),
-                                    BigDecimal::add)
+                            Collectors.reducing(Dinero.CERO, item -> item.getSubtotal(), Dinero::sumar)
                     ));
         }
         
@@ -140,7 +138,7 @@ public class GeneradorReporteVentas {
             return ordenes;
         }
         
-        public BigDecimal getTotalVentas() {
+        public Dinero getTotalVentas() {
             return totalVentas;
         }
         
@@ -152,7 +150,7 @@ public class GeneradorReporteVentas {
             return productosVendidos;
         }
         
-        public Map<String, BigDecimal> getVolumenPorProducto() {
+        public Map<String, Dinero> getVolumenPorProducto() {
             return volumenPorProducto;
         }
         
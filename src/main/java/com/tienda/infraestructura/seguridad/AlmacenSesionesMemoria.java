@@ -0,0 +1,147 @@
+package com.tienda.infraestructura.seguridad;
+
+import com.tienda.dominio.AlmacenSesiones;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sesiones verificadas en memoria. Cada inicio de sesión exitoso recibe un token opaco
+ * de 256 bits; validar un token es una búsqueda en un mapa, sin volver a calcular el
+ * hash de la contraseña. Las sesiones vencen a la duración indicada desde su creación
+ * y la cantidad de sesiones vivas está acotada: al superarse se descartan las más
+ * antiguas.
+ */
+public class AlmacenSesionesMemoria implements AlmacenSesiones {
+
+    private static final int BYTES_TOKEN = 32;
+
+    private final Map<String, Sesion> sesiones = new ConcurrentHashMap<>();
+    /** Tokens en orden de creación; los revocados quedan hasta llegar al frente. Protegida por sí misma */
+    private final Deque<String> porAntiguedad = new ArrayDeque<>();
+    private final AtomicInteger cantidad = new AtomicInteger();
+    private final SecureRandom aleatorio = new SecureRandom();
+    private final long duracionNanos;
+    private final int maximoSesiones;
+
+    /**
+     * @param duracion tiempo de vida de cada sesión
+     * @param maximoSesiones cantidad máxima de sesiones vivas
+     */
+    public AlmacenSesionesMemoria(Duration duracion, int maximoSesiones) {
+        if (duracion.isNegative() || duracion.isZero()) {
+            throw new IllegalArgumentException("La duración de las sesiones debe ser mayor a cero");
+        }
+        if (maximoSesiones < 1) {
+            throw new IllegalArgumentException("La cantidad máxima de sesiones debe ser mayor a cero");
+        }
+        this.duracionNanos = duracion.toNanos();
+        this.maximoSesiones = maximoSesiones;
+    }
+
+    @Override
+    public String crear(UUID usuarioId) {
+        byte[] bytes = new byte[BYTES_TOKEN];
+        aleatorio.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        long ahora = System.nanoTime();
+        sesiones.put(token, new Sesion(usuarioId, ahora + duracionNanos));
+        cantidad.incrementAndGet();
+        synchronized (porAntiguedad) {
+            porAntiguedad.addLast(token);
+            depurar(ahora);
+        }
+        return token;
+    }
+
+    @Override
+    public Optional<UUID> validar(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        Sesion sesion = sesiones.get(token);
+        if (sesion == null) {
+            return Optional.empty();
+        }
+        if (sesion.vencida(System.nanoTime())) {
+            quitar(token, sesion);
+            return Optional.empty();
+        }
+        return Optional.of(sesion.usuarioId);
+    }
+
+    @Override
+    public boolean revocar(String token) {
+        Sesion sesion = token != null ? sesiones.get(token) : null;
+        return sesion != null && quitar(token, sesion);
+    }
+
+    @Override
+    public int revocarUsuario(UUID usuarioId) {
+        int revocadas = 0;
+        for (Map.Entry<String, Sesion> entrada : sesiones.entrySet()) {
+            if (entrada.getValue().usuarioId.equals(usuarioId) && quitar(entrada.getKey(), entrada.getValue())) {
+                revocadas++;
+            }
+        }
+        return revocadas;
+    }
+
+    /**
+     * Cantidad de sesiones vivas, incluidas las vencidas que aún no se depuraron
+     * @return cantidad de sesiones
+     */
+    public int getCantidad() {
+        return cantidad.get();
+    }
+
+    /**
+     * Descarta desde el frente de la cola los tokens vencidos o revocados y, si se
+     * superó el máximo, las sesiones más antiguas hasta volver al límite. Como todas las
+     * sesiones duran lo mismo, la más antigua es también la primera en vencer.
+     */
+    private void depurar(long ahora) {
+        String token;
+        while ((token = porAntiguedad.peekFirst()) != null) {
+            Sesion sesion = sesiones.get(token);
+            if (sesion != null && !sesion.vencida(ahora) && cantidad.get() <= maximoSesiones) {
+                return;
+            }
+            porAntiguedad.pollFirst();
+            if (sesion != null) {
+                quitar(token, sesion);
+            }
+        }
+    }
+
+    private boolean quitar(String token, Sesion sesion) {
+        if (sesiones.remove(token, sesion)) {
+            cantidad.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private static final class Sesion {
+        private final UUID usuarioId;
+        private final long venceEn;
+
+        private Sesion(UUID usuarioId, long venceEn) {
+            this.usuarioId = usuarioId;
+            this.venceEn = venceEn;
+        }
+
+        private boolean vencida(long ahora) {
+            return ahora - venceEn >= 0;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.tienda.infraestructura.seguridad;
+
+import com.tienda.dominio.CodificadorContrasenas;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Hash de contraseñas con PBKDF2-HMAC-SHA256 y sal aleatoria. El costo se ajusta con la
+ * cantidad de iteraciones, que queda guardada en el propio hash junto con la sal:
+ * {@code pbkdf2-sha256$iteraciones$sal$hash}. Así se pueden verificar hashes generados
+ * con otro costo y recodificarlos en el siguiente inicio de sesión.
+ */
+public class HashContrasenas implements CodificadorContrasenas {
+
+    public static final int ITERACIONES_POR_DEFECTO = 600_000;
+
+    private static final String ALGORITMO = "PBKDF2WithHmacSHA256";
+    private static final String PREFIJO = "pbkdf2-sha256$";
+    private static final int BYTES_SAL = 16;
+    private static final int BITS_HASH = 256;
+
+    private final int iteraciones;
+    private final SecureRandom aleatorio = new SecureRandom();
+
+    public HashContrasenas() {
+        this(ITERACIONES_POR_DEFECTO);
+    }
+
+    /**
+     * @param iteraciones factor de trabajo de los hashes nuevos
+     */
+    public HashContrasenas(int iteraciones) {
+        if (iteraciones < 1) {
+            throw new IllegalArgumentException("La cantidad de iteraciones debe ser mayor a cero");
+        }
+        this.iteraciones = iteraciones;
+    }
+
+    /**
+     * Calcula el hash de una contraseña con una sal nueva
+     * @param contrasena contraseña en texto plano
+     * @return hash codificado
+     */
+    @Override
+    public String codificar(String contrasena) {
+        byte[] sal = new byte[BYTES_SAL];
+        aleatorio.nextBytes(sal);
+        byte[] hash = derivar(contrasena, sal, iteraciones);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIJO + iteraciones + "$" + base64.encodeToString(sal) + "$" + base64.encodeToString(hash);
+    }
+
+    /**
+     * Verifica una contraseña contra el valor guardado, comparando en tiempo constante.
+     * Un valor guardado que no es un hash se compara como texto plano (usuarios
+     * anteriores a este formato).
+     * @param contrasena contraseña en texto plano
+     * @param guardado hash codificado o contraseña guardada
+     * @return true si la contraseña corresponde al valor guardado
+     */
+    @Override
+    public boolean verificar(String contrasena, String guardado) {
+        if (contrasena == null || guardado == null) {
+            return false;
+        }
+        if (!esHash(guardado)) {
+            return MessageDigest.isEqual(contrasena.getBytes(StandardCharsets.UTF_8),
+                    guardado.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] partes = guardado.split("\\$");
+        if (partes.length != 4) {
+            return false;
+        }
+        try {
+            int iteracionesGuardadas = Integer.parseInt(partes[1]);
+            byte[] sal = Base64.getDecoder().decode(partes[2]);
+            byte[] esperado = Base64.getDecoder().decode(partes[3]);
+            return MessageDigest.isEqual(esperado, derivar(contrasena, sal, iteracionesGuardadas));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Indica si el valor guardado debe recalcularse con el factor de trabajo actual
+     * @param guardado hash codificado o contraseña guardada
+     * @return true si es texto plano o se generó con otra cantidad de iteraciones
+     */
+    @Override
+    public boolean necesitaRecodificar(String guardado) {
+        return !esHash(guardado) || !guardado.startsWith(PREFIJO + iteraciones + "$");
+    }
+
+    /**
+     * Indica si un valor guardado tiene el formato de hash de esta clase
+     * @param guardado valor guardado
+     * @return true si es un hash codificado
+     */
+    public static boolean esHash(String guardado) {
+        return guardado != null && guardado.startsWith(PREFIJO);
+    }
+
+    public int getIteraciones() {
+        return iteraciones;
+    }
+
+    private static byte[] derivar(String contrasena, byte[] sal, int iteraciones) {
+        PBEKeySpec especificacion = new PBEKeySpec(contrasena.toCharArray(), sal, iteraciones, BITS_HASH);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITMO).generateSecret(especificacion).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo calcular el hash de la contraseña", e);
+        } finally {
+            especificacion.clearPassword();
+        }
+    }
+}
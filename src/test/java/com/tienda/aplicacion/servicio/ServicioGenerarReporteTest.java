@@ -0,0 +1,129 @@
+package com.tienda.aplicacion.servicio;
+
+import com.tienda.dominio.modelo.EstadoOrden;
+import com.tienda.dominio.modelo.ItemOrden;
+import com.tienda.dominio.modelo.OrdenCompra;
+import com.tienda.dominio.modelo.Producto;
+import com.tienda.dominio.modelo.Usuario;
+import com.tienda.dominio.repositorio.RepositorioOrdenCompra;
+import com.tienda.dominio.repositorio.RepositorioProducto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class ServicioGenerarReporteTest {
+
+    private final RepositorioOrdenCompraMemoria ordenes = new RepositorioOrdenCompraMemoria();
+    private final RepositorioOrdenCompraObservado observado = new RepositorioOrdenCompraObservado(ordenes);
+    private final Producto producto = new Producto("Teclado", "Teclado mecánico", new BigDecimal("50.00"), 100);
+    private final Usuario usuario = new Usuario("Ana", "ana@tienda.com", "clave");
+
+    @Test
+    void elCuboIncluyeLasOrdenesGuardadasAntesYDespuesDeCrearElServicio() {
+        observado.guardar(nuevaOrden(2));
+        CuboVentas cubo = new CuboVentas();
+        ServicioGenerarReporte servicio = new ServicioGenerarReporte(observado, mock(RepositorioProducto.class), cubo);
+
+        OrdenCompra posterior = observado.guardar(nuevaOrden(3));
+        observado.guardar(nuevaOrden(1));
+        observado.eliminar(posterior.getId());
+
+        Map<String, Object> reporte = servicio.generarReportePorPeriodo(LocalDate.now(), LocalDate.now());
+        assertEquals(2, reporte.get("totalOrdenes"));
+        assertEquals(new BigDecimal("150.00"), reporte.get("totalVentas"));
+        assertEquals(3L, reporte.get("unidadesVendidas"));
+    }
+
+    @Test
+    void elRankingIncluyeLasOrdenesCompletadasAntesYDespuesDeCrearElServicio() {
+        OrdenCompra anterior = nuevaOrden(2);
+        anterior.completar();
+        observado.guardar(anterior);
+        OrdenCompra pendiente = observado.guardar(nuevaOrden(5));
+        ServicioGenerarReporte servicio = new ServicioGenerarReporte(observado, mock(RepositorioProducto.class),
+                null, new RankingProductosVendidos());
+
+        pendiente.completar();
+        observado.guardar(pendiente);
+        observado.guardar(pendiente);
+
+        List<Map<String, Object>> ranking =
+                servicio.obtenerProductosMasVendidos(RankingProductosVendidos.Ventana.ULTIMA_HORA, 10);
+        assertEquals(1, ranking.size());
+        assertEquals(producto.getId().toString(), ranking.get(0).get("productoId"));
+        assertEquals(7L, ranking.get(0).get("cantidadVendida"));
+    }
+
+    private OrdenCompra nuevaOrden(int cantidad) {
+        OrdenCompra orden = new OrdenCompra(usuario);
+        orden.agregarItem(new ItemOrden(producto, cantidad));
+        return orden;
+    }
+
+    /**
+     * Repositorio de órdenes del modelo en memoria, solo para las pruebas
+     */
+    private static final class RepositorioOrdenCompraMemoria implements RepositorioOrdenCompra {
+        private final Map<UUID, OrdenCompra> ordenes = new ConcurrentHashMap<>();
+
+        @Override
+        public OrdenCompra guardar(OrdenCompra orden) {
+            ordenes.put(orden.getId(), orden);
+            return orden;
+        }
+
+        @Override
+        public Optional<OrdenCompra> buscarPorId(UUID id) {
+            return Optional.ofNullable(ordenes.get(id));
+        }
+
+        @Override
+        public List<OrdenCompra> obtenerPorUsuario(UUID usuarioId) {
+            return ordenes.values().stream()
+                    .filter(orden -> orden.getUsuario() != null && usuarioId.equals(orden.getUsuario().getId()))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public List<OrdenCompra> obtenerTodas() {
+            return new ArrayList<>(ordenes.values());
+        }
+
+        @Override
+        public List<OrdenCompra> obtenerPorEstado(EstadoOrden estado) {
+            return ordenes.values().stream()
+                    .filter(orden -> orden.getEstado() == estado)
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public List<OrdenCompra> obtenerPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
+            return ordenes.values().stream()
+                    .filter(orden -> !orden.getFechaCreacion().isBefore(fechaInicio)
+                            && !orden.getFechaCreacion().isAfter(fechaFin))
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public boolean eliminar(UUID id) {
+            return ordenes.remove(id) != null;
+        }
+
+        @Override
+        public boolean existe(UUID id) {
+            return ordenes.containsKey(id);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.tienda.infraestructura;
+
+import com.tienda.aplicacion.ServicioProcesarOrden;
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.Producto;
+import com.tienda.dominio.ServicioNotificacion;
+import com.tienda.dominio.Usuario;
+import com.tienda.infraestructura.seguridad.HashContrasenas;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BandejaSalidaNotificacionesTest {
+
+    private final ServicioNotificacionCompuesto compuesto = new ServicioNotificacionCompuesto(true);
+    private BandejaSalidaNotificaciones bandeja;
+
+    @AfterEach
+    void cerrar() {
+        compuesto.cerrar(5000);
+        if (bandeja != null) {
+            bandeja.cerrar(5000);
+        }
+    }
+
+    @Test
+    void crearUnaOrdenNoEsperaAUnCanalLento() {
+        NotificacionSimulada lento = new NotificacionSimulada(1000);
+        compuesto.agregarServicio("lento", lento, 1, 10, Duration.ofSeconds(5), 5, Duration.ofMinutes(1));
+        RepositorioProductoMemoria repositorioProducto = new RepositorioProductoMemoria();
+        RepositorioUsuarioMemoria repositorioUsuario = new RepositorioUsuarioMemoria(new HashContrasenas(1));
+        ServicioProcesarOrden servicioOrden = new ServicioProcesarOrden(new RepositorioOrdenCompraMemoria(),
+                repositorioProducto, repositorioUsuario, compuesto);
+        Producto producto = repositorioProducto.guardar(
+                new Producto("Teclado", "Teclado mecánico", new BigDecimal("50.00"), 10));
+        Usuario usuario = repositorioUsuario.guardar(new Usuario("Ana", "ana@tienda.com", "clave"));
+
+        long inicio = System.nanoTime();
+        servicioOrden.crearOrden(usuario.getId(), Collections.singletonList(new ItemOrden(producto, 1)));
+        long duracion = System.nanoTime() - inicio;
+
+        assertTrue(duracion < TimeUnit.MILLISECONDS.toNanos(500), "La orden esperó al canal de notificación");
+        assertTrue(esperarHasta(() -> lento.getEnvios() == 1));
+    }
+
+    @Test
+    void soloSeReintentaElCanalQueFallo() {
+        CanalInestable inestable = new CanalInestable(1);
+        NotificacionSimulada sano = new NotificacionSimulada(0);
+        compuesto.agregarServicio("inestable", inestable, 1, 10, Duration.ofSeconds(1), 5, Duration.ofMinutes(1));
+        compuesto.agregarServicio("sano", sano, 1, 10, Duration.ofSeconds(1), 5, Duration.ofMinutes(1));
+
+        compuesto.notificarMensaje(null, "asunto", "mensaje");
+
+        assertTrue(esperarHasta(() -> compuesto.obtenerEstadisticasBandejas().get("inestable").getEntregadas() == 1));
+        assertTrue(esperarHasta(() -> sano.getEnvios() == 1));
+        assertEquals(2, inestable.getLlamadas());
+        assertEquals(1, compuesto.obtenerEstadisticasBandejas().get("inestable").getReintentos());
+        assertEquals(0, compuesto.obtenerEstadisticasBandejas().get("sano").getReintentos());
+        assertEquals(1, sano.getEnvios());
+    }
+
+    @Test
+    void laNotificacionMuestraLaOrdenComoEstabaAlRegistrarse() {
+        CanalInestable destino = new CanalInestable(0);
+        destino.bloquear();
+        bandeja = new BandejaSalidaNotificaciones(destino, 10, 1, 1);
+        OrdenCompra orden = new OrdenCompra(new Usuario("Ana", "ana@tienda.com", "clave"));
+
+        bandeja.notificarNuevaOrden(orden);
+        orden.completar();
+        destino.liberar();
+
+        assertTrue(esperarHasta(() -> destino.getEstadosRecibidos().size() == 1));
+        assertEquals(OrdenCompra.EstadoOrden.PENDIENTE, destino.getEstadosRecibidos().get(0));
+    }
+
+    @Test
+    void conLaColaLlenaRechazaSinEntregarEnElHiloLlamante() {
+        CanalInestable destino = new CanalInestable(0);
+        destino.bloquear();
+        bandeja = new BandejaSalidaNotificaciones(destino, 1, 1, 1);
+
+        bandeja.notificarMensaje(null, "asunto", "en entrega");
+        assertTrue(esperarHasta(() -> bandeja.getProfundidadCola() == 0));
+        bandeja.notificarMensaje(null, "asunto", "en cola");
+        long inicio = System.nanoTime();
+        bandeja.notificarMensaje(null, "asunto", "rechazado");
+        long duracion = System.nanoTime() - inicio;
+        destino.liberar();
+
+        assertTrue(duracion < TimeUnit.MILLISECONDS.toNanos(100), "El registro esperó a la cola llena");
+        assertTrue(esperarHasta(() -> bandeja.obtenerEstadisticas().getEntregadas() == 2));
+        assertEquals(1, bandeja.obtenerEstadisticas().getRechazadas());
+        assertEquals(2, destino.getLlamadas());
+    }
+
+    private static boolean esperarHasta(BooleanSupplier condicion) {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condicion.getAsBoolean()) {
+            if (System.nanoTime() > limite) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Canal que falla en las primeras llamadas, puede retener los envíos hasta liberarse
+     * y registra el estado de cada orden recibida
+     */
+    private static final class CanalInestable implements ServicioNotificacion {
+        private final AtomicInteger fallosRestantes;
+        private final AtomicInteger llamadas = new AtomicInteger();
+        private final List<OrdenCompra.EstadoOrden> estadosRecibidos = new CopyOnWriteArrayList<>();
+        private final CountDownLatch liberado = new CountDownLatch(1);
+        private volatile boolean bloqueado;
+
+        private CanalInestable(int fallos) {
+            this.fallosRestantes = new AtomicInteger(fallos);
+        }
+
+        @Override
+        public void notificarNuevaOrden(OrdenCompra orden) {
+            enviar();
+            estadosRecibidos.add(orden.getEstado());
+        }
+
+        @Override
+        public void notificarCambioEstado(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
+            enviar();
+            estadosRecibidos.add(orden.getEstado());
+        }
+
+        @Override
+        public void notificarMensaje(Usuario destinatario, String asunto, String mensaje) {
+            enviar();
+        }
+
+        private void bloquear() {
+            this.bloqueado = true;
+        }
+
+        private void liberar() {
+            liberado.countDown();
+        }
+
+        private int getLlamadas() {
+            return llamadas.get();
+        }
+
+        private List<OrdenCompra.EstadoOrden> getEstadosRecibidos() {
+            return estadosRecibidos;
+        }
+
+        private void enviar() {
+            llamadas.incrementAndGet();
+            if (bloqueado) {
+                try {
+                    liberado.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (fallosRestantes.getAndDecrement() > 0) {
+                throw new IllegalStateException("Proveedor no disponible");
+            }
+        }
+    }
+}
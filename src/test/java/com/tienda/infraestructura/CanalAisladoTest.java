@@ -0,0 +1,128 @@
+package com.tienda.infraestructura;
+
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.ServicioNotificacion;
+import com.tienda.dominio.Usuario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CanalAisladoTest {
+
+    private final CanalBloqueado bloqueado = new CanalBloqueado();
+    private CanalAislado canal;
+
+    @AfterEach
+    void cerrar() {
+        bloqueado.liberar();
+        if (canal != null) {
+            canal.cerrar(TimeUnit.SECONDS.toNanos(5));
+        }
+    }
+
+    @Test
+    void conLosHilosYLaColaOcupadosRechazaSinContarFallo() throws InterruptedException {
+        InterruptorCircuito interruptor = new InterruptorCircuito(1, Duration.ofMinutes(1));
+        canal = new CanalAislado("bloqueado", bloqueado, 1, 1, Duration.ofSeconds(5), interruptor);
+
+        CanalAislado.EnvioEnCurso enHilo = canal.enviar(CanalAisladoTest::enviarMensaje, 1);
+        assertTrue(bloqueado.esperarInicio());
+        CanalAislado.EnvioEnCurso enCola = canal.enviar(CanalAisladoTest::enviarMensaje, 1);
+        CanalAislado.EnvioEnCurso rechazado = canal.enviar(CanalAisladoTest::enviarMensaje, 1);
+
+        assertNotNull(enHilo);
+        assertNotNull(enCola);
+        assertNull(rechazado);
+        assertEquals(1, canal.obtenerEstadisticas().getRechazosCola());
+        assertEquals(InterruptorCircuito.Estado.CERRADO, interruptor.getEstado());
+
+        bloqueado.liberar();
+        canal.esperar(enHilo, "mensaje");
+        canal.esperar(enCola, "mensaje");
+        assertEquals(2, canal.obtenerEstadisticas().getExitos());
+    }
+
+    @Test
+    void unEnvioQueSuperaElTiempoMaximoSeCancelaYCuentaComoFallo() {
+        InterruptorCircuito interruptor = new InterruptorCircuito(1, Duration.ofMinutes(1));
+        canal = new CanalAislado("bloqueado", bloqueado, 1, 1, Duration.ofMillis(50), interruptor);
+
+        long inicio = System.nanoTime();
+        canal.esperar(canal.enviar(CanalAisladoTest::enviarMensaje, 1), "mensaje");
+
+        assertTrue(System.nanoTime() - inicio < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1, canal.obtenerEstadisticas().getTiemposAgotados());
+        assertEquals(InterruptorCircuito.Estado.ABIERTO, interruptor.getEstado());
+    }
+
+    @Test
+    void unaEsperaInterrumpidaDuranteLaPruebaNoDejaElCircuitoTrabado() {
+        InterruptorCircuito interruptor = new InterruptorCircuito(1, Duration.ZERO);
+        interruptor.registrarFallo();
+        canal = new CanalAislado("bloqueado", bloqueado, 1, 1, Duration.ofSeconds(5), interruptor);
+
+        CanalAislado.EnvioEnCurso prueba = canal.enviar(CanalAisladoTest::enviarMensaje, 1);
+        assertNotNull(prueba);
+        assertEquals(InterruptorCircuito.Estado.SEMIABIERTO, interruptor.getEstado());
+        Thread.currentThread().interrupt();
+        try {
+            canal.esperar(prueba, "mensaje");
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+
+        assertTrue(interruptor.permitirLlamada());
+    }
+
+    private static void enviarMensaje(ServicioNotificacion servicio) {
+        servicio.notificarMensaje(null, "asunto", "mensaje");
+    }
+
+    /**
+     * Canal cuyos envíos quedan detenidos hasta que se lo libera
+     */
+    private static final class CanalBloqueado implements ServicioNotificacion {
+        private final CountDownLatch iniciado = new CountDownLatch(1);
+        private final CountDownLatch liberado = new CountDownLatch(1);
+
+        @Override
+        public void notificarNuevaOrden(OrdenCompra orden) {
+            bloquear();
+        }
+
+        @Override
+        public void notificarCambioEstado(OrdenCompra orden, OrdenCompra.EstadoOrden estadoAnterior) {
+            bloquear();
+        }
+
+        @Override
+        public void notificarMensaje(Usuario destinatario, String asunto, String mensaje) {
+            bloquear();
+        }
+
+        private void bloquear() {
+            iniciado.countDown();
+            try {
+                liberado.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private boolean esperarInicio() throws InterruptedException {
+            return iniciado.await(5, TimeUnit.SECONDS);
+        }
+
+        private void liberar() {
+            liberado.countDown();
+        }
+    }
+}
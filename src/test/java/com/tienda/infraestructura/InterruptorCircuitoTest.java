@@ -0,0 +1,105 @@
+package com.tienda.infraestructura;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InterruptorCircuitoTest {
+
+    @Test
+    void seAbreTrasLosFallosConsecutivosIndicados() {
+        InterruptorCircuito interruptor = new InterruptorCircuito(3, Duration.ofMinutes(1));
+
+        interruptor.registrarFallo();
+        interruptor.registrarFallo();
+        assertEquals(InterruptorCircuito.Estado.CERRADO, interruptor.getEstado());
+        assertTrue(interruptor.permitirLlamada());
+
+        interruptor.registrarFallo();
+        assertEquals(InterruptorCircuito.Estado.ABIERTO, interruptor.getEstado());
+        assertFalse(interruptor.permitirLlamada());
+    }
+
+    @Test
+    void unExitoReiniciaLaCuentaDeFallos() {
+        InterruptorCircuito interruptor = new InterruptorCircuito(2, Duration.ofMinutes(1));
+
+        interruptor.registrarFallo();
+        interruptor.registrarExito();
+        interruptor.registrarFallo();
+
+        assertEquals(InterruptorCircuito.Estado.CERRADO, interruptor.getEstado());
+    }
+
+    @Test
+    void pasadaLaEsperaDejaPasarUnaSolaLlamadaDePrueba() {
+        InterruptorCircuito interruptor = new InterruptorCircuito(1, Duration.ZERO);
+        interruptor.registrarFallo();
+
+        assertTrue(interruptor.permitirLlamada());
+        assertEquals(InterruptorCircuito.Estado.SEMIABIERTO, interruptor.getEstado());
+        assertFalse(interruptor.permitirLlamada());
+    }
+
+    @Test
+    void laPruebaExitosaCierraElCircuito() {
+        InterruptorCircuito interruptor = new InterruptorCircuito(1, Duration.ZERO);
+        interruptor.registrarFallo();
+        assertTrue(interruptor.permitirLlamada());
+
+        interruptor.registrarExito();
+
+        assertEquals(InterruptorCircuito.Estado.CERRADO, interruptor.getEstado());
+        assertTrue(interruptor.permitirLlamada());
+        assertTrue(interruptor.permitirLlamada());
+    }
+
+    @Test
+    void laPruebaFallidaVuelveAAbrirPorOtraEsperaCompleta() {
+        InterruptorCircuito interruptor = new InterruptorCircuito(5, Duration.ofMillis(100));
+        for (int i = 0; i < 5; i++) {
+            interruptor.registrarFallo();
+        }
+        esperar(150);
+        assertTrue(interruptor.permitirLlamada());
+
+        interruptor.registrarFallo();
+
+        assertEquals(InterruptorCircuito.Estado.ABIERTO, interruptor.getEstado());
+        assertFalse(interruptor.permitirLlamada());
+        esperar(150);
+        assertTrue(interruptor.permitirLlamada());
+    }
+
+    @Test
+    void unaPruebaDescartadaLiberaElLugarParaOtra() {
+        InterruptorCircuito interruptor = new InterruptorCircuito(1, Duration.ZERO);
+        interruptor.registrarFallo();
+        assertTrue(interruptor.permitirLlamada());
+
+        interruptor.descartarLlamada();
+
+        assertTrue(interruptor.permitirLlamada());
+        assertEquals(InterruptorCircuito.Estado.SEMIABIERTO, interruptor.getEstado());
+    }
+
+    @Test
+    void rechazaConfiguracionesInvalidas() {
+        assertThrows(IllegalArgumentException.class, () -> new InterruptorCircuito(0, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new InterruptorCircuito(1, Duration.ofMillis(-1)));
+    }
+
+    private static void esperar(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.tienda.infraestructura;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServicioNotificacionCompuestoTest {
+
+    private final ServicioNotificacionCompuesto servicio = new ServicioNotificacionCompuesto();
+
+    @AfterEach
+    void cerrar() {
+        servicio.cerrar(5000);
+    }
+
+    @Test
+    void unCanalLentoNoDemoraALosDemas() {
+        NotificacionSimulada rapido = new NotificacionSimulada(0);
+        NotificacionSimulada lento = new NotificacionSimulada(2000);
+        servicio.agregarServicio("rapido", rapido, 1, 10, Duration.ofMillis(100), 5, Duration.ofMinutes(1));
+        servicio.agregarServicio("lento", lento, 1, 10, Duration.ofMillis(100), 5, Duration.ofMinutes(1));
+
+        long inicio = System.nanoTime();
+        servicio.notificarMensaje(null, "asunto", "mensaje");
+        long duracion = System.nanoTime() - inicio;
+
+        assertTrue(duracion < TimeUnit.MILLISECONDS.toNanos(1000), "La llamada esperó al canal lento");
+        assertEquals(1, rapido.getEnvios());
+        List<EstadisticasCanalNotificacion> estadisticas = servicio.obtenerEstadisticas();
+        assertEquals(1, estadisticas.get(0).getExitos());
+        assertEquals(1, estadisticas.get(1).getTiemposAgotados());
+    }
+
+    @Test
+    void unCanalCaidoAbreSuCircuitoSinAfectarALosDemas() {
+        NotificacionSimulada sano = new NotificacionSimulada(0);
+        NotificacionSimulada caido = new NotificacionSimulada(0);
+        caido.setFallando(true);
+        servicio.agregarServicio("sano", sano, 1, 10, Duration.ofSeconds(1), 2, Duration.ofMinutes(1));
+        servicio.agregarServicio("caido", caido, 1, 10, Duration.ofSeconds(1), 2, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 3; i++) {
+            servicio.notificarMensaje(null, "asunto", "mensaje " + i);
+        }
+
+        EstadisticasCanalNotificacion estadisticasSano = servicio.obtenerEstadisticas().get(0);
+        EstadisticasCanalNotificacion estadisticasCaido = servicio.obtenerEstadisticas().get(1);
+        assertEquals(3, estadisticasSano.getExitos());
+        assertEquals(InterruptorCircuito.Estado.CERRADO, estadisticasSano.getEstadoCircuito());
+        assertEquals(2, estadisticasCaido.getFallos());
+        assertEquals(1, estadisticasCaido.getRechazosCircuito());
+        assertEquals(InterruptorCircuito.Estado.ABIERTO, estadisticasCaido.getEstadoCircuito());
+    }
+
+    @Test
+    void elCircuitoSeCierraCuandoLaPruebaTieneExito() throws InterruptedException {
+        NotificacionSimulada canal = new NotificacionSimulada(0);
+        canal.setFallando(true);
+        servicio.agregarServicio("canal", canal, 1, 10, Duration.ofSeconds(1), 1, Duration.ofMillis(100));
+
+        servicio.notificarMensaje(null, "asunto", "falla");
+        assertEquals(InterruptorCircuito.Estado.ABIERTO, servicio.obtenerEstadisticas().get(0).getEstadoCircuito());
+
+        canal.setFallando(false);
+        servicio.notificarMensaje(null, "asunto", "rechazado");
+        assertEquals(1, servicio.obtenerEstadisticas().get(0).getRechazosCircuito());
+
+        Thread.sleep(150);
+        servicio.notificarMensaje(null, "asunto", "prueba");
+
+        EstadisticasCanalNotificacion estadisticas = servicio.obtenerEstadisticas().get(0);
+        assertEquals(InterruptorCircuito.Estado.CERRADO, estadisticas.getEstadoCircuito());
+        assertEquals(1, estadisticas.getExitos());
+    }
+}
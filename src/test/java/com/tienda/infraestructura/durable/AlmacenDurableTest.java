@@ -0,0 +1,124 @@
+package com.tienda.infraestructura.durable;
+
+import com.tienda.compartido.Dinero;
+import com.tienda.dominio.ItemOrden;
+import com.tienda.dominio.OrdenCompra;
+import com.tienda.dominio.Producto;
+import com.tienda.dominio.Usuario;
+import com.tienda.infraestructura.seguridad.HashContrasenas;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlmacenDurableTest {
+
+    @TempDir
+    Path directorio;
+
+    private final List<AlmacenDurable> abiertos = new ArrayList<>();
+
+    @AfterEach
+    void cerrar() {
+        abiertos.forEach(AlmacenDurable::close);
+    }
+
+    @Test
+    void recuperaLasEscriturasSincronizadasTrasUnaCaida() {
+        AlmacenDurable almacen = abrir();
+        Producto producto = guardarProducto(almacen, "Teclado", "50.00", 10);
+        Usuario usuario = almacen.getRepositorioUsuario().guardar(new Usuario("Ana", "ana@tienda.com", "clave"));
+        OrdenCompra orden = guardarOrden(almacen, usuario, producto, 3);
+        producto.descontarStock(3);
+        almacen.getRepositorioProducto().guardar(producto);
+
+        // Sin cerrar el primer almacén, como si el proceso hubiera caído
+        AlmacenDurable recuperado = abrir();
+
+        Producto productoRecuperado = recuperado.getRepositorioProducto().buscarPorId(producto.getId()).get();
+        assertEquals(7, productoRecuperado.getStockDisponible());
+        Usuario usuarioRecuperado = recuperado.getRepositorioUsuario().buscarPorEmail("ana@tienda.com").get();
+        assertEquals(usuario.getId(), usuarioRecuperado.getId());
+        OrdenCompra ordenRecuperada = recuperado.getRepositorioOrden().buscarPorId(orden.getId()).get();
+        assertEquals(Dinero.de(new BigDecimal("150.00")), ordenRecuperada.getTotal());
+        assertEquals(3, ordenRecuperada.getItems().get(0).getCantidad());
+        assertTrue(ordenRecuperada.tieneItemsCongelados());
+        assertEquals(List.of(orden.getId()),
+                usuarioRecuperado.getHistorialOrdenes().obtenerPagina(null, 10).getElementos());
+    }
+
+    @Test
+    void recuperaDesdeElSnapshotYElLogPosterior() throws IOException {
+        AlmacenDurable almacen = abrir();
+        Producto producto = guardarProducto(almacen, "Mouse", "20.00", 5);
+        almacen.tomarSnapshot();
+        producto.setStockDisponible(2);
+        almacen.getRepositorioProducto().guardar(producto);
+        Producto posterior = guardarProducto(almacen, "Monitor", "300.00", 1);
+
+        AlmacenDurable recuperado = abrir();
+
+        assertEquals(1, listar("snapshot-").size());
+        assertEquals(2, recuperado.getRepositorioProducto().buscarPorId(producto.getId()).get().getStockDisponible());
+        assertEquals("Monitor", recuperado.getRepositorioProducto().buscarPorId(posterior.getId()).get().getNombre());
+    }
+
+    @Test
+    void descartaElRegistroIncompletoAlFinalDelLog() throws IOException {
+        AlmacenDurable almacen = abrir();
+        Producto producto = guardarProducto(almacen, "Teclado", "50.00", 10);
+        List<Path> segmentos = listar("wal-");
+        Path ultimo = segmentos.get(segmentos.size() - 1);
+        long tamanoCompleto = Files.size(ultimo);
+        // Cabecera de un registro de 1000 bytes del que solo llegaron unos pocos
+        Files.write(ultimo, new byte[] {0, 0, 3, (byte) 0xE8, 1, 2, 3, 4, 9, 9}, StandardOpenOption.APPEND);
+
+        AlmacenDurable recuperado = abrir();
+        Producto nuevo = guardarProducto(recuperado, "Mouse", "20.00", 5);
+        AlmacenDurable recuperadoOtraVez = abrir();
+
+        assertEquals(1, recuperado.getRegistrosRecuperados());
+        assertEquals(2, recuperadoOtraVez.getRegistrosRecuperados());
+        assertTrue(recuperadoOtraVez.getRepositorioProducto().buscarPorId(producto.getId()).isPresent());
+        assertTrue(recuperadoOtraVez.getRepositorioProducto().buscarPorId(nuevo.getId()).isPresent());
+        assertEquals(tamanoCompleto, Files.size(ultimo), "El registro incompleto no se truncó");
+    }
+
+    private AlmacenDurable abrir() {
+        AlmacenDurable almacen = new AlmacenDurable(directorio, new HashContrasenas(1), true, 0);
+        abiertos.add(almacen);
+        return almacen;
+    }
+
+    private static Producto guardarProducto(AlmacenDurable almacen, String nombre, String precio, int stock) {
+        return almacen.getRepositorioProducto().guardar(new Producto(nombre, nombre, new BigDecimal(precio), stock));
+    }
+
+    private static OrdenCompra guardarOrden(AlmacenDurable almacen, Usuario usuario, Producto producto, int cantidad) {
+        OrdenCompra orden = new OrdenCompra(usuario);
+        orden.agregarItem(new ItemOrden(producto, cantidad));
+        OrdenCompra guardada = almacen.getRepositorioOrden().guardar(orden);
+        usuario.agregarOrdenAlHistorial(guardada);
+        return guardada;
+    }
+
+    private List<Path> listar(String prefijo) throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.filter(ruta -> ruta.getFileName().toString().startsWith(prefijo))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.tienda.infraestructura.envio;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlanificadorEnviosTest {
+
+    private final ProveedorSimulado simulado = new ProveedorSimulado();
+    private PlanificadorEnvios planificador;
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        simulado.iniciar();
+    }
+
+    @AfterEach
+    void cerrar() {
+        simulado.liberar();
+        if (planificador != null) {
+            planificador.cerrar(5000);
+        }
+        simulado.detener();
+    }
+
+    @Test
+    void unaRespuesta429SuspendeAlProveedorYVuelveAEncolarElMensaje() {
+        simulado.responder(429, "1");
+        simulado.responder(200, null);
+        planificador = crearPlanificador(5);
+
+        planificador.enviar(mensaje("cliente@tienda.com", "confirmacion", PrioridadEnvio.TRANSACCIONAL));
+
+        assertTrue(esperarHasta(() -> planificador.obtenerEstadisticas().getEnviados() == 1));
+        EstadisticasPlanificadorEnvios estadisticas = planificador.obtenerEstadisticas();
+        assertEquals(1, estadisticas.getLimitados());
+        assertEquals(1, estadisticas.getReintentos());
+        assertEquals(0, estadisticas.getDescartados());
+        assertEquals(2, simulado.getRecibidos().size());
+        long separacion = simulado.getRecibidosNanos().get(1) - simulado.getRecibidosNanos().get(0);
+        assertTrue(separacion >= TimeUnit.MILLISECONDS.toNanos(900), "No respetó el Retry-After del proveedor");
+    }
+
+    @Test
+    void losTransaccionalesSalenAntesQueLosPromocionalesEncolados() throws InterruptedException {
+        simulado.bloquearPrimero();
+        planificador = crearPlanificador(5);
+
+        planificador.enviar(mensaje("a@tienda.com", "primero", PrioridadEnvio.PROMOCIONAL));
+        assertTrue(simulado.esperarPrimero());
+        planificador.enviar(mensaje("b@tienda.com", "oferta 1", PrioridadEnvio.PROMOCIONAL));
+        planificador.enviar(mensaje("c@tienda.com", "oferta 2", PrioridadEnvio.PROMOCIONAL));
+        planificador.enviar(mensaje("d@tienda.com", "confirmacion", PrioridadEnvio.TRANSACCIONAL));
+        simulado.liberar();
+
+        assertTrue(esperarHasta(() -> planificador.obtenerEstadisticas().getEnviados() == 4));
+        List<String> recibidos = simulado.getRecibidos();
+        assertTrue(recibidos.get(0).contains("\"contenido\":\"primero\""));
+        assertTrue(recibidos.get(1).contains("\"contenido\":\"confirmacion\""));
+        assertTrue(recibidos.get(2).contains("\"contenido\":\"oferta 1\""));
+        assertTrue(recibidos.get(3).contains("\"contenido\":\"oferta 2\""));
+        EstadisticasPlanificadorEnvios estadisticas = planificador.obtenerEstadisticas();
+        assertEquals(1, estadisticas.getEnviados(PrioridadEnvio.TRANSACCIONAL));
+        assertEquals(3, estadisticas.getEnviados(PrioridadEnvio.PROMOCIONAL));
+    }
+
+    @Test
+    void unFalloDelProveedorSeReintentaYSeDescartaAlAgotarLosIntentos() {
+        simulado.setEstadoPorDefecto(500);
+        planificador = crearPlanificador(2);
+
+        planificador.enviar(mensaje("cliente@tienda.com", "confirmacion", PrioridadEnvio.TRANSACCIONAL));
+
+        assertTrue(esperarHasta(() -> planificador.obtenerEstadisticas().getDescartados() == 1));
+        EstadisticasPlanificadorEnvios estadisticas = planificador.obtenerEstadisticas();
+        assertEquals(2, simulado.getRecibidos().size());
+        assertEquals(1, estadisticas.getReintentos());
+        assertEquals(0, estadisticas.getEnviados());
+        assertEquals(0, estadisticas.getLimitados());
+        assertEquals(0, estadisticas.getPendientes());
+    }
+
+    private PlanificadorEnvios crearPlanificador(int maxIntentos) {
+        ProveedorHttp proveedor = new ProveedorHttp(simulado.getUrl(), Duration.ofSeconds(5));
+        return new PlanificadorEnvios("simulado", proveedor, 100, 10, 100, 10, 100, maxIntentos);
+    }
+
+    private static MensajeSaliente mensaje(String destinatario, String contenido, PrioridadEnvio prioridad) {
+        return new MensajeSaliente(destinatario, "asunto", contenido, prioridad);
+    }
+
+    private static boolean esperarHasta(BooleanSupplier condicion) {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condicion.getAsBoolean()) {
+            if (System.nanoTime() > limite) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * API de envío local que responde según un guion y registra los cuerpos recibidos
+     */
+    private static final class ProveedorSimulado {
+        private final Queue<Respuesta> guion = new ConcurrentLinkedQueue<>();
+        private final List<String> recibidos = new CopyOnWriteArrayList<>();
+        private final List<Long> recibidosNanos = new CopyOnWriteArrayList<>();
+        private final CountDownLatch primeroRecibido = new CountDownLatch(1);
+        private final CountDownLatch liberado = new CountDownLatch(1);
+        private volatile boolean bloquearPrimero;
+        private volatile int estadoPorDefecto = 200;
+        private HttpServer servidor;
+
+        private void iniciar() throws IOException {
+            servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            servidor.createContext("/mensajes", this::atender);
+            servidor.start();
+        }
+
+        private void detener() {
+            servidor.stop(0);
+        }
+
+        private URI getUrl() {
+            return URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+                    + servidor.getAddress().getPort() + "/mensajes");
+        }
+
+        private void responder(int estado, String reintentarDespues) {
+            guion.add(new Respuesta(estado, reintentarDespues));
+        }
+
+        private void setEstadoPorDefecto(int estado) {
+            this.estadoPorDefecto = estado;
+        }
+
+        private void bloquearPrimero() {
+            this.bloquearPrimero = true;
+        }
+
+        private boolean esperarPrimero() throws InterruptedException {
+            return primeroRecibido.await(5, TimeUnit.SECONDS);
+        }
+
+        private void liberar() {
+            liberado.countDown();
+        }
+
+        private List<String> getRecibidos() {
+            return new ArrayList<>(recibidos);
+        }
+
+        private List<Long> getRecibidosNanos() {
+            return new ArrayList<>(recibidosNanos);
+        }
+
+        private void atender(HttpExchange intercambio) throws IOException {
+            try (InputStream cuerpo = intercambio.getRequestBody()) {
+                recibidosNanos.add(System.nanoTime());
+                recibidos.add(new String(cuerpo.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            if (bloquearPrimero && primeroRecibido.getCount() > 0) {
+                primeroRecibido.countDown();
+                try {
+                    liberado.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Respuesta respuesta = guion.poll();
+            int estado = respuesta != null ? respuesta.estado : estadoPorDefecto;
+            if (respuesta != null && respuesta.reintentarDespues != null) {
+                intercambio.getResponseHeaders().add("Retry-After", respuesta.reintentarDespues);
+            }
+            intercambio.sendResponseHeaders(estado, -1);
+            intercambio.close();
+        }
+    }
+
+    private static final class Respuesta {
+        private final int estado;
+        private final String reintentarDespues;
+
+        private Respuesta(int estado, String reintentarDespues) {
+            this.estado = estado;
+            this.reintentarDespues = reintentarDespues;
+        }
+    }
+}